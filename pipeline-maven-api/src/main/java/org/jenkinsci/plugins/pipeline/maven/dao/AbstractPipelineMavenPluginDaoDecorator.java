@@ -3,6 +3,7 @@ package org.jenkinsci.plugins.pipeline.maven.dao;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
@@ -89,6 +90,25 @@ public abstract class AbstractPipelineMavenPluginDaoDecorator implements Pipelin
                 classifier);
     }
 
+    @Override
+    public void recordBuildGraph(
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull Collection<MavenDependency> dependencies,
+            @NonNull Collection<MavenArtifact> parentProjects,
+            @NonNull Collection<MavenArtifact> generatedArtifacts,
+            boolean ignoreUpstreamTriggers,
+            boolean skipDownstreamTriggers) {
+        delegate.recordBuildGraph(
+                jobFullName,
+                buildNumber,
+                dependencies,
+                parentProjects,
+                generatedArtifacts,
+                ignoreUpstreamTriggers,
+                skipDownstreamTriggers);
+    }
+
     @Override
     public void recordBuildUpstreamCause(
             String upstreamJobName, int upstreamBuildNumber, String downstreamJobName, int downstreamBuildNumber) {
@@ -148,6 +168,13 @@ public abstract class AbstractPipelineMavenPluginDaoDecorator implements Pipelin
         return delegate.listDownstreamJobs(groupId, artifactId, version, baseVersion, type, classifier);
     }
 
+    @NonNull
+    @Override
+    public Map<MavenArtifact, SortedSet<String>> listDownstreamJobsByArtifact(
+            @NonNull Collection<MavenArtifact> mavenArtifacts) {
+        return delegate.listDownstreamJobsByArtifact(mavenArtifacts);
+    }
+
     @NonNull
     @Override
     public Map<String, Integer> listUpstreamJobs(@NonNull String jobFullName, int buildNumber) {
@@ -166,11 +193,37 @@ public abstract class AbstractPipelineMavenPluginDaoDecorator implements Pipelin
         return delegate.listTransitiveUpstreamJobs(jobFullName, buildNumber, upstreamMemory);
     }
 
+    @Override
+    public Boolean isUpstreamCauseAncestor(
+            @NonNull String jobFullName, int buildNumber, @NonNull String ancestorJobFullName) {
+        return delegate.isUpstreamCauseAncestor(jobFullName, buildNumber, ancestorJobFullName);
+    }
+
+    @Override
+    public Long getLastBuildDurationInMillis(@NonNull String jobFullName) {
+        return delegate.getLastBuildDurationInMillis(jobFullName);
+    }
+
+    @Override
+    public void visitLastSuccessfulBuildGraph(@Nullable String jobFullName, @NonNull BuildGraphVisitor visitor) {
+        delegate.visitLastSuccessfulBuildGraph(jobFullName, visitor);
+    }
+
     @Override
     public void cleanup() {
         delegate.cleanup();
     }
 
+    @Override
+    public void cleanup(long maxDurationInMillis) {
+        delegate.cleanup(maxDurationInMillis);
+    }
+
+    @Override
+    public void compactBuildHistory(int buildsToKeep, long maxDurationInMillis) {
+        delegate.compactBuildHistory(buildsToKeep, maxDurationInMillis);
+    }
+
     @Override
     public String toPrettyString() {
         return delegate.toPrettyString();
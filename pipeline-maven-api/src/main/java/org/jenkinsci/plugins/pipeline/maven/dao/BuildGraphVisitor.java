@@ -0,0 +1,26 @@
+package org.jenkinsci.plugins.pipeline.maven.dao;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
+
+/**
+ * Receives the edges of the dependency graph of builds.
+ *
+ * @see PipelineMavenPluginDao#visitLastSuccessfulBuildGraph(String, BuildGraphVisitor)
+ */
+public interface BuildGraphVisitor {
+
+    /**
+     * Called for each build before its edges.
+     */
+    void visitBuild(@NonNull String jobFullName, int buildNumber);
+
+    /**
+     * @param dependency the dependency, its version is the base version
+     */
+    void visitDependency(@NonNull String jobFullName, int buildNumber, @NonNull MavenArtifact dependency);
+
+    void visitParentProject(@NonNull String jobFullName, int buildNumber, @NonNull MavenArtifact parentProject);
+
+    void visitGeneratedArtifact(@NonNull String jobFullName, int buildNumber, @NonNull MavenArtifact artifact);
+}
@@ -0,0 +1,495 @@
+package org.jenkinsci.plugins.pipeline.maven.dao;
+
+import static java.util.Optional.ofNullable;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import hudson.model.Result;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
+import org.jenkinsci.plugins.pipeline.maven.MavenDependency;
+
+/**
+ * This decorator caches, for the whole controller, the answers used to evaluate the downstream pipelines to trigger:
+ * {@link #getGeneratedArtifacts(String, int)}, {@link #listDownstreamJobsByArtifact(String, int)},
+ * {@link #listUpstreamJobs(String, int)} and {@link #listTransitiveUpstreamJobs(String, int)}.
+ * <p>
+ * The caches are keyed by {@code jobFullName#buildNumber}, bounded by {@code TRIGGER_CACHE_MAX_SIZE} entries each
+ * (least recently used entries are evicted first) and by a time to live of {@code TRIGGER_CACHE_TTL_IN_SECONDS}.
+ * <p>
+ * Each entry remembers the jobs involved in its answer: the job of the key and the upstream or downstream jobs of the
+ * value. The writes invalidate the entries of the recorded build, a successful build invalidates the entries involving
+ * its job, the deletion or the renaming of a job invalidates the entries involving the job. The entries involving the
+ * jobs related to the new last successful build of a job are invalidated by the next read, which first loads the
+ * upstream and downstream jobs of this build. The entries relying on the previous successful build of a job whose last
+ * successful build is deleted may remain until they expire.
+ * <p>
+ * The cached answers are unmodifiable.
+ */
+public class CachingPipelineMavenPluginDaoDecorator extends AbstractPipelineMavenPluginDaoDecorator {
+
+    private static final int MAX_SIZE = Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.TRIGGER_CACHE_MAX_SIZE", 1_000);
+
+    private static final long TTL_IN_NANOS = TimeUnit.SECONDS.toNanos(Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.TRIGGER_CACHE_TTL_IN_SECONDS", 300));
+
+    private static final AtomicInteger GET_GENERATED_ARTIFACTS_HITS = new AtomicInteger();
+    private static final AtomicInteger GET_GENERATED_ARTIFACTS_MISSES = new AtomicInteger();
+
+    private static final AtomicInteger LIST_DOWNSTREAM_JOBS_HITS = new AtomicInteger();
+    private static final AtomicInteger LIST_DOWNSTREAM_JOBS_MISSES = new AtomicInteger();
+
+    private static final AtomicInteger LIST_UPSTREAM_JOBS_HITS = new AtomicInteger();
+    private static final AtomicInteger LIST_UPSTREAM_JOBS_MISSES = new AtomicInteger();
+
+    private static final AtomicInteger LIST_TRANSITIVE_UPSTREAM_JOBS_HITS = new AtomicInteger();
+    private static final AtomicInteger LIST_TRANSITIVE_UPSTREAM_JOBS_MISSES = new AtomicInteger();
+
+    static {
+        MonitoringPipelineMavenPluginDaoDecorator.registerCacheStatsSupplier(() -> new CacheStats(
+                "getGeneratedArtifacts", GET_GENERATED_ARTIFACTS_HITS.get(), GET_GENERATED_ARTIFACTS_MISSES.get()));
+        MonitoringPipelineMavenPluginDaoDecorator.registerCacheStatsSupplier(() -> new CacheStats(
+                "listDownstreamJobsByArtifact", LIST_DOWNSTREAM_JOBS_HITS.get(), LIST_DOWNSTREAM_JOBS_MISSES.get()));
+        MonitoringPipelineMavenPluginDaoDecorator.registerCacheStatsSupplier(() ->
+                new CacheStats("listUpstreamJobs", LIST_UPSTREAM_JOBS_HITS.get(), LIST_UPSTREAM_JOBS_MISSES.get()));
+        MonitoringPipelineMavenPluginDaoDecorator.registerCacheStatsSupplier(() -> new CacheStats(
+                "listTransitiveUpstreamJobs",
+                LIST_TRANSITIVE_UPSTREAM_JOBS_HITS.get(),
+                LIST_TRANSITIVE_UPSTREAM_JOBS_MISSES.get()));
+    }
+
+    private final Cache<List<MavenArtifact>> generatedArtifacts;
+    private final Cache<Map<MavenArtifact, SortedSet<String>>> downstreamJobsByArtifact;
+    private final Cache<Map<String, Integer>> upstreamJobs;
+    private final Cache<Map<String, Integer>> transitiveUpstreamJobs;
+
+    /**
+     * Successful builds whose upstream and downstream jobs are not loaded yet, see
+     * {@link #invalidateRelatedJobsOfSuccessfulBuilds()}
+     */
+    private final Queue<SuccessfulBuild> successfulBuilds = new ConcurrentLinkedQueue<>();
+
+    public CachingPipelineMavenPluginDaoDecorator(@NonNull PipelineMavenPluginDao delegate) {
+        this(delegate, MAX_SIZE, TTL_IN_NANOS);
+    }
+
+    /**
+     * @param maxSize     maximum number of entries of each cache, {@code 0} to disable the caches
+     * @param ttlInNanos  time to live of the entries
+     */
+    public CachingPipelineMavenPluginDaoDecorator(
+            @NonNull PipelineMavenPluginDao delegate, int maxSize, long ttlInNanos) {
+        super(delegate);
+        generatedArtifacts = new Cache<>(
+                maxSize,
+                ttlInNanos,
+                GET_GENERATED_ARTIFACTS_HITS,
+                GET_GENERATED_ARTIFACTS_MISSES,
+                value -> Collections.emptySet());
+        downstreamJobsByArtifact = new Cache<>(
+                maxSize,
+                ttlInNanos,
+                LIST_DOWNSTREAM_JOBS_HITS,
+                LIST_DOWNSTREAM_JOBS_MISSES,
+                CachingPipelineMavenPluginDaoDecorator::downstreamJobs);
+        upstreamJobs = new Cache<>(
+                maxSize, ttlInNanos, LIST_UPSTREAM_JOBS_HITS, LIST_UPSTREAM_JOBS_MISSES, Map::keySet);
+        transitiveUpstreamJobs = new Cache<>(
+                maxSize,
+                ttlInNanos,
+                LIST_TRANSITIVE_UPSTREAM_JOBS_HITS,
+                LIST_TRANSITIVE_UPSTREAM_JOBS_MISSES,
+                Map::keySet);
+    }
+
+    @Override
+    public void recordDependency(
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull String groupId,
+            @NonNull String artifactId,
+            @NonNull String version,
+            @NonNull String type,
+            @NonNull String scope,
+            boolean ignoreUpstreamTriggers,
+            String classifier) {
+        super.recordDependency(
+                jobFullName,
+                buildNumber,
+                groupId,
+                artifactId,
+                version,
+                type,
+                scope,
+                ignoreUpstreamTriggers,
+                classifier);
+        invalidateBuild(jobFullName, buildNumber);
+    }
+
+    @Override
+    public void recordParentProject(
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull String parentGroupId,
+            @NonNull String parentArtifactId,
+            @NonNull String parentVersion,
+            boolean ignoreUpstreamTriggers) {
+        super.recordParentProject(
+                jobFullName, buildNumber, parentGroupId, parentArtifactId, parentVersion, ignoreUpstreamTriggers);
+        invalidateBuild(jobFullName, buildNumber);
+    }
+
+    @Override
+    public void recordGeneratedArtifact(
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull String groupId,
+            @NonNull String artifactId,
+            @NonNull String version,
+            @NonNull String type,
+            @NonNull String baseVersion,
+            @Nullable String repositoryUrl,
+            boolean skipDownstreamTriggers,
+            String extension,
+            String classifier) {
+        super.recordGeneratedArtifact(
+                jobFullName,
+                buildNumber,
+                groupId,
+                artifactId,
+                version,
+                type,
+                baseVersion,
+                repositoryUrl,
+                skipDownstreamTriggers,
+                extension,
+                classifier);
+        invalidateBuild(jobFullName, buildNumber);
+    }
+
+    @Override
+    public void recordBuildGraph(
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull Collection<MavenDependency> dependencies,
+            @NonNull Collection<MavenArtifact> parentProjects,
+            @NonNull Collection<MavenArtifact> generatedArtifacts,
+            boolean ignoreUpstreamTriggers,
+            boolean skipDownstreamTriggers) {
+        super.recordBuildGraph(
+                jobFullName,
+                buildNumber,
+                dependencies,
+                parentProjects,
+                generatedArtifacts,
+                ignoreUpstreamTriggers,
+                skipDownstreamTriggers);
+        invalidateBuild(jobFullName, buildNumber);
+    }
+
+    @Override
+    public void updateBuildOnCompletion(
+            @NonNull String jobFullName,
+            int buildNumber,
+            int buildResultOrdinal,
+            long startTimeInMillis,
+            long durationInMillis) {
+        super.updateBuildOnCompletion(
+                jobFullName, buildNumber, buildResultOrdinal, startTimeInMillis, durationInMillis);
+        invalidateBuild(jobFullName, buildNumber);
+        if (Result.SUCCESS.ordinal != buildResultOrdinal) {
+            return;
+        }
+        invalidateJobs(Collections.singleton(jobFullName));
+        // the new last successful build of the job may have new upstream and downstream jobs, loaded by the next read
+        successfulBuilds.add(new SuccessfulBuild(jobFullName, buildNumber));
+    }
+
+    @Override
+    public void deleteBuild(@NonNull String jobFullName, int buildNumber) {
+        super.deleteBuild(jobFullName, buildNumber);
+        generatedArtifacts.invalidate(jobFullName, buildNumber);
+        invalidateJobs(Collections.singleton(jobFullName));
+    }
+
+    @Override
+    public void deleteJob(@NonNull String jobFullName) {
+        super.deleteJob(jobFullName);
+        invalidateJobs(Collections.singleton(jobFullName));
+    }
+
+    @Override
+    public void renameJob(@NonNull String oldFullName, @NonNull String newFullName) {
+        super.renameJob(oldFullName, newFullName);
+        invalidateJobs(new HashSet<>(Arrays.asList(oldFullName, newFullName)));
+    }
+
+    @Override
+    public void compactBuildHistory(int buildsToKeep, long maxDurationInMillis) {
+        super.compactBuildHistory(buildsToKeep, maxDurationInMillis);
+        // the graph of the compacted builds is deleted
+        generatedArtifacts.invalidateAll();
+        downstreamJobsByArtifact.invalidateAll();
+        upstreamJobs.invalidateAll();
+        transitiveUpstreamJobs.invalidateAll();
+    }
+
+    @NonNull
+    @Override
+    public List<MavenArtifact> getGeneratedArtifacts(@NonNull String jobFullName, int buildNumber) {
+        invalidateRelatedJobsOfSuccessfulBuilds();
+        return generatedArtifacts.get(
+                jobFullName,
+                buildNumber,
+                () -> Collections.unmodifiableList(super.getGeneratedArtifacts(jobFullName, buildNumber)));
+    }
+
+    @NonNull
+    @Override
+    public Map<MavenArtifact, SortedSet<String>> listDownstreamJobsByArtifact(
+            @NonNull String jobFullName, int buildNumber) {
+        invalidateRelatedJobsOfSuccessfulBuilds();
+        return loadDownstreamJobsByArtifact(jobFullName, buildNumber);
+    }
+
+    @NonNull
+    @Override
+    public Map<String, Integer> listUpstreamJobs(@NonNull String jobFullName, int buildNumber) {
+        invalidateRelatedJobsOfSuccessfulBuilds();
+        return loadUpstreamJobs(jobFullName, buildNumber);
+    }
+
+    @NonNull
+    @Override
+    public Map<String, Integer> listTransitiveUpstreamJobs(@NonNull String jobFullName, int buildNumber) {
+        invalidateRelatedJobsOfSuccessfulBuilds();
+        return transitiveUpstreamJobs.get(
+                jobFullName,
+                buildNumber,
+                () -> Collections.unmodifiableMap(super.listTransitiveUpstreamJobs(jobFullName, buildNumber)));
+    }
+
+    @Override
+    public Map<String, Integer> listTransitiveUpstreamJobs(
+            String jobFullName, int buildNumber, UpstreamMemory upstreamMemory) {
+        invalidateRelatedJobsOfSuccessfulBuilds();
+        return transitiveUpstreamJobs.get(
+                jobFullName,
+                buildNumber,
+                () -> Collections.unmodifiableMap(
+                        super.listTransitiveUpstreamJobs(jobFullName, buildNumber, upstreamMemory)));
+    }
+
+    @Override
+    public String toPrettyString() {
+        StringBuilder builder = new StringBuilder(ofNullable(super.toPrettyString()).orElse(""));
+        builder.append("\r\n Trigger evaluation cache: ");
+        builder.append("\r\n\t entries: generatedArtifacts=")
+                .append(generatedArtifacts.size())
+                .append(", downstreamJobsByArtifact=")
+                .append(downstreamJobsByArtifact.size())
+                .append(", upstreamJobs=")
+                .append(upstreamJobs.size())
+                .append(", transitiveUpstreamJobs=")
+                .append(transitiveUpstreamJobs.size());
+        return builder.toString();
+    }
+
+    @NonNull
+    private Map<MavenArtifact, SortedSet<String>> loadDownstreamJobsByArtifact(
+            @NonNull String jobFullName, int buildNumber) {
+        return downstreamJobsByArtifact.get(jobFullName, buildNumber, () -> {
+            Map<MavenArtifact, SortedSet<String>> jobsByArtifact = new LinkedHashMap<>();
+            super.listDownstreamJobsByArtifact(jobFullName, buildNumber)
+                    .forEach((artifact, jobs) -> jobsByArtifact.put(artifact, Collections.unmodifiableSortedSet(jobs)));
+            return Collections.unmodifiableMap(jobsByArtifact);
+        });
+    }
+
+    @NonNull
+    private Map<String, Integer> loadUpstreamJobs(@NonNull String jobFullName, int buildNumber) {
+        return upstreamJobs.get(
+                jobFullName,
+                buildNumber,
+                () -> Collections.unmodifiableMap(super.listUpstreamJobs(jobFullName, buildNumber)));
+    }
+
+    /**
+     * Invalidate the entries involving the upstream and downstream jobs of the builds that succeeded since the last
+     * read. The answers loaded for these builds are kept: they are typically the next ones read to trigger the
+     * downstream pipelines. The reads wait for the invalidation in progress, the builds are dequeued once done.
+     */
+    private void invalidateRelatedJobsOfSuccessfulBuilds() {
+        if (successfulBuilds.isEmpty()) {
+            return;
+        }
+        synchronized (successfulBuilds) {
+            SuccessfulBuild build;
+            while ((build = successfulBuilds.peek()) != null) {
+                Set<String> jobFullNames =
+                        new HashSet<>(loadUpstreamJobs(build.jobFullName, build.buildNumber).keySet());
+                jobFullNames.addAll(
+                        downstreamJobs(loadDownstreamJobsByArtifact(build.jobFullName, build.buildNumber)));
+                generatedArtifacts.invalidateJobs(jobFullNames);
+                downstreamJobsByArtifact.invalidateJobs(jobFullNames, build.jobFullName, build.buildNumber);
+                upstreamJobs.invalidateJobs(jobFullNames, build.jobFullName, build.buildNumber);
+                transitiveUpstreamJobs.invalidateJobs(jobFullNames);
+                successfulBuilds.remove();
+            }
+        }
+    }
+
+    private void invalidateBuild(@NonNull String jobFullName, int buildNumber) {
+        generatedArtifacts.invalidate(jobFullName, buildNumber);
+        downstreamJobsByArtifact.invalidate(jobFullName, buildNumber);
+        upstreamJobs.invalidate(jobFullName, buildNumber);
+        transitiveUpstreamJobs.invalidate(jobFullName, buildNumber);
+    }
+
+    private void invalidateJobs(@NonNull Set<String> jobFullNames) {
+        generatedArtifacts.invalidateJobs(jobFullNames);
+        downstreamJobsByArtifact.invalidateJobs(jobFullNames);
+        upstreamJobs.invalidateJobs(jobFullNames);
+        transitiveUpstreamJobs.invalidateJobs(jobFullNames);
+    }
+
+    @NonNull
+    private static Set<String> downstreamJobs(
+            @NonNull Map<MavenArtifact, SortedSet<String>> downstreamJobsByArtifact) {
+        Set<String> downstreamJobs = new HashSet<>();
+        downstreamJobsByArtifact.values().forEach(downstreamJobs::addAll);
+        return downstreamJobs;
+    }
+
+    /**
+     * Least recently used cache. The delegate is never called holding the lock of the cache: the generation,
+     * incremented by each invalidation, prevents an answer computed during an invalidation from being cached.
+     */
+    private static class Cache<V> {
+
+        private final long ttlInNanos;
+        private final AtomicInteger hits;
+        private final AtomicInteger misses;
+        private final Function<V, Set<String>> involvedJobs;
+
+        private final Map<String, Entry<V>> entries;
+        private long generation;
+
+        Cache(
+                int maxSize,
+                long ttlInNanos,
+                AtomicInteger hits,
+                AtomicInteger misses,
+                Function<V, Set<String>> involvedJobs) {
+            this.ttlInNanos = ttlInNanos;
+            this.hits = hits;
+            this.misses = misses;
+            this.involvedJobs = involvedJobs;
+            this.entries = new LinkedHashMap<String, Entry<V>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        V get(String jobFullName, int buildNumber, Supplier<V> loader) {
+            String key = jobFullName + '#' + buildNumber;
+            long generation;
+            synchronized (this) {
+                Entry<V> entry = entries.get(key);
+                if (entry != null && System.nanoTime() - entry.expirationTimeInNanos < 0) {
+                    hits.incrementAndGet();
+                    return entry.value;
+                }
+                entries.remove(key);
+                generation = this.generation;
+            }
+            misses.incrementAndGet();
+            V value = loader.get();
+            synchronized (this) {
+                put(key, jobFullName, value, generation);
+            }
+            return value;
+        }
+
+        synchronized void invalidate(String jobFullName, int buildNumber) {
+            entries.remove(jobFullName + '#' + buildNumber);
+            generation++;
+        }
+
+        synchronized void invalidateJobs(Set<String> jobFullNames) {
+            entries.values()
+                    .removeIf(entry -> jobFullNames.contains(entry.jobFullName)
+                            || !Collections.disjoint(entry.involvedJobs, jobFullNames));
+            generation++;
+        }
+
+        /**
+         * Invalidate the entries involving the given jobs but the entry of the given build
+         */
+        synchronized void invalidateJobs(Set<String> jobFullNames, String jobFullName, int buildNumber) {
+            Entry<V> kept = entries.remove(jobFullName + '#' + buildNumber);
+            invalidateJobs(jobFullNames);
+            if (kept != null) {
+                entries.put(jobFullName + '#' + buildNumber, kept);
+            }
+        }
+
+        synchronized void invalidateAll() {
+            entries.clear();
+            generation++;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        private void put(String key, String jobFullName, V value, long generation) {
+            if (generation == this.generation) {
+                entries.put(
+                        key,
+                        new Entry<>(jobFullName, involvedJobs.apply(value), value, System.nanoTime() + ttlInNanos));
+            }
+        }
+    }
+
+    private static class SuccessfulBuild {
+        final String jobFullName;
+        final int buildNumber;
+
+        SuccessfulBuild(String jobFullName, int buildNumber) {
+            this.jobFullName = jobFullName;
+            this.buildNumber = buildNumber;
+        }
+    }
+
+    private static class Entry<V> {
+        final String jobFullName;
+        final Set<String> involvedJobs;
+        final V value;
+        final long expirationTimeInNanos;
+
+        Entry(String jobFullName, Set<String> involvedJobs, V value, long expirationTimeInNanos) {
+            this.jobFullName = jobFullName;
+            this.involvedJobs = involvedJobs;
+            this.value = value;
+            this.expirationTimeInNanos = expirationTimeInNanos;
+        }
+    }
+}
@@ -2,10 +2,14 @@ package org.jenkinsci.plugins.pipeline.maven.dao;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
+import org.jenkinsci.plugins.pipeline.maven.MavenDependency;
 
 /**
  * This decorator handles the reporting of generated artifacts with custom types which do not match the artifact extension.
@@ -73,6 +77,51 @@ public class CustomTypePipelineMavenPluginDaoDecorator extends AbstractPipelineM
         }
     }
 
+    @Override
+    public void recordBuildGraph(
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull Collection<MavenDependency> dependencies,
+            @NonNull Collection<MavenArtifact> parentProjects,
+            @NonNull Collection<MavenArtifact> generatedArtifacts,
+            boolean ignoreUpstreamTriggers,
+            boolean skipDownstreamTriggers) {
+        List<MavenArtifact> artifacts = new ArrayList<>(generatedArtifacts);
+        for (MavenArtifact artifact : generatedArtifacts) {
+            if (shouldReportAgainWithExtensionAsType(artifact.getType(), artifact.getExtension())) {
+                LOGGER.log(
+                        Level.FINE,
+                        "Recording generated artifact " + artifact.getGroupId() + ":" + artifact.getArtifactId() + ":"
+                                + artifact.getVersion() + " as " + artifact.getExtension() + " (in addition to "
+                                + artifact.getType() + ")");
+                artifacts.add(withExtensionAsType(artifact));
+            }
+        }
+        super.recordBuildGraph(
+                jobFullName,
+                buildNumber,
+                dependencies,
+                parentProjects,
+                artifacts,
+                ignoreUpstreamTriggers,
+                skipDownstreamTriggers);
+    }
+
+    private MavenArtifact withExtensionAsType(MavenArtifact artifact) {
+        MavenArtifact result = new MavenArtifact();
+        result.setGroupId(artifact.getGroupId());
+        result.setArtifactId(artifact.getArtifactId());
+        result.setVersion(artifact.getVersion());
+        result.setBaseVersion(artifact.getBaseVersion());
+        result.setType(artifact.getExtension());
+        result.setClassifier(artifact.getClassifier());
+        result.setExtension(artifact.getExtension());
+        result.setFile(artifact.getFile());
+        result.setSnapshot(artifact.isSnapshot());
+        result.setRepositoryUrl(artifact.getRepositoryUrl());
+        return result;
+    }
+
     private boolean shouldReportAgainWithExtensionAsType(String type, String extension) {
         if (KNOWN_JAR_TYPES_WITH_DIFFERENT_EXTENSION.contains(type)) {
             return false;
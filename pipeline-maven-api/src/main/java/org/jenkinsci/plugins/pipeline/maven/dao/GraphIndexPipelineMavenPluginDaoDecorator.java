@@ -0,0 +1,1013 @@
+package org.jenkinsci.plugins.pipeline.maven.dao;
+
+import static java.util.Optional.ofNullable;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import hudson.model.Result;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
+import org.jenkinsci.plugins.pipeline.maven.MavenDependency;
+
+/**
+ * This decorator keeps in memory the dependency graph of the last successful build of the jobs to answer the
+ * upstream and downstream queries without querying the database, which remains the system of record.
+ * <p>
+ * The graph is loaded with {@link #visitLastSuccessfulBuildGraph(String, BuildGraphVisitor)}, the queries are
+ * delegated until it's loaded. The graph of a job is loaded again in the background when its last successful build
+ * changes, the queries are delegated while some jobs wait to be loaded again so that the writers never wait for the
+ * loads. The queries concerning a build which is not the last successful build of its job are delegated.
+ * <p>
+ * The transitive upstream jobs of each job are kept as a bitset of job ids, computed on first use and discarded when
+ * the graph of one of these jobs changes.
+ * <p>
+ * One in {@code GRAPH_INDEX_CONSISTENCY_CHECK_INTERVAL} answers is compared with the answer of the delegate, the
+ * whole graph is loaded again on mismatch.
+ */
+public class GraphIndexPipelineMavenPluginDaoDecorator extends AbstractPipelineMavenPluginDaoDecorator {
+
+    private static final Logger LOGGER = Logger.getLogger(GraphIndexPipelineMavenPluginDaoDecorator.class.getName());
+
+    private static final int CONSISTENCY_CHECK_INTERVAL = Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.GRAPH_INDEX_CONSISTENCY_CHECK_INTERVAL", 100);
+
+    private static final int[] NO_IDS = new int[0];
+
+    /**
+     * Serializes the loads so that the last one sees the latest state of the database.
+     */
+    private final Object loadLock = new Object();
+
+    /**
+     * Jobs to load again with the sequence number of their last change, removed once loaded unless they changed in the
+     * meantime.
+     */
+    private final ConcurrentMap<String, Long> jobsToLoad = new ConcurrentHashMap<>();
+
+    private final AtomicLong jobsToLoadSequence = new AtomicLong();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // the jobs and the artifacts are identified by their index in the following lists, guarded by lock
+
+    private final Map<String, Integer> jobIds = new HashMap<>();
+    private final List<String> jobFullNames = new ArrayList<>();
+    /**
+     * Graph of the last successful build by job id, {@code null} if the job has no successful build.
+     */
+    private final List<JobGraph> jobGraphs = new ArrayList<>();
+    /**
+     * Ids of the transitive upstream jobs by job id, {@code null} if not computed yet. Filled with the read lock while
+     * synchronized on the list.
+     */
+    private final List<BitSet> transitiveUpstreamJobIds = new ArrayList<>();
+
+    private final Map<String, Integer> artifactIds = new HashMap<>();
+    /**
+     * Sorted ids of the jobs depending on the artifact, by artifact id.
+     */
+    private final List<int[]> dependentJobIds = new ArrayList<>();
+    /**
+     * Sorted ids of the jobs having the artifact as parent project, by artifact id.
+     */
+    private final List<int[]> childJobIds = new ArrayList<>();
+    /**
+     * Sorted ids of the jobs generating the artifact, by artifact id.
+     */
+    private final List<int[]> generatingJobIds = new ArrayList<>();
+
+    private volatile boolean loaded;
+    /**
+     * If the loader is running, it loads the whole graph then the jobs to load.
+     */
+    private final AtomicBoolean loading = new AtomicBoolean();
+    private final AtomicBoolean fullLoadRequested = new AtomicBoolean();
+    private final Executor loader;
+
+    private final int consistencyCheckInterval;
+
+    private final AtomicLong indexedReadCount = new AtomicLong();
+    private final AtomicLong delegatedReadCount = new AtomicLong();
+    private final AtomicLong consistencyCheckCount = new AtomicLong();
+    private final AtomicLong inconsistencyCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private volatile long lastLoadDurationInNanos;
+
+    public GraphIndexPipelineMavenPluginDaoDecorator(@NonNull PipelineMavenPluginDao delegate) {
+        this(delegate, CONSISTENCY_CHECK_INTERVAL);
+    }
+
+    /**
+     * @param consistencyCheckInterval one in {@code consistencyCheckInterval} answers is checked against the delegate,
+     *                                 {@code 0} to disable the checks
+     */
+    public GraphIndexPipelineMavenPluginDaoDecorator(
+            @NonNull PipelineMavenPluginDao delegate, int consistencyCheckInterval) {
+        this(delegate, consistencyCheckInterval, task -> {
+            Thread thread = new Thread(task, "Pipeline Maven Plugin graph index loader");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    /**
+     * @param consistencyCheckInterval one in {@code consistencyCheckInterval} answers is checked against the delegate,
+     *                                 {@code 0} to disable the checks
+     * @param loader                   runs the loads of the graph and of the changed jobs
+     */
+    public GraphIndexPipelineMavenPluginDaoDecorator(
+            @NonNull PipelineMavenPluginDao delegate, int consistencyCheckInterval, @NonNull Executor loader) {
+        super(delegate);
+        this.consistencyCheckInterval = consistencyCheckInterval;
+        this.loader = loader;
+    }
+
+    /**
+     * Load the graph in a background thread, the queries are delegated in the meantime.
+     */
+    public void loadInBackground() {
+        loaded = false;
+        fullLoadRequested.set(true);
+        startLoader();
+    }
+
+    /**
+     * Load the graph of the given job again in a background thread, the queries are delegated in the meantime.
+     */
+    private void loadJobInBackground(@NonNull String jobFullName) {
+        if (loaded || loading.get()) {
+            jobsToLoad.put(jobFullName, jobsToLoadSequence.incrementAndGet());
+            startLoader();
+        }
+        // otherwise the graph is not loaded, the next load will see the change
+    }
+
+    private void startLoader() {
+        if (loading.compareAndSet(false, true)) {
+            try {
+                loader.execute(this::runLoader);
+            } catch (RejectedExecutionException e) {
+                loading.set(false);
+                LOGGER.log(Level.WARNING, "Graph index loader rejected, the queries are delegated", e);
+            }
+        }
+    }
+
+    private void runLoader() {
+        try {
+            while (true) {
+                if (fullLoadRequested.getAndSet(false)) {
+                    load();
+                } else if (!jobsToLoad.isEmpty()) {
+                    loadJobs();
+                } else {
+                    break;
+                }
+            }
+        } finally {
+            loading.set(false);
+        }
+        if (fullLoadRequested.get() || !jobsToLoad.isEmpty()) {
+            // requested after the loop ended
+            startLoader();
+        }
+    }
+
+    /**
+     * Load the whole graph, the queries keep being delegated if the delegate can't list it.
+     */
+    public void load() {
+        synchronized (loadLock) {
+            long startTimeInNanos = System.nanoTime();
+            BuildGraphCollector collector = new BuildGraphCollector();
+            try {
+                delegate.visitLastSuccessfulBuildGraph(null, collector);
+            } catch (UnsupportedOperationException e) {
+                LOGGER.log(Level.INFO, "Graph index disabled, the graph can''t be listed by {0}", delegate);
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Exception loading the graph index, the queries are delegated", e);
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                jobIds.clear();
+                jobFullNames.clear();
+                jobGraphs.clear();
+                transitiveUpstreamJobIds.clear();
+                artifactIds.clear();
+                dependentJobIds.clear();
+                childJobIds.clear();
+                generatingJobIds.clear();
+                for (Map.Entry<String, BuildGraph> buildGraph : collector.buildGraphs.entrySet()) {
+                    setJobGraph(getOrCreateJobId(buildGraph.getKey()), toJobGraph(buildGraph.getValue()));
+                }
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            loadCount.incrementAndGet();
+            lastLoadDurationInNanos = System.nanoTime() - startTimeInNanos;
+            LOGGER.log(Level.INFO, "Graph index loaded: {0} jobs, {1} artifacts in {2} ms", new Object[] {
+                collector.buildGraphs.size(),
+                artifactIds.size(),
+                TimeUnit.NANOSECONDS.toMillis(lastLoadDurationInNanos)
+            });
+        }
+    }
+
+    /**
+     * Load the graph of the jobs changed since their last load.
+     */
+    private void loadJobs() {
+        synchronized (loadLock) {
+            for (Map.Entry<String, Long> jobToLoad : new HashMap<>(jobsToLoad).entrySet()) {
+                if (!loaded) {
+                    // the next load will see the changes
+                    jobsToLoad.clear();
+                    return;
+                }
+                String jobFullName = jobToLoad.getKey();
+                BuildGraphCollector collector = new BuildGraphCollector();
+                try {
+                    delegate.visitLastSuccessfulBuildGraph(jobFullName, collector);
+                } catch (RuntimeException e) {
+                    LOGGER.log(
+                            Level.WARNING,
+                            "Exception loading the graph of " + jobFullName + ", load the whole graph",
+                            e);
+                    jobsToLoad.clear();
+                    loadInBackground();
+                    return;
+                }
+                BuildGraph buildGraph = collector.buildGraphs.get(jobFullName);
+                lock.writeLock().lock();
+                try {
+                    setJobGraph(getOrCreateJobId(jobFullName), buildGraph == null ? null : toJobGraph(buildGraph));
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                jobsToLoad.remove(jobFullName, jobToLoad.getValue());
+            }
+        }
+    }
+
+    /**
+     * Load the graph of the given job if the given build is its last successful build, some edges were added to it.
+     */
+    private void loadJobIfLastSuccessfulBuild(@NonNull String jobFullName, int buildNumber) {
+        if (!loaded) {
+            loadJobInBackground(jobFullName);
+            return;
+        }
+        JobGraph jobGraph;
+        lock.readLock().lock();
+        try {
+            jobGraph = getJobGraph(jobFullName, buildNumber);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (jobGraph != null) {
+            loadJobInBackground(jobFullName);
+        }
+    }
+
+    @Override
+    public void recordDependency(
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull String groupId,
+            @NonNull String artifactId,
+            @NonNull String version,
+            @NonNull String type,
+            @NonNull String scope,
+            boolean ignoreUpstreamTriggers,
+            String classifier) {
+        super.recordDependency(
+                jobFullName,
+                buildNumber,
+                groupId,
+                artifactId,
+                version,
+                type,
+                scope,
+                ignoreUpstreamTriggers,
+                classifier);
+        loadJobIfLastSuccessfulBuild(jobFullName, buildNumber);
+    }
+
+    @Override
+    public void recordParentProject(
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull String parentGroupId,
+            @NonNull String parentArtifactId,
+            @NonNull String parentVersion,
+            boolean ignoreUpstreamTriggers) {
+        super.recordParentProject(
+                jobFullName, buildNumber, parentGroupId, parentArtifactId, parentVersion, ignoreUpstreamTriggers);
+        loadJobIfLastSuccessfulBuild(jobFullName, buildNumber);
+    }
+
+    @Override
+    public void recordGeneratedArtifact(
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull String groupId,
+            @NonNull String artifactId,
+            @NonNull String version,
+            @NonNull String type,
+            @NonNull String baseVersion,
+            @Nullable String repositoryUrl,
+            boolean skipDownstreamTriggers,
+            String extension,
+            String classifier) {
+        super.recordGeneratedArtifact(
+                jobFullName,
+                buildNumber,
+                groupId,
+                artifactId,
+                version,
+                type,
+                baseVersion,
+                repositoryUrl,
+                skipDownstreamTriggers,
+                extension,
+                classifier);
+        loadJobIfLastSuccessfulBuild(jobFullName, buildNumber);
+    }
+
+    @Override
+    public void recordBuildGraph(
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull Collection<MavenDependency> dependencies,
+            @NonNull Collection<MavenArtifact> parentProjects,
+            @NonNull Collection<MavenArtifact> generatedArtifacts,
+            boolean ignoreUpstreamTriggers,
+            boolean skipDownstreamTriggers) {
+        super.recordBuildGraph(
+                jobFullName,
+                buildNumber,
+                dependencies,
+                parentProjects,
+                generatedArtifacts,
+                ignoreUpstreamTriggers,
+                skipDownstreamTriggers);
+        loadJobIfLastSuccessfulBuild(jobFullName, buildNumber);
+    }
+
+    @Override
+    public void updateBuildOnCompletion(
+            @NonNull String jobFullName,
+            int buildNumber,
+            int buildResultOrdinal,
+            long startTimeInMillis,
+            long durationInMillis) {
+        super.updateBuildOnCompletion(
+                jobFullName, buildNumber, buildResultOrdinal, startTimeInMillis, durationInMillis);
+        if (Result.SUCCESS.ordinal == buildResultOrdinal) {
+            loadJobInBackground(jobFullName);
+        }
+    }
+
+    @Override
+    public void deleteBuild(@NonNull String jobFullName, int buildNumber) {
+        super.deleteBuild(jobFullName, buildNumber);
+        // the previous successful build becomes the last successful build
+        loadJobIfLastSuccessfulBuild(jobFullName, buildNumber);
+    }
+
+    @Override
+    public void deleteJob(@NonNull String jobFullName) {
+        super.deleteJob(jobFullName);
+        loadJobInBackground(jobFullName);
+    }
+
+    @Override
+    public void renameJob(@NonNull String oldFullName, @NonNull String newFullName) {
+        super.renameJob(oldFullName, newFullName);
+        loadJobInBackground(oldFullName);
+        loadJobInBackground(newFullName);
+    }
+
+    @NonNull
+    @Override
+    public Map<MavenArtifact, SortedSet<String>> listDownstreamJobsByArtifact(
+            @NonNull String jobFullName, int buildNumber) {
+        return query(
+                () -> indexedDownstreamJobsByArtifact(jobFullName, buildNumber),
+                () -> super.listDownstreamJobsByArtifact(jobFullName, buildNumber),
+                true);
+    }
+
+    @NonNull
+    @Override
+    public SortedSet<String> listDownstreamJobs(
+            @NonNull String groupId,
+            @NonNull String artifactId,
+            @NonNull String version,
+            @Nullable String baseVersion,
+            @NonNull String type,
+            @Nullable String classifier) {
+        return query(
+                () -> indexedDownstreamJobs(getArtifactKey(
+                        groupId, artifactId, baseVersion == null ? version : baseVersion, type, classifier)),
+                () -> super.listDownstreamJobs(groupId, artifactId, version, baseVersion, type, classifier),
+                true);
+    }
+
+    @NonNull
+    @Override
+    public Map<MavenArtifact, SortedSet<String>> listDownstreamJobsByArtifact(
+            @NonNull Collection<MavenArtifact> mavenArtifacts) {
+        return query(
+                () -> {
+                    Map<MavenArtifact, SortedSet<String>> downstreamJobsByArtifact = new HashMap<>();
+                    for (MavenArtifact mavenArtifact : mavenArtifacts) {
+                        SortedSet<String> downstreamJobs = indexedDownstreamJobs(getArtifactKey(
+                                mavenArtifact.getGroupId(),
+                                mavenArtifact.getArtifactId(),
+                                mavenArtifact.getBaseVersion() == null
+                                        ? mavenArtifact.getVersion()
+                                        : mavenArtifact.getBaseVersion(),
+                                mavenArtifact.getType(),
+                                mavenArtifact.getClassifier()));
+                        if (!downstreamJobs.isEmpty()) {
+                            downstreamJobsByArtifact.put(mavenArtifact, downstreamJobs);
+                        }
+                    }
+                    return downstreamJobsByArtifact;
+                },
+                () -> super.listDownstreamJobsByArtifact(mavenArtifacts),
+                true);
+    }
+
+    @NonNull
+    @Override
+    public Map<String, Integer> listUpstreamJobs(@NonNull String jobFullName, int buildNumber) {
+        return query(
+                () -> indexedUpstreamJobs(jobFullName, buildNumber),
+                () -> super.listUpstreamJobs(jobFullName, buildNumber),
+                true);
+    }
+
+    /**
+     * The transitive upstream jobs of a last successful build are read from its bitset, without depth limit. For the
+     * other builds, the upstream jobs are listed by {@link #listUpstreamJobs(String, int)} then their bitsets are
+     * merged. The answers are not checked against the delegate as its depth may be limited, the underlying edges are
+     * checked through the other queries.
+     */
+    @NonNull
+    @Override
+    public Map<String, Integer> listTransitiveUpstreamJobs(@NonNull String jobFullName, int buildNumber) {
+        if (!isReadable()) {
+            delegatedReadCount.incrementAndGet();
+            return super.listTransitiveUpstreamJobs(jobFullName, buildNumber);
+        }
+        Map<String, Integer> transitiveUpstreamJobs =
+                readIndex(() -> indexedTransitiveUpstreamJobs(jobFullName, buildNumber));
+        if (transitiveUpstreamJobs != null) {
+            indexedReadCount.incrementAndGet();
+            return transitiveUpstreamJobs;
+        }
+        Map<String, Integer> upstreamJobs = listUpstreamJobs(jobFullName, buildNumber);
+        return query(
+                () -> indexedTransitiveUpstreamJobs(jobFullName, upstreamJobs),
+                () -> super.listTransitiveUpstreamJobs(jobFullName, buildNumber),
+                false);
+    }
+
+    /**
+     * The {@code upstreamMemory} is not used, the graph is walked in memory.
+     */
+    @Override
+    public Map<String, Integer> listTransitiveUpstreamJobs(
+            String jobFullName, int buildNumber, UpstreamMemory upstreamMemory) {
+        if (!isReadable()) {
+            delegatedReadCount.incrementAndGet();
+            return super.listTransitiveUpstreamJobs(jobFullName, buildNumber, upstreamMemory);
+        }
+        return listTransitiveUpstreamJobs(jobFullName, buildNumber);
+    }
+
+    /**
+     * @param indexQuery     answer from the graph, {@code null} if the graph can't answer
+     * @param delegateQuery  answer from the delegate
+     * @param checkable      if the answers of both queries are expected to be equal
+     */
+    private <T> T query(Supplier<T> indexQuery, Supplier<T> delegateQuery, boolean checkable) {
+        T result = readIndex(indexQuery);
+        if (result == null) {
+            delegatedReadCount.incrementAndGet();
+            return delegateQuery.get();
+        }
+        long readCount = indexedReadCount.incrementAndGet();
+        if (checkable && consistencyCheckInterval > 0 && readCount % consistencyCheckInterval == 0) {
+            consistencyCheckCount.incrementAndGet();
+            T expected = delegateQuery.get();
+            if (!expected.equals(result)) {
+                inconsistencyCount.incrementAndGet();
+                LOGGER.log(
+                        Level.WARNING,
+                        "Graph index inconsistent with the database, found {0} instead of {1}, load the graph again",
+                        new Object[] {result, expected});
+                loadInBackground();
+                return expected;
+            }
+        }
+        return result;
+    }
+
+    @CheckForNull
+    private <T> T readIndex(Supplier<T> indexQuery) {
+        if (!isReadable()) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return isReadable() ? indexQuery.get() : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * If the graph is loaded and no job waits to be loaded again.
+     */
+    private boolean isReadable() {
+        return loaded && jobsToLoad.isEmpty();
+    }
+
+    @CheckForNull
+    private Map<MavenArtifact, SortedSet<String>> indexedDownstreamJobsByArtifact(
+            @NonNull String jobFullName, int buildNumber) {
+        JobGraph jobGraph = getJobGraph(jobFullName, buildNumber);
+        if (jobGraph == null) {
+            return null;
+        }
+        Map<MavenArtifact, SortedSet<String>> downstreamJobsByArtifact = new HashMap<>();
+        for (int i = 0; i < jobGraph.generatedArtifactIds.length; i++) {
+            SortedSet<String> downstreamJobs = new TreeSet<>();
+            addJobFullNames(downstreamJobs, dependentJobIds.get(jobGraph.generatedArtifactIds[i]));
+            addJobFullNames(downstreamJobs, childJobIds.get(jobGraph.generatedArtifactIds[i]));
+            // JENKINS-50507 Don't return the passed job in case of pipelines consuming the artifacts they produce
+            downstreamJobs.remove(jobFullName);
+            if (!downstreamJobs.isEmpty()) {
+                downstreamJobsByArtifact
+                        .computeIfAbsent(copy(jobGraph.generatedArtifacts[i]), artifact -> new TreeSet<>())
+                        .addAll(downstreamJobs);
+            }
+        }
+        return downstreamJobsByArtifact;
+    }
+
+    @NonNull
+    private SortedSet<String> indexedDownstreamJobs(@NonNull String artifactKey) {
+        SortedSet<String> downstreamJobs = new TreeSet<>();
+        Integer artifactId = artifactIds.get(artifactKey);
+        if (artifactId != null) {
+            addJobFullNames(downstreamJobs, dependentJobIds.get(artifactId));
+        }
+        return downstreamJobs;
+    }
+
+    @CheckForNull
+    private Map<String, Integer> indexedUpstreamJobs(@NonNull String jobFullName, int buildNumber) {
+        JobGraph jobGraph = getJobGraph(jobFullName, buildNumber);
+        if (jobGraph == null) {
+            return null;
+        }
+        Map<String, Integer> upstreamJobs = new HashMap<>();
+        addUpstreamJobs(upstreamJobs, jobGraph);
+        // JENKINS-50507 Don't return the passed job in case of pipelines consuming the artifacts they produce
+        upstreamJobs.remove(jobFullName);
+        return upstreamJobs;
+    }
+
+    @CheckForNull
+    private Map<String, Integer> indexedTransitiveUpstreamJobs(@NonNull String jobFullName, int buildNumber) {
+        if (getJobGraph(jobFullName, buildNumber) == null) {
+            return null;
+        }
+        return toTransitiveUpstreamJobs(jobFullName, getTransitiveUpstreamJobIds(jobIds.get(jobFullName)));
+    }
+
+    @CheckForNull
+    private Map<String, Integer> indexedTransitiveUpstreamJobs(
+            @NonNull String jobFullName, @NonNull Map<String, Integer> upstreamJobs) {
+        BitSet upstreamJobIds = new BitSet();
+        for (Map.Entry<String, Integer> upstreamJob : upstreamJobs.entrySet()) {
+            if (getJobGraph(upstreamJob.getKey(), upstreamJob.getValue()) == null) {
+                // the graph changed since the upstream jobs were listed
+                return null;
+            }
+            int upstreamJobId = jobIds.get(upstreamJob.getKey());
+            upstreamJobIds.set(upstreamJobId);
+            upstreamJobIds.or(getTransitiveUpstreamJobIds(upstreamJobId));
+        }
+        return toTransitiveUpstreamJobs(jobFullName, upstreamJobIds);
+    }
+
+    @CheckForNull
+    private Map<String, Integer> toTransitiveUpstreamJobs(@NonNull String jobFullName, @NonNull BitSet upstreamJobIds) {
+        Map<String, Integer> transitiveUpstreamJobs = new HashMap<>();
+        for (int jobId = upstreamJobIds.nextSetBit(0); jobId >= 0; jobId = upstreamJobIds.nextSetBit(jobId + 1)) {
+            JobGraph jobGraph = jobGraphs.get(jobId);
+            if (jobGraph == null) {
+                return null;
+            }
+            transitiveUpstreamJobs.put(jobFullNames.get(jobId), jobGraph.buildNumber);
+        }
+        // the job is its own transitive upstream in case of cycles
+        transitiveUpstreamJobs.remove(jobFullName);
+        return transitiveUpstreamJobs;
+    }
+
+    /**
+     * Must be called with the read lock. The bitsets of the upstream jobs already computed are reused.
+     *
+     * @return the ids of the transitive upstream jobs of the job, including the job itself in case of cycles
+     */
+    @NonNull
+    private BitSet getTransitiveUpstreamJobIds(int jobId) {
+        synchronized (transitiveUpstreamJobIds) {
+            BitSet result = transitiveUpstreamJobIds.get(jobId);
+            if (result != null) {
+                return result;
+            }
+            result = new BitSet();
+            Deque<Integer> jobsToVisit = new ArrayDeque<>();
+            addUpstreamJobIds(result, jobsToVisit, jobId);
+            while (!jobsToVisit.isEmpty()) {
+                int upstreamJobId = jobsToVisit.poll();
+                BitSet upstreamJobIds = transitiveUpstreamJobIds.get(upstreamJobId);
+                if (upstreamJobIds == null) {
+                    addUpstreamJobIds(result, jobsToVisit, upstreamJobId);
+                } else {
+                    result.or(upstreamJobIds);
+                }
+            }
+            transitiveUpstreamJobIds.set(jobId, result);
+            return result;
+        }
+    }
+
+    private void addUpstreamJobIds(BitSet upstreamJobIds, Deque<Integer> jobsToVisit, int jobId) {
+        JobGraph jobGraph = jobGraphs.get(jobId);
+        if (jobGraph == null) {
+            return;
+        }
+        for (int artifactId : jobGraph.dependencyIds) {
+            addJobIds(upstreamJobIds, jobsToVisit, generatingJobIds.get(artifactId));
+        }
+        for (int artifactId : jobGraph.parentProjectIds) {
+            addJobIds(upstreamJobIds, jobsToVisit, generatingJobIds.get(artifactId));
+        }
+    }
+
+    private static void addJobIds(BitSet upstreamJobIds, Deque<Integer> jobsToVisit, int[] jobIds) {
+        for (int jobId : jobIds) {
+            if (!upstreamJobIds.get(jobId)) {
+                upstreamJobIds.set(jobId);
+                jobsToVisit.add(jobId);
+            }
+        }
+    }
+
+    private void addUpstreamJobs(Map<String, Integer> upstreamJobs, JobGraph jobGraph) {
+        for (int artifactId : jobGraph.dependencyIds) {
+            addJobs(upstreamJobs, generatingJobIds.get(artifactId));
+        }
+        for (int artifactId : jobGraph.parentProjectIds) {
+            addJobs(upstreamJobs, generatingJobIds.get(artifactId));
+        }
+    }
+
+    private void addJobs(Map<String, Integer> jobs, int[] jobIds) {
+        for (int jobId : jobIds) {
+            jobs.put(jobFullNames.get(jobId), jobGraphs.get(jobId).buildNumber);
+        }
+    }
+
+    private void addJobFullNames(Collection<String> jobs, int[] jobIds) {
+        for (int jobId : jobIds) {
+            jobs.add(jobFullNames.get(jobId));
+        }
+    }
+
+    /**
+     * @return the graph of the given build, {@code null} if it's not the last successful build of the job
+     */
+    @CheckForNull
+    private JobGraph getJobGraph(@NonNull String jobFullName, int buildNumber) {
+        Integer jobId = jobIds.get(jobFullName);
+        JobGraph jobGraph = jobId == null ? null : jobGraphs.get(jobId);
+        return jobGraph == null || jobGraph.buildNumber != buildNumber ? null : jobGraph;
+    }
+
+    /**
+     * Must be called with the write lock.
+     */
+    private void setJobGraph(int jobId, @Nullable JobGraph jobGraph) {
+        JobGraph previousJobGraph = jobGraphs.set(jobId, jobGraph);
+        discardTransitiveUpstreamJobIds(jobId, previousJobGraph, jobGraph);
+        if (previousJobGraph != null) {
+            for (int artifactId : previousJobGraph.dependencyIds) {
+                dependentJobIds.set(artifactId, remove(dependentJobIds.get(artifactId), jobId));
+            }
+            for (int artifactId : previousJobGraph.parentProjectIds) {
+                childJobIds.set(artifactId, remove(childJobIds.get(artifactId), jobId));
+            }
+            for (int artifactId : previousJobGraph.generatedArtifactIds) {
+                generatingJobIds.set(artifactId, remove(generatingJobIds.get(artifactId), jobId));
+            }
+        }
+        if (jobGraph != null) {
+            for (int artifactId : jobGraph.dependencyIds) {
+                dependentJobIds.set(artifactId, add(dependentJobIds.get(artifactId), jobId));
+            }
+            for (int artifactId : jobGraph.parentProjectIds) {
+                childJobIds.set(artifactId, add(childJobIds.get(artifactId), jobId));
+            }
+            for (int artifactId : jobGraph.generatedArtifactIds) {
+                generatingJobIds.set(artifactId, add(generatingJobIds.get(artifactId), jobId));
+            }
+        }
+    }
+
+    /**
+     * Discard the bitsets of the job, of the jobs consuming the artifacts it generates(d) and of their transitive
+     * downstream jobs. Must be called with the write lock.
+     */
+    private void discardTransitiveUpstreamJobIds(
+            int jobId, @Nullable JobGraph previousJobGraph, @Nullable JobGraph jobGraph) {
+        BitSet changedJobIds = new BitSet();
+        changedJobIds.set(jobId);
+        for (JobGraph graph : Arrays.asList(previousJobGraph, jobGraph)) {
+            if (graph != null) {
+                for (int artifactId : graph.generatedArtifactIds) {
+                    for (int downstreamJobId : dependentJobIds.get(artifactId)) {
+                        changedJobIds.set(downstreamJobId);
+                    }
+                    for (int downstreamJobId : childJobIds.get(artifactId)) {
+                        changedJobIds.set(downstreamJobId);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < transitiveUpstreamJobIds.size(); i++) {
+            BitSet upstreamJobIds = transitiveUpstreamJobIds.get(i);
+            if (upstreamJobIds != null && (changedJobIds.get(i) || upstreamJobIds.intersects(changedJobIds))) {
+                transitiveUpstreamJobIds.set(i, null);
+            }
+        }
+    }
+
+    /**
+     * Must be called with the write lock.
+     */
+    private int getOrCreateJobId(@NonNull String jobFullName) {
+        return jobIds.computeIfAbsent(jobFullName, name -> {
+            jobFullNames.add(name);
+            jobGraphs.add(null);
+            transitiveUpstreamJobIds.add(null);
+            return jobFullNames.size() - 1;
+        });
+    }
+
+    /**
+     * Must be called with the write lock.
+     */
+    private int getOrCreateArtifactId(@NonNull MavenArtifact artifact) {
+        return artifactIds.computeIfAbsent(
+                getArtifactKey(
+                        artifact.getGroupId(),
+                        artifact.getArtifactId(),
+                        artifact.getBaseVersion(),
+                        artifact.getType(),
+                        artifact.getClassifier()),
+                key -> {
+                    dependentJobIds.add(NO_IDS);
+                    childJobIds.add(NO_IDS);
+                    generatingJobIds.add(NO_IDS);
+                    return dependentJobIds.size() - 1;
+                });
+    }
+
+    /**
+     * Must be called with the write lock.
+     */
+    private JobGraph toJobGraph(@NonNull BuildGraph buildGraph) {
+        int[] dependencyIds = NO_IDS;
+        for (MavenArtifact dependency : buildGraph.dependencies) {
+            dependencyIds = add(dependencyIds, getOrCreateArtifactId(dependency));
+        }
+        int[] parentProjectIds = NO_IDS;
+        for (MavenArtifact parentProject : buildGraph.parentProjects) {
+            parentProjectIds = add(parentProjectIds, getOrCreateArtifactId(parentProject));
+        }
+        int[] generatedArtifactIds = new int[buildGraph.generatedArtifacts.size()];
+        for (int i = 0; i < generatedArtifactIds.length; i++) {
+            generatedArtifactIds[i] = getOrCreateArtifactId(buildGraph.generatedArtifacts.get(i));
+        }
+        return new JobGraph(
+                buildGraph.buildNumber,
+                dependencyIds,
+                parentProjectIds,
+                generatedArtifactIds,
+                buildGraph.generatedArtifacts.toArray(new MavenArtifact[0]));
+    }
+
+    private static String getArtifactKey(
+            String groupId, String artifactId, String version, String type, @Nullable String classifier) {
+        return groupId + ":" + artifactId + ":" + version + ":" + type + ":" + (classifier == null ? "" : classifier);
+    }
+
+    private static MavenArtifact copy(MavenArtifact artifact) {
+        MavenArtifact result = new MavenArtifact();
+        result.setGroupId(artifact.getGroupId());
+        result.setArtifactId(artifact.getArtifactId());
+        result.setVersion(artifact.getVersion());
+        result.setBaseVersion(artifact.getBaseVersion());
+        result.setType(artifact.getType());
+        result.setClassifier(artifact.getClassifier());
+        result.setExtension(artifact.getExtension());
+        return result;
+    }
+
+    /**
+     * @return the sorted ids with the given id
+     */
+    private static int[] add(int[] ids, int id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return ids;
+        }
+        index = -index - 1;
+        int[] result = new int[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, index);
+        result[index] = id;
+        System.arraycopy(ids, index, result, index + 1, ids.length - index);
+        return result;
+    }
+
+    /**
+     * @return the sorted ids without the given id
+     */
+    private static int[] remove(int[] ids, int id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return NO_IDS;
+        }
+        int[] result = new int[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, index);
+        System.arraycopy(ids, index + 1, result, index, ids.length - index - 1);
+        return result;
+    }
+
+    @Override
+    public String toPrettyString() {
+        StringBuilder builder = new StringBuilder(ofNullable(super.toPrettyString()).orElse(""));
+        int jobCount = 0;
+        int artifactCount;
+        int transitiveUpstreamJobsCount = 0;
+        lock.readLock().lock();
+        try {
+            for (JobGraph jobGraph : jobGraphs) {
+                if (jobGraph != null) {
+                    jobCount++;
+                }
+            }
+            artifactCount = artifactIds.size();
+            synchronized (transitiveUpstreamJobIds) {
+                for (BitSet upstreamJobIds : transitiveUpstreamJobIds) {
+                    if (upstreamJobIds != null) {
+                        transitiveUpstreamJobsCount++;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        builder.append("\r\n Graph index: ");
+        builder.append("\r\n\t graph: loaded=")
+                .append(loaded)
+                .append(", jobsToLoad=")
+                .append(jobsToLoad.size())
+                .append(", jobs=")
+                .append(jobCount)
+                .append(", artifacts=")
+                .append(artifactCount)
+                .append(", transitiveUpstreamJobs=")
+                .append(transitiveUpstreamJobsCount)
+                .append(", loads=")
+                .append(loadCount.get())
+                .append(", lastLoadDurationInMs=")
+                .append(TimeUnit.NANOSECONDS.toMillis(lastLoadDurationInNanos));
+        builder.append("\r\n\t reads: indexed=")
+                .append(indexedReadCount.get())
+                .append(", delegated=")
+                .append(delegatedReadCount.get());
+        builder.append("\r\n\t consistency checks: count=")
+                .append(consistencyCheckCount.get())
+                .append(", mismatches=")
+                .append(inconsistencyCount.get());
+        return builder.toString();
+    }
+
+    /**
+     * Graph of the last successful build of a job.
+     */
+    private static class JobGraph {
+        final int buildNumber;
+        final int[] dependencyIds;
+        final int[] parentProjectIds;
+        /**
+         * Ids of the {@link #generatedArtifacts}, the same artifact may be generated with several versions.
+         */
+        final int[] generatedArtifactIds;
+
+        final MavenArtifact[] generatedArtifacts;
+
+        JobGraph(
+                int buildNumber,
+                int[] dependencyIds,
+                int[] parentProjectIds,
+                int[] generatedArtifactIds,
+                MavenArtifact[] generatedArtifacts) {
+            this.buildNumber = buildNumber;
+            this.dependencyIds = dependencyIds;
+            this.parentProjectIds = parentProjectIds;
+            this.generatedArtifactIds = generatedArtifactIds;
+            this.generatedArtifacts = generatedArtifacts;
+        }
+    }
+
+    private static class BuildGraph {
+        final int buildNumber;
+        final List<MavenArtifact> dependencies = new ArrayList<>();
+        final List<MavenArtifact> parentProjects = new ArrayList<>();
+        final List<MavenArtifact> generatedArtifacts = new ArrayList<>();
+
+        BuildGraph(int buildNumber) {
+            this.buildNumber = buildNumber;
+        }
+    }
+
+    private static class BuildGraphCollector implements BuildGraphVisitor {
+        final Map<String, BuildGraph> buildGraphs = new HashMap<>();
+
+        @Override
+        public void visitBuild(@NonNull String jobFullName, int buildNumber) {
+            buildGraphs.put(jobFullName, new BuildGraph(buildNumber));
+        }
+
+        @Override
+        public void visitDependency(@NonNull String jobFullName, int buildNumber, @NonNull MavenArtifact dependency) {
+            getBuildGraph(jobFullName, buildNumber).dependencies.add(dependency);
+        }
+
+        @Override
+        public void visitParentProject(
+                @NonNull String jobFullName, int buildNumber, @NonNull MavenArtifact parentProject) {
+            getBuildGraph(jobFullName, buildNumber).parentProjects.add(parentProject);
+        }
+
+        @Override
+        public void visitGeneratedArtifact(
+                @NonNull String jobFullName, int buildNumber, @NonNull MavenArtifact artifact) {
+            getBuildGraph(jobFullName, buildNumber).generatedArtifacts.add(artifact);
+        }
+
+        private BuildGraph getBuildGraph(String jobFullName, int buildNumber) {
+            return buildGraphs.computeIfAbsent(jobFullName, name -> new BuildGraph(buildNumber));
+        }
+    }
+}
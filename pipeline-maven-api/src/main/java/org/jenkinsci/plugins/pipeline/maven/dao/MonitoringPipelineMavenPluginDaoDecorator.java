@@ -6,6 +6,7 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
@@ -95,6 +96,25 @@ public class MonitoringPipelineMavenPluginDaoDecorator extends AbstractPipelineM
                 classifier));
     }
 
+    @Override
+    public void recordBuildGraph(
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull Collection<MavenDependency> dependencies,
+            @NonNull Collection<MavenArtifact> parentProjects,
+            @NonNull Collection<MavenArtifact> generatedArtifacts,
+            boolean ignoreUpstreamTriggers,
+            boolean skipDownstreamTriggers) {
+        executeMonitored(() -> super.recordBuildGraph(
+                jobFullName,
+                buildNumber,
+                dependencies,
+                parentProjects,
+                generatedArtifacts,
+                ignoreUpstreamTriggers,
+                skipDownstreamTriggers));
+    }
+
     @Override
     public void recordBuildUpstreamCause(
             String upstreamJobName, int upstreamBuildNumber, String downstreamJobName, int downstreamBuildNumber) {
@@ -151,6 +171,13 @@ public class MonitoringPipelineMavenPluginDaoDecorator extends AbstractPipelineM
                 () -> super.listDownstreamJobs(groupId, artifactId, version, baseVersion, type, classifier));
     }
 
+    @NonNull
+    @Override
+    public Map<MavenArtifact, SortedSet<String>> listDownstreamJobsByArtifact(
+            @NonNull Collection<MavenArtifact> mavenArtifacts) {
+        return executeMonitored(() -> super.listDownstreamJobsByArtifact(mavenArtifacts));
+    }
+
     @Override
     @NonNull
     public Map<String, Integer> listUpstreamJobs(@NonNull String jobFullName, int buildNumber) {
@@ -163,9 +190,30 @@ public class MonitoringPipelineMavenPluginDaoDecorator extends AbstractPipelineM
         return executeMonitored(() -> super.listTransitiveUpstreamJobs(jobFullName, buildNumber));
     }
 
+    @Override
+    public Boolean isUpstreamCauseAncestor(
+            @NonNull String jobFullName, int buildNumber, @NonNull String ancestorJobFullName) {
+        return executeMonitored(() -> super.isUpstreamCauseAncestor(jobFullName, buildNumber, ancestorJobFullName));
+    }
+
+    @Override
+    public Long getLastBuildDurationInMillis(@NonNull String jobFullName) {
+        return executeMonitored(() -> super.getLastBuildDurationInMillis(jobFullName));
+    }
+
     @Override
     public void cleanup() {
-        executeMonitored(super::cleanup);
+        executeMonitored(() -> super.cleanup());
+    }
+
+    @Override
+    public void cleanup(long maxDurationInMillis) {
+        executeMonitored(() -> super.cleanup(maxDurationInMillis));
+    }
+
+    @Override
+    public void compactBuildHistory(int buildsToKeep, long maxDurationInMillis) {
+        executeMonitored(() -> super.compactBuildHistory(buildsToKeep, maxDurationInMillis));
     }
 
     @Override
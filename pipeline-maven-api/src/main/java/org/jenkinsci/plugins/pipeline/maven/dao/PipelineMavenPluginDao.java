@@ -30,6 +30,8 @@ import hudson.model.Item;
 import hudson.model.Run;
 import hudson.util.FormValidation;
 import java.io.Closeable;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
@@ -111,6 +113,66 @@ public interface PipelineMavenPluginDao extends Closeable {
             String extension,
             String classifier);
 
+    /**
+     * Record in one go the dependencies, the parent projects and the generated artifacts of a build.
+     * Implementations backed by a database are expected to do it in a single transaction.
+     *
+     * @param jobFullName            see {@link Item#getFullName()}
+     * @param buildNumber            see {@link Run#getNumber()}
+     * @param dependencies           Maven dependencies, recorded with their base version
+     * @param parentProjects         Maven parent projects
+     * @param generatedArtifacts     Maven artifacts generated by the build
+     * @param ignoreUpstreamTriggers see PipelineGraphPublisher#isIgnoreUpstreamTriggers()
+     * @param skipDownstreamTriggers see PipelineGraphPublisher#isSkipDownstreamTriggers()
+     * @see #recordDependency(String, int, String, String, String, String, String, boolean, String)
+     * @see #recordParentProject(String, int, String, String, String, boolean)
+     * @see #recordGeneratedArtifact(String, int, String, String, String, String, String, String, boolean, String, String)
+     */
+    default void recordBuildGraph(
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull Collection<MavenDependency> dependencies,
+            @NonNull Collection<MavenArtifact> parentProjects,
+            @NonNull Collection<MavenArtifact> generatedArtifacts,
+            boolean ignoreUpstreamTriggers,
+            boolean skipDownstreamTriggers) {
+        for (MavenArtifact parentProject : parentProjects) {
+            recordParentProject(
+                    jobFullName,
+                    buildNumber,
+                    parentProject.getGroupId(),
+                    parentProject.getArtifactId(),
+                    parentProject.getVersion(),
+                    ignoreUpstreamTriggers);
+        }
+        for (MavenDependency dependency : dependencies) {
+            recordDependency(
+                    jobFullName,
+                    buildNumber,
+                    dependency.getGroupId(),
+                    dependency.getArtifactId(),
+                    dependency.getBaseVersion(),
+                    dependency.getType(),
+                    dependency.getScope(),
+                    ignoreUpstreamTriggers,
+                    dependency.getClassifier());
+        }
+        for (MavenArtifact artifact : generatedArtifacts) {
+            recordGeneratedArtifact(
+                    jobFullName,
+                    buildNumber,
+                    artifact.getGroupId(),
+                    artifact.getArtifactId(),
+                    artifact.getVersion(),
+                    artifact.getType(),
+                    artifact.getBaseVersion(),
+                    artifact.getRepositoryUrl(),
+                    skipDownstreamTriggers,
+                    artifact.getExtension(),
+                    artifact.getClassifier());
+        }
+    }
+
     /**
      * TODO add {@link MavenArtifact} as org.jenkinsci.plugins.pipeline.maven.cause.MavenDependencyUpstreamCause gives these details
      * @param upstreamJobName Job that triggered the build. See {@link Item#getFullName()}.
@@ -239,6 +301,34 @@ public interface PipelineMavenPluginDao extends Closeable {
             @NonNull String type,
             @Nullable String classifier);
 
+    /**
+     * List the downstream jobs who have a dependency on the given artifacts, the counterpart of
+     * {@link #listDownstreamJobs(String, String, String, String, String, String)} for many artifacts at once.
+     *
+     * @param mavenArtifacts Maven artifacts, matched on their group id, artifact id, base version (or version if
+     *                       there is no base version), type and classifier
+     * @return job full names (see {@link Item#getFullName()}) by given {@link MavenArtifact}, the artifacts without
+     * downstream jobs are omitted
+     */
+    @NonNull
+    default Map<MavenArtifact, SortedSet<String>> listDownstreamJobsByArtifact(
+            @NonNull Collection<MavenArtifact> mavenArtifacts) {
+        Map<MavenArtifact, SortedSet<String>> downstreamJobsByArtifact = new HashMap<>();
+        for (MavenArtifact mavenArtifact : mavenArtifacts) {
+            SortedSet<String> downstreamJobs = listDownstreamJobs(
+                    mavenArtifact.getGroupId(),
+                    mavenArtifact.getArtifactId(),
+                    mavenArtifact.getVersion(),
+                    mavenArtifact.getBaseVersion(),
+                    mavenArtifact.getType(),
+                    mavenArtifact.getClassifier());
+            if (!downstreamJobs.isEmpty()) {
+                downstreamJobsByArtifact.put(mavenArtifact, downstreamJobs);
+            }
+        }
+        return downstreamJobsByArtifact;
+    }
+
     /**
      * List the upstream jobs who generate an artifact that the given build depends on
      * (build identified by the given {@code jobFullName}, {@code buildNumber})
@@ -283,11 +373,70 @@ public interface PipelineMavenPluginDao extends Closeable {
     Map<String, Integer> listTransitiveUpstreamJobs(
             @NonNull String jobFullName, int buildNumber, UpstreamMemory upstreamMemory);
 
+    /**
+     * Tell whether a build of the given ancestor job caused, directly or transitively, the given build, following the
+     * upstream causes recorded with {@link #recordBuildUpstreamCause(String, int, String, int)}.
+     *
+     * @param jobFullName         see {@link Item#getFullName()}
+     * @param buildNumber         see {@link Run#getNumber()}
+     * @param ancestorJobFullName see {@link Item#getFullName()}
+     * @return {@code null} if the upstream causes of the build are not known well enough to answer
+     */
+    @Nullable
+    default Boolean isUpstreamCauseAncestor(
+            @NonNull String jobFullName, int buildNumber, @NonNull String ancestorJobFullName) {
+        return null;
+    }
+
+    /**
+     * Duration of the last completed build of the given job, as recorded by
+     * {@link #updateBuildOnCompletion(String, int, int, long, long)}.
+     *
+     * @param jobFullName see {@link Item#getFullName()}
+     * @return {@code null} if the job has no recorded completed build
+     */
+    @Nullable
+    default Long getLastBuildDurationInMillis(@NonNull String jobFullName) {
+        return null;
+    }
+
+    /**
+     * Visit the dependency graph of the last successful build of the jobs: the dependencies and the parent projects
+     * that don't ignore upstream triggers and the generated artifacts that don't skip downstream triggers.
+     *
+     * @param jobFullName the job to visit (see {@link Item#getFullName()}), {@code null} to visit all the jobs
+     * @param visitor     receives the builds and their edges
+     * @throws UnsupportedOperationException if the graph can't be listed
+     */
+    default void visitLastSuccessfulBuildGraph(@Nullable String jobFullName, @NonNull BuildGraphVisitor visitor) {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * Routine task to cleanup the database and reclaim disk space (if possible in the underlying database).
      */
     void cleanup();
 
+    /**
+     * Incremental variant of {@link #cleanup()} meant to be called periodically: resumes the work where the previous
+     * call stopped and returns after about {@code maxDurationInMillis}.
+     *
+     * @param maxDurationInMillis time budget of this call
+     */
+    default void cleanup(long maxDurationInMillis) {
+        cleanup();
+    }
+
+    /**
+     * Routine task to delete the dependencies, parent projects and generated artifacts recorded for the old builds,
+     * keeping the last {@code buildsToKeep} builds and the last successful build of each job. The builds and their
+     * upstream causes are kept. Incremental like {@link #cleanup(long)}.
+     *
+     * @param buildsToKeep        number of most recent builds of each job to keep untouched, {@code 0} to keep all
+     * @param maxDurationInMillis time budget of this call
+     */
+    default void compactBuildHistory(int buildsToKeep, long maxDurationInMillis) {}
+
     /**
      * Human readable toString
      */
@@ -28,6 +28,7 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.util.FormValidation;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -132,6 +133,29 @@ public class PipelineMavenPluginNullDao implements PipelineMavenPluginDao {
                 });
     }
 
+    @Override
+    public void recordBuildGraph(
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull Collection<MavenDependency> dependencies,
+            @NonNull Collection<MavenArtifact> parentProjects,
+            @NonNull Collection<MavenArtifact> generatedArtifacts,
+            boolean ignoreUpstreamTriggers,
+            boolean skipDownstreamTriggers) {
+        LOGGER.log(
+                Level.FINEST,
+                "NOT recordBuildGraph({0}#{1}, dependencies:{2}, parentProjects:{3}, generatedArtifacts:{4}, ignoreUpstreamTriggers:{5}, skipDownstreamTriggers:{6})",
+                new Object[] {
+                    jobFullName,
+                    buildNumber,
+                    dependencies.size(),
+                    parentProjects.size(),
+                    generatedArtifacts.size(),
+                    ignoreUpstreamTriggers,
+                    skipDownstreamTriggers
+                });
+    }
+
     @Override
     public void recordBuildUpstreamCause(
             String upstreamJobName, int upstreamBuildNumber, String downstreamJobName, int downstreamBuildNumber) {
@@ -177,6 +201,13 @@ public class PipelineMavenPluginNullDao implements PipelineMavenPluginDao {
         return new TreeSet<>();
     }
 
+    @NonNull
+    @Override
+    public Map<MavenArtifact, SortedSet<String>> listDownstreamJobsByArtifact(
+            @NonNull Collection<MavenArtifact> mavenArtifacts) {
+        return Collections.emptyMap();
+    }
+
     @NonNull
     @Override
     public Map<String, Integer> listUpstreamJobs(String jobFullName, int buildNumber) {
@@ -196,11 +227,26 @@ public class PipelineMavenPluginNullDao implements PipelineMavenPluginDao {
         return Collections.emptyMap();
     }
 
+    @Override
+    public void visitLastSuccessfulBuildGraph(String jobFullName, @NonNull BuildGraphVisitor visitor) {
+        LOGGER.log(Level.FINEST, "visitLastSuccessfulBuildGraph({0})", jobFullName);
+    }
+
     @Override
     public void cleanup() {
         LOGGER.log(Level.FINEST, "cleanup()");
     }
 
+    @Override
+    public void cleanup(long maxDurationInMillis) {
+        LOGGER.log(Level.FINEST, "cleanup({0})", maxDurationInMillis);
+    }
+
+    @Override
+    public void compactBuildHistory(int buildsToKeep, long maxDurationInMillis) {
+        LOGGER.log(Level.FINEST, "compactBuildHistory({0}, {1})", new Object[] {buildsToKeep, maxDurationInMillis});
+    }
+
     @NonNull
     @Override
     public List<MavenArtifact> getGeneratedArtifacts(@NonNull String jobFullName, int buildNumber) {
@@ -8,8 +8,9 @@ import java.util.concurrent.atomic.AtomicInteger;
  * Short living memory for upstreams calculation. This is important for the
  * performance of PipelineMavenPluginDao.listTransitiveUpstreamJobs()
  *
- * This is no permanent cache, this instance is only used inside
- * DownstreamPipelineTriggerRunListener#onCompleted() as a local variable.
+ * This is no permanent cache, this instance is only used during a single calculation of the transitive upstream jobs
+ * by the databases not supporting recursive queries. See {@link CachingPipelineMavenPluginDaoDecorator} for the cache
+ * shared by the whole controller.
  *
  * @author Martin Aubele
  *
@@ -21,7 +22,7 @@ public class UpstreamMemory {
 
     static {
         MonitoringPipelineMavenPluginDaoDecorator.registerCacheStatsSupplier(
-                () -> new CacheStats("listUpstreamJobs", HITS.get(), MISSES.get()));
+                () -> new CacheStats("upstreamMemory", HITS.get(), MISSES.get()));
     }
 
     // remember the already known upstreams
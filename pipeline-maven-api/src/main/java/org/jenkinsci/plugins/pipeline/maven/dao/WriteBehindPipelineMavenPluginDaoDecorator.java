@@ -0,0 +1,601 @@
+package org.jenkinsci.plugins.pipeline.maven.dao;
+
+import static java.util.Optional.ofNullable;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
+import org.jenkinsci.plugins.pipeline.maven.MavenDependency;
+
+/**
+ * This decorator queues the writes of the build graph ({@code record*}, {@link #updateBuildOnCompletion},
+ * {@link #recordBuildUpstreamCause}) so that the build steps don't wait for the database. A background thread
+ * applies them in order.
+ * <p>
+ * Read-your-writes: a read concerning a build first waits for the queued writes of this build, the reads not
+ * attached to a build and the other writes ({@link #renameJob}, {@link #deleteJob}...) wait for all the queued
+ * writes. When the queue is full, the writers are blocked until the background thread catches up.
+ * <p>
+ * A failed write is retried {@code WRITE_BEHIND_MAX_RETRIES} times. If it still fails, the next read or flush of its
+ * build throws an {@link IllegalStateException} caused by the failure.
+ */
+public class WriteBehindPipelineMavenPluginDaoDecorator extends AbstractPipelineMavenPluginDaoDecorator {
+
+    private static final Logger LOGGER = Logger.getLogger(WriteBehindPipelineMavenPluginDaoDecorator.class.getName());
+
+    private static final int QUEUE_CAPACITY = Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.WRITE_BEHIND_QUEUE_CAPACITY", 1_000);
+    private static final long FLUSH_TIMEOUT_IN_MILLIS = TimeUnit.SECONDS.toMillis(Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.WRITE_BEHIND_FLUSH_TIMEOUT_IN_SECONDS", 60));
+    private static final int MAX_RETRIES = Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.WRITE_BEHIND_MAX_RETRIES", 2);
+    private static final long RETRY_DELAY_IN_MILLIS = Long.getLong(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.WRITE_BEHIND_RETRY_DELAY_IN_MILLIS", 1_000);
+
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * Free slots of the queue, acquired by the writers before entering {@link #enqueueLock} so that a writer blocked
+     * by a full queue doesn't block the other writers, released when the background thread takes a write.
+     */
+    private final Semaphore capacity;
+
+    private final int maxRetries;
+    private final long retryDelayInMillis;
+
+    /**
+     * Sequence of the last queued write of each build and of each job, removed once the write is applied.
+     */
+    private final Map<String, Long> lastSequenceByBuild = new ConcurrentHashMap<>();
+
+    /**
+     * Failure of the last write of each build and of each job given up after the retries, thrown by the next flush.
+     */
+    private final Map<String, RuntimeException> failureByBuild = new ConcurrentHashMap<>();
+
+    private final Object enqueueLock = new Object();
+    private final Object completionLock = new Object();
+
+    private volatile long lastEnqueuedSequence;
+    private volatile long lastCompletedSequence;
+    private volatile boolean closed;
+
+    private final Thread writer;
+
+    private final AtomicLong lastLagInNanos = new AtomicLong();
+    private final AtomicLong maxLagInNanos = new AtomicLong();
+    private final AtomicInteger writeCount = new AtomicInteger();
+    private final AtomicInteger failedWriteCount = new AtomicInteger();
+    private final AtomicInteger retriedWriteCount = new AtomicInteger();
+    private final AtomicInteger blockedWriteCount = new AtomicInteger();
+
+    public WriteBehindPipelineMavenPluginDaoDecorator(@NonNull PipelineMavenPluginDao delegate) {
+        this(delegate, QUEUE_CAPACITY);
+    }
+
+    public WriteBehindPipelineMavenPluginDaoDecorator(@NonNull PipelineMavenPluginDao delegate, int queueCapacity) {
+        this(delegate, queueCapacity, MAX_RETRIES, RETRY_DELAY_IN_MILLIS);
+    }
+
+    /**
+     * @param maxRetries          number of times a failed write is retried before giving up
+     * @param retryDelayInMillis  delay before the first retry, doubled for each next retry
+     */
+    public WriteBehindPipelineMavenPluginDaoDecorator(
+            @NonNull PipelineMavenPluginDao delegate, int queueCapacity, int maxRetries, long retryDelayInMillis) {
+        super(delegate);
+        this.capacity = new Semaphore(queueCapacity, true);
+        this.maxRetries = maxRetries;
+        this.retryDelayInMillis = retryDelayInMillis;
+        this.writer = new Thread(this::drainQueue, "Pipeline Maven Plugin database writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void recordDependency(
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull String groupId,
+            @NonNull String artifactId,
+            @NonNull String version,
+            @NonNull String type,
+            @NonNull String scope,
+            boolean ignoreUpstreamTriggers,
+            String classifier) {
+        enqueue(
+                () -> super.recordDependency(
+                        jobFullName,
+                        buildNumber,
+                        groupId,
+                        artifactId,
+                        version,
+                        type,
+                        scope,
+                        ignoreUpstreamTriggers,
+                        classifier),
+                buildKey(jobFullName, buildNumber));
+    }
+
+    @Override
+    public void recordParentProject(
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull String parentGroupId,
+            @NonNull String parentArtifactId,
+            @NonNull String parentVersion,
+            boolean ignoreUpstreamTriggers) {
+        enqueue(
+                () -> super.recordParentProject(
+                        jobFullName,
+                        buildNumber,
+                        parentGroupId,
+                        parentArtifactId,
+                        parentVersion,
+                        ignoreUpstreamTriggers),
+                buildKey(jobFullName, buildNumber));
+    }
+
+    @Override
+    public void recordGeneratedArtifact(
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull String groupId,
+            @NonNull String artifactId,
+            @NonNull String version,
+            @NonNull String type,
+            @NonNull String baseVersion,
+            @Nullable String repositoryUrl,
+            boolean skipDownstreamTriggers,
+            String extension,
+            String classifier) {
+        enqueue(
+                () -> super.recordGeneratedArtifact(
+                        jobFullName,
+                        buildNumber,
+                        groupId,
+                        artifactId,
+                        version,
+                        type,
+                        baseVersion,
+                        repositoryUrl,
+                        skipDownstreamTriggers,
+                        extension,
+                        classifier),
+                buildKey(jobFullName, buildNumber));
+    }
+
+    @Override
+    public void recordBuildGraph(
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull Collection<MavenDependency> dependencies,
+            @NonNull Collection<MavenArtifact> parentProjects,
+            @NonNull Collection<MavenArtifact> generatedArtifacts,
+            boolean ignoreUpstreamTriggers,
+            boolean skipDownstreamTriggers) {
+        // copies as the caller may reuse its collections
+        List<MavenDependency> dependenciesCopy = new ArrayList<>(dependencies);
+        List<MavenArtifact> parentProjectsCopy = new ArrayList<>(parentProjects);
+        List<MavenArtifact> generatedArtifactsCopy = new ArrayList<>(generatedArtifacts);
+        enqueue(
+                () -> super.recordBuildGraph(
+                        jobFullName,
+                        buildNumber,
+                        dependenciesCopy,
+                        parentProjectsCopy,
+                        generatedArtifactsCopy,
+                        ignoreUpstreamTriggers,
+                        skipDownstreamTriggers),
+                buildKey(jobFullName, buildNumber));
+    }
+
+    @Override
+    public void recordBuildUpstreamCause(
+            String upstreamJobName, int upstreamBuildNumber, String downstreamJobName, int downstreamBuildNumber) {
+        enqueue(
+                () -> super.recordBuildUpstreamCause(
+                        upstreamJobName, upstreamBuildNumber, downstreamJobName, downstreamBuildNumber),
+                buildKey(upstreamJobName, upstreamBuildNumber),
+                buildKey(downstreamJobName, downstreamBuildNumber));
+    }
+
+    @Override
+    public void updateBuildOnCompletion(
+            @NonNull String jobFullName,
+            int buildNumber,
+            int buildResultOrdinal,
+            long startTimeInMillis,
+            long durationInMillis) {
+        enqueue(
+                () -> super.updateBuildOnCompletion(
+                        jobFullName, buildNumber, buildResultOrdinal, startTimeInMillis, durationInMillis),
+                buildKey(jobFullName, buildNumber),
+                jobKey(jobFullName));
+    }
+
+    @Override
+    public Long getLastBuildDurationInMillis(@NonNull String jobFullName) {
+        flush(jobKey(jobFullName));
+        return super.getLastBuildDurationInMillis(jobFullName);
+    }
+
+    @Override
+    @NonNull
+    public List<MavenDependency> listDependencies(@NonNull String jobFullName, int buildNumber) {
+        flush(jobFullName, buildNumber);
+        return super.listDependencies(jobFullName, buildNumber);
+    }
+
+    @Override
+    @NonNull
+    public List<MavenArtifact> getGeneratedArtifacts(@NonNull String jobFullName, int buildNumber) {
+        flush(jobFullName, buildNumber);
+        return super.getGeneratedArtifacts(jobFullName, buildNumber);
+    }
+
+    @Override
+    public void renameJob(@NonNull String oldFullName, @NonNull String newFullName) {
+        flush();
+        super.renameJob(oldFullName, newFullName);
+    }
+
+    @Override
+    public void deleteJob(@NonNull String jobFullName) {
+        flush();
+        super.deleteJob(jobFullName);
+    }
+
+    @Override
+    public void deleteBuild(@NonNull String jobFullName, int buildNumber) {
+        flush(jobFullName, buildNumber);
+        super.deleteBuild(jobFullName, buildNumber);
+    }
+
+    @Override
+    @NonNull
+    @Deprecated
+    public List<String> listDownstreamJobs(@NonNull String jobFullName, int buildNumber) {
+        flush(jobFullName, buildNumber);
+        return super.listDownstreamJobs(jobFullName, buildNumber);
+    }
+
+    @NonNull
+    @Override
+    public Map<MavenArtifact, SortedSet<String>> listDownstreamJobsByArtifact(
+            @NonNull String jobFullName, int buildNumber) {
+        flush(jobFullName, buildNumber);
+        return super.listDownstreamJobsByArtifact(jobFullName, buildNumber);
+    }
+
+    @NonNull
+    @Override
+    public SortedSet<String> listDownstreamJobs(
+            @NonNull String groupId,
+            @NonNull String artifactId,
+            @NonNull String version,
+            @Nullable String baseVersion,
+            @NonNull String type) {
+        return listDownstreamJobs(groupId, artifactId, version, baseVersion, type, null);
+    }
+
+    @NonNull
+    @Override
+    public SortedSet<String> listDownstreamJobs(
+            @NonNull String groupId,
+            @NonNull String artifactId,
+            @NonNull String version,
+            @Nullable String baseVersion,
+            @NonNull String type,
+            @Nullable String classifier) {
+        flush();
+        return super.listDownstreamJobs(groupId, artifactId, version, baseVersion, type, classifier);
+    }
+
+    @NonNull
+    @Override
+    public Map<MavenArtifact, SortedSet<String>> listDownstreamJobsByArtifact(
+            @NonNull Collection<MavenArtifact> mavenArtifacts) {
+        flush();
+        return super.listDownstreamJobsByArtifact(mavenArtifacts);
+    }
+
+    @Override
+    public void visitLastSuccessfulBuildGraph(@Nullable String jobFullName, @NonNull BuildGraphVisitor visitor) {
+        flush();
+        super.visitLastSuccessfulBuildGraph(jobFullName, visitor);
+    }
+
+    @NonNull
+    @Override
+    public Map<String, Integer> listUpstreamJobs(@NonNull String jobFullName, int buildNumber) {
+        flush(jobFullName, buildNumber);
+        return super.listUpstreamJobs(jobFullName, buildNumber);
+    }
+
+    @NonNull
+    @Override
+    public Map<String, Integer> listTransitiveUpstreamJobs(@NonNull String jobFullName, int buildNumber) {
+        flush(jobFullName, buildNumber);
+        return super.listTransitiveUpstreamJobs(jobFullName, buildNumber);
+    }
+
+    @Override
+    public Map<String, Integer> listTransitiveUpstreamJobs(
+            String jobFullName, int buildNumber, UpstreamMemory upstreamMemory) {
+        flush(jobFullName, buildNumber);
+        return super.listTransitiveUpstreamJobs(jobFullName, buildNumber, upstreamMemory);
+    }
+
+    @Override
+    public Boolean isUpstreamCauseAncestor(
+            @NonNull String jobFullName, int buildNumber, @NonNull String ancestorJobFullName) {
+        flush();
+        return super.isUpstreamCauseAncestor(jobFullName, buildNumber, ancestorJobFullName);
+    }
+
+    @Override
+    public void cleanup() {
+        flush();
+        super.cleanup();
+    }
+
+    @Override
+    public void cleanup(long maxDurationInMillis) {
+        flush();
+        super.cleanup(maxDurationInMillis);
+    }
+
+    @Override
+    public void compactBuildHistory(int buildsToKeep, long maxDurationInMillis) {
+        flush();
+        super.compactBuildHistory(buildsToKeep, maxDurationInMillis);
+    }
+
+    @Override
+    public String toPrettyString() {
+        StringBuilder builder =
+                new StringBuilder(ofNullable(super.toPrettyString()).orElse(""));
+        PendingWrite oldestPendingWrite = queue.peek();
+        long oldestPendingWriteAgeInNanos =
+                oldestPendingWrite == null ? 0 : System.nanoTime() - oldestPendingWrite.enqueueTimeInNanos;
+        builder.append("\r\n Write behind: ");
+        builder.append("\r\n\t queue: depth=")
+                .append(queue.size())
+                .append(", remainingCapacity=")
+                .append(capacity.availablePermits())
+                .append(", oldestPendingWriteAgeInMs=")
+                .append(TimeUnit.NANOSECONDS.toMillis(oldestPendingWriteAgeInNanos));
+        builder.append("\r\n\t writes: count=")
+                .append(writeCount.get())
+                .append(", failed=")
+                .append(failedWriteCount.get())
+                .append(", retried=")
+                .append(retriedWriteCount.get())
+                .append(", blockedByFullQueue=")
+                .append(blockedWriteCount.get());
+        builder.append("\r\n\t lag: lastInMs=")
+                .append(TimeUnit.NANOSECONDS.toMillis(lastLagInNanos.get()))
+                .append(", maxInMs=")
+                .append(TimeUnit.NANOSECONDS.toMillis(maxLagInNanos.get()));
+        return builder.toString();
+    }
+
+    /**
+     * Apply the queued writes before closing the delegate.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (enqueueLock) {
+            closed = true;
+        }
+        flush();
+        try {
+            writer.join(FLUSH_TIMEOUT_IN_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            LOGGER.log(Level.WARNING, "Close with {0} pending writes", queue.size());
+        }
+        super.close();
+    }
+
+    /**
+     * Wait for the queued writes of the given build.
+     *
+     * @throws IllegalStateException if the last write of the build failed
+     */
+    public void flush(@NonNull String jobFullName, int buildNumber) {
+        flush(buildKey(jobFullName, buildNumber));
+    }
+
+    private void flush(@NonNull String key) {
+        Long sequence = lastSequenceByBuild.get(key);
+        if (sequence != null) {
+            awaitCompletion(sequence);
+        }
+        RuntimeException failure = failureByBuild.remove(key);
+        if (failure != null) {
+            throw new IllegalStateException("Exception applying queued write of " + key + " to the database", failure);
+        }
+    }
+
+    /**
+     * Wait for all the queued writes.
+     */
+    public void flush() {
+        awaitCompletion(lastEnqueuedSequence);
+    }
+
+    private void enqueue(@NonNull Runnable write, @NonNull String... buildKeys) {
+        if (!closed && acquireCapacity()) {
+            synchronized (enqueueLock) {
+                if (!closed) {
+                    PendingWrite pendingWrite = new PendingWrite(lastEnqueuedSequence + 1, write, buildKeys);
+                    for (String buildKey : buildKeys) {
+                        lastSequenceByBuild.put(buildKey, pendingWrite.sequence);
+                    }
+                    queue.add(pendingWrite);
+                    lastEnqueuedSequence = pendingWrite.sequence;
+                    return;
+                }
+            }
+            capacity.release();
+        }
+        write.run();
+    }
+
+    /**
+     * @return {@code false} if interrupted while waiting for a free slot of the queue
+     */
+    private boolean acquireCapacity() {
+        if (capacity.tryAcquire()) {
+            return true;
+        }
+        blockedWriteCount.incrementAndGet();
+        try {
+            capacity.acquire();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.FINE, "Interrupted while waiting for the write queue, write synchronously");
+            return false;
+        }
+    }
+
+    private void awaitCompletion(long sequence) {
+        if (Thread.currentThread() == writer) {
+            return;
+        }
+        long deadlineInNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_TIMEOUT_IN_MILLIS);
+        synchronized (completionLock) {
+            while (lastCompletedSequence < sequence) {
+                long remainingInMillis = TimeUnit.NANOSECONDS.toMillis(deadlineInNanos - System.nanoTime());
+                if (remainingInMillis <= 0) {
+                    LOGGER.log(
+                            Level.WARNING,
+                            "Timeout waiting for the queued writes to be applied to the database, {0} pending writes",
+                            queue.size());
+                    return;
+                }
+                try {
+                    completionLock.wait(remainingInMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void drainQueue() {
+        while (!(closed && queue.isEmpty())) {
+            PendingWrite pendingWrite;
+            try {
+                // wake up regularly to notice close()
+                pendingWrite = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                LOGGER.log(Level.WARNING, "Database writer interrupted, {0} pending writes", queue.size());
+                return;
+            }
+            if (pendingWrite != null) {
+                capacity.release();
+                apply(pendingWrite);
+            }
+        }
+    }
+
+    private void apply(PendingWrite pendingWrite) {
+        long lagInNanos = System.nanoTime() - pendingWrite.enqueueTimeInNanos;
+        lastLagInNanos.set(lagInNanos);
+        maxLagInNanos.accumulateAndGet(lagInNanos, Math::max);
+        try {
+            applyWithRetries(pendingWrite);
+            writeCount.incrementAndGet();
+        } catch (RuntimeException e) {
+            failedWriteCount.incrementAndGet();
+            for (String buildKey : pendingWrite.buildKeys) {
+                failureByBuild.put(buildKey, e);
+            }
+            LOGGER.log(
+                    Level.WARNING,
+                    "Give up applying queued write of " + String.join(", ", pendingWrite.buildKeys)
+                            + " to the database",
+                    e);
+        } finally {
+            for (String buildKey : pendingWrite.buildKeys) {
+                lastSequenceByBuild.remove(buildKey, pendingWrite.sequence);
+            }
+            synchronized (completionLock) {
+                lastCompletedSequence = pendingWrite.sequence;
+                completionLock.notifyAll();
+            }
+        }
+    }
+
+    private void applyWithRetries(PendingWrite pendingWrite) {
+        long delayInMillis = retryDelayInMillis;
+        for (int retry = 1; ; retry++) {
+            try {
+                pendingWrite.write.run();
+                return;
+            } catch (RuntimeException e) {
+                if (retry > maxRetries) {
+                    throw e;
+                }
+                LOGGER.log(
+                        Level.FINE,
+                        "Exception applying queued write to the database, retry #{0} in {1}ms: {2}",
+                        new Object[] {retry, delayInMillis, e});
+                try {
+                    Thread.sleep(delayInMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+            retriedWriteCount.incrementAndGet();
+            delayInMillis *= 2;
+        }
+    }
+
+    private static String buildKey(String jobFullName, int buildNumber) {
+        return jobFullName + "#" + buildNumber;
+    }
+
+    /**
+     * The job full names don't contain {@code #}, see {@code jenkins.model.Jenkins#checkGoodName(String)}
+     */
+    private static String jobKey(String jobFullName) {
+        return jobFullName;
+    }
+
+    private static final class PendingWrite {
+        private final long sequence;
+        private final Runnable write;
+        private final String[] buildKeys;
+        private final long enqueueTimeInNanos = System.nanoTime();
+
+        private PendingWrite(long sequence, Runnable write, String[] buildKeys) {
+            this.sequence = sequence;
+            this.write = write;
+            this.buildKeys = buildKeys;
+        }
+    }
+}
@@ -56,8 +56,13 @@ import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import javax.sql.DataSource;
 import jenkins.model.Jenkins;
 import org.apache.commons.io.IOUtils;
@@ -68,6 +73,7 @@ import org.jenkinsci.plugins.pipeline.maven.MavenDependency;
 import org.jenkinsci.plugins.pipeline.maven.dao.*;
 import org.jenkinsci.plugins.pipeline.maven.db.migration.MigrationStep;
 import org.jenkinsci.plugins.pipeline.maven.db.util.ClassUtils;
+import org.jenkinsci.plugins.pipeline.maven.db.util.PrimaryKeyCache;
 import org.jenkinsci.plugins.pipeline.maven.db.util.RuntimeIoException;
 import org.jenkinsci.plugins.pipeline.maven.db.util.RuntimeSqlException;
 
@@ -78,6 +84,76 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
 
     private static final int OPTIMIZATION_MAX_RECURSION_DEPTH = Integer.getInteger(
             "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.OPTIMIZATION_MAX_RECURSION_DEPTH", 3);
+    /**
+     * Max number of artifacts looked up by a single query, 5 parameters per artifact keeps the statements far from
+     * the limits of the JDBC drivers (e.g. 32767 parameters for PostgreSQL)
+     */
+    private static final int ARTIFACTS_PER_QUERY = Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.ARTIFACTS_PER_QUERY", 100);
+    /**
+     * Queue the writes of the build graph and apply them in the background, see
+     * {@link WriteBehindPipelineMavenPluginDaoDecorator}
+     */
+    private static final boolean WRITE_BEHIND =
+            Boolean.getBoolean("org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.WRITE_BEHIND");
+    /**
+     * Answer the upstream and downstream queries from an in-memory copy of the graph of the last successful builds,
+     * see {@link GraphIndexPipelineMavenPluginDaoDecorator}
+     */
+    private static final boolean GRAPH_INDEX =
+            Boolean.getBoolean("org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.GRAPH_INDEX");
+    /**
+     * Don't cache the answers used to evaluate the downstream pipelines to trigger, see
+     * {@link CachingPipelineMavenPluginDaoDecorator}
+     */
+    private static final boolean TRIGGER_CACHE_DISABLED =
+            Boolean.getBoolean("org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.TRIGGER_CACHE_DISABLED");
+    /**
+     * Number of {@code MAVEN_ARTIFACT} ids scanned by each transaction of the orphan artifacts collector
+     */
+    private static final int ARTIFACT_GC_PAGE_SIZE = Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.ARTIFACT_GC_PAGE_SIZE", 1_000);
+    /**
+     * Pause of the orphan artifacts collector between two pages
+     */
+    private static final int ARTIFACT_GC_PAUSE_IN_MILLIS = Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.ARTIFACT_GC_PAUSE_IN_MILLIS", 100);
+    private static final String ORPHAN_ARTIFACT_GC_CURSOR = "ORPHAN_ARTIFACT_GC";
+    /**
+     * Number of {@code JENKINS_BUILD} ids scanned by each transaction of the build history compactor
+     */
+    private static final int BUILD_COMPACTION_PAGE_SIZE = Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.BUILD_COMPACTION_PAGE_SIZE", 500);
+    /**
+     * Pause of the build history compactor between two pages
+     */
+    private static final int BUILD_COMPACTION_PAUSE_IN_MILLIS = Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.BUILD_COMPACTION_PAUSE_IN_MILLIS", 100);
+    /**
+     * Suffixed by the {@code JENKINS_MASTER.ID}, each Jenkins controller compacts its own builds
+     */
+    private static final String BUILD_COMPACTION_CURSOR = "BUILD_COMPACTION";
+    private static final int PRIMARY_KEY_CACHE_SIZE = Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.PRIMARY_KEY_CACHE_SIZE", 10_000);
+
+    private static final AtomicInteger JOB_PRIMARY_KEY_HITS = new AtomicInteger();
+    private static final AtomicInteger JOB_PRIMARY_KEY_MISSES = new AtomicInteger();
+
+    private static final AtomicInteger BUILD_PRIMARY_KEY_HITS = new AtomicInteger();
+    private static final AtomicInteger BUILD_PRIMARY_KEY_MISSES = new AtomicInteger();
+
+    private static final AtomicInteger ARTIFACT_PRIMARY_KEY_HITS = new AtomicInteger();
+    private static final AtomicInteger ARTIFACT_PRIMARY_KEY_MISSES = new AtomicInteger();
+
+    static {
+        MonitoringPipelineMavenPluginDaoDecorator.registerCacheStatsSupplier(
+                () -> new CacheStats("jobPrimaryKey", JOB_PRIMARY_KEY_HITS.get(), JOB_PRIMARY_KEY_MISSES.get()));
+        MonitoringPipelineMavenPluginDaoDecorator.registerCacheStatsSupplier(() ->
+                new CacheStats("buildPrimaryKey", BUILD_PRIMARY_KEY_HITS.get(), BUILD_PRIMARY_KEY_MISSES.get()));
+        MonitoringPipelineMavenPluginDaoDecorator.registerCacheStatsSupplier(() -> new CacheStats(
+                "artifactPrimaryKey", ARTIFACT_PRIMARY_KEY_HITS.get(), ARTIFACT_PRIMARY_KEY_MISSES.get()));
+    }
+
     protected final Logger LOGGER = Logger.getLogger(getClass().getName());
 
     @NonNull
@@ -86,6 +162,61 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
     @Nullable
     private transient Long jenkinsMasterPrimaryKey;
 
+    @Nullable
+    private transient Boolean recursiveQuerySupported;
+
+    /**
+     * {@code JENKINS_JOB.ID} by {@code JENKINS_JOB.FULL_NAME}
+     */
+    private final transient PrimaryKeyCache<String> jobPrimaryKeys =
+            new PrimaryKeyCache<>(PRIMARY_KEY_CACHE_SIZE, JOB_PRIMARY_KEY_HITS, JOB_PRIMARY_KEY_MISSES);
+
+    /**
+     * {@code JENKINS_BUILD.ID} by {@code JENKINS_BUILD.JOB_ID + "#" + JENKINS_BUILD.NUMBER}
+     */
+    private final transient PrimaryKeyCache<String> buildPrimaryKeys =
+            new PrimaryKeyCache<>(PRIMARY_KEY_CACHE_SIZE, BUILD_PRIMARY_KEY_HITS, BUILD_PRIMARY_KEY_MISSES);
+
+    /**
+     * {@code MAVEN_ARTIFACT.ID} by {@code groupId:artifactId:version:type:classifier}
+     */
+    private final transient PrimaryKeyCache<String> artifactPrimaryKeys =
+            new PrimaryKeyCache<>(PRIMARY_KEY_CACHE_SIZE, ARTIFACT_PRIMARY_KEY_HITS, ARTIFACT_PRIMARY_KEY_MISSES);
+
+    /**
+     * Last {@code MAVEN_ARTIFACT.ID} processed by the orphan artifacts collector, {@code 0} at the end of a pass
+     */
+    private transient volatile long orphanArtifactGcCursor;
+
+    private transient volatile long orphanArtifactGcMaxId;
+
+    private final transient AtomicLong orphanArtifactGcPasses = new AtomicLong();
+
+    private final transient AtomicLong orphanArtifactGcPages = new AtomicLong();
+
+    private final transient AtomicLong orphanArtifactGcScanned = new AtomicLong();
+
+    private final transient AtomicLong orphanArtifactGcDeleted = new AtomicLong();
+
+    private final transient AtomicLong orphanArtifactGcDurationInNanos = new AtomicLong();
+
+    /**
+     * Last {@code JENKINS_BUILD.ID} processed by the build history compactor, {@code 0} at the end of a pass
+     */
+    private transient volatile long buildCompactionCursor;
+
+    private final transient AtomicLong buildCompactionPasses = new AtomicLong();
+
+    private final transient AtomicLong buildCompactionPages = new AtomicLong();
+
+    private final transient AtomicLong buildCompactionScanned = new AtomicLong();
+
+    private final transient AtomicLong buildCompactionCompacted = new AtomicLong();
+
+    private final transient AtomicLong buildCompactionReclaimed = new AtomicLong();
+
+    private final transient AtomicLong buildCompactionDurationInNanos = new AtomicLong();
+
     @SuppressFBWarnings("NP_NONNULL_FIELD_NOT_INITIALIZED_IN_CONSTRUCTOR")
     protected AbstractPipelineMavenPluginDao() {
         // this one is here only to help when using Extension.lookup
@@ -202,10 +333,23 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
                 DataSource ds = new HikariDataSource(dsConfig);
 
                 try {
-                    dao = new MonitoringPipelineMavenPluginDaoDecorator(new CustomTypePipelineMavenPluginDaoDecorator(
-                            (PipelineMavenPluginDao) pipelineMavenPluginDaoClass
-                                    .getConstructor(DataSource.class)
-                                    .newInstance(ds)));
+                    dao = (PipelineMavenPluginDao) pipelineMavenPluginDaoClass
+                            .getConstructor(DataSource.class)
+                            .newInstance(ds);
+                    if (GRAPH_INDEX) {
+                        GraphIndexPipelineMavenPluginDaoDecorator graphIndex =
+                                new GraphIndexPipelineMavenPluginDaoDecorator(dao);
+                        graphIndex.loadInBackground();
+                        dao = graphIndex;
+                    }
+                    dao = new CustomTypePipelineMavenPluginDaoDecorator(dao);
+                    if (!TRIGGER_CACHE_DISABLED) {
+                        dao = new CachingPipelineMavenPluginDaoDecorator(dao);
+                    }
+                    dao = new MonitoringPipelineMavenPluginDaoDecorator(dao);
+                    if (WRITE_BEHIND) {
+                        dao = new WriteBehindPipelineMavenPluginDaoDecorator(dao);
+                    }
                 } catch (Exception e) {
                     throw new SQLException(
                             "Exception connecting to '" + jdbcUrl + "' with credentials '" + config.getCredentialsId()
@@ -492,23 +636,23 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
                 new Object[] {
                     jobFullName, buildNumber, groupId, artifactId, version, type, scope, ignoreUpstreamTriggers
                 });
-        long buildPrimaryKey = getOrCreateBuildPrimaryKey(jobFullName, buildNumber);
-        long artifactPrimaryKey = getOrCreateArtifactPrimaryKey(groupId, artifactId, version, type, classifier);
+        executeWithPrimaryKeysRetry(() -> {
+            long buildPrimaryKey = getOrCreateBuildPrimaryKey(jobFullName, buildNumber);
+            long artifactPrimaryKey = getOrCreateArtifactPrimaryKey(groupId, artifactId, version, type, classifier);
 
-        try (Connection cnn = ds.getConnection()) {
-            cnn.setAutoCommit(false);
-            try (PreparedStatement stmt = cnn.prepareStatement(
-                    "INSERT INTO MAVEN_DEPENDENCY(ARTIFACT_ID, BUILD_ID, SCOPE, IGNORE_UPSTREAM_TRIGGERS) VALUES (?, ?, ?, ?)")) {
-                stmt.setLong(1, artifactPrimaryKey);
-                stmt.setLong(2, buildPrimaryKey);
-                stmt.setString(3, scope);
-                stmt.setBoolean(4, ignoreUpstreamTriggers);
-                stmt.execute();
+            try (Connection cnn = ds.getConnection()) {
+                cnn.setAutoCommit(false);
+                try (PreparedStatement stmt = cnn.prepareStatement(
+                        "INSERT INTO MAVEN_DEPENDENCY(ARTIFACT_ID, BUILD_ID, SCOPE, IGNORE_UPSTREAM_TRIGGERS) VALUES (?, ?, ?, ?)")) {
+                    stmt.setLong(1, artifactPrimaryKey);
+                    stmt.setLong(2, buildPrimaryKey);
+                    stmt.setString(3, scope);
+                    stmt.setBoolean(4, ignoreUpstreamTriggers);
+                    stmt.execute();
+                }
+                cnn.commit();
             }
-            cnn.commit();
-        } catch (SQLException e) {
-            throw new RuntimeSqlException(e);
-        }
+        });
     }
 
     @NonNull
@@ -566,23 +710,23 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
         LOGGER.log(Level.FINE, "recordParentProject({0}#{1}, {2}:{3} ignoreUpstreamTriggers:{5}})", new Object[] {
             jobFullName, buildNumber, parentGroupId, parentArtifactId, parentVersion, ignoreUpstreamTriggers
         });
-        long buildPrimaryKey = getOrCreateBuildPrimaryKey(jobFullName, buildNumber);
-        long parentArtifactPrimaryKey =
-                getOrCreateArtifactPrimaryKey(parentGroupId, parentArtifactId, parentVersion, "pom", null);
+        executeWithPrimaryKeysRetry(() -> {
+            long buildPrimaryKey = getOrCreateBuildPrimaryKey(jobFullName, buildNumber);
+            long parentArtifactPrimaryKey =
+                    getOrCreateArtifactPrimaryKey(parentGroupId, parentArtifactId, parentVersion, "pom", null);
 
-        try (Connection cnn = ds.getConnection()) {
-            cnn.setAutoCommit(false);
-            try (PreparedStatement stmt = cnn.prepareStatement(
-                    "INSERT INTO MAVEN_PARENT_PROJECT(ARTIFACT_ID, BUILD_ID, IGNORE_UPSTREAM_TRIGGERS) VALUES (?, ?, ?)")) {
-                stmt.setLong(1, parentArtifactPrimaryKey);
-                stmt.setLong(2, buildPrimaryKey);
-                stmt.setBoolean(3, ignoreUpstreamTriggers);
-                stmt.execute();
+            try (Connection cnn = ds.getConnection()) {
+                cnn.setAutoCommit(false);
+                try (PreparedStatement stmt = cnn.prepareStatement(
+                        "INSERT INTO MAVEN_PARENT_PROJECT(ARTIFACT_ID, BUILD_ID, IGNORE_UPSTREAM_TRIGGERS) VALUES (?, ?, ?)")) {
+                    stmt.setLong(1, parentArtifactPrimaryKey);
+                    stmt.setLong(2, buildPrimaryKey);
+                    stmt.setBoolean(3, ignoreUpstreamTriggers);
+                    stmt.execute();
+                }
+                cnn.commit();
             }
-            cnn.commit();
-        } catch (SQLException e) {
-            throw new RuntimeSqlException(e);
-        }
+        });
     }
 
     @Override
@@ -612,25 +756,193 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
                     repositoryUrl,
                     skipDownstreamTriggers
                 });
-        long buildPrimaryKey = getOrCreateBuildPrimaryKey(jobFullName, buildNumber);
-        long artifactPrimaryKey = getOrCreateArtifactPrimaryKey(groupId, artifactId, baseVersion, type, classifier);
+        executeWithPrimaryKeysRetry(() -> {
+            long buildPrimaryKey = getOrCreateBuildPrimaryKey(jobFullName, buildNumber);
+            long artifactPrimaryKey = getOrCreateArtifactPrimaryKey(groupId, artifactId, baseVersion, type, classifier);
 
-        try (Connection cnn = ds.getConnection()) {
-            cnn.setAutoCommit(false);
-            try (PreparedStatement stmt = cnn.prepareStatement(
-                    "INSERT INTO GENERATED_MAVEN_ARTIFACT(ARTIFACT_ID, BUILD_ID, VERSION, REPOSITORY_URL, EXTENSION, SKIP_DOWNSTREAM_TRIGGERS) VALUES (?, ?, ?, ?, ?, ?)")) {
-                stmt.setLong(1, artifactPrimaryKey);
-                stmt.setLong(2, buildPrimaryKey);
-                stmt.setString(3, version);
-                stmt.setString(4, repositoryUrl);
-                stmt.setString(5, extension);
-                stmt.setBoolean(6, skipDownstreamTriggers);
-                stmt.execute();
+            try (Connection cnn = ds.getConnection()) {
+                cnn.setAutoCommit(false);
+                try (PreparedStatement stmt = cnn.prepareStatement(
+                        "INSERT INTO GENERATED_MAVEN_ARTIFACT(ARTIFACT_ID, BUILD_ID, VERSION, REPOSITORY_URL, EXTENSION, SKIP_DOWNSTREAM_TRIGGERS) VALUES (?, ?, ?, ?, ?, ?)")) {
+                    stmt.setLong(1, artifactPrimaryKey);
+                    stmt.setLong(2, buildPrimaryKey);
+                    stmt.setString(3, version);
+                    stmt.setString(4, repositoryUrl);
+                    stmt.setString(5, extension);
+                    stmt.setBoolean(6, skipDownstreamTriggers);
+                    stmt.execute();
+                }
+                cnn.commit();
             }
-            cnn.commit();
-        } catch (SQLException e) {
-            throw new RuntimeSqlException(e);
+        });
+    }
+
+    @Override
+    public void recordBuildGraph(
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull Collection<MavenDependency> dependencies,
+            @NonNull Collection<MavenArtifact> parentProjects,
+            @NonNull Collection<MavenArtifact> generatedArtifacts,
+            boolean ignoreUpstreamTriggers,
+            boolean skipDownstreamTriggers) {
+        LOGGER.log(
+                Level.FINE,
+                "recordBuildGraph({0}#{1}, dependencies:{2}, parentProjects:{3}, generatedArtifacts:{4}, ignoreUpstreamTriggers:{5}, skipDownstreamTriggers:{6})",
+                new Object[] {
+                    jobFullName,
+                    buildNumber,
+                    dependencies.size(),
+                    parentProjects.size(),
+                    generatedArtifacts.size(),
+                    ignoreUpstreamTriggers,
+                    skipDownstreamTriggers
+                });
+        if (dependencies.isEmpty() && parentProjects.isEmpty() && generatedArtifacts.isEmpty()) {
+            return;
+        }
+        // sorted to always lock the rows in the same order when concurrent builds insert the same artifacts
+        SortedMap<String, List<String>> artifacts = new TreeMap<>();
+        for (MavenArtifact parentProject : parentProjects) {
+            addArtifactCoordinates(
+                    artifacts,
+                    parentProject.getGroupId(),
+                    parentProject.getArtifactId(),
+                    parentProject.getVersion(),
+                    "pom",
+                    null);
+        }
+        for (MavenDependency dependency : dependencies) {
+            addArtifactCoordinates(
+                    artifacts,
+                    dependency.getGroupId(),
+                    dependency.getArtifactId(),
+                    dependency.getBaseVersion(),
+                    dependency.getType(),
+                    dependency.getClassifier());
+        }
+        for (MavenArtifact artifact : generatedArtifacts) {
+            addArtifactCoordinates(
+                    artifacts,
+                    artifact.getGroupId(),
+                    artifact.getArtifactId(),
+                    artifact.getBaseVersion(),
+                    artifact.getType(),
+                    artifact.getClassifier());
+        }
+
+        executeWithPrimaryKeysRetry(() -> {
+            try (Connection cnn = ds.getConnection()) {
+                cnn.setAutoCommit(false);
+                long buildPrimaryKey = getOrCreateBuildPrimaryKey(cnn, jobFullName, buildNumber);
+                Map<String, Long> artifactPrimaryKeysByKey = new HashMap<>();
+                for (Entry<String, List<String>> artifact : artifacts.entrySet()) {
+                    List<String> coordinates = artifact.getValue();
+                    artifactPrimaryKeysByKey.put(
+                            artifact.getKey(),
+                            getOrCreateArtifactPrimaryKey(
+                                    cnn,
+                                    coordinates.get(0),
+                                    coordinates.get(1),
+                                    coordinates.get(2),
+                                    coordinates.get(3),
+                                    coordinates.get(4)));
+                }
+                // the relations are inserted in the same transaction: the cleanup of the orphan artifacts must
+                // never see the created artifacts without the relations referencing them
+
+                try (PreparedStatement stmt = cnn.prepareStatement(
+                        "INSERT INTO MAVEN_PARENT_PROJECT(ARTIFACT_ID, BUILD_ID, IGNORE_UPSTREAM_TRIGGERS) VALUES (?, ?, ?)")) {
+                    for (MavenArtifact parentProject : parentProjects) {
+                        stmt.setLong(
+                                1,
+                                artifactPrimaryKeysByKey.get(getArtifactKey(
+                                        parentProject.getGroupId(),
+                                        parentProject.getArtifactId(),
+                                        parentProject.getVersion(),
+                                        "pom",
+                                        null)));
+                        stmt.setLong(2, buildPrimaryKey);
+                        stmt.setBoolean(3, ignoreUpstreamTriggers);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+
+                try (PreparedStatement stmt = cnn.prepareStatement(
+                        "INSERT INTO MAVEN_DEPENDENCY(ARTIFACT_ID, BUILD_ID, SCOPE, IGNORE_UPSTREAM_TRIGGERS) VALUES (?, ?, ?, ?)")) {
+                    for (MavenDependency dependency : dependencies) {
+                        stmt.setLong(
+                                1,
+                                artifactPrimaryKeysByKey.get(getArtifactKey(
+                                        dependency.getGroupId(),
+                                        dependency.getArtifactId(),
+                                        dependency.getBaseVersion(),
+                                        dependency.getType(),
+                                        dependency.getClassifier())));
+                        stmt.setLong(2, buildPrimaryKey);
+                        stmt.setString(3, dependency.getScope());
+                        stmt.setBoolean(4, ignoreUpstreamTriggers);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+
+                try (PreparedStatement stmt = cnn.prepareStatement(
+                        "INSERT INTO GENERATED_MAVEN_ARTIFACT(ARTIFACT_ID, BUILD_ID, VERSION, REPOSITORY_URL, EXTENSION, SKIP_DOWNSTREAM_TRIGGERS) VALUES (?, ?, ?, ?, ?, ?)")) {
+                    for (MavenArtifact artifact : generatedArtifacts) {
+                        stmt.setLong(
+                                1,
+                                artifactPrimaryKeysByKey.get(getArtifactKey(
+                                        artifact.getGroupId(),
+                                        artifact.getArtifactId(),
+                                        artifact.getBaseVersion(),
+                                        artifact.getType(),
+                                        artifact.getClassifier())));
+                        stmt.setLong(2, buildPrimaryKey);
+                        stmt.setString(3, artifact.getVersion());
+                        stmt.setString(4, artifact.getRepositoryUrl());
+                        stmt.setString(5, artifact.getExtension());
+                        stmt.setBoolean(6, skipDownstreamTriggers);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+                cnn.commit();
+            }
+        });
+    }
+
+    private static void addArtifactCoordinates(
+            Map<String, List<String>> artifacts,
+            String groupId,
+            String artifactId,
+            String version,
+            String type,
+            @Nullable String classifier) {
+        artifacts.put(
+                getArtifactKey(groupId, artifactId, version, type, classifier),
+                Arrays.asList(groupId, artifactId, version, type, classifier));
+    }
+
+    private static String getArtifactKey(
+            String groupId, String artifactId, String version, String type, @Nullable String classifier) {
+        return groupId + ":" + artifactId + ":" + version + ":" + type + ":" + (classifier == null ? "" : classifier);
+    }
+
+    /**
+     * Key of the artifact ignoring the case and the trailing spaces of the coordinates, as compared by the case
+     * insensitive and {@code PAD SPACE} collations (e.g. MySQL).
+     */
+    private static String getNormalizedArtifactKey(String artifactKey) {
+        StringBuilder normalizedKey = new StringBuilder();
+        for (String coordinate : artifactKey.split(":", -1)) {
+            if (normalizedKey.length() > 0) {
+                normalizedKey.append(':');
+            }
+            normalizedKey.append(coordinate.replaceFirst(" +$", "").toLowerCase(Locale.ROOT));
         }
+        return normalizedKey.toString();
     }
 
     @Override
@@ -640,32 +952,32 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
                 Level.FINE,
                 "recordBuildUpstreamCause(upstreamBuild: {0}#{1}, downstreamBuild: {2}#{3})",
                 new Object[] {upstreamJobName, upstreamBuildNumber, downstreamJobName, downstreamBuildNumber});
-        try (Connection cnn = ds.getConnection()) {
-            cnn.setAutoCommit(false);
-            String sql =
-                    "insert into JENKINS_BUILD_UPSTREAM_CAUSE (upstream_build_id, downstream_build_id) values (?, ?)";
-
+        executeWithPrimaryKeysRetry(() -> {
             long upstreamBuildPrimaryKey = getOrCreateBuildPrimaryKey(upstreamJobName, upstreamBuildNumber);
             long downstreamBuildPrimaryKey = getOrCreateBuildPrimaryKey(downstreamJobName, downstreamBuildNumber);
 
-            try (PreparedStatement stmt = cnn.prepareStatement(sql)) {
-                stmt.setLong(1, upstreamBuildPrimaryKey);
-                stmt.setLong(2, downstreamBuildPrimaryKey);
+            try (Connection cnn = ds.getConnection()) {
+                cnn.setAutoCommit(false);
+                String sql =
+                        "insert into JENKINS_BUILD_UPSTREAM_CAUSE (upstream_build_id, downstream_build_id) values (?, ?)";
 
-                int rowCount = stmt.executeUpdate();
-                if (rowCount != 1) {
-                    LOGGER.log(
-                            Level.INFO,
-                            "More/less ({0}) than 1 record inserted in JENKINS_BUILD_UPSTREAM_CAUSE for upstreamBuild: {1}#{2}, downstreamBuild: {3}#{4}",
-                            new Object[] {
-                                rowCount, upstreamJobName, upstreamBuildNumber, downstreamJobName, downstreamBuildNumber
-                            });
+                try (PreparedStatement stmt = cnn.prepareStatement(sql)) {
+                    stmt.setLong(1, upstreamBuildPrimaryKey);
+                    stmt.setLong(2, downstreamBuildPrimaryKey);
+
+                    int rowCount = stmt.executeUpdate();
+                    if (rowCount != 1) {
+                        LOGGER.log(
+                                Level.INFO,
+                                "More/less ({0}) than 1 record inserted in JENKINS_BUILD_UPSTREAM_CAUSE for upstreamBuild: {1}#{2}, downstreamBuild: {3}#{4}",
+                                new Object[] {
+                                    rowCount, upstreamJobName, upstreamBuildNumber, downstreamJobName, downstreamBuildNumber
+                                });
+                    }
                 }
+                cnn.commit();
             }
-            cnn.commit();
-        } catch (SQLException e) {
-            throw new RuntimeSqlException(e);
-        }
+        });
     }
 
     @Override
@@ -682,6 +994,9 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
                 LOGGER.log(Level.FINE, "renameJob({0}, {1}): {2}", new Object[] {oldFullName, newFullName, count});
             }
             cnn.commit();
+            // the primary keys of the builds of the job are not impacted
+            jobPrimaryKeys.invalidate(oldFullName);
+            jobPrimaryKeys.invalidate(newFullName);
         } catch (SQLException e) {
             throw new RuntimeSqlException(e);
         }
@@ -700,6 +1015,12 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
                 LOGGER.log(Level.FINE, "deleteJob({0}): {1}", new Object[] {jobFullName, count});
             }
             cnn.commit();
+            Long jobPrimaryKey = jobPrimaryKeys.invalidate(jobFullName);
+            if (jobPrimaryKey == null) {
+                buildPrimaryKeys.invalidateAll();
+            } else {
+                buildPrimaryKeys.invalidateIf(buildKey -> buildKey.startsWith(jobPrimaryKey + "#"));
+            }
         } catch (SQLException e) {
             throw new RuntimeSqlException(e);
         }
@@ -778,80 +1099,293 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
                 LOGGER.log(Level.FINE, "deleteJob({0}#{1}): {2}", new Object[] {jobFullName, buildNumber, count});
             }
             cnn.commit();
+            buildPrimaryKeys.invalidate(jobPrimaryKey + "#" + buildNumber);
         } catch (SQLException e) {
             throw new RuntimeSqlException(e);
         }
     }
 
+    /**
+     * Full pass of the orphan artifacts collector, see {@link #collectOrphanArtifacts(Connection, long, long, boolean)}
+     */
     @Override
     public void cleanup() {
         try (Connection cnn = ds.getConnection()) {
             cnn.setAutoCommit(false);
-            String sql =
-                    "DELETE FROM MAVEN_ARTIFACT WHERE ID NOT IN (SELECT DISTINCT ARTIFACT_ID FROM MAVEN_DEPENDENCY UNION SELECT DISTINCT ARTIFACT_ID FROM GENERATED_MAVEN_ARTIFACT)";
-            try (Statement stmt = cnn.createStatement()) {
-                int count = stmt.executeUpdate(sql);
-                LOGGER.log(Level.FINE, "cleanup(): {0}", new Object[] {count});
-            }
-            cnn.commit();
+            collectOrphanArtifacts(cnn, 0, Long.MAX_VALUE, false);
         } catch (SQLException e) {
             throw new RuntimeSqlException(e);
         }
     }
 
-    protected synchronized long getOrCreateBuildPrimaryKey(String jobFullName, int buildNumber) {
+    /**
+     * Resume the orphan artifacts collector from the cursor persisted in {@code MAINTENANCE_CURSOR}, see
+     * {@link #collectOrphanArtifacts(Connection, long, long, boolean)}
+     */
+    @Override
+    public void cleanup(long maxDurationInMillis) {
         try (Connection cnn = ds.getConnection()) {
             cnn.setAutoCommit(false);
+            long lastArtifactId = readMaintenanceCursor(cnn, ORPHAN_ARTIFACT_GC_CURSOR);
+            cnn.commit();
+            collectOrphanArtifacts(cnn, lastArtifactId, TimeUnit.MILLISECONDS.toNanos(maxDurationInMillis), true);
+        } catch (SQLException e) {
+            throw new RuntimeSqlException(e);
+        }
+    }
 
-            Long jobPrimaryKey = null;
+    /**
+     * Delete the {@code MAVEN_ARTIFACT} rows that are neither a dependency, a parent project nor a generated artifact
+     * of any build. The table is scanned by pages of {@link #ARTIFACT_GC_PAGE_SIZE} ids, each page is deleted in its
+     * own short transaction followed by a pause of {@link #ARTIFACT_GC_PAUSE_IN_MILLIS} so that the builds recording
+     * their graph are not blocked.
+     *
+     * @param fromArtifactId      exclusive lower bound of the scan
+     * @param maxDurationInNanos  stop after the page that exceeds this duration
+     * @param persistCursor       save the last scanned id with each page so that the next call resumes from there
+     */
+    private void collectOrphanArtifacts(
+            @NonNull Connection cnn, long fromArtifactId, long maxDurationInNanos, boolean persistCursor)
+            throws SQLException {
+        long startTimeInNanos = System.nanoTime();
+        long lastArtifactId = fromArtifactId;
+        try (Statement stmt = cnn.createStatement()) {
+            try (ResultSet rst = stmt.executeQuery("SELECT MAX(ID) FROM MAVEN_ARTIFACT")) {
+                orphanArtifactGcMaxId = rst.next() ? rst.getLong(1) : 0;
+            }
+        }
+        cnn.commit();
+        while (true) {
+            long pageStartTimeInNanos = System.nanoTime();
+            long pageFirstArtifactId = lastArtifactId;
+            int scanned = 0;
             try (PreparedStatement stmt =
-                    cnn.prepareStatement("SELECT ID FROM JENKINS_JOB WHERE FULL_NAME = ? AND JENKINS_MASTER_ID = ?")) {
-                stmt.setString(1, jobFullName);
-                stmt.setLong(2, getJenkinsMasterPrimaryKey(cnn));
+                    cnn.prepareStatement("SELECT ID FROM MAVEN_ARTIFACT WHERE ID > ? ORDER BY ID LIMIT ?")) {
+                stmt.setLong(1, lastArtifactId);
+                stmt.setInt(2, ARTIFACT_GC_PAGE_SIZE);
                 try (ResultSet rst = stmt.executeQuery()) {
-                    if (rst.next()) {
-                        jobPrimaryKey = rst.getLong(1);
+                    while (rst.next()) {
+                        lastArtifactId = rst.getLong(1);
+                        scanned++;
                     }
                 }
             }
-            if (jobPrimaryKey == null) {
-                try (PreparedStatement stmt = cnn.prepareStatement(
-                        "INSERT INTO JENKINS_JOB(FULL_NAME, JENKINS_MASTER_ID) VALUES (?, ?)",
-                        Statement.RETURN_GENERATED_KEYS)) {
-                    stmt.setString(1, jobFullName);
-                    stmt.setLong(2, getJenkinsMasterPrimaryKey(cnn));
-                    stmt.execute();
-                    jobPrimaryKey = getGeneratedPrimaryKey(stmt, "ID");
+            long pageLastArtifactId = lastArtifactId;
+            int deleted = 0;
+            if (scanned > 0) {
+                String sql = "DELETE FROM MAVEN_ARTIFACT WHERE ID > ? AND ID <= ?"
+                        + " AND NOT EXISTS (SELECT 1 FROM MAVEN_DEPENDENCY WHERE MAVEN_DEPENDENCY.ARTIFACT_ID = MAVEN_ARTIFACT.ID)"
+                        + " AND NOT EXISTS (SELECT 1 FROM GENERATED_MAVEN_ARTIFACT WHERE GENERATED_MAVEN_ARTIFACT.ARTIFACT_ID = MAVEN_ARTIFACT.ID)"
+                        + " AND NOT EXISTS (SELECT 1 FROM MAVEN_PARENT_PROJECT WHERE MAVEN_PARENT_PROJECT.ARTIFACT_ID = MAVEN_ARTIFACT.ID)";
+                try (PreparedStatement stmt = cnn.prepareStatement(sql)) {
+                    stmt.setLong(1, pageFirstArtifactId);
+                    stmt.setLong(2, pageLastArtifactId);
+                    deleted = stmt.executeUpdate();
                 }
             }
-            Long buildPrimaryKey = null;
-            try (PreparedStatement stmt =
-                    cnn.prepareStatement("SELECT ID FROM JENKINS_BUILD WHERE JOB_ID=? AND NUMBER=?")) {
-                stmt.setLong(1, jobPrimaryKey);
-                stmt.setInt(2, buildNumber);
-                try (ResultSet rst = stmt.executeQuery()) {
-                    if (rst.next()) {
-                        buildPrimaryKey = rst.getLong(1);
-                    }
-                }
+            if (scanned == 0) {
+                lastArtifactId = 0;
+            }
+            if (persistCursor) {
+                saveMaintenanceCursor(cnn, ORPHAN_ARTIFACT_GC_CURSOR, lastArtifactId);
+            }
+            cnn.commit();
+            if (deleted > 0) {
+                artifactPrimaryKeys.invalidateIfPrimaryKey(
+                        primaryKey -> primaryKey > pageFirstArtifactId && primaryKey <= pageLastArtifactId);
+            }
+            LOGGER.log(Level.FINE, "cleanup(): artifacts {0} to {1}, {2} scanned, {3} deleted", new Object[] {
+                pageFirstArtifactId, pageLastArtifactId, scanned, deleted
+            });
+
+            orphanArtifactGcCursor = lastArtifactId;
+            orphanArtifactGcPages.incrementAndGet();
+            orphanArtifactGcScanned.addAndGet(scanned);
+            orphanArtifactGcDeleted.addAndGet(deleted);
+            orphanArtifactGcDurationInNanos.addAndGet(System.nanoTime() - pageStartTimeInNanos);
+
+            if (scanned == 0) {
+                orphanArtifactGcPasses.incrementAndGet();
+                return;
+            }
+            if (System.nanoTime() - startTimeInNanos >= maxDurationInNanos) {
+                return;
             }
+            try {
+                Thread.sleep(ARTIFACT_GC_PAUSE_IN_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
 
-            if (buildPrimaryKey == null) {
+    /**
+     * Delete the dependencies, parent projects and generated artifacts of the builds of this Jenkins controller that
+     * are older than the last {@code buildsToKeep} build numbers of their job, except the last successful build. The
+     * {@code JENKINS_BUILD} rows are kept for the upstream causes. Like {@link #cleanup(long)}, the builds are scanned
+     * by pages of {@link #BUILD_COMPACTION_PAGE_SIZE} ids from a cursor persisted in {@code MAINTENANCE_CURSOR}, one
+     * transaction per page.
+     */
+    @Override
+    public void compactBuildHistory(int buildsToKeep, long maxDurationInMillis) {
+        if (buildsToKeep <= 0) {
+            return;
+        }
+        long maxDurationInNanos = TimeUnit.MILLISECONDS.toNanos(maxDurationInMillis);
+        try (Connection cnn = ds.getConnection()) {
+            cnn.setAutoCommit(false);
+            long startTimeInNanos = System.nanoTime();
+            long jenkinsMasterPrimaryKey = getJenkinsMasterPrimaryKey(cnn);
+            String cursorName = BUILD_COMPACTION_CURSOR + "#" + jenkinsMasterPrimaryKey;
+            long lastBuildId = readMaintenanceCursor(cnn, cursorName);
+            cnn.commit();
+            while (true) {
+                long pageStartTimeInNanos = System.nanoTime();
+                int scanned = 0;
+                List<Long> compactedBuildIds = new ArrayList<>();
                 try (PreparedStatement stmt = cnn.prepareStatement(
-                        "INSERT INTO JENKINS_BUILD(JOB_ID, NUMBER) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS)) {
-                    stmt.setLong(1, jobPrimaryKey);
-                    stmt.setInt(2, buildNumber);
-                    stmt.execute();
-                    buildPrimaryKey = getGeneratedPrimaryKey(stmt, "ID");
+                        "SELECT JENKINS_BUILD.ID, JENKINS_BUILD.NUMBER, JENKINS_BUILD.RESULT_ID, JENKINS_JOB.LAST_BUILD_NUMBER, JENKINS_JOB.LAST_SUCCESSFUL_BUILD_NUMBER "
+                                + "FROM JENKINS_BUILD INNER JOIN JENKINS_JOB ON JENKINS_BUILD.JOB_ID = JENKINS_JOB.ID "
+                                + "WHERE JENKINS_JOB.JENKINS_MASTER_ID = ? AND JENKINS_BUILD.ID > ? "
+                                + "ORDER BY JENKINS_BUILD.ID LIMIT ?")) {
+                    stmt.setLong(1, jenkinsMasterPrimaryKey);
+                    stmt.setLong(2, lastBuildId);
+                    stmt.setInt(3, BUILD_COMPACTION_PAGE_SIZE);
+                    try (ResultSet rst = stmt.executeQuery()) {
+                        while (rst.next()) {
+                            lastBuildId = rst.getLong("ID");
+                            scanned++;
+                            int number = rst.getInt("NUMBER");
+                            boolean completed = rst.getObject("RESULT_ID") != null;
+                            int lastBuildNumber = rst.getInt("LAST_BUILD_NUMBER");
+                            if (rst.wasNull()) {
+                                continue;
+                            }
+                            int lastSuccessfulBuildNumber = rst.getInt("LAST_SUCCESSFUL_BUILD_NUMBER");
+                            if (completed
+                                    && number <= lastBuildNumber - buildsToKeep
+                                    && (number != lastSuccessfulBuildNumber || rst.wasNull())) {
+                                compactedBuildIds.add(lastBuildId);
+                            }
+                        }
+                    }
+                }
+                int reclaimed = 0;
+                if (!compactedBuildIds.isEmpty()) {
+                    String buildIdParameters =
+                            compactedBuildIds.stream().map(id -> "?").collect(Collectors.joining(", "));
+                    for (String table :
+                            Arrays.asList("MAVEN_DEPENDENCY", "GENERATED_MAVEN_ARTIFACT", "MAVEN_PARENT_PROJECT")) {
+                        try (PreparedStatement stmt = cnn.prepareStatement(
+                                "DELETE FROM " + table + " WHERE BUILD_ID IN (" + buildIdParameters + ")")) {
+                            int idx = 1;
+                            for (Long buildId : compactedBuildIds) {
+                                stmt.setLong(idx++, buildId);
+                            }
+                            reclaimed += stmt.executeUpdate();
+                        }
+                    }
+                }
+                if (scanned == 0) {
+                    lastBuildId = 0;
+                }
+                saveMaintenanceCursor(cnn, cursorName, lastBuildId);
+                cnn.commit();
+                LOGGER.log(
+                        Level.FINE,
+                        "compactBuildHistory({0}): {1} builds scanned, {2} compacted, {3} rows deleted",
+                        new Object[] {buildsToKeep, scanned, compactedBuildIds.size(), reclaimed});
+
+                buildCompactionCursor = lastBuildId;
+                buildCompactionPages.incrementAndGet();
+                buildCompactionScanned.addAndGet(scanned);
+                buildCompactionCompacted.addAndGet(compactedBuildIds.size());
+                buildCompactionReclaimed.addAndGet(reclaimed);
+                buildCompactionDurationInNanos.addAndGet(System.nanoTime() - pageStartTimeInNanos);
+
+                if (scanned == 0) {
+                    buildCompactionPasses.incrementAndGet();
+                    return;
+                }
+                if (System.nanoTime() - startTimeInNanos >= maxDurationInNanos) {
+                    return;
+                }
+                try {
+                    Thread.sleep(BUILD_COMPACTION_PAUSE_IN_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
                 }
             }
+        } catch (SQLException e) {
+            throw new RuntimeSqlException(e);
+        }
+    }
+
+    /**
+     * @return the {@code MAINTENANCE_CURSOR.LAST_ID} of the given cursor, {@code 0} if not found
+     */
+    private long readMaintenanceCursor(@NonNull Connection cnn, @NonNull String name) throws SQLException {
+        try (PreparedStatement stmt = cnn.prepareStatement("SELECT LAST_ID FROM MAINTENANCE_CURSOR WHERE NAME = ?")) {
+            stmt.setString(1, name);
+            try (ResultSet rst = stmt.executeQuery()) {
+                return rst.next() ? rst.getLong(1) : 0;
+            }
+        }
+    }
+
+    private void saveMaintenanceCursor(@NonNull Connection cnn, @NonNull String name, long lastId)
+            throws SQLException {
+        try (PreparedStatement stmt =
+                cnn.prepareStatement("UPDATE MAINTENANCE_CURSOR SET LAST_ID = ? WHERE NAME = ?")) {
+            stmt.setLong(1, lastId);
+            stmt.setString(2, name);
+            if (stmt.executeUpdate() > 0) {
+                return;
+            }
+        }
+        try (PreparedStatement stmt =
+                cnn.prepareStatement("INSERT INTO MAINTENANCE_CURSOR(NAME, LAST_ID) VALUES (?, ?)")) {
+            stmt.setString(1, name);
+            stmt.setLong(2, lastId);
+            stmt.execute();
+        }
+    }
+
+    protected long getOrCreateBuildPrimaryKey(String jobFullName, int buildNumber) {
+        try (Connection cnn = ds.getConnection()) {
+            cnn.setAutoCommit(false);
+            long buildPrimaryKey = getOrCreateBuildPrimaryKey(cnn, jobFullName, buildNumber);
             cnn.commit();
             return buildPrimaryKey;
         } catch (SQLException e) {
+            invalidatePrimaryKeyCaches();
             throw new RuntimeSqlException(e);
         }
     }
 
+    /**
+     * Does not commit the transaction, it's the responsibility of the caller.
+     */
+    protected long getOrCreateBuildPrimaryKey(Connection cnn, String jobFullName, int buildNumber)
+            throws SQLException {
+        long jobPrimaryKey = getOrCreatePrimaryKey(
+                cnn,
+                jobPrimaryKeys,
+                jobFullName,
+                "JENKINS_JOB",
+                Arrays.asList("FULL_NAME", "JENKINS_MASTER_ID"),
+                Arrays.asList(jobFullName, getJenkinsMasterPrimaryKey(cnn)));
+        return getOrCreatePrimaryKey(
+                cnn,
+                buildPrimaryKeys,
+                jobPrimaryKey + "#" + buildNumber,
+                "JENKINS_BUILD",
+                Arrays.asList("JOB_ID", "NUMBER"),
+                Arrays.asList(jobPrimaryKey, buildNumber));
+    }
+
     protected Long getGeneratedPrimaryKey(PreparedStatement stmt, String column) throws SQLException {
         long jobPrimaryKey;
         try (ResultSet rst = stmt.getGeneratedKeys()) {
@@ -872,59 +1406,218 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
             @Nullable String classifier) {
         try (Connection cnn = ds.getConnection()) {
             cnn.setAutoCommit(false);
-            // get or create build record
-            Long artifactPrimaryKey = null;
-            if (classifier == null) {
-                // For an unknown reason, "where classifier = null" does not work as expected when "where classifier is
-                // null" does
-                try (PreparedStatement stmt = cnn.prepareStatement(
-                        "SELECT ID FROM MAVEN_ARTIFACT WHERE GROUP_ID = ? AND ARTIFACT_ID = ? AND VERSION = ? AND TYPE = ? AND CLASSIFIER is NULL")) {
-                    stmt.setString(1, groupId);
-                    stmt.setString(2, artifactId);
-                    stmt.setString(3, version);
-                    stmt.setString(4, type);
+            long artifactPrimaryKey =
+                    getOrCreateArtifactPrimaryKey(cnn, groupId, artifactId, version, type, classifier);
+            cnn.commit();
+            return artifactPrimaryKey;
+        } catch (SQLException e) {
+            invalidatePrimaryKeyCaches();
+            throw new RuntimeSqlException(e);
+        }
+    }
 
-                    try (ResultSet rst = stmt.executeQuery()) {
-                        if (rst.next()) {
-                            artifactPrimaryKey = rst.getLong(1);
-                        }
-                    }
-                }
-            } else {
-                try (PreparedStatement stmt = cnn.prepareStatement(
-                        "SELECT ID FROM MAVEN_ARTIFACT WHERE GROUP_ID = ? AND ARTIFACT_ID = ? AND VERSION = ? AND TYPE = ? AND CLASSIFIER = ?")) {
-                    stmt.setString(1, groupId);
-                    stmt.setString(2, artifactId);
-                    stmt.setString(3, version);
-                    stmt.setString(4, type);
-                    stmt.setString(5, classifier);
+    /**
+     * Does not commit the transaction, it's the responsibility of the caller.
+     * <p>
+     * A {@code null} classifier is stored as an empty string so that it is covered by the unique index of the
+     * {@code MAVEN_ARTIFACT} table.
+     */
+    protected long getOrCreateArtifactPrimaryKey(
+            Connection cnn,
+            @NonNull String groupId,
+            @NonNull String artifactId,
+            @NonNull String version,
+            @NonNull String type,
+            @Nullable String classifier)
+            throws SQLException {
+        return getOrCreatePrimaryKey(
+                cnn,
+                artifactPrimaryKeys,
+                getArtifactKey(groupId, artifactId, version, type, classifier),
+                "MAVEN_ARTIFACT",
+                Arrays.asList("GROUP_ID", "ARTIFACT_ID", "VERSION", "TYPE", "CLASSIFIER"),
+                Arrays.asList(groupId, artifactId, version, type, classifier == null ? "" : classifier));
+    }
 
-                    try (ResultSet rst = stmt.executeQuery()) {
-                        if (rst.next()) {
-                            artifactPrimaryKey = rst.getLong(1);
-                        }
-                    }
-                }
+    /**
+     * Execute the given write, retried once when it fails: a cached primary key may reference a row deleted in the
+     * meantime (e.g. by the retention cleanup or by another Jenkins controller sharing the database), the write is then
+     * retried with the primary keys read again from the database.
+     */
+    protected void executeWithPrimaryKeysRetry(@NonNull SqlWrite write) {
+        try {
+            write.execute();
+        } catch (SQLException e) {
+            invalidatePrimaryKeyCaches();
+            LOGGER.log(Level.FINE, "Retry write with the primary keys read again from the database", e);
+            try {
+                write.execute();
+            } catch (SQLException retryException) {
+                invalidatePrimaryKeyCaches();
+                retryException.addSuppressed(e);
+                throw new RuntimeSqlException(retryException);
             }
+        }
+    }
 
-            if (artifactPrimaryKey == null) {
-                try (PreparedStatement stmt = cnn.prepareStatement(
-                        "INSERT INTO MAVEN_ARTIFACT(GROUP_ID, ARTIFACT_ID, VERSION, TYPE, CLASSIFIER) VALUES (?, ?, ?, ?, ?)",
-                        Statement.RETURN_GENERATED_KEYS)) {
-                    stmt.setString(1, groupId);
-                    stmt.setString(2, artifactId);
-                    stmt.setString(3, version);
-                    stmt.setString(4, type);
-                    stmt.setString(5, classifier);
+    /**
+     * Write to the database, see {@link #executeWithPrimaryKeysRetry(SqlWrite)}.
+     */
+    protected interface SqlWrite {
+        void execute() throws SQLException;
+    }
 
-                    stmt.execute();
-                    artifactPrimaryKey = getGeneratedPrimaryKey(stmt, "ID");
-                }
+    /**
+     * Invalidate the cached primary keys of the jobs, builds and artifacts, they are read again from the database.
+     * Invoked when a write fails as a cached primary key may reference a row deleted in the meantime (e.g. by the
+     * cleanup of another Jenkins controller sharing the database).
+     */
+    protected void invalidatePrimaryKeyCaches() {
+        jobPrimaryKeys.invalidateAll();
+        buildPrimaryKeys.invalidateAll();
+        artifactPrimaryKeys.invalidateAll();
+    }
+
+    /**
+     * Get the {@code ID} of the row of the given table matching the given unique key, inserting the row if it does
+     * not exist yet.
+     * <p>
+     * Safe to invoke concurrently for the same unique key without any lock in the JVM: the row is inserted with the
+     * {@link #getInsertIfAbsentSql(String, List) insert if absent} statement of the database and is then read again.
+     * Does not commit the transaction, it's the responsibility of the caller.
+     * <p>
+     * Only the primary keys of already existing rows are cached: the primary key of a row inserted by this
+     * transaction must not be used by other transactions before the commit. It is cached by the next invocation.
+     *
+     * @param cache            cache of the primary keys of the table
+     * @param cacheKey         key of the row in the cache
+     * @param table            table name
+     * @param uniqueKeyColumns columns of the unique index of the table, they are the only inserted columns
+     * @param uniqueKey        values of the unique key columns
+     */
+    protected long getOrCreatePrimaryKey(
+            @NonNull Connection cnn,
+            @NonNull PrimaryKeyCache<String> cache,
+            @NonNull String cacheKey,
+            @NonNull String table,
+            @NonNull List<String> uniqueKeyColumns,
+            @NonNull List<?> uniqueKey)
+            throws SQLException {
+        Long primaryKey = findPrimaryKey(cnn, cache, cacheKey, table, uniqueKeyColumns, uniqueKey);
+        if (primaryKey == null) {
+            primaryKey = insertIfAbsent(cnn, table, uniqueKeyColumns, uniqueKey);
+            if (primaryKey == null) {
+                primaryKey = selectPrimaryKey(cnn, getSelectPrimaryKeySql(table, uniqueKeyColumns), uniqueKey);
             }
-            cnn.commit();
-            return artifactPrimaryKey;
-        } catch (SQLException e) {
-            throw new RuntimeSqlException(e);
+            if (primaryKey == null) {
+                throw new SQLException("Failure to find or create " + table + " " + uniqueKey);
+            }
+        }
+        return primaryKey;
+    }
+
+    /**
+     * Get the {@code ID} of the row of the given table matching the given unique key, see
+     * {@link #getOrCreatePrimaryKey(Connection, PrimaryKeyCache, String, String, List, List)}.
+     *
+     * @return the primary key, {@code null} if the row does not exist
+     */
+    @Nullable
+    protected Long findPrimaryKey(
+            @NonNull Connection cnn,
+            @NonNull PrimaryKeyCache<String> cache,
+            @NonNull String cacheKey,
+            @NonNull String table,
+            @NonNull List<String> uniqueKeyColumns,
+            @NonNull List<?> uniqueKey)
+            throws SQLException {
+        Long primaryKey = cache.get(cacheKey);
+        if (primaryKey == null) {
+            primaryKey = selectPrimaryKey(cnn, getSelectPrimaryKeySql(table, uniqueKeyColumns), uniqueKey);
+            if (primaryKey != null) {
+                cache.put(cacheKey, primaryKey);
+            }
+        }
+        return primaryKey;
+    }
+
+    /**
+     * Get the {@code ID} of the given build without creating it.
+     *
+     * @return the primary key, {@code null} if the build does not exist
+     */
+    @Nullable
+    protected Long findBuildPrimaryKey(@NonNull Connection cnn, @NonNull String jobFullName, int buildNumber)
+            throws SQLException {
+        Long jobPrimaryKey = findPrimaryKey(
+                cnn,
+                jobPrimaryKeys,
+                jobFullName,
+                "JENKINS_JOB",
+                Arrays.asList("FULL_NAME", "JENKINS_MASTER_ID"),
+                Arrays.asList(jobFullName, getJenkinsMasterPrimaryKey(cnn)));
+        if (jobPrimaryKey == null) {
+            return null;
+        }
+        return findPrimaryKey(
+                cnn,
+                buildPrimaryKeys,
+                jobPrimaryKey + "#" + buildNumber,
+                "JENKINS_BUILD",
+                Arrays.asList("JOB_ID", "NUMBER"),
+                Arrays.asList(jobPrimaryKey, buildNumber));
+    }
+
+    private String getSelectPrimaryKeySql(@NonNull String table, @NonNull List<String> uniqueKeyColumns) {
+        return "SELECT ID FROM " + table + " WHERE "
+                + uniqueKeyColumns.stream().map(column -> column + " = ?").collect(Collectors.joining(" AND "));
+    }
+
+    /**
+     * Insert the given row unless a row with the same unique key already exists.
+     *
+     * @return the {@code ID} of the inserted or already existing row if the database can return it without reading
+     * the row again, {@code null} otherwise
+     */
+    @Nullable
+    protected Long insertIfAbsent(
+            @NonNull Connection cnn,
+            @NonNull String table,
+            @NonNull List<String> uniqueKeyColumns,
+            @NonNull List<?> uniqueKey)
+            throws SQLException {
+        try (PreparedStatement stmt = cnn.prepareStatement(getInsertIfAbsentSql(table, uniqueKeyColumns))) {
+            setParameters(stmt, uniqueKey);
+            stmt.execute();
+        }
+        return null;
+    }
+
+    /**
+     * SQL statement inserting a row with the given columns, doing nothing if a row with the same unique key already
+     * exists (e.g. {@code MERGE}, {@code INSERT ... ON CONFLICT DO NOTHING}...). Must not fail when another
+     * transaction concurrently inserts the same row.
+     *
+     * @param table            table name
+     * @param uniqueKeyColumns columns of the unique index of the table, one {@code ?} parameter per column
+     */
+    @NonNull
+    protected abstract String getInsertIfAbsentSql(@NonNull String table, @NonNull List<String> uniqueKeyColumns);
+
+    @Nullable
+    protected Long selectPrimaryKey(@NonNull Connection cnn, @NonNull String selectSql, @NonNull List<?> parameters)
+            throws SQLException {
+        try (PreparedStatement stmt = cnn.prepareStatement(selectSql)) {
+            setParameters(stmt, parameters);
+            try (ResultSet rst = stmt.executeQuery()) {
+                return rst.next() ? rst.getLong(1) : null;
+            }
+        }
+    }
+
+    protected void setParameters(@NonNull PreparedStatement stmt, @NonNull List<?> parameters) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            stmt.setObject(i + 1, parameters.get(i));
         }
     }
 
@@ -1093,55 +1786,79 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
         return downstreamJobs;
     }
 
+    /**
+     * The dependency and the parent project edges are fetched by a single {@code UNION ALL} query starting from the
+     * primary key of the upstream build, which spares the planning of the joins on the upstream job and build.
+     * JENKINS-50507 The passed job is excluded in case of pipelines consuming the artifacts they produce.
+     */
     @NonNull
     @Override
     public Map<MavenArtifact, SortedSet<String>> listDownstreamJobsByArtifact(
             @NonNull String jobFullName, int buildNumber) {
-        Map<MavenArtifact, SortedSet<String>> downstreamJobsByArtifactBasedOnMavenDependencies =
-                listDownstreamJobsByArtifactBasedOnMavenDependencies(jobFullName, buildNumber);
-        LOGGER.log(
-                Level.FINER,
-                "Got downstreamJobsByArtifactBasedOnMavenDependencies for job named {0} and build #{1}: {2}",
-                new Object[] {jobFullName, buildNumber, downstreamJobsByArtifactBasedOnMavenDependencies});
-        Map<MavenArtifact, SortedSet<String>> downstreamJobsByArtifactBasedOnParentProjectDependencies =
-                listDownstreamJobsByArtifactBasedOnParentProjectDependencies(jobFullName, buildNumber);
-        LOGGER.log(
-                Level.FINER,
-                "Got downstreamJobsByArtifactBasedOnParentProjectDependencies for job named {0} and build #{1}: {2}",
-                new Object[] {jobFullName, buildNumber, downstreamJobsByArtifactBasedOnParentProjectDependencies});
+        LOGGER.log(Level.FINER, "listDownstreamJobsByArtifact({0}, {1})", new Object[] {jobFullName, buildNumber});
+
+        String sql = "select distinct downstream_job.full_name, \n"
+                + "   MAVEN_ARTIFACT.group_id, MAVEN_ARTIFACT.artifact_id, MAVEN_ARTIFACT.version as base_version, MAVEN_ARTIFACT.type, MAVEN_ARTIFACT.classifier, \n"
+                + "   GENERATED_MAVEN_ARTIFACT.version as version, GENERATED_MAVEN_ARTIFACT.extension \n"
+                + "from GENERATED_MAVEN_ARTIFACT \n"
+                + "inner join MAVEN_ARTIFACT on GENERATED_MAVEN_ARTIFACT.artifact_id = MAVEN_ARTIFACT.id \n"
+                + "inner join MAVEN_DEPENDENCY on (MAVEN_DEPENDENCY.artifact_id = MAVEN_ARTIFACT.id and MAVEN_DEPENDENCY.ignore_upstream_triggers = false) \n"
+                + "inner join JENKINS_BUILD as downstream_build on MAVEN_DEPENDENCY.build_id = downstream_build.id \n"
+                + "inner join JENKINS_JOB as downstream_job on (downstream_build.number = downstream_job.last_successful_build_number and downstream_build.job_id = downstream_job.id) \n"
+                + "where GENERATED_MAVEN_ARTIFACT.build_id = ? and GENERATED_MAVEN_ARTIFACT.skip_downstream_triggers = false and downstream_job.jenkins_master_id = ? and downstream_job.full_name <> ? \n"
+                + "union all \n"
+                + "select distinct downstream_job.full_name, \n"
+                + "   MAVEN_ARTIFACT.group_id, MAVEN_ARTIFACT.artifact_id, MAVEN_ARTIFACT.version as base_version, MAVEN_ARTIFACT.type, MAVEN_ARTIFACT.classifier, \n"
+                + "   GENERATED_MAVEN_ARTIFACT.version as version, GENERATED_MAVEN_ARTIFACT.extension \n"
+                + "from GENERATED_MAVEN_ARTIFACT \n"
+                + "inner join MAVEN_ARTIFACT on GENERATED_MAVEN_ARTIFACT.artifact_id = MAVEN_ARTIFACT.id \n"
+                + "inner join MAVEN_PARENT_PROJECT on (MAVEN_PARENT_PROJECT.artifact_id = MAVEN_ARTIFACT.id and MAVEN_PARENT_PROJECT.ignore_upstream_triggers = false) \n"
+                + "inner join JENKINS_BUILD as downstream_build on MAVEN_PARENT_PROJECT.build_id = downstream_build.id \n"
+                + "inner join JENKINS_JOB as downstream_job on (downstream_build.number = downstream_job.last_successful_build_number and downstream_build.job_id = downstream_job.id) \n"
+                + "where GENERATED_MAVEN_ARTIFACT.build_id = ? and GENERATED_MAVEN_ARTIFACT.skip_downstream_triggers = false and downstream_job.jenkins_master_id = ? and downstream_job.full_name <> ?";
 
-        Map<MavenArtifact, SortedSet<String>> results = new HashMap<>(downstreamJobsByArtifactBasedOnMavenDependencies);
+        LOGGER.log(
+                Level.FINER, "sql: {0}, jobFullName:{1}, buildNumber: {2}", new Object[] {sql, jobFullName, buildNumber
+                });
+        Map<MavenArtifact, SortedSet<String>> results = new HashMap<>();
 
-        for (Entry<MavenArtifact, SortedSet<String>> entry :
-                downstreamJobsByArtifactBasedOnParentProjectDependencies.entrySet()) {
-            MavenArtifact mavenArtifact = entry.getKey();
-            if (results.containsKey(mavenArtifact)) {
-                results.get(mavenArtifact).addAll(entry.getValue());
-            } else {
-                results.put(mavenArtifact, new TreeSet<>(entry.getValue()));
+        try (Connection cnn = ds.getConnection()) {
+            Long buildPrimaryKey = findBuildPrimaryKey(cnn, jobFullName, buildNumber);
+            if (buildPrimaryKey == null) {
+                LOGGER.log(Level.FINE, "listDownstreamJobsByArtifact({0}, {1}): build not found", new Object[] {
+                    jobFullName, buildNumber
+                });
+                return results;
             }
-        }
-        LOGGER.log(Level.FINER, "Got results for job named {0} and build #{1}: {2}", new Object[] {
-            jobFullName, buildNumber, results
-        });
+            long jenkinsMasterPrimaryKey = getJenkinsMasterPrimaryKey(cnn);
+            try (PreparedStatement stmt = cnn.prepareStatement(sql)) {
+                for (int offset : new int[] {0, 3}) {
+                    stmt.setLong(offset + 1, buildPrimaryKey);
+                    stmt.setLong(offset + 2, jenkinsMasterPrimaryKey);
+                    stmt.setString(offset + 3, jobFullName);
+                }
+                try (ResultSet rst = stmt.executeQuery()) {
+                    while (rst.next()) {
+                        MavenArtifact artifact = new MavenArtifact();
+                        artifact.setGroupId(rst.getString("group_id"));
+                        artifact.setArtifactId(rst.getString("artifact_id"));
+                        artifact.setVersion(rst.getString("version"));
+                        artifact.setBaseVersion(rst.getString("base_version"));
+                        artifact.setType(rst.getString("type"));
+                        artifact.setClassifier(rst.getString("classifier"));
+                        artifact.setExtension(rst.getString("extension"));
+                        String downstreamJobFullName = rst.getString("full_name");
 
-        // JENKINS-50507 Don't return the passed job in case of pipelines consuming the artifacts they produce
-        for (Iterator<Entry<MavenArtifact, SortedSet<String>>> it =
-                        results.entrySet().iterator();
-                it.hasNext(); ) {
-            Entry<MavenArtifact, SortedSet<String>> entry = it.next();
-            MavenArtifact mavenArtifact = entry.getKey();
-            SortedSet<String> jobs = entry.getValue();
-            boolean removed = jobs.remove(jobFullName);
-            if (removed) {
-                LOGGER.log(Level.FINER, "Remove {0} from downstreamJobs of artifact {1}", new Object[] {
-                    jobFullName, mavenArtifact
-                });
-                if (jobs.isEmpty()) {
-                    it.remove();
+                        results.computeIfAbsent(artifact, a -> new TreeSet<>()).add(downstreamJobFullName);
+                    }
                 }
             }
+        } catch (SQLException e) {
+            throw new RuntimeSqlException(e);
         }
+        LOGGER.log(Level.FINE, "listDownstreamJobsByArtifact({0}, {1}): {2}", new Object[] {
+            jobFullName, buildNumber, results
+        });
 
         return results;
     }
@@ -1159,6 +1876,111 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
                 groupId, artifactId, (baseVersion == null ? version : baseVersion), type, classifier);
     }
 
+    /**
+     * The artifacts are looked up by chunks of {@code ARTIFACTS_PER_QUERY}, one query per chunk.
+     */
+    @NonNull
+    @Override
+    public Map<MavenArtifact, SortedSet<String>> listDownstreamJobsByArtifact(
+            @NonNull Collection<MavenArtifact> mavenArtifacts) {
+        LOGGER.log(Level.FINER, "listDownstreamJobsByArtifact({0} artifacts)", mavenArtifacts.size());
+
+        // several given artifacts may share the same coordinates in the database (e.g. same base version)
+        Map<String, List<MavenArtifact>> mavenArtifactsByKey = new LinkedHashMap<>();
+        // the rows may differ from the given coordinates by the case or trailing spaces according to the collation
+        Map<String, List<MavenArtifact>> mavenArtifactsByNormalizedKey = new HashMap<>();
+        for (MavenArtifact mavenArtifact : mavenArtifacts) {
+            String key = getArtifactKey(
+                    mavenArtifact.getGroupId(),
+                    mavenArtifact.getArtifactId(),
+                    mavenArtifact.getBaseVersion() == null
+                            ? mavenArtifact.getVersion()
+                            : mavenArtifact.getBaseVersion(),
+                    mavenArtifact.getType(),
+                    mavenArtifact.getClassifier());
+            mavenArtifactsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(mavenArtifact);
+            mavenArtifactsByNormalizedKey
+                    .computeIfAbsent(getNormalizedArtifactKey(key), k -> new ArrayList<>())
+                    .add(mavenArtifact);
+        }
+        List<List<MavenArtifact>> chunks = new ArrayList<>();
+        List<MavenArtifact> chunk = null;
+        for (List<MavenArtifact> sameKeyMavenArtifacts : mavenArtifactsByKey.values()) {
+            if (chunk == null || chunk.size() == ARTIFACTS_PER_QUERY) {
+                chunk = new ArrayList<>();
+                chunks.add(chunk);
+            }
+            chunk.add(sameKeyMavenArtifacts.get(0));
+        }
+
+        Map<MavenArtifact, SortedSet<String>> results = new HashMap<>();
+        try (Connection cnn = ds.getConnection()) {
+            long jenkinsMasterPrimaryKey = getJenkinsMasterPrimaryKey(cnn);
+            for (List<MavenArtifact> artifactsChunk : chunks) {
+                String sql = "select distinct downstream_job.full_name, \n"
+                        + "   MAVEN_ARTIFACT.group_id, MAVEN_ARTIFACT.artifact_id, MAVEN_ARTIFACT.version, MAVEN_ARTIFACT.type, MAVEN_ARTIFACT.classifier \n"
+                        + "from MAVEN_ARTIFACT \n"
+                        + "inner join MAVEN_DEPENDENCY on (MAVEN_DEPENDENCY.artifact_id = MAVEN_ARTIFACT.id and MAVEN_DEPENDENCY.ignore_upstream_triggers = false) \n"
+                        + "inner join JENKINS_BUILD as downstream_build on MAVEN_DEPENDENCY.build_id = downstream_build.id \n"
+                        + "inner join JENKINS_JOB as downstream_job on (downstream_build.number = downstream_job.last_successful_build_number and downstream_build.job_id = downstream_job.id) \n"
+                        + "where downstream_job.jenkins_master_id = ? and ("
+                        + artifactsChunk.stream()
+                                .map(a ->
+                                        "(MAVEN_ARTIFACT.group_id = ? and MAVEN_ARTIFACT.artifact_id = ? and MAVEN_ARTIFACT.version = ? and MAVEN_ARTIFACT.type = ? and MAVEN_ARTIFACT.classifier = ?)")
+                                .collect(Collectors.joining(" or "))
+                        + ")";
+                try (PreparedStatement stmt = cnn.prepareStatement(sql)) {
+                    int idx = 1;
+                    stmt.setLong(idx++, jenkinsMasterPrimaryKey);
+                    for (MavenArtifact mavenArtifact : artifactsChunk) {
+                        stmt.setString(idx++, mavenArtifact.getGroupId());
+                        stmt.setString(idx++, mavenArtifact.getArtifactId());
+                        stmt.setString(
+                                idx++,
+                                mavenArtifact.getBaseVersion() == null
+                                        ? mavenArtifact.getVersion()
+                                        : mavenArtifact.getBaseVersion());
+                        stmt.setString(idx++, mavenArtifact.getType());
+                        stmt.setString(
+                                idx++, mavenArtifact.getClassifier() == null ? "" : mavenArtifact.getClassifier());
+                    }
+                    try (ResultSet rst = stmt.executeQuery()) {
+                        while (rst.next()) {
+                            String key = getArtifactKey(
+                                    rst.getString("group_id"),
+                                    rst.getString("artifact_id"),
+                                    rst.getString("version"),
+                                    rst.getString("type"),
+                                    rst.getString("classifier"));
+                            String downstreamJobFullName = rst.getString("full_name");
+                            List<MavenArtifact> rowMavenArtifacts = mavenArtifactsByKey.get(key);
+                            if (rowMavenArtifacts == null) {
+                                rowMavenArtifacts = mavenArtifactsByNormalizedKey.get(getNormalizedArtifactKey(key));
+                            }
+                            if (rowMavenArtifacts == null) {
+                                LOGGER.log(
+                                        Level.FINE,
+                                        "listDownstreamJobsByArtifact: ignore artifact {0} not matching the given artifacts",
+                                        new Object[] {key});
+                                continue;
+                            }
+                            for (MavenArtifact mavenArtifact : rowMavenArtifacts) {
+                                results.computeIfAbsent(mavenArtifact, a -> new TreeSet<>())
+                                        .add(downstreamJobFullName);
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeSqlException(e);
+        }
+        LOGGER.log(Level.FINE, "listDownstreamJobsByArtifact({0} artifacts): {1}", new Object[] {
+            mavenArtifacts.size(), results
+        });
+        return results;
+    }
+
     protected SortedSet<String> listDownstreamPipelinesBasedOnMavenDependencies(
             @NonNull String groupId,
             @NonNull String artifactId,
@@ -1177,7 +1999,7 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
                 + "and MAVEN_ARTIFACT.artifact_id = ? "
                 + "and MAVEN_ARTIFACT.version = ? "
                 + "and MAVEN_ARTIFACT.type = ? "
-                + "and (MAVEN_ARTIFACT.classifier = ? or (MAVEN_ARTIFACT.classifier is null and ? is null)) "
+                + "and MAVEN_ARTIFACT.classifier = ? "
                 + "and downstream_job.jenkins_master_id = ?";
 
         SortedSet<String> downstreamJobsFullNames = new TreeSet<>();
@@ -1188,9 +2010,8 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
                 stmt.setString(2, artifactId);
                 stmt.setString(3, version);
                 stmt.setString(4, type);
-                stmt.setString(5, classifier);
-                stmt.setString(6, classifier);
-                stmt.setLong(7, getJenkinsMasterPrimaryKey(cnn));
+                stmt.setString(5, classifier == null ? "" : classifier);
+                stmt.setLong(6, getJenkinsMasterPrimaryKey(cnn));
                 try (ResultSet rst = stmt.executeQuery()) {
                     while (rst.next()) {
                         downstreamJobsFullNames.add(rst.getString(1));
@@ -1248,61 +2069,6 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
         return downstreamJobsFullNames;
     }
 
-    protected Map<MavenArtifact, SortedSet<String>> listDownstreamJobsByArtifactBasedOnMavenDependencies(
-            @NonNull String jobFullName, int buildNumber) {
-        LOGGER.log(Level.FINER, "listDownstreamJobsByArtifactBasedOnMavenDependencies({0}, {1})", new Object[] {
-            jobFullName, buildNumber
-        });
-
-        String sql = "select distinct downstream_job.full_name, \n "
-                + "   MAVEN_ARTIFACT.group_id, MAVEN_ARTIFACT.artifact_id, MAVEN_ARTIFACT.version as base_version, MAVEN_ARTIFACT.type, MAVEN_ARTIFACT.classifier, \n"
-                + "   GENERATED_MAVEN_ARTIFACT.version as version, GENERATED_MAVEN_ARTIFACT.extension \n"
-                + "from JENKINS_JOB as upstream_job \n"
-                + "inner join JENKINS_BUILD as upstream_build on upstream_job.id = upstream_build.job_id \n"
-                + "inner join GENERATED_MAVEN_ARTIFACT on (upstream_build.id = GENERATED_MAVEN_ARTIFACT.build_id and GENERATED_MAVEN_ARTIFACT.skip_downstream_triggers = false) \n"
-                + "inner join MAVEN_ARTIFACT on GENERATED_MAVEN_ARTIFACT.artifact_id = MAVEN_ARTIFACT.id \n"
-                + "inner join MAVEN_DEPENDENCY on (MAVEN_DEPENDENCY.artifact_id = MAVEN_ARTIFACT.id and MAVEN_DEPENDENCY.ignore_upstream_triggers = false) \n"
-                + "inner join JENKINS_BUILD as downstream_build on MAVEN_DEPENDENCY.build_id = downstream_build.id \n"
-                + "inner join JENKINS_JOB as downstream_job on (downstream_build.number = downstream_job.last_successful_build_number and downstream_build.job_id = downstream_job.id) \n"
-                + "where upstream_job.full_name = ? and upstream_job.jenkins_master_id = ? and upstream_build.number = ? and downstream_job.jenkins_master_id = ?";
-
-        LOGGER.log(
-                Level.FINER, "sql: {0}, jobFullName:{1}, buildNumber: {2}", new Object[] {sql, jobFullName, buildNumber
-                });
-        Map<MavenArtifact, SortedSet<String>> results = new HashMap<>();
-
-        try (Connection cnn = ds.getConnection()) {
-            try (PreparedStatement stmt = cnn.prepareStatement(sql)) {
-                stmt.setString(1, jobFullName);
-                stmt.setLong(2, getJenkinsMasterPrimaryKey(cnn));
-                stmt.setInt(3, buildNumber);
-                stmt.setLong(4, getJenkinsMasterPrimaryKey(cnn));
-                try (ResultSet rst = stmt.executeQuery()) {
-                    while (rst.next()) {
-                        MavenArtifact artifact = new MavenArtifact();
-                        artifact.setGroupId(rst.getString("group_id"));
-                        artifact.setArtifactId(rst.getString("artifact_id"));
-                        artifact.setVersion(rst.getString("version"));
-                        artifact.setBaseVersion(rst.getString("base_version"));
-                        artifact.setType(rst.getString("type"));
-                        artifact.setClassifier(rst.getString("classifier"));
-                        artifact.setExtension(rst.getString("extension"));
-                        String downstreamJobFullName = rst.getString("full_name");
-
-                        results.computeIfAbsent(artifact, a -> new TreeSet<>()).add(downstreamJobFullName);
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            throw new RuntimeSqlException(e);
-        }
-        LOGGER.log(Level.FINE, "listDownstreamJobsByArtifactBasedOnMavenDependencies({0}, {1}): {2}", new Object[] {
-            jobFullName, buildNumber, results
-        });
-
-        return results;
-    }
-
     @Deprecated
     protected List<String> listDownstreamPipelinesBasedOnParentProjectDependencies(
             @NonNull String jobFullName, int buildNumber) {
@@ -1345,62 +2111,6 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
         return downstreamJobsFullNames;
     }
 
-    protected Map<MavenArtifact, SortedSet<String>> listDownstreamJobsByArtifactBasedOnParentProjectDependencies(
-            String jobFullName, int buildNumber) {
-        LOGGER.log(Level.FINER, "listDownstreamPipelinesBasedOnParentProjectDependencies({0}, {1})", new Object[] {
-            jobFullName, buildNumber
-        });
-        String sql = "select distinct downstream_job.full_name, \n"
-                + "   MAVEN_ARTIFACT.group_id, MAVEN_ARTIFACT.artifact_id, MAVEN_ARTIFACT.version as base_version, MAVEN_ARTIFACT.type, MAVEN_ARTIFACT.classifier, \n"
-                + "   GENERATED_MAVEN_ARTIFACT.version as version, GENERATED_MAVEN_ARTIFACT.extension \n"
-                + "from JENKINS_JOB as upstream_job \n"
-                + "inner join JENKINS_BUILD as upstream_build on upstream_job.id = upstream_build.job_id \n"
-                + "inner join GENERATED_MAVEN_ARTIFACT on (upstream_build.id = GENERATED_MAVEN_ARTIFACT.build_id and GENERATED_MAVEN_ARTIFACT.skip_downstream_triggers = false) \n"
-                + "inner join MAVEN_ARTIFACT on GENERATED_MAVEN_ARTIFACT.artifact_id = MAVEN_ARTIFACT.id \n"
-                + "inner join MAVEN_PARENT_PROJECT on (MAVEN_PARENT_PROJECT.artifact_id = MAVEN_ARTIFACT.id and MAVEN_PARENT_PROJECT.ignore_upstream_triggers = false) \n"
-                + "inner join JENKINS_BUILD as downstream_build on MAVEN_PARENT_PROJECT.build_id = downstream_build.id \n"
-                + "inner join JENKINS_JOB as downstream_job on (downstream_build.number = downstream_job.last_successful_build_number and downstream_build.job_id = downstream_job.id) \n"
-                + "where upstream_job.full_name = ? and upstream_job.jenkins_master_id = ? and upstream_build.number = ? and downstream_job.jenkins_master_id = ?";
-
-        LOGGER.log(
-                Level.FINER, "sql: {0}, jobFullName:{1}, buildNumber: {2}", new Object[] {sql, jobFullName, buildNumber
-                });
-
-        Map<MavenArtifact, SortedSet<String>> results = new HashMap<>();
-
-        try (Connection cnn = ds.getConnection()) {
-            try (PreparedStatement stmt = cnn.prepareStatement(sql)) {
-                stmt.setString(1, jobFullName);
-                stmt.setLong(2, getJenkinsMasterPrimaryKey(cnn));
-                stmt.setInt(3, buildNumber);
-                stmt.setLong(4, getJenkinsMasterPrimaryKey(cnn));
-                try (ResultSet rst = stmt.executeQuery()) {
-                    while (rst.next()) {
-                        MavenArtifact artifact = new MavenArtifact();
-                        artifact.setGroupId(rst.getString("group_id"));
-                        artifact.setArtifactId(rst.getString("artifact_id"));
-                        artifact.setVersion(rst.getString("version"));
-                        artifact.setBaseVersion(rst.getString("base_version"));
-                        artifact.setType(rst.getString("type"));
-                        artifact.setClassifier(rst.getString("classifier"));
-                        artifact.setExtension(rst.getString("extension"));
-                        String downstreamJobFullName = rst.getString("full_name");
-
-                        results.computeIfAbsent(artifact, a -> new TreeSet<>()).add(downstreamJobFullName);
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            throw new RuntimeSqlException(e);
-        }
-        LOGGER.log(
-                Level.FINE,
-                "listDownstreamJobsByArtifactBasedOnParentProjectDependencies({0}, {1}): {2}",
-                new Object[] {jobFullName, buildNumber, results});
-
-        return results;
-    }
-
     @NonNull
     @Override
     public Map<String, Integer> listUpstreamJobs(@NonNull String jobFullName, int buildNumber) {
@@ -1548,14 +2258,34 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
 
     @NonNull
     public Map<String, Integer> listTransitiveUpstreamJobs(@NonNull String jobFullName, int buildNumber) {
-        UpstreamMemory upstreamMemory = new UpstreamMemory();
-        return listTransitiveUpstreamJobs(jobFullName, buildNumber, new HashMap<>(), 0, upstreamMemory);
+        return listTransitiveUpstreamJobs(jobFullName, buildNumber, new UpstreamMemory());
     }
 
+    /**
+     * The {@code upstreamMemory} is only used when the database doesn't support recursive queries, the transitive
+     * upstream jobs are otherwise computed by a single query.
+     */
     @NonNull
     public Map<String, Integer> listTransitiveUpstreamJobs(
             @NonNull String jobFullName, int buildNumber, UpstreamMemory upstreamMemory) {
-        return listTransitiveUpstreamJobs(jobFullName, buildNumber, new HashMap<>(), 0, upstreamMemory);
+        if (isRecursiveQuerySupported()) {
+            return listTransitiveUpstreamJobsWithRecursiveQuery(jobFullName, buildNumber);
+        } else {
+            return listTransitiveUpstreamJobsWithUpstreamMemory(jobFullName, buildNumber, upstreamMemory);
+        }
+    }
+
+    /**
+     * Walk the upstream builds level by level with {@link #listUpstreamJobs(String, int)}, limited to
+     * {@code OPTIMIZATION_MAX_RECURSION_DEPTH} levels.
+     */
+    protected Map<String, Integer> listTransitiveUpstreamJobsWithUpstreamMemory(
+            @NonNull String jobFullName, int buildNumber, UpstreamMemory upstreamMemory) {
+        Map<String, Integer> transitiveUpstreamBuilds =
+                listTransitiveUpstreamJobs(jobFullName, buildNumber, new HashMap<>(), 0, upstreamMemory);
+        // the job is its own transitive upstream in case of cycles
+        transitiveUpstreamBuilds.remove(jobFullName);
+        return transitiveUpstreamBuilds;
     }
 
     private Map<String, Integer> listTransitiveUpstreamJobs(
@@ -1577,7 +2307,7 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
                             upstreamJobFullName,
                             upstreamBuildNumber,
                             transitiveUpstreamBuilds,
-                            recursionDepth++,
+                            recursionDepth + 1,
                             upstreamMemory);
                 }
             }
@@ -1585,6 +2315,394 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
         return transitiveUpstreamBuilds;
     }
 
+    /**
+     * Walk the upstream builds in a single query: the builds whose job's last successful build generated an
+     * artifact that the downstream build depends on or uses as parent project, then their own upstream builds...
+     * The recursion is on the build id alone so that the {@code UNION} discards the already visited builds: each build
+     * is walked once whatever the number of paths leading to it and the walk stops on cycles. The engines that don't
+     * discard them (see {@link #isRecursiveUnionDistinct()}) walk the upstream builds level by level instead.
+     */
+    protected Map<String, Integer> listTransitiveUpstreamJobsWithRecursiveQuery(
+            @NonNull String jobFullName, int buildNumber) {
+        LOGGER.log(Level.FINER, "listTransitiveUpstreamJobsWithRecursiveQuery({0}, {1})", new Object[] {
+            jobFullName, buildNumber
+        });
+        if (!isRecursiveUnionDistinct()) {
+            return listTransitiveUpstreamJobsLevelByLevel(jobFullName, buildNumber);
+        }
+        String sql = "WITH RECURSIVE UPSTREAM_BUILD(BUILD_ID) AS (\n"
+                + "  SELECT JENKINS_BUILD.ID, 0 FROM JENKINS_BUILD\n"
+                + "  INNER JOIN JENKINS_JOB ON JENKINS_BUILD.JOB_ID = JENKINS_JOB.ID\n"
+                + "  WHERE JENKINS_JOB.FULL_NAME = ? AND JENKINS_JOB.JENKINS_MASTER_ID = ? AND JENKINS_BUILD.NUMBER = ?\n"
+                + "  UNION\n"
+                + "  SELECT upstream_build.ID FROM UPSTREAM_BUILD\n"
+                + "  INNER JOIN (\n"
+                + "    SELECT BUILD_ID, ARTIFACT_ID FROM MAVEN_DEPENDENCY WHERE IGNORE_UPSTREAM_TRIGGERS = false\n"
+                + "    UNION ALL\n"
+                + "    SELECT BUILD_ID, ARTIFACT_ID FROM MAVEN_PARENT_PROJECT WHERE IGNORE_UPSTREAM_TRIGGERS = false\n"
+                + "  ) downstream_dependency ON downstream_dependency.BUILD_ID = UPSTREAM_BUILD.BUILD_ID\n"
+                + "  INNER JOIN GENERATED_MAVEN_ARTIFACT ON (GENERATED_MAVEN_ARTIFACT.ARTIFACT_ID = downstream_dependency.ARTIFACT_ID AND GENERATED_MAVEN_ARTIFACT.SKIP_DOWNSTREAM_TRIGGERS = false)\n"
+                + "  INNER JOIN JENKINS_BUILD upstream_build ON upstream_build.ID = GENERATED_MAVEN_ARTIFACT.BUILD_ID\n"
+                + "  INNER JOIN JENKINS_JOB upstream_job ON (upstream_job.ID = upstream_build.JOB_ID AND upstream_job.LAST_SUCCESSFUL_BUILD_NUMBER = upstream_build.NUMBER AND upstream_job.JENKINS_MASTER_ID = ?)\n"
+                + ")\n"
+                + "SELECT DISTINCT JENKINS_JOB.FULL_NAME, JENKINS_BUILD.NUMBER FROM UPSTREAM_BUILD\n"
+                + "INNER JOIN JENKINS_BUILD ON UPSTREAM_BUILD.BUILD_ID = JENKINS_BUILD.ID\n"
+                + "INNER JOIN JENKINS_JOB ON JENKINS_BUILD.JOB_ID = JENKINS_JOB.ID\n"
+                + "WHERE JENKINS_JOB.FULL_NAME <> ?";
+
+        Map<String, Integer> upstreamJobs = new HashMap<>();
+        try (Connection cnn = ds.getConnection()) {
+            try (PreparedStatement stmt = cnn.prepareStatement(sql)) {
+                stmt.setString(1, jobFullName);
+                stmt.setLong(2, getJenkinsMasterPrimaryKey(cnn));
+                stmt.setInt(3, buildNumber);
+                stmt.setLong(4, getJenkinsMasterPrimaryKey(cnn));
+                stmt.setString(5, jobFullName);
+                try (ResultSet rst = stmt.executeQuery()) {
+                    while (rst.next()) {
+                        upstreamJobs.put(rst.getString(1), rst.getInt(2));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeSqlException(e);
+        }
+        LOGGER.log(Level.FINE, "listTransitiveUpstreamJobsWithRecursiveQuery({0}, {1}): {2}", new Object[] {
+            jobFullName, buildNumber, upstreamJobs
+        });
+        return upstreamJobs;
+    }
+
+    private Map<String, Integer> listTransitiveUpstreamJobsLevelByLevel(@NonNull String jobFullName, int buildNumber) {
+        String sql = "SELECT DISTINCT upstream_build.ID, upstream_job.FULL_NAME, upstream_build.NUMBER FROM (\n"
+                + "  SELECT BUILD_ID, ARTIFACT_ID FROM MAVEN_DEPENDENCY WHERE IGNORE_UPSTREAM_TRIGGERS = false AND BUILD_ID IN ({0})\n"
+                + "  UNION ALL\n"
+                + "  SELECT BUILD_ID, ARTIFACT_ID FROM MAVEN_PARENT_PROJECT WHERE IGNORE_UPSTREAM_TRIGGERS = false AND BUILD_ID IN ({0})\n"
+                + ") downstream_dependency\n"
+                + "INNER JOIN GENERATED_MAVEN_ARTIFACT ON (GENERATED_MAVEN_ARTIFACT.ARTIFACT_ID = downstream_dependency.ARTIFACT_ID AND GENERATED_MAVEN_ARTIFACT.SKIP_DOWNSTREAM_TRIGGERS = false)\n"
+                + "INNER JOIN JENKINS_BUILD upstream_build ON upstream_build.ID = GENERATED_MAVEN_ARTIFACT.BUILD_ID\n"
+                + "INNER JOIN JENKINS_JOB upstream_job ON (upstream_job.ID = upstream_build.JOB_ID AND upstream_job.LAST_SUCCESSFUL_BUILD_NUMBER = upstream_build.NUMBER)\n"
+                + "WHERE upstream_job.JENKINS_MASTER_ID = ?";
+
+        Map<String, Integer> upstreamJobs = new HashMap<>();
+        try (Connection cnn = ds.getConnection()) {
+            walkBuildsLevelByLevel(
+                    cnn,
+                    jobFullName,
+                    buildNumber,
+                    sql,
+                    (upstreamJobFullName, upstreamBuildNumber) -> {
+                        // the job is its own transitive upstream in case of cycles
+                        if (!upstreamJobFullName.equals(jobFullName)) {
+                            upstreamJobs.put(upstreamJobFullName, upstreamBuildNumber);
+                        }
+                        return false;
+                    },
+                    getJenkinsMasterPrimaryKey(cnn));
+        } catch (SQLException e) {
+            throw new RuntimeSqlException(e);
+        }
+        LOGGER.log(Level.FINE, "listTransitiveUpstreamJobsLevelByLevel({0}, {1}): {2}", new Object[] {
+            jobFullName, buildNumber, upstreamJobs
+        });
+        return upstreamJobs;
+    }
+
+    /**
+     * Walk the builds reachable from the given build level by level, one query per chunk of
+     * {@code ARTIFACTS_PER_QUERY} builds of the level. Each build is walked once whatever the number of paths leading
+     * to it, which also stops the walk on cycles.
+     *
+     * @param nextBuildsSql query of the id, job full name and number of the builds reachable in one step from the
+     *     builds whose ids are bound to the {@code {0}} IN clauses, followed by the given parameters
+     * @param visitor called once per reached build, except the given build, returns {@code true} to stop the walk
+     * @return {@code null} if the given build is not recorded, {@code true} if the visitor stopped the walk,
+     *     {@code false} otherwise
+     */
+    @Nullable
+    private Boolean walkBuildsLevelByLevel(
+            @NonNull Connection cnn,
+            @NonNull String jobFullName,
+            int buildNumber,
+            @NonNull String nextBuildsSql,
+            @NonNull BiPredicate<String, Integer> visitor,
+            Object... parameters)
+            throws SQLException {
+        Long buildPrimaryKey;
+        try (PreparedStatement stmt = cnn.prepareStatement("SELECT JENKINS_BUILD.ID FROM JENKINS_BUILD\n"
+                + "INNER JOIN JENKINS_JOB ON JENKINS_BUILD.JOB_ID = JENKINS_JOB.ID\n"
+                + "WHERE JENKINS_JOB.FULL_NAME = ? AND JENKINS_JOB.JENKINS_MASTER_ID = ? AND JENKINS_BUILD.NUMBER = ?")) {
+            stmt.setString(1, jobFullName);
+            stmt.setLong(2, getJenkinsMasterPrimaryKey(cnn));
+            stmt.setInt(3, buildNumber);
+            try (ResultSet rst = stmt.executeQuery()) {
+                buildPrimaryKey = rst.next() ? rst.getLong(1) : null;
+            }
+        }
+        if (buildPrimaryKey == null) {
+            return null;
+        }
+        int inClauses = StringUtils.countMatches(nextBuildsSql, "{0}");
+        Set<Long> visitedBuilds = new HashSet<>();
+        visitedBuilds.add(buildPrimaryKey);
+        List<Long> level = Collections.singletonList(buildPrimaryKey);
+        while (!level.isEmpty()) {
+            List<Long> nextLevel = new ArrayList<>();
+            for (int from = 0; from < level.size(); from += ARTIFACTS_PER_QUERY) {
+                List<Long> chunk = level.subList(from, Math.min(from + ARTIFACTS_PER_QUERY, level.size()));
+                String sql = nextBuildsSql.replace(
+                        "{0}", chunk.stream().map(id -> "?").collect(Collectors.joining(", ")));
+                try (PreparedStatement stmt = cnn.prepareStatement(sql)) {
+                    int idx = 1;
+                    for (int i = 0; i < inClauses; i++) {
+                        for (Long id : chunk) {
+                            stmt.setLong(idx++, id);
+                        }
+                    }
+                    for (Object parameter : parameters) {
+                        stmt.setObject(idx++, parameter);
+                    }
+                    try (ResultSet rst = stmt.executeQuery()) {
+                        while (rst.next()) {
+                            long id = rst.getLong(1);
+                            if (visitedBuilds.add(id)) {
+                                nextLevel.add(id);
+                                if (visitor.test(rst.getString(2), rst.getInt(3))) {
+                                    return true;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            level = nextLevel;
+        }
+        return false;
+    }
+
+    private boolean isRecursiveQuerySupported() {
+        if (recursiveQuerySupported == null) {
+            try (Connection cnn = ds.getConnection()) {
+                recursiveQuerySupported = isRecursiveQuerySupported(cnn.getMetaData());
+            } catch (SQLException e) {
+                throw new RuntimeSqlException(e);
+            }
+            LOGGER.log(Level.FINE, "Recursive queries supported: {0}", recursiveQuerySupported);
+        }
+        return recursiveQuerySupported;
+    }
+
+    /**
+     * @return {@code true} if the database supports {@code WITH RECURSIVE} common table expressions
+     */
+    protected boolean isRecursiveQuerySupported(@NonNull DatabaseMetaData metaData) throws SQLException {
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the {@code UNION} of a {@code WITH RECURSIVE} common table expression discards the rows
+     *     already produced by the previous iterations, so that a recursion on the build id alone stops on cycles
+     */
+    protected boolean isRecursiveUnionDistinct() {
+        return true;
+    }
+
+    /**
+     * Walk the recorded upstream causes of the build in a single query, recursing on the build id alone so that each
+     * upstream build is walked once whatever the number of paths leading to it. The engines whose recursive
+     * {@code UNION} doesn't discard the already visited builds (see {@link #isRecursiveUnionDistinct()}) walk the
+     * upstream causes level by level instead. The answer is unknown ({@code null}) when the database doesn't support
+     * recursive queries or when the build is not recorded.
+     */
+    @Override
+    public Boolean isUpstreamCauseAncestor(
+            @NonNull String jobFullName, int buildNumber, @NonNull String ancestorJobFullName) {
+        LOGGER.log(Level.FINER, "isUpstreamCauseAncestor({0}, {1}, {2})", new Object[] {
+            jobFullName, buildNumber, ancestorJobFullName
+        });
+        if (!isRecursiveQuerySupported()) {
+            return null;
+        }
+        Boolean result;
+        try (Connection cnn = ds.getConnection()) {
+            if (isRecursiveUnionDistinct()) {
+                result = isUpstreamCauseAncestorWithRecursiveQuery(cnn, jobFullName, buildNumber, ancestorJobFullName);
+            } else {
+                result = walkBuildsLevelByLevel(
+                        cnn,
+                        jobFullName,
+                        buildNumber,
+                        "SELECT JENKINS_BUILD.ID, JENKINS_JOB.FULL_NAME, JENKINS_BUILD.NUMBER FROM JENKINS_BUILD_UPSTREAM_CAUSE\n"
+                                + "INNER JOIN JENKINS_BUILD ON JENKINS_BUILD.ID = JENKINS_BUILD_UPSTREAM_CAUSE.UPSTREAM_BUILD_ID\n"
+                                + "INNER JOIN JENKINS_JOB ON JENKINS_BUILD.JOB_ID = JENKINS_JOB.ID\n"
+                                + "WHERE JENKINS_BUILD_UPSTREAM_CAUSE.DOWNSTREAM_BUILD_ID IN ({0})",
+                        (upstreamJobFullName, upstreamBuildNumber) -> upstreamJobFullName.equals(ancestorJobFullName));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeSqlException(e);
+        }
+        LOGGER.log(Level.FINE, "isUpstreamCauseAncestor({0}, {1}, {2}): {3}", new Object[] {
+            jobFullName, buildNumber, ancestorJobFullName, result
+        });
+        return result;
+    }
+
+    @Nullable
+    private Boolean isUpstreamCauseAncestorWithRecursiveQuery(
+            @NonNull Connection cnn, @NonNull String jobFullName, int buildNumber, @NonNull String ancestorJobFullName)
+            throws SQLException {
+        String sql = "WITH RECURSIVE UPSTREAM_CAUSE_BUILD(BUILD_ID) AS (\n"
+                + "  SELECT JENKINS_BUILD.ID FROM JENKINS_BUILD\n"
+                + "  INNER JOIN JENKINS_JOB ON JENKINS_BUILD.JOB_ID = JENKINS_JOB.ID\n"
+                + "  WHERE JENKINS_JOB.FULL_NAME = ? AND JENKINS_JOB.JENKINS_MASTER_ID = ? AND JENKINS_BUILD.NUMBER = ?\n"
+                + "  UNION\n"
+                + "  SELECT JENKINS_BUILD_UPSTREAM_CAUSE.UPSTREAM_BUILD_ID FROM UPSTREAM_CAUSE_BUILD\n"
+                + "  INNER JOIN JENKINS_BUILD_UPSTREAM_CAUSE ON JENKINS_BUILD_UPSTREAM_CAUSE.DOWNSTREAM_BUILD_ID = UPSTREAM_CAUSE_BUILD.BUILD_ID\n"
+                + ")\n"
+                + "SELECT COUNT(*), SUM(CASE WHEN JENKINS_JOB.FULL_NAME = ? AND NOT (JENKINS_JOB.FULL_NAME = ? AND JENKINS_BUILD.NUMBER = ?) THEN 1 ELSE 0 END) FROM UPSTREAM_CAUSE_BUILD\n"
+                + "INNER JOIN JENKINS_BUILD ON UPSTREAM_CAUSE_BUILD.BUILD_ID = JENKINS_BUILD.ID\n"
+                + "INNER JOIN JENKINS_JOB ON JENKINS_BUILD.JOB_ID = JENKINS_JOB.ID";
+        try (PreparedStatement stmt = cnn.prepareStatement(sql)) {
+            stmt.setString(1, jobFullName);
+            stmt.setLong(2, getJenkinsMasterPrimaryKey(cnn));
+            stmt.setInt(3, buildNumber);
+            stmt.setString(4, ancestorJobFullName);
+            stmt.setString(5, jobFullName);
+            stmt.setInt(6, buildNumber);
+            try (ResultSet rst = stmt.executeQuery()) {
+                rst.next();
+                if (rst.getInt(1) == 0) {
+                    // build not recorded
+                    return null;
+                }
+                return rst.getInt(2) > 0;
+            }
+        }
+    }
+
+    @Override
+    public Long getLastBuildDurationInMillis(@NonNull String jobFullName) {
+        LOGGER.log(Level.FINER, "getLastBuildDurationInMillis({0})", jobFullName);
+        String sql = "SELECT JENKINS_BUILD.DURATION_IN_MILLIS FROM JENKINS_BUILD\n"
+                + "INNER JOIN JENKINS_JOB ON (JENKINS_BUILD.JOB_ID = JENKINS_JOB.ID AND JENKINS_BUILD.NUMBER = JENKINS_JOB.LAST_BUILD_NUMBER)\n"
+                + "WHERE JENKINS_JOB.FULL_NAME = ? AND JENKINS_JOB.JENKINS_MASTER_ID = ?";
+        try (Connection cnn = ds.getConnection()) {
+            try (PreparedStatement stmt = cnn.prepareStatement(sql)) {
+                stmt.setString(1, jobFullName);
+                stmt.setLong(2, getJenkinsMasterPrimaryKey(cnn));
+                try (ResultSet rst = stmt.executeQuery()) {
+                    if (!rst.next()) {
+                        return null;
+                    }
+                    long durationInMillis = rst.getLong(1);
+                    return rst.wasNull() ? null : durationInMillis;
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeSqlException(e);
+        }
+    }
+
+    /**
+     * The last successful builds and each kind of edge are streamed by their own query.
+     */
+    @Override
+    public void visitLastSuccessfulBuildGraph(@Nullable String jobFullName, @NonNull BuildGraphVisitor visitor) {
+        LOGGER.log(Level.FINER, "visitLastSuccessfulBuildGraph({0})", jobFullName);
+        String lastSuccessfulBuildSql = "from JENKINS_JOB \n"
+                + "inner join JENKINS_BUILD on (JENKINS_BUILD.job_id = JENKINS_JOB.id and JENKINS_BUILD.number = JENKINS_JOB.last_successful_build_number) \n";
+        String artifactSql = "inner join MAVEN_ARTIFACT on %s.artifact_id = MAVEN_ARTIFACT.id \n";
+        String whereSql = "where JENKINS_JOB.jenkins_master_id = ?"
+                + (jobFullName == null ? "" : " and JENKINS_JOB.full_name = ?");
+
+        try (Connection cnn = ds.getConnection()) {
+            long jenkinsMasterPrimaryKey = getJenkinsMasterPrimaryKey(cnn);
+            visitLastSuccessfulBuildGraph(
+                    cnn,
+                    "select JENKINS_JOB.full_name, JENKINS_BUILD.number \n" + lastSuccessfulBuildSql + whereSql,
+                    jenkinsMasterPrimaryKey,
+                    jobFullName,
+                    rst -> visitor.visitBuild(rst.getString("full_name"), rst.getInt("number")));
+            visitLastSuccessfulBuildGraph(
+                    cnn,
+                    "select JENKINS_JOB.full_name, JENKINS_BUILD.number, MAVEN_ARTIFACT.group_id, MAVEN_ARTIFACT.artifact_id, MAVEN_ARTIFACT.version, MAVEN_ARTIFACT.type, MAVEN_ARTIFACT.classifier \n"
+                            + lastSuccessfulBuildSql
+                            + "inner join MAVEN_DEPENDENCY on (MAVEN_DEPENDENCY.build_id = JENKINS_BUILD.id and MAVEN_DEPENDENCY.ignore_upstream_triggers = false) \n"
+                            + String.format(artifactSql, "MAVEN_DEPENDENCY")
+                            + whereSql,
+                    jenkinsMasterPrimaryKey,
+                    jobFullName,
+                    rst -> visitor.visitDependency(
+                            rst.getString("full_name"), rst.getInt("number"), toMavenArtifact(rst, "version")));
+            visitLastSuccessfulBuildGraph(
+                    cnn,
+                    "select JENKINS_JOB.full_name, JENKINS_BUILD.number, MAVEN_ARTIFACT.group_id, MAVEN_ARTIFACT.artifact_id, MAVEN_ARTIFACT.version, MAVEN_ARTIFACT.type, MAVEN_ARTIFACT.classifier \n"
+                            + lastSuccessfulBuildSql
+                            + "inner join MAVEN_PARENT_PROJECT on (MAVEN_PARENT_PROJECT.build_id = JENKINS_BUILD.id and MAVEN_PARENT_PROJECT.ignore_upstream_triggers = false) \n"
+                            + String.format(artifactSql, "MAVEN_PARENT_PROJECT")
+                            + whereSql,
+                    jenkinsMasterPrimaryKey,
+                    jobFullName,
+                    rst -> visitor.visitParentProject(
+                            rst.getString("full_name"), rst.getInt("number"), toMavenArtifact(rst, "version")));
+            visitLastSuccessfulBuildGraph(
+                    cnn,
+                    "select JENKINS_JOB.full_name, JENKINS_BUILD.number, MAVEN_ARTIFACT.group_id, MAVEN_ARTIFACT.artifact_id, MAVEN_ARTIFACT.version as base_version, MAVEN_ARTIFACT.type, MAVEN_ARTIFACT.classifier, \n"
+                            + "   GENERATED_MAVEN_ARTIFACT.version as version, GENERATED_MAVEN_ARTIFACT.extension \n"
+                            + lastSuccessfulBuildSql
+                            + "inner join GENERATED_MAVEN_ARTIFACT on (GENERATED_MAVEN_ARTIFACT.build_id = JENKINS_BUILD.id and GENERATED_MAVEN_ARTIFACT.skip_downstream_triggers = false) \n"
+                            + String.format(artifactSql, "GENERATED_MAVEN_ARTIFACT")
+                            + whereSql,
+                    jenkinsMasterPrimaryKey,
+                    jobFullName,
+                    rst -> {
+                        MavenArtifact artifact = toMavenArtifact(rst, "base_version");
+                        artifact.setVersion(rst.getString("version"));
+                        artifact.setExtension(rst.getString("extension"));
+                        visitor.visitGeneratedArtifact(rst.getString("full_name"), rst.getInt("number"), artifact);
+                    });
+        } catch (SQLException e) {
+            throw new RuntimeSqlException(e);
+        }
+    }
+
+    private void visitLastSuccessfulBuildGraph(
+            Connection cnn, String sql, long jenkinsMasterPrimaryKey, @Nullable String jobFullName, RowVisitor visitor)
+            throws SQLException {
+        LOGGER.log(Level.FINER, "sql: {0}, jobFullName:{1}", new Object[] {sql, jobFullName});
+        try (PreparedStatement stmt = cnn.prepareStatement(sql)) {
+            stmt.setLong(1, jenkinsMasterPrimaryKey);
+            if (jobFullName != null) {
+                stmt.setString(2, jobFullName);
+            }
+            stmt.setFetchSize(1_000);
+            try (ResultSet rst = stmt.executeQuery()) {
+                while (rst.next()) {
+                    visitor.visit(rst);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param versionColumn the column holding the version of the {@code MAVEN_ARTIFACT} row, set as version and base
+     *                      version
+     */
+    private static MavenArtifact toMavenArtifact(ResultSet rst, String versionColumn) throws SQLException {
+        MavenArtifact artifact = new MavenArtifact();
+        artifact.setGroupId(rst.getString("group_id"));
+        artifact.setArtifactId(rst.getString("artifact_id"));
+        artifact.setVersion(rst.getString(versionColumn));
+        artifact.setBaseVersion(rst.getString(versionColumn));
+        artifact.setType(rst.getString("type"));
+        artifact.setClassifier(rst.getString("classifier"));
+        return artifact;
+    }
+
+    private interface RowVisitor {
+        void visit(ResultSet rst) throws SQLException;
+    }
+
     /**
      * List the artifacts generated by the given build
      *
@@ -1739,6 +2857,24 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
             prettyStrings.add("SQLException getting a connection to " + ds + ": " + e);
             LOGGER.log(Level.WARNING, "SQLException getting a connection to " + ds, e);
         }
+        long orphanArtifactGcDurationInMillis = TimeUnit.NANOSECONDS.toMillis(orphanArtifactGcDurationInNanos.get());
+        prettyStrings.add("Orphan artifacts collector: cursor=" + orphanArtifactGcCursor + "/" + orphanArtifactGcMaxId
+                + ", passes=" + orphanArtifactGcPasses.get() + ", pages=" + orphanArtifactGcPages.get()
+                + ", scanned=" + orphanArtifactGcScanned.get() + ", deleted=" + orphanArtifactGcDeleted.get()
+                + ", throughput="
+                + (orphanArtifactGcDurationInMillis == 0
+                        ? 0
+                        : orphanArtifactGcScanned.get() * 1000 / orphanArtifactGcDurationInMillis)
+                + " scanned/s");
+        long buildCompactionDurationInMillis = TimeUnit.NANOSECONDS.toMillis(buildCompactionDurationInNanos.get());
+        prettyStrings.add("Build history compactor: cursor=" + buildCompactionCursor + ", passes="
+                + buildCompactionPasses.get() + ", pages=" + buildCompactionPages.get() + ", scanned="
+                + buildCompactionScanned.get() + ", compacted=" + buildCompactionCompacted.get() + ", reclaimed="
+                + buildCompactionReclaimed.get() + " rows, throughput="
+                + (buildCompactionDurationInMillis == 0
+                        ? 0
+                        : buildCompactionScanned.get() * 1000 / buildCompactionDurationInMillis)
+                + " scanned/s");
 
         StringBuilder result = new StringBuilder(
                 StringUtils.substringAfterLast(getClass().getName(), ".") + " - " + getDatabaseDescription());
@@ -1821,6 +2957,7 @@ public abstract class AbstractPipelineMavenPluginDao implements PipelineMavenPlu
 
             cnn.commit();
         } catch (SQLException e) {
+            invalidatePrimaryKeyCaches();
             throw new RuntimeSqlException(
                     "Exception updating build " + jobFullName + "#" + buildNumber + " with result "
                             + buildResultOrdinal,
@@ -33,9 +33,12 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
 import java.util.logging.Level;
 import javax.sql.DataSource;
 import jenkins.model.Jenkins;
+import org.h2.api.ErrorCode;
 import org.h2.jdbcx.JdbcConnectionPool;
 
 /**
@@ -44,6 +47,8 @@ import org.h2.jdbcx.JdbcConnectionPool;
 @Extension
 public class PipelineMavenPluginH2Dao extends AbstractPipelineMavenPluginDao {
 
+    private static final int MAX_MERGE_ATTEMPTS = 10;
+
     public PipelineMavenPluginH2Dao() {
         super();
     }
@@ -85,6 +90,57 @@ public class PipelineMavenPluginH2Dao extends AbstractPipelineMavenPluginDao {
         return "h2";
     }
 
+    @NonNull
+    @Override
+    protected String getInsertIfAbsentSql(@NonNull String table, @NonNull List<String> uniqueKeyColumns) {
+        String columns = String.join(", ", uniqueKeyColumns);
+        return "MERGE INTO " + table + "(" + columns + ") KEY(" + columns + ") VALUES ("
+                + String.join(", ", Collections.nCopies(uniqueKeyColumns.size(), "?")) + ")";
+    }
+
+    /**
+     * H2 {@code MERGE} is not atomic: when two transactions merge the same new row, the second one fails on the
+     * unique index or on the lock of the row until the first one commits. Merge again, the row then already exists.
+     */
+    @Override
+    protected Long insertIfAbsent(
+            @NonNull Connection cnn,
+            @NonNull String table,
+            @NonNull List<String> uniqueKeyColumns,
+            @NonNull List<?> uniqueKey)
+            throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return super.insertIfAbsent(cnn, table, uniqueKeyColumns, uniqueKey);
+            } catch (SQLException e) {
+                if (attempt >= MAX_MERGE_ATTEMPTS
+                        || (e.getErrorCode() != ErrorCode.DUPLICATE_KEY_1
+                                && e.getErrorCode() != ErrorCode.CONCURRENT_UPDATE_1
+                                && e.getErrorCode() != ErrorCode.LOCK_TIMEOUT_1)) {
+                    throw e;
+                }
+                LOGGER.log(
+                        Level.FINE,
+                        "Merge again {0} {1} concurrently inserted by another transaction (attempt {2}): {3}",
+                        new Object[] {table, uniqueKey, attempt, e.getMessage()});
+                try {
+                    Thread.sleep(10L * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * H2 doesn't discard the rows already produced by the {@code UNION} of a recursive query
+     */
+    @Override
+    protected boolean isRecursiveUnionDistinct() {
+        return false;
+    }
+
     @Override
     public boolean isEnoughProductionGradeForTheWorkload() {
         try (Connection cnn = getDataSource().getConnection()) {
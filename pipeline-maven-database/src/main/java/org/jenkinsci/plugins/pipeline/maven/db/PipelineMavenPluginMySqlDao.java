@@ -33,6 +33,8 @@ import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
 import java.util.logging.Level;
 import javax.sql.DataSource;
 import org.apache.commons.lang3.StringUtils;
@@ -134,6 +136,56 @@ public class PipelineMavenPluginMySqlDao extends AbstractPipelineMavenPluginDao
         }
     }
 
+    @NonNull
+    @Override
+    protected String getInsertIfAbsentSql(@NonNull String table, @NonNull List<String> uniqueKeyColumns) {
+        return "INSERT INTO " + table + "(" + String.join(", ", uniqueKeyColumns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(uniqueKeyColumns.size(), "?"))
+                + ") ON DUPLICATE KEY UPDATE ID = LAST_INSERT_ID(ID)";
+    }
+
+    /**
+     * {@code LAST_INSERT_ID(ID)} makes the {@code ID} of an already existing row available through
+     * {@code SELECT LAST_INSERT_ID()}, a second {@code SELECT} on the table could miss a row concurrently inserted by
+     * another transaction due to the {@code REPEATABLE READ} isolation level.
+     */
+    @Override
+    protected Long insertIfAbsent(
+            @NonNull Connection cnn,
+            @NonNull String table,
+            @NonNull List<String> uniqueKeyColumns,
+            @NonNull List<?> uniqueKey)
+            throws SQLException {
+        super.insertIfAbsent(cnn, table, uniqueKeyColumns, uniqueKey);
+        try (Statement stmt = cnn.createStatement()) {
+            try (ResultSet rst = stmt.executeQuery("SELECT LAST_INSERT_ID()")) {
+                rst.next();
+                return rst.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * {@code WITH RECURSIVE} was introduced by MySQL 8.0 and MariaDB 10.2.2
+     */
+    @Override
+    protected boolean isRecursiveQuerySupported(@NonNull DatabaseMetaData metaData) throws SQLException {
+        String mariaDbVersion = extractMariaDbVersion(metaData.getDatabaseProductVersion());
+        if (mariaDbVersion == null) {
+            return metaData.getDatabaseMajorVersion() >= 8;
+        }
+        String[] versionElements = mariaDbVersion.split("\\.");
+        try {
+            int major = Integer.parseInt(versionElements[0]);
+            int minor = versionElements.length > 1 ? Integer.parseInt(versionElements[1]) : 0;
+            int patch = versionElements.length > 2 ? Integer.parseInt(versionElements[2]) : 0;
+            return major > 10 || (major == 10 && (minor > 2 || (minor == 2 && patch >= 2)));
+        } catch (NumberFormatException e) {
+            LOGGER.log(Level.FINE, "Failure to parse MariaDB version " + mariaDbVersion, e);
+            return false;
+        }
+    }
+
     @Override
     public boolean isEnoughProductionGradeForTheWorkload() {
         return true;
@@ -32,6 +32,8 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
 import java.util.logging.Level;
 import javax.sql.DataSource;
 import org.postgresql.util.PSQLState;
@@ -96,6 +98,13 @@ public class PipelineMavenPluginPostgreSqlDao extends AbstractPipelineMavenPlugi
         }
     }
 
+    @NonNull
+    @Override
+    protected String getInsertIfAbsentSql(@NonNull String table, @NonNull List<String> uniqueKeyColumns) {
+        return "INSERT INTO " + table + "(" + String.join(", ", uniqueKeyColumns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(uniqueKeyColumns.size(), "?")) + ") ON CONFLICT DO NOTHING";
+    }
+
     @Override
     protected Long getGeneratedPrimaryKey(PreparedStatement stmt, String column) throws SQLException {
         long jobPrimaryKey;
@@ -0,0 +1,35 @@
+package org.jenkinsci.plugins.pipeline.maven.db.migration.mysql;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jenkinsci.plugins.pipeline.maven.db.migration.MigrationStep;
+
+public class MigrationStep14 implements MigrationStep {
+
+    private static final Logger LOGGER = Logger.getLogger(MigrationStep14.class.getName());
+
+    @Override
+    public void execute(@NonNull Connection cnn, @NonNull JenkinsDetails jenkinsDetails) throws SQLException {
+
+        // a unique index on (GROUP_ID, ARTIFACT_ID, VERSION, TYPE, CLASSIFIER) would exceed the max index size with
+        // utf8mb4 (see JENKINS-54784), index a hash of these columns instead
+        try (Statement stmt = cnn.createStatement()) {
+            stmt.execute("ALTER TABLE MAVEN_ARTIFACT ADD COLUMN GAVTC_HASH binary(16) AS "
+                    + "(UNHEX(MD5(CONCAT_WS(':', GROUP_ID, ARTIFACT_ID, VERSION, TYPE, CLASSIFIER)))) STORED");
+            stmt.execute("CREATE UNIQUE INDEX IDX_MAVEN_ARTIFACT_GAVTC on MAVEN_ARTIFACT (GAVTC_HASH)");
+            LOGGER.log(Level.INFO, "Successfully created unique index IDX_MAVEN_ARTIFACT_GAVTC on MAVEN_ARTIFACT");
+        } catch (SQLException e) {
+            // generated columns are not supported by old mysql versions
+            LOGGER.log(
+                    Level.WARNING,
+                    "Silently ignore failure to create unique index IDX_MAVEN_ARTIFACT_GAVTC on MAVEN_ARTIFACT. "
+                            + "It is probably caused by the old version of the MySQL engine, it will not restrict the capabilities, "
+                            + "builds recording the same new artifact at the same time may just create duplicate MAVEN_ARTIFACT rows",
+                    e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.jenkinsci.plugins.pipeline.maven.db.util;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Size bounded cache of database primary keys, the least recently used entries are evicted first.
+ * <p>
+ * Must only hold the primary keys of committed rows, the caller is responsible for invalidating the entries of
+ * deleted rows.
+ *
+ * @param <K> the unique key of the row
+ */
+public class PrimaryKeyCache<K> {
+
+    private final Map<K, Long> primaryKeys;
+
+    private final AtomicInteger hits;
+
+    private final AtomicInteger misses;
+
+    /**
+     * @param maxSize max number of primary keys kept in memory
+     * @param hits    counter of the cache hits, shared by all the caches of the same kind
+     * @param misses  counter of the cache misses, shared by all the caches of the same kind
+     */
+    public PrimaryKeyCache(int maxSize, @NonNull AtomicInteger hits, @NonNull AtomicInteger misses) {
+        this.primaryKeys = new LinkedHashMap<K, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Long> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    /**
+     * @return the cached primary key, {@code null} if not found
+     */
+    @Nullable
+    public synchronized Long get(@NonNull K key) {
+        Long primaryKey = primaryKeys.get(key);
+        if (primaryKey == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return primaryKey;
+    }
+
+    public synchronized void put(@NonNull K key, long primaryKey) {
+        primaryKeys.put(key, primaryKey);
+    }
+
+    /**
+     * @return the invalidated primary key, {@code null} if not found
+     */
+    @Nullable
+    public synchronized Long invalidate(@NonNull K key) {
+        return primaryKeys.remove(key);
+    }
+
+    public synchronized void invalidateIf(@NonNull Predicate<K> predicate) {
+        primaryKeys.keySet().removeIf(predicate);
+    }
+
+    public synchronized void invalidateIfPrimaryKey(@NonNull LongPredicate predicate) {
+        primaryKeys.values().removeIf(predicate::test);
+    }
+
+    public synchronized void invalidateAll() {
+        primaryKeys.clear();
+    }
+
+    public synchronized int size() {
+        return primaryKeys.size();
+    }
+}
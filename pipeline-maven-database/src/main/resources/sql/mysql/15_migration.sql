@@ -0,0 +1,7 @@
+CREATE TABLE MAINTENANCE_CURSOR
+(
+    NAME varchar(64) PRIMARY KEY NOT NULL,
+    LAST_ID bigint NOT NULL
+);
+
+UPDATE VERSION SET VERSION = 15;
@@ -0,0 +1,28 @@
+UPDATE MAVEN_ARTIFACT SET CLASSIFIER = '' WHERE CLASSIFIER IS NULL;
+
+UPDATE MAVEN_DEPENDENCY SET ARTIFACT_ID = (
+    SELECT MIN(canonical.ID) FROM MAVEN_ARTIFACT canonical INNER JOIN MAVEN_ARTIFACT duplicate ON canonical.GROUP_ID = duplicate.GROUP_ID AND canonical.ARTIFACT_ID = duplicate.ARTIFACT_ID AND canonical.VERSION = duplicate.VERSION AND canonical.TYPE = duplicate.TYPE AND canonical.CLASSIFIER = duplicate.CLASSIFIER
+    WHERE duplicate.ID = MAVEN_DEPENDENCY.ARTIFACT_ID)
+WHERE ARTIFACT_ID IN (
+    SELECT duplicate.ID FROM MAVEN_ARTIFACT duplicate INNER JOIN MAVEN_ARTIFACT canonical ON canonical.GROUP_ID = duplicate.GROUP_ID AND canonical.ARTIFACT_ID = duplicate.ARTIFACT_ID AND canonical.VERSION = duplicate.VERSION AND canonical.TYPE = duplicate.TYPE AND canonical.CLASSIFIER = duplicate.CLASSIFIER AND canonical.ID < duplicate.ID);
+
+UPDATE GENERATED_MAVEN_ARTIFACT SET ARTIFACT_ID = (
+    SELECT MIN(canonical.ID) FROM MAVEN_ARTIFACT canonical INNER JOIN MAVEN_ARTIFACT duplicate ON canonical.GROUP_ID = duplicate.GROUP_ID AND canonical.ARTIFACT_ID = duplicate.ARTIFACT_ID AND canonical.VERSION = duplicate.VERSION AND canonical.TYPE = duplicate.TYPE AND canonical.CLASSIFIER = duplicate.CLASSIFIER
+    WHERE duplicate.ID = GENERATED_MAVEN_ARTIFACT.ARTIFACT_ID)
+WHERE ARTIFACT_ID IN (
+    SELECT duplicate.ID FROM MAVEN_ARTIFACT duplicate INNER JOIN MAVEN_ARTIFACT canonical ON canonical.GROUP_ID = duplicate.GROUP_ID AND canonical.ARTIFACT_ID = duplicate.ARTIFACT_ID AND canonical.VERSION = duplicate.VERSION AND canonical.TYPE = duplicate.TYPE AND canonical.CLASSIFIER = duplicate.CLASSIFIER AND canonical.ID < duplicate.ID);
+
+UPDATE MAVEN_PARENT_PROJECT SET ARTIFACT_ID = (
+    SELECT MIN(canonical.ID) FROM MAVEN_ARTIFACT canonical INNER JOIN MAVEN_ARTIFACT duplicate ON canonical.GROUP_ID = duplicate.GROUP_ID AND canonical.ARTIFACT_ID = duplicate.ARTIFACT_ID AND canonical.VERSION = duplicate.VERSION AND canonical.TYPE = duplicate.TYPE AND canonical.CLASSIFIER = duplicate.CLASSIFIER
+    WHERE duplicate.ID = MAVEN_PARENT_PROJECT.ARTIFACT_ID)
+WHERE ARTIFACT_ID IN (
+    SELECT duplicate.ID FROM MAVEN_ARTIFACT duplicate INNER JOIN MAVEN_ARTIFACT canonical ON canonical.GROUP_ID = duplicate.GROUP_ID AND canonical.ARTIFACT_ID = duplicate.ARTIFACT_ID AND canonical.VERSION = duplicate.VERSION AND canonical.TYPE = duplicate.TYPE AND canonical.CLASSIFIER = duplicate.CLASSIFIER AND canonical.ID < duplicate.ID);
+
+DELETE FROM MAVEN_ARTIFACT WHERE ID IN (
+    SELECT duplicate.ID FROM MAVEN_ARTIFACT duplicate INNER JOIN MAVEN_ARTIFACT canonical ON canonical.GROUP_ID = duplicate.GROUP_ID AND canonical.ARTIFACT_ID = duplicate.ARTIFACT_ID AND canonical.VERSION = duplicate.VERSION AND canonical.TYPE = duplicate.TYPE AND canonical.CLASSIFIER = duplicate.CLASSIFIER AND canonical.ID < duplicate.ID);
+
+ALTER TABLE MAVEN_ARTIFACT ALTER COLUMN CLASSIFIER SET DEFAULT '';
+ALTER TABLE MAVEN_ARTIFACT ALTER COLUMN CLASSIFIER SET NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS IDX_MAVEN_ARTIFACT_GAVTC on MAVEN_ARTIFACT (GROUP_ID, ARTIFACT_ID, VERSION, TYPE, CLASSIFIER);
+
+UPDATE VERSION SET VERSION = 6;
@@ -25,11 +25,15 @@
 package org.jenkinsci.plugins.pipeline.maven.db;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.model.Result;
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
@@ -37,6 +41,7 @@ import java.util.stream.Collectors;
 import javax.sql.DataSource;
 import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
 import org.jenkinsci.plugins.pipeline.maven.MavenDependency;
+import org.jenkinsci.plugins.pipeline.maven.dao.UpstreamMemory;
 import org.jenkinsci.plugins.pipeline.maven.db.util.SqlTestsUtils;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -62,7 +67,9 @@ public abstract class PipelineMavenPluginDaoAbstractTest {
                 "JENKINS_BUILD",
                 "MAVEN_ARTIFACT",
                 "MAVEN_DEPENDENCY",
-                "GENERATED_MAVEN_ARTIFACT");
+                "GENERATED_MAVEN_ARTIFACT",
+                "MAVEN_PARENT_PROJECT",
+                "MAINTENANCE_CURSOR");
         dao = before_newAbstractPipelineMavenPluginDao(ds);
     }
 
@@ -128,6 +135,26 @@ public abstract class PipelineMavenPluginDaoAbstractTest {
         assertThat(SqlTestsUtils.countRows("select * from JENKINS_BUILD", ds)).isEqualTo(1);
     }
 
+    @Test
+    public void record_dependency_retried_when_cached_primary_key_is_stale() throws Exception {
+        dao.recordDependency("my-pipeline", 1, "com.h2database", "h2", "1.4.196", "jar", "compile", false, null);
+        // the primary keys of the existing rows are now cached
+        dao.recordDependency("my-pipeline", 1, "com.h2database", "h2", "1.4.196", "jar", "test", false, null);
+
+        // deleted behind the back of the DAO, e.g. by another Jenkins controller sharing the database
+        SqlTestsUtils.silentlyDeleteTableRows(ds, "JENKINS_BUILD");
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_DEPENDENCY", ds)).isEqualTo(0);
+
+        dao.recordDependency("my-pipeline", 1, "com.h2database", "h2", "1.4.196", "jar", "compile", false, null);
+
+        SqlTestsUtils.dump("select * from MAVEN_DEPENDENCY", ds, System.out);
+        assertThat(SqlTestsUtils.countRows("select * from JENKINS_BUILD", ds)).isEqualTo(1);
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_DEPENDENCY", ds)).isEqualTo(1);
+        assertThat(dao.listDependencies("my-pipeline", 1))
+                .extracting(MavenDependency::getArtifactId, MavenDependency::getScope)
+                .containsExactly(tuple("h2", "compile"));
+    }
+
     @Test
     public void create_job_and_2_builds() throws Exception {
 
@@ -150,6 +177,9 @@ public abstract class PipelineMavenPluginDaoAbstractTest {
                 .isEqualTo(1);
 
         assertThat(SqlTestsUtils.countRows("select * from JENKINS_BUILD", ds)).isEqualTo(2);
+
+        assertThat(dao.getLastBuildDurationInMillis("my-pipeline")).isEqualTo(22L);
+        assertThat(dao.getLastBuildDurationInMillis("unknown-pipeline")).isNull();
     }
 
     @Test
@@ -333,6 +363,142 @@ public abstract class PipelineMavenPluginDaoAbstractTest {
                 .isEqualTo(1);
     }
 
+    @Test
+    public void record_after_rename_job() throws Exception {
+
+        dao.recordDependency("my-pipeline", 1, "com.h2database", "h2", "1.4.196", "jar", "compile", false, null);
+        dao.renameJob("my-pipeline", "my-new-pipeline");
+        dao.recordDependency("my-new-pipeline", 2, "com.h2database", "h2", "1.4.196", "jar", "compile", false, null);
+        dao.recordDependency("my-pipeline", 1, "com.h2database", "h2", "1.4.196", "jar", "compile", false, null);
+
+        assertThat(SqlTestsUtils.countRows("select * from JENKINS_JOB", ds)).isEqualTo(2);
+        assertThat(SqlTestsUtils.countRows(
+                        "select * from JENKINS_BUILD inner join JENKINS_JOB on JENKINS_BUILD.JOB_ID = JENKINS_JOB.ID where JENKINS_JOB.FULL_NAME = 'my-new-pipeline'",
+                        ds))
+                .isEqualTo(2);
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_ARTIFACT", ds)).isEqualTo(1);
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_DEPENDENCY", ds))
+                .isEqualTo(3);
+    }
+
+    @Test
+    public void record_after_delete_job() throws Exception {
+
+        dao.recordDependency("my-pipeline", 1, "com.h2database", "h2", "1.4.196", "jar", "compile", false, null);
+        dao.deleteJob("my-pipeline");
+        dao.recordDependency("my-pipeline", 1, "com.h2database", "h2", "1.4.196", "jar", "compile", false, null);
+
+        assertThat(SqlTestsUtils.countRows("select * from JENKINS_JOB", ds)).isEqualTo(1);
+        assertThat(SqlTestsUtils.countRows("select * from JENKINS_BUILD", ds)).isEqualTo(1);
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_DEPENDENCY", ds))
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void record_after_delete_build_and_cleanup() throws Exception {
+
+        dao.recordDependency("my-pipeline", 1, "com.h2database", "h2", "1.4.196", "jar", "compile", false, null);
+        dao.recordDependency("my-pipeline", 2, "com.mycompany", "core", "1.0-SNAPSHOT", "jar", "compile", false, null);
+        dao.deleteBuild("my-pipeline", 1);
+        dao.cleanup();
+
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_ARTIFACT", ds)).isEqualTo(1);
+
+        dao.recordDependency("my-pipeline", 1, "com.h2database", "h2", "1.4.196", "jar", "compile", false, null);
+
+        assertThat(SqlTestsUtils.countRows("select * from JENKINS_BUILD", ds)).isEqualTo(2);
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_ARTIFACT", ds)).isEqualTo(2);
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_DEPENDENCY", ds))
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void cleanup_keeps_parent_projects() throws Exception {
+
+        dao.recordParentProject(
+                "my-pipeline", 1, "org.springframework.boot", "spring-boot-starter-parent", "1.5.4.RELEASE", false);
+        dao.recordDependency("my-pipeline", 1, "com.h2database", "h2", "1.4.196", "jar", "compile", false, null);
+        dao.recordDependency("my-other-pipeline", 1, "com.mycompany", "core", "1.0-SNAPSHOT", "jar", "compile", false, null);
+        dao.deleteBuild("my-other-pipeline", 1);
+        dao.cleanup();
+
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_ARTIFACT", ds)).isEqualTo(2);
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_PARENT_PROJECT", ds))
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void incremental_cleanup_resumes_from_cursor() throws Exception {
+
+        dao.recordDependency("my-pipeline", 1, "com.h2database", "h2", "1.4.196", "jar", "compile", false, null);
+        dao.recordDependency("my-pipeline", 2, "com.mycompany", "core", "1.0-SNAPSHOT", "jar", "compile", false, null);
+        dao.deleteBuild("my-pipeline", 1);
+
+        // a single page
+        dao.cleanup(0);
+
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_ARTIFACT", ds)).isEqualTo(1);
+        assertThat(SqlTestsUtils.countRows("select * from MAINTENANCE_CURSOR where LAST_ID > 0", ds))
+                .isEqualTo(1);
+
+        // end of the pass
+        dao.cleanup(0);
+
+        assertThat(SqlTestsUtils.countRows("select * from MAINTENANCE_CURSOR where LAST_ID = 0", ds))
+                .isEqualTo(1);
+        assertThat(dao.toPrettyString()).contains("Orphan artifacts collector: cursor=0/", "passes=1", "deleted=1");
+
+        dao.recordDependency("my-pipeline", 1, "com.h2database", "h2", "1.4.196", "jar", "compile", false, null);
+
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_ARTIFACT", ds)).isEqualTo(2);
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_DEPENDENCY", ds))
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void compact_build_history() throws Exception {
+
+        Result[] results = {Result.SUCCESS, Result.SUCCESS, Result.SUCCESS, Result.FAILURE, Result.FAILURE};
+        for (int buildNumber = 1; buildNumber <= results.length; buildNumber++) {
+            dao.recordDependency(
+                    "my-pipeline", buildNumber, "com.h2database", "h2", "1.4.196", "jar", "compile", false, null);
+            dao.recordGeneratedArtifact(
+                    "my-pipeline",
+                    buildNumber,
+                    "com.mycompany",
+                    "core",
+                    "1.0-SNAPSHOT",
+                    "jar",
+                    "1.0-SNAPSHOT",
+                    null,
+                    false,
+                    "jar",
+                    null);
+            dao.updateBuildOnCompletion(
+                    "my-pipeline", buildNumber, results[buildNumber - 1].ordinal, System.currentTimeMillis() - 10, 11);
+        }
+        // in progress
+        dao.recordDependency("my-pipeline", 6, "com.h2database", "h2", "1.4.196", "jar", "compile", false, null);
+        dao.recordBuildUpstreamCause("my-pipeline", 1, "my-downstream-pipeline", 1);
+
+        dao.compactBuildHistory(0, Long.MAX_VALUE);
+
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_DEPENDENCY", ds)).isEqualTo(6);
+
+        // keep builds #4 and #5 and the last successful build #3
+        dao.compactBuildHistory(2, Long.MAX_VALUE);
+
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_DEPENDENCY", ds))
+                .isEqualTo(4);
+        assertThat(SqlTestsUtils.countRows("select * from GENERATED_MAVEN_ARTIFACT", ds))
+                .isEqualTo(3);
+        assertThat(SqlTestsUtils.countRows("select * from JENKINS_BUILD", ds)).isEqualTo(7);
+        assertThat(SqlTestsUtils.countRows("select * from JENKINS_BUILD_UPSTREAM_CAUSE", ds))
+                .isEqualTo(1);
+        assertThat(dao.getGeneratedArtifacts("my-pipeline", 3)).hasSize(1);
+        assertThat(dao.toPrettyString()).contains("Build history compactor: cursor=0", "compacted=2", "reclaimed=4 rows");
+    }
+
     @Test
     public void record_two_generated_artifacts_on_the_same_build() throws Exception {
 
@@ -460,6 +626,122 @@ public abstract class PipelineMavenPluginDaoAbstractTest {
     }
 
     @Deprecated
+    @Test
+    public void record_build_graph() throws Exception {
+
+        MavenDependency h2 = new MavenDependency();
+        h2.setGroupId("com.h2database");
+        h2.setArtifactId("h2");
+        h2.setBaseVersion("1.4.196");
+        h2.setType("jar");
+        h2.setScope("compile");
+        MavenDependency core = new MavenDependency();
+        core.setGroupId("com.mycompany");
+        core.setArtifactId("core");
+        core.setVersion("1.0-20170808.155524-66");
+        core.setBaseVersion("1.0-SNAPSHOT");
+        core.setType("jar");
+        core.setClassifier("tests");
+        core.setScope("test");
+
+        MavenArtifact parent = new MavenArtifact();
+        parent.setGroupId("com.mycompany");
+        parent.setArtifactId("parent");
+        parent.setVersion("1.0-SNAPSHOT");
+        parent.setType("pom");
+
+        MavenArtifact jar = new MavenArtifact();
+        jar.setGroupId("com.mycompany");
+        jar.setArtifactId("service");
+        jar.setVersion("1.0-20170808.155524-66");
+        jar.setBaseVersion("1.0-SNAPSHOT");
+        jar.setType("jar");
+        jar.setExtension("jar");
+        jar.setRepositoryUrl("https://nexus.mycompany.com/content/repositories/snapshots/");
+        MavenArtifact pom = new MavenArtifact();
+        pom.setGroupId("com.mycompany");
+        pom.setArtifactId("parent");
+        pom.setVersion("1.0-SNAPSHOT");
+        pom.setBaseVersion("1.0-SNAPSHOT");
+        pom.setType("pom");
+        pom.setExtension("pom");
+
+        dao.recordBuildGraph(
+                "my-pipeline", 1, List.of(h2, core, h2), List.of(parent), List.of(jar, pom), false, false);
+
+        SqlTestsUtils.dump(
+                "select * from JENKINS_BUILD LEFT OUTER JOIN JENKINS_JOB ON JENKINS_BUILD.JOB_ID = JENKINS_JOB.ID",
+                ds,
+                System.out);
+        SqlTestsUtils.dump("select * from MAVEN_ARTIFACT", ds, System.out);
+
+        assertThat(SqlTestsUtils.countRows("select * from JENKINS_JOB", ds)).isEqualTo(1);
+        assertThat(SqlTestsUtils.countRows("select * from JENKINS_BUILD", ds)).isEqualTo(1);
+
+        // the parent pom is both a parent project and a generated artifact
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_ARTIFACT", ds)).isEqualTo(4);
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_DEPENDENCY", ds))
+                .isEqualTo(3);
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_PARENT_PROJECT", ds))
+                .isEqualTo(1);
+        assertThat(SqlTestsUtils.countRows("select * from GENERATED_MAVEN_ARTIFACT", ds))
+                .isEqualTo(2);
+
+        List<MavenDependency> mavenDependencies = dao.listDependencies("my-pipeline", 1);
+        assertThat(mavenDependencies).hasSize(2);
+        assertThat(mavenDependencies)
+                .extracting(MavenDependency::getArtifactId, MavenDependency::getVersion, MavenDependency::getScope)
+                .containsExactlyInAnyOrder(tuple("h2", "1.4.196", "compile"), tuple("core", "1.0-SNAPSHOT", "test"));
+
+        List<MavenArtifact> generatedArtifacts = dao.getGeneratedArtifacts("my-pipeline", 1);
+        assertThat(generatedArtifacts)
+                .extracting(MavenArtifact::getArtifactId, MavenArtifact::getVersion, MavenArtifact::getRepositoryUrl)
+                .containsExactlyInAnyOrder(
+                        tuple(
+                                "service",
+                                "1.0-20170808.155524-66",
+                                "https://nexus.mycompany.com/content/repositories/snapshots/"),
+                        tuple("parent", "1.0-SNAPSHOT", null));
+    }
+
+    @Test
+    public void record_build_graph_is_equivalent_to_record_calls() throws Exception {
+
+        MavenDependency dependency = new MavenDependency();
+        dependency.setGroupId("com.mycompany");
+        dependency.setArtifactId("core");
+        dependency.setBaseVersion("1.0-SNAPSHOT");
+        dependency.setType("jar");
+        dependency.setScope("compile");
+        dao.recordBuildGraph("my-downstream-pipeline-1", 1, List.of(dependency), List.of(), List.of(), false, false);
+        dao.updateBuildOnCompletion(
+                "my-downstream-pipeline-1", 1, Result.SUCCESS.ordinal, System.currentTimeMillis() - 1000, 100);
+
+        dao.recordDependency(
+                "my-downstream-pipeline-2", 1, "com.mycompany", "core", "1.0-SNAPSHOT", "jar", "compile", false, null);
+        dao.updateBuildOnCompletion(
+                "my-downstream-pipeline-2", 1, Result.SUCCESS.ordinal, System.currentTimeMillis() - 1000, 100);
+
+        MavenArtifact artifact = new MavenArtifact();
+        artifact.setGroupId("com.mycompany");
+        artifact.setArtifactId("core");
+        artifact.setVersion("1.0-SNAPSHOT");
+        artifact.setBaseVersion("1.0-SNAPSHOT");
+        artifact.setType("jar");
+        artifact.setExtension("jar");
+        dao.recordBuildGraph("my-upstream-pipeline-1", 1, List.of(), List.of(), List.of(artifact), false, false);
+        dao.updateBuildOnCompletion(
+                "my-upstream-pipeline-1", 1, Result.SUCCESS.ordinal, System.currentTimeMillis() - 1000, 100);
+
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_ARTIFACT", ds)).isEqualTo(1);
+
+        Map<MavenArtifact, SortedSet<String>> downstreamJobsByArtifact =
+                dao.listDownstreamJobsByArtifact("my-upstream-pipeline-1", 1);
+        assertThat(downstreamJobsByArtifact).hasSize(1);
+        assertThat(downstreamJobsByArtifact.values().iterator().next())
+                .containsExactly("my-downstream-pipeline-1", "my-downstream-pipeline-2");
+    }
+
     @Test
     public void listDownstreamJobs_upstream_jar_triggers_downstream_pipelines() {
 
@@ -984,6 +1266,96 @@ public abstract class PipelineMavenPluginDaoAbstractTest {
         assertThat(downstreamJobs).isEmpty();
     }
 
+    @Test
+    public void listDownstreamJobsByArtifact_many_artifacts() {
+        dao.getOrCreateBuildPrimaryKey("my-downstream-pipeline-1", 1);
+        dao.recordDependency(
+                "my-downstream-pipeline-1",
+                1,
+                "com.mycompany",
+                "dependency-1",
+                "1.0-SNAPSHOT",
+                "aType",
+                "compile",
+                false,
+                null);
+        dao.updateBuildOnCompletion(
+                "my-downstream-pipeline-1", 1, Result.SUCCESS.ordinal, System.currentTimeMillis() - 1111, 5);
+
+        dao.getOrCreateBuildPrimaryKey("my-downstream-pipeline-2", 1);
+        dao.recordDependency(
+                "my-downstream-pipeline-2",
+                1,
+                "com.mycompany",
+                "dependency-1",
+                "1.0-SNAPSHOT",
+                "anotherType",
+                "compile",
+                false,
+                "aClassifier");
+        dao.updateBuildOnCompletion(
+                "my-downstream-pipeline-2", 1, Result.SUCCESS.ordinal, System.currentTimeMillis() - 2222, 22);
+
+        // more artifacts than looked up by a single query
+        List<MavenDependency> dependencies = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            MavenDependency dependency = new MavenDependency();
+            dependency.setGroupId("com.mycompany");
+            dependency.setArtifactId("other-dependency-" + i);
+            dependency.setBaseVersion("2.0");
+            dependency.setType("jar");
+            dependency.setScope("compile");
+            dependencies.add(dependency);
+        }
+        dao.recordBuildGraph(
+                "my-downstream-pipeline-3",
+                1,
+                dependencies,
+                Collections.emptyList(),
+                Collections.emptyList(),
+                false,
+                false);
+        dao.updateBuildOnCompletion(
+                "my-downstream-pipeline-3", 1, Result.SUCCESS.ordinal, System.currentTimeMillis() - 3333, 33);
+
+        MavenArtifact withoutClassifier =
+                newArtifact("dependency-1", "1.0-20180318.225603-3", "1.0-SNAPSHOT", "aType", null);
+        MavenArtifact sameCoordinatesOtherVersion =
+                newArtifact("dependency-1", "1.0-20180319.101010-4", "1.0-SNAPSHOT", "aType", null);
+        MavenArtifact withClassifier =
+                newArtifact("dependency-1", "1.0-20180318.225603-3", "1.0-SNAPSHOT", "anotherType", "aClassifier");
+        MavenArtifact withOtherClassifier =
+                newArtifact("dependency-1", "1.0-20180318.225603-3", "1.0-SNAPSHOT", "anotherType", "whatever");
+        List<MavenArtifact> mavenArtifacts = new ArrayList<>(Arrays.asList(
+                withoutClassifier, sameCoordinatesOtherVersion, withClassifier, withOtherClassifier));
+        for (int i = 0; i < 250; i++) {
+            mavenArtifacts.add(newArtifact("other-dependency-" + i, "2.0", null, "jar", null));
+        }
+
+        Map<MavenArtifact, SortedSet<String>> downstreamJobsByArtifact =
+                dao.listDownstreamJobsByArtifact(mavenArtifacts);
+
+        assertThat(downstreamJobsByArtifact).hasSize(3 + 250).doesNotContainKey(withOtherClassifier);
+        assertThat(downstreamJobsByArtifact.get(withoutClassifier)).containsExactly("my-downstream-pipeline-1");
+        assertThat(downstreamJobsByArtifact.get(sameCoordinatesOtherVersion))
+                .containsExactly("my-downstream-pipeline-1");
+        assertThat(downstreamJobsByArtifact.get(withClassifier)).containsExactly("my-downstream-pipeline-2");
+        assertThat(downstreamJobsByArtifact.get(newArtifact("other-dependency-249", "2.0", null, "jar", null)))
+                .containsExactly("my-downstream-pipeline-3");
+    }
+
+    private static MavenArtifact newArtifact(
+            String artifactId, String version, String baseVersion, String type, String classifier) {
+        MavenArtifact mavenArtifact = new MavenArtifact();
+        mavenArtifact.setGroupId("com.mycompany");
+        mavenArtifact.setArtifactId(artifactId);
+        mavenArtifact.setVersion(version);
+        mavenArtifact.setBaseVersion(baseVersion);
+        mavenArtifact.setType(type);
+        mavenArtifact.setClassifier(classifier);
+        return mavenArtifact;
+    }
+
     @Deprecated
     @Test
     public void listDownstreamJobs_upstream_pom_triggers_downstream_pipelines() {
@@ -2248,6 +2620,78 @@ public abstract class PipelineMavenPluginDaoAbstractTest {
                 .contains("pipeline-framework", "pipeline-core1");
     }
 
+    @Test
+    public void list_transitive_upstream_jobs_deep_chain() {
+        // pipeline-0 <- pipeline-1 <- ... <- pipeline-5, deeper than the max recursion depth of the in memory walk
+        for (int i = 0; i <= 5; i++) {
+            recordChainedBuild("pipeline-" + i, "artifact-" + i, i == 0 ? null : "artifact-" + (i - 1));
+        }
+
+        assertThat(dao.listTransitiveUpstreamJobs("pipeline-5", 1))
+                .containsOnlyKeys("pipeline-0", "pipeline-1", "pipeline-2", "pipeline-3", "pipeline-4")
+                .containsValue(1);
+    }
+
+    @Test
+    public void list_transitive_upstream_jobs_with_cycle() {
+        // pipeline-a <- pipeline-b <- pipeline-c <- pipeline-a
+        recordChainedBuild("pipeline-a", "artifact-a", "artifact-c");
+        recordChainedBuild("pipeline-b", "artifact-b", "artifact-a");
+        recordChainedBuild("pipeline-c", "artifact-c", "artifact-b");
+
+        assertThat(dao.listTransitiveUpstreamJobs("pipeline-c", 1)).containsOnlyKeys("pipeline-a", "pipeline-b");
+        assertThat(dao.listTransitiveUpstreamJobsWithUpstreamMemory("pipeline-c", 1, new UpstreamMemory()))
+                .isEqualTo(dao.listTransitiveUpstreamJobs("pipeline-c", 1));
+    }
+
+    @Test
+    public void list_transitive_upstream_jobs_with_stacked_diamonds() {
+        // 20 stacked diamonds: pipeline-i <- pipeline-i-left, pipeline-i-right <- pipeline-(i+1), 2^20 paths
+        recordChainedBuild("pipeline-0", "artifact-0", null);
+        for (int i = 0; i < 20; i++) {
+            recordChainedBuild("pipeline-" + i + "-left", "artifact-" + i + "-left", "artifact-" + i);
+            recordChainedBuild("pipeline-" + i + "-right", "artifact-" + i + "-right", "artifact-" + i);
+            String jobFullName = "pipeline-" + (i + 1);
+            dao.getOrCreateBuildPrimaryKey(jobFullName, 1);
+            dao.recordDependency(
+                    jobFullName,
+                    1,
+                    "com.mycompany",
+                    "artifact-" + i + "-right",
+                    "1.0-SNAPSHOT",
+                    "jar",
+                    "compile",
+                    false,
+                    null);
+            recordChainedBuild(jobFullName, "artifact-" + (i + 1), "artifact-" + i + "-left");
+        }
+
+        Map<String, Integer> upstreamJobs = dao.listTransitiveUpstreamJobs("pipeline-20", 1);
+        assertThat(upstreamJobs).hasSize(60).containsKeys("pipeline-0", "pipeline-0-left", "pipeline-19-right");
+        assertThat(upstreamJobs).doesNotContainKey("pipeline-20");
+    }
+
+    private void recordChainedBuild(String jobFullName, String artifactId, String dependencyArtifactId) {
+        dao.getOrCreateBuildPrimaryKey(jobFullName, 1);
+        if (dependencyArtifactId != null) {
+            dao.recordDependency(
+                    jobFullName, 1, "com.mycompany", dependencyArtifactId, "1.0-SNAPSHOT", "jar", "compile", false, null);
+        }
+        dao.recordGeneratedArtifact(
+                jobFullName,
+                1,
+                "com.mycompany",
+                artifactId,
+                "1.0-SNAPSHOT",
+                "jar",
+                "1.0-SNAPSHOT",
+                null,
+                false,
+                "jar",
+                null);
+        dao.updateBuildOnCompletion(jobFullName, 1, Result.SUCCESS.ordinal, System.currentTimeMillis() - 100, 11);
+    }
+
     @Deprecated
     @Test
     public void list_downstream_jobs_with_failed_last_build() {
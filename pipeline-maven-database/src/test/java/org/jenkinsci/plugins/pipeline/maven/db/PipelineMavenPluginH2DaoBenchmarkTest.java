@@ -0,0 +1,132 @@
+package org.jenkinsci.plugins.pipeline.maven.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import hudson.model.Result;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
+import org.jenkinsci.plugins.pipeline.maven.MavenDependency;
+import org.jenkinsci.plugins.pipeline.maven.db.migration.MigrationStep;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Latency of the downstream jobs lookup on a synthetic dataset, too slow for the regular build:
+ * {@code mvn test -Dtest=PipelineMavenPluginH2DaoBenchmarkTest -Dpipeline-maven.benchmark=true}
+ */
+@EnabledIfSystemProperty(named = "pipeline-maven.benchmark", matches = "true")
+public class PipelineMavenPluginH2DaoBenchmarkTest {
+
+    private static final int JOBS = 10_000;
+    /** each job depends on the artifact of its parent job in a tree of this fan out */
+    private static final int FAN_OUT = 10;
+
+    private static final int WARMUP_ITERATIONS = 1_000;
+    private static final int ITERATIONS = 5_000;
+
+    private JdbcConnectionPool ds;
+
+    private PipelineMavenPluginH2Dao dao;
+
+    @BeforeEach
+    public void before() {
+        ds = JdbcConnectionPool.create("jdbc:h2:mem:" + getClass().getSimpleName() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        dao = new PipelineMavenPluginH2Dao(ds) {
+            @Override
+            protected MigrationStep.JenkinsDetails getJenkinsDetails() {
+                return new MigrationStep.JenkinsDetails() {
+                    @Override
+                    public String getMasterLegacyInstanceId() {
+                        return "123456";
+                    }
+
+                    @Override
+                    public String getMasterRootUrl() {
+                        return "https://jenkins.mycompany.com/";
+                    }
+                };
+            }
+        };
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        try (Connection cnn = ds.getConnection()) {
+            try (Statement stmt = cnn.createStatement()) {
+                stmt.execute("DROP ALL OBJECTS");
+            }
+        }
+        dao.close();
+        ds.dispose();
+    }
+
+    @Test
+    public void list_downstream_jobs_by_artifact() {
+        long startTime = System.nanoTime();
+        for (int job = 0; job < JOBS; job++) {
+            List<MavenDependency> dependencies = Collections.emptyList();
+            List<MavenArtifact> parentProjects = Collections.emptyList();
+            if (job > 0) {
+                int parentJob = (job - 1) / FAN_OUT;
+                MavenDependency dependency = new MavenDependency();
+                dependency.setGroupId("com.mycompany");
+                dependency.setArtifactId("artifact-" + parentJob);
+                dependency.setBaseVersion("1.0-SNAPSHOT");
+                dependency.setType("jar");
+                dependency.setScope("compile");
+                dependencies = Collections.singletonList(dependency);
+                // one job out of three also inherits from the pom of its parent job
+                if (job % 3 == 0) {
+                    parentProjects = Collections.singletonList(newArtifact("parent-" + parentJob, "pom"));
+                }
+            }
+            List<MavenArtifact> generatedArtifacts =
+                    Arrays.asList(newArtifact("artifact-" + job, "jar"), newArtifact("parent-" + job, "pom"));
+            dao.recordBuildGraph("job-" + job, 1, dependencies, parentProjects, generatedArtifacts, false, false);
+            dao.updateBuildOnCompletion("job-" + job, 1, Result.SUCCESS.ordinal, System.currentTimeMillis(), 10);
+        }
+        System.out.printf(
+                "Recorded %d jobs in %d ms%n", JOBS, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+
+        // only the inner jobs of the tree have downstream jobs
+        int innerJobs = JOBS / FAN_OUT;
+        Random random = new Random(42);
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            dao.listDownstreamJobsByArtifact("job-" + random.nextInt(innerJobs), 1);
+        }
+        long[] latencies = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            String jobFullName = "job-" + random.nextInt(innerJobs);
+            long start = System.nanoTime();
+            assertThat(dao.listDownstreamJobsByArtifact(jobFullName, 1)).isNotEmpty();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        System.out.printf(
+                "listDownstreamJobsByArtifact on %d jobs: mean %d us, p50 %d us, p99 %d us%n",
+                JOBS,
+                TimeUnit.NANOSECONDS.toMicros(Arrays.stream(latencies).sum() / ITERATIONS),
+                TimeUnit.NANOSECONDS.toMicros(latencies[ITERATIONS / 2]),
+                TimeUnit.NANOSECONDS.toMicros(latencies[ITERATIONS * 99 / 100]));
+    }
+
+    private static MavenArtifact newArtifact(String artifactId, String type) {
+        MavenArtifact artifact = new MavenArtifact();
+        artifact.setGroupId("com.mycompany");
+        artifact.setArtifactId(artifactId);
+        artifact.setBaseVersion("1.0-SNAPSHOT");
+        artifact.setVersion("1.0-SNAPSHOT");
+        artifact.setType(type);
+        artifact.setExtension(type);
+        return artifact;
+    }
+}
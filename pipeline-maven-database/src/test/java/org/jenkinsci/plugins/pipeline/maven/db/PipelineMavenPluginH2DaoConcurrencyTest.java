@@ -0,0 +1,172 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
+import org.jenkinsci.plugins.pipeline.maven.MavenDependency;
+import org.jenkinsci.plugins.pipeline.maven.db.migration.MigrationStep;
+import org.jenkinsci.plugins.pipeline.maven.db.util.SqlTestsUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PipelineMavenPluginH2DaoConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int JOBS = 4;
+    private static final int BUILDS_PER_THREAD = 10;
+    private static final int ARTIFACTS = 20;
+
+    private JdbcConnectionPool ds;
+
+    private PipelineMavenPluginH2Dao dao;
+
+    @BeforeEach
+    public void before() {
+        // a named in memory database, "jdbc:h2:mem:" would give each connection its own private database
+        ds = JdbcConnectionPool.create("jdbc:h2:mem:" + getClass().getSimpleName() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        ds.setMaxConnections(THREADS);
+        dao = new PipelineMavenPluginH2Dao(ds) {
+            @Override
+            protected MigrationStep.JenkinsDetails getJenkinsDetails() {
+                return new MigrationStep.JenkinsDetails() {
+                    @Override
+                    public String getMasterLegacyInstanceId() {
+                        return "123456";
+                    }
+
+                    @Override
+                    public String getMasterRootUrl() {
+                        return "https://jenkins.mycompany.com/";
+                    }
+                };
+            }
+        };
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        // the named in memory database outlives its connections
+        try (Connection cnn = ds.getConnection()) {
+            try (Statement stmt = cnn.createStatement()) {
+                stmt.execute("DROP ALL OBJECTS");
+            }
+        }
+        dao.close();
+        ds.dispose();
+    }
+
+    @Test
+    public void record_same_jobs_and_artifacts_from_many_threads() throws Exception {
+        List<MavenDependency> dependencies = new ArrayList<>();
+        List<MavenArtifact> generatedArtifacts = new ArrayList<>();
+        for (int i = 0; i < ARTIFACTS; i++) {
+            MavenDependency dependency = new MavenDependency();
+            dependency.setGroupId("com.mycompany");
+            dependency.setArtifactId("dependency-" + i);
+            dependency.setBaseVersion("1.0-SNAPSHOT");
+            dependency.setType("jar");
+            dependency.setClassifier(i % 2 == 0 ? null : "tests");
+            dependency.setScope("compile");
+            dependencies.add(dependency);
+
+            MavenArtifact generatedArtifact = new MavenArtifact();
+            generatedArtifact.setGroupId("com.mycompany");
+            generatedArtifact.setArtifactId("generated-" + i);
+            generatedArtifact.setBaseVersion("1.0-SNAPSHOT");
+            generatedArtifact.setVersion("1.0-20180318.225603-3");
+            generatedArtifact.setType("jar");
+            generatedArtifact.setExtension("jar");
+            generatedArtifacts.add(generatedArtifact);
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int threadIndex = thread;
+                futures.add(executorService.submit(() -> {
+                    start.await();
+                    for (int build = 0; build < BUILDS_PER_THREAD; build++) {
+                        String jobFullName = "my-pipeline-" + (build % JOBS);
+                        // several threads record the same build like parallel branches of a pipeline
+                        int buildNumber = 1 + (threadIndex + build) % (THREADS / 2);
+                        if (threadIndex % 2 == 0) {
+                            dao.recordBuildGraph(
+                                    jobFullName,
+                                    buildNumber,
+                                    dependencies,
+                                    Collections.emptyList(),
+                                    generatedArtifacts,
+                                    false,
+                                    false);
+                        } else {
+                            MavenDependency dependency = dependencies.get(build % ARTIFACTS);
+                            dao.recordDependency(
+                                    jobFullName,
+                                    buildNumber,
+                                    dependency.getGroupId(),
+                                    dependency.getArtifactId(),
+                                    dependency.getBaseVersion(),
+                                    dependency.getType(),
+                                    dependency.getScope(),
+                                    false,
+                                    dependency.getClassifier());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                // rethrows the exceptions of the threads
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertThat(SqlTestsUtils.countRows("select * from JENKINS_JOB", ds)).isEqualTo(JOBS);
+        assertThat(SqlTestsUtils.countRows("select distinct JOB_ID, NUMBER from JENKINS_BUILD", ds))
+                .isEqualTo(SqlTestsUtils.countRows("select * from JENKINS_BUILD", ds));
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_ARTIFACT", ds)).isEqualTo(2 * ARTIFACTS);
+        assertThat(SqlTestsUtils.countRows("select * from MAVEN_ARTIFACT where CLASSIFIER = ''", ds))
+                .isEqualTo(ARTIFACTS + ARTIFACTS / 2);
+    }
+}
@@ -0,0 +1,270 @@
+package org.jenkinsci.plugins.pipeline.maven.db;
+
+import static java.util.regex.Pattern.DOTALL;
+import static java.util.regex.Pattern.compile;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import hudson.model.Result;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.TreeSet;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
+import org.jenkinsci.plugins.pipeline.maven.MavenDependency;
+import org.jenkinsci.plugins.pipeline.maven.dao.GraphIndexPipelineMavenPluginDaoDecorator;
+import org.jenkinsci.plugins.pipeline.maven.dao.PipelineMavenPluginDao;
+import org.jenkinsci.plugins.pipeline.maven.db.migration.MigrationStep;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Every answer of the graph index is checked against the database.
+ */
+public class PipelineMavenPluginH2DaoGraphIndexTest {
+
+    private JdbcConnectionPool ds;
+
+    private PipelineMavenPluginH2Dao dao;
+
+    private GraphIndexPipelineMavenPluginDaoDecorator graphIndex;
+
+    @BeforeEach
+    public void before() {
+        ds = JdbcConnectionPool.create("jdbc:h2:mem:" + getClass().getSimpleName() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        dao = new PipelineMavenPluginH2Dao(ds) {
+            @Override
+            protected MigrationStep.JenkinsDetails getJenkinsDetails() {
+                return new MigrationStep.JenkinsDetails() {
+                    @Override
+                    public String getMasterLegacyInstanceId() {
+                        return "123456";
+                    }
+
+                    @Override
+                    public String getMasterRootUrl() {
+                        return "https://jenkins.mycompany.com/";
+                    }
+                };
+            }
+        };
+        // the loads run in the calling thread
+        graphIndex = new GraphIndexPipelineMavenPluginDaoDecorator(dao, 1, Runnable::run);
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        graphIndex.close();
+        try (Connection cnn = ds.getConnection()) {
+            try (Statement stmt = cnn.createStatement()) {
+                stmt.execute("DROP ALL OBJECTS");
+            }
+        }
+        ds.dispose();
+    }
+
+    @Test
+    public void shouldAnswerFromTheLoadedGraph() {
+        recordBuild("parent", 1, null, null, "parent", "pom");
+        recordBuild("core", 1, null, "parent", "core", "jar");
+        recordBuild("service", 1, "core", null, "service", "jar");
+        recordBuild("webapp", 1, "service", null, "webapp", "war");
+
+        graphIndex.load();
+
+        assertThat(graphIndex.listDownstreamJobsByArtifact("parent", 1))
+                .isEqualTo(dao.listDownstreamJobsByArtifact("parent", 1))
+                .containsValue(new TreeSet<>(Collections.singleton("core")));
+        assertThat(graphIndex.listDownstreamJobsByArtifact("core", 1)).hasSize(1);
+        assertThat(graphIndex.listDownstreamJobs("com.mycompany", "core", "1.0-SNAPSHOT", null, "jar", null))
+                .containsExactly("service");
+        assertThat(graphIndex.listDownstreamJobsByArtifact(Arrays.asList(
+                        artifact("core", "jar"), artifact("service", "jar"), artifact("unknown", "jar"))))
+                .hasSize(2);
+        assertThat(graphIndex.listUpstreamJobs("service", 1))
+                .isEqualTo(dao.listUpstreamJobs("service", 1))
+                .containsOnlyKeys("core");
+        assertThat(graphIndex.listUpstreamJobs("core", 1)).containsOnlyKeys("parent");
+        assertThat(graphIndex.listTransitiveUpstreamJobs("webapp", 1))
+                .isEqualTo(dao.listTransitiveUpstreamJobs("webapp", 1))
+                .containsOnlyKeys("service", "core", "parent");
+
+        assertThat(graphIndex.toPrettyString())
+                .matches(compile(
+                        ".*jobs=4.*transitiveUpstreamJobs=1.*reads: indexed=7, delegated=0.*count=6, mismatches=0.*",
+                        DOTALL));
+    }
+
+    @Test
+    public void shouldFollowTheLastSuccessfulBuilds() {
+        recordBuild("core", 1, null, null, "core", "jar");
+        recordBuild("service", 1, "core", null, "service", "jar");
+        recordBuild("other-core", 1, null, null, "other-core", "jar");
+        graphIndex.load();
+
+        // a failed build doesn't change the graph
+        record(graphIndex, "service", 2, "other-core", null, "service", "jar");
+        graphIndex.updateBuildOnCompletion("service", 2, Result.FAILURE.ordinal, System.currentTimeMillis(), 10);
+        assertThat(graphIndex.listDownstreamJobsByArtifact("core", 1)).hasSize(1);
+        assertThat(graphIndex.listDownstreamJobsByArtifact("other-core", 1)).isEmpty();
+        assertThat(graphIndex.listUpstreamJobs("service", 2))
+                .as("not a last successful build")
+                .containsOnlyKeys("other-core");
+
+        record(graphIndex, "service", 3, "other-core", null, "service", "jar");
+        graphIndex.updateBuildOnCompletion("service", 3, Result.SUCCESS.ordinal, System.currentTimeMillis(), 10);
+        assertThat(graphIndex.listDownstreamJobsByArtifact("core", 1)).isEmpty();
+        assertThat(graphIndex.listDownstreamJobsByArtifact("other-core", 1)).hasSize(1);
+        assertThat(graphIndex.listUpstreamJobs("service", 3)).containsOnlyKeys("other-core");
+
+        graphIndex.deleteBuild("service", 3);
+        assertThat(graphIndex.listDownstreamJobsByArtifact("core", 1)).hasSize(1);
+        assertThat(graphIndex.listUpstreamJobs("service", 1)).containsOnlyKeys("core");
+
+        graphIndex.renameJob("service", "renamed-service");
+        assertThat(graphIndex.listDownstreamJobs("com.mycompany", "core", "1.0-SNAPSHOT", null, "jar", null))
+                .containsExactly("renamed-service");
+        assertThat(graphIndex.listUpstreamJobs("renamed-service", 1)).containsOnlyKeys("core");
+
+        graphIndex.deleteJob("renamed-service");
+        assertThat(graphIndex.listDownstreamJobs("com.mycompany", "core", "1.0-SNAPSHOT", null, "jar", null))
+                .isEmpty();
+
+        assertThat(graphIndex.toPrettyString()).matches(compile(".*delegated=1.*mismatches=0.*", DOTALL));
+    }
+
+    @Test
+    public void shouldDiscardTheTransitiveUpstreamJobsOfTheChangedJobs() {
+        recordBuild("core", 1, null, null, "core", "jar");
+        recordBuild("service", 1, "core", null, "service", "jar");
+        recordBuild("webapp", 1, "service", null, "webapp", "war");
+        recordBuild("other-core", 1, null, null, "other-core", "jar");
+        graphIndex.load();
+        assertThat(graphIndex.listTransitiveUpstreamJobs("webapp", 1)).containsOnlyKeys("service", "core");
+        assertThat(graphIndex.listTransitiveUpstreamJobs("service", 1)).containsOnlyKeys("core");
+
+        // an upstream job changes its dependencies
+        record(graphIndex, "service", 2, "other-core", null, "service", "jar");
+        graphIndex.updateBuildOnCompletion("service", 2, Result.SUCCESS.ordinal, System.currentTimeMillis(), 10);
+        assertThat(graphIndex.listTransitiveUpstreamJobs("webapp", 1))
+                .isEqualTo(dao.listTransitiveUpstreamJobs("webapp", 1))
+                .containsEntry("service", 2)
+                .containsOnlyKeys("service", "other-core");
+
+        // a new job generates an artifact of the graph
+        record(graphIndex, "other-core-fork", 1, null, null, "other-core", "jar");
+        graphIndex.updateBuildOnCompletion(
+                "other-core-fork", 1, Result.SUCCESS.ordinal, System.currentTimeMillis(), 10);
+        assertThat(graphIndex.listTransitiveUpstreamJobs("webapp", 1))
+                .isEqualTo(dao.listTransitiveUpstreamJobs("webapp", 1))
+                .containsOnlyKeys("service", "other-core", "other-core-fork");
+
+        graphIndex.deleteJob("other-core");
+        assertThat(graphIndex.listTransitiveUpstreamJobs("webapp", 1)).containsOnlyKeys("service", "other-core-fork");
+
+        // not a last successful build
+        assertThat(graphIndex.listTransitiveUpstreamJobs("webapp", 2)).isEmpty();
+    }
+
+    @Test
+    public void shouldDelegateUntilTheChangedJobsAreLoaded() {
+        Deque<Runnable> loads = new ArrayDeque<>();
+        graphIndex = new GraphIndexPipelineMavenPluginDaoDecorator(dao, 1, loads::add);
+        recordBuild("core", 1, null, null, "core", "jar");
+        recordBuild("service", 1, "core", null, "service", "jar");
+        recordBuild("other-core", 1, null, null, "other-core", "jar");
+        graphIndex.load();
+
+        record(graphIndex, "service", 2, "other-core", null, "service", "jar");
+        graphIndex.updateBuildOnCompletion("service", 2, Result.SUCCESS.ordinal, System.currentTimeMillis(), 10);
+        assertThat(loads).hasSize(1);
+        assertThat(graphIndex.listDownstreamJobsByArtifact("other-core", 1)).hasSize(1);
+        assertThat(graphIndex.toPrettyString())
+                .matches(compile(".*jobsToLoad=1.*reads: indexed=0, delegated=1.*", DOTALL));
+
+        loads.poll().run();
+        assertThat(graphIndex.listDownstreamJobsByArtifact("other-core", 1)).hasSize(1);
+        assertThat(graphIndex.listDownstreamJobsByArtifact("core", 1)).isEmpty();
+        assertThat(graphIndex.toPrettyString())
+                .matches(compile(".*jobsToLoad=0.*reads: indexed=2, delegated=1.*mismatches=0.*", DOTALL));
+    }
+
+    @Test
+    public void shouldDelegateUntilTheGraphIsLoaded() {
+        recordBuild("core", 1, null, null, "core", "jar");
+        recordBuild("service", 1, "core", null, "service", "jar");
+
+        assertThat(graphIndex.listUpstreamJobs("service", 1)).containsOnlyKeys("core");
+
+        assertThat(graphIndex.toPrettyString())
+                .matches(compile(".*loaded=false.*reads: indexed=0, delegated=1.*", DOTALL));
+    }
+
+    @Test
+    public void shouldReturnTheDatabaseAnswerWhenTheGraphIsInconsistent() {
+        recordBuild("core", 1, null, null, "core", "jar");
+        graphIndex.load();
+
+        // written behind the back of the graph index
+        recordBuild("service", 1, "core", null, "service", "jar");
+
+        assertThat(graphIndex.listDownstreamJobsByArtifact("core", 1)).hasSize(1);
+        assertThat(graphIndex.toPrettyString()).matches(compile(".*mismatches=1.*", DOTALL));
+    }
+
+    private void recordBuild(
+            String jobFullName,
+            int buildNumber,
+            String dependencyArtifactId,
+            String parentArtifactId,
+            String artifactId,
+            String type) {
+        record(dao, jobFullName, buildNumber, dependencyArtifactId, parentArtifactId, artifactId, type);
+        dao.updateBuildOnCompletion(
+                jobFullName, buildNumber, Result.SUCCESS.ordinal, System.currentTimeMillis() - 100, 11);
+    }
+
+    private static void record(
+            PipelineMavenPluginDao dao,
+            String jobFullName,
+            int buildNumber,
+            String dependencyArtifactId,
+            String parentArtifactId,
+            String artifactId,
+            String type) {
+        MavenDependency dependency = new MavenDependency();
+        dependency.setGroupId("com.mycompany");
+        dependency.setArtifactId(dependencyArtifactId);
+        dependency.setBaseVersion("1.0-SNAPSHOT");
+        dependency.setVersion("1.0-SNAPSHOT");
+        dependency.setType("jar");
+        dependency.setScope("compile");
+        MavenArtifact generatedArtifact = artifact(artifactId, type);
+        generatedArtifact.setVersion("1.0-20250101.101010-1");
+        generatedArtifact.setExtension(type);
+        dao.recordBuildGraph(
+                jobFullName,
+                buildNumber,
+                dependencyArtifactId == null ? Collections.emptyList() : Collections.singletonList(dependency),
+                parentArtifactId == null
+                        ? Collections.emptyList()
+                        : Collections.singletonList(artifact(parentArtifactId, "pom")),
+                Collections.singletonList(generatedArtifact),
+                false,
+                false);
+    }
+
+    private static MavenArtifact artifact(String artifactId, String type) {
+        MavenArtifact artifact = new MavenArtifact();
+        artifact.setGroupId("com.mycompany");
+        artifact.setArtifactId(artifactId);
+        artifact.setVersion("1.0-SNAPSHOT");
+        artifact.setBaseVersion("1.0-SNAPSHOT");
+        artifact.setType(type);
+        return artifact;
+    }
+}
@@ -24,9 +24,12 @@
 
 package org.jenkinsci.plugins.pipeline.maven.db;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import javax.sql.DataSource;
 import org.h2.jdbcx.JdbcConnectionPool;
 import org.jenkinsci.plugins.pipeline.maven.db.migration.MigrationStep;
+import org.junit.jupiter.api.Test;
 
 /**
  * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
@@ -57,4 +60,34 @@ public class PipelineMavenPluginH2DaoTest extends PipelineMavenPluginDaoAbstract
             }
         };
     }
+
+    @Test
+    public void is_upstream_cause_ancestor() {
+        // pipeline-a#1 -> pipeline-b#1 -> pipeline-d#1 and pipeline-a#1 -> pipeline-c#1 -> pipeline-d#1
+        dao.recordBuildUpstreamCause("pipeline-a", 1, "pipeline-b", 1);
+        dao.recordBuildUpstreamCause("pipeline-a", 1, "pipeline-c", 1);
+        dao.recordBuildUpstreamCause("pipeline-b", 1, "pipeline-d", 1);
+        dao.recordBuildUpstreamCause("pipeline-c", 1, "pipeline-d", 1);
+
+        assertThat(dao.isUpstreamCauseAncestor("pipeline-d", 1, "pipeline-a")).isTrue();
+        assertThat(dao.isUpstreamCauseAncestor("pipeline-d", 1, "pipeline-c")).isTrue();
+        assertThat(dao.isUpstreamCauseAncestor("pipeline-d", 1, "pipeline-d")).isFalse();
+        assertThat(dao.isUpstreamCauseAncestor("pipeline-b", 1, "pipeline-c")).isFalse();
+        assertThat(dao.isUpstreamCauseAncestor("pipeline-a", 2, "pipeline-a")).isNull();
+    }
+
+    @Test
+    public void is_upstream_cause_ancestor_with_stacked_diamonds() {
+        // 20 stacked diamonds: pipeline-i#1 -> pipeline-i-left#1, pipeline-i-right#1 -> pipeline-(i+1)#1, 2^20 paths
+        for (int i = 0; i < 20; i++) {
+            dao.recordBuildUpstreamCause("pipeline-" + i, 1, "pipeline-" + i + "-left", 1);
+            dao.recordBuildUpstreamCause("pipeline-" + i, 1, "pipeline-" + i + "-right", 1);
+            dao.recordBuildUpstreamCause("pipeline-" + i + "-left", 1, "pipeline-" + (i + 1), 1);
+            dao.recordBuildUpstreamCause("pipeline-" + i + "-right", 1, "pipeline-" + (i + 1), 1);
+        }
+
+        assertThat(dao.isUpstreamCauseAncestor("pipeline-20", 1, "pipeline-0")).isTrue();
+        assertThat(dao.isUpstreamCauseAncestor("pipeline-20", 1, "pipeline-20")).isFalse();
+        assertThat(dao.isUpstreamCauseAncestor("pipeline-20", 1, "pipeline-unknown")).isFalse();
+    }
 }
@@ -61,6 +61,14 @@ public class PipelineMavenPluginMySqlDaoTest extends PipelineMavenPluginDaoAbstr
         };
     }
 
+    @Test
+    public void is_upstream_cause_ancestor_unknown_without_recursive_queries() {
+        dao.recordBuildUpstreamCause("pipeline-a", 1, "pipeline-b", 1);
+
+        // H2 in MySQL mode is seen as a MySQL 2.x database
+        assertThat(dao.isUpstreamCauseAncestor("pipeline-b", 1, "pipeline-a")).isNull();
+    }
+
     @Test
     public void test_mariadb_version_parsing_JENKINS_55378() {
         String actual = PipelineMavenPluginMySqlDao.extractMariaDbVersion("5.5.5-10.2.20-MariaDB");
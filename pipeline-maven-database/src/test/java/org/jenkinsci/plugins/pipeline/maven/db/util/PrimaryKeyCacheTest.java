@@ -0,0 +1,58 @@
+package org.jenkinsci.plugins.pipeline.maven.db.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class PrimaryKeyCacheTest {
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private final AtomicInteger misses = new AtomicInteger();
+
+    @Test
+    public void get_counts_hits_and_misses() {
+        PrimaryKeyCache<String> cache = new PrimaryKeyCache<>(10, hits, misses);
+
+        assertThat(cache.get("my-pipeline")).isNull();
+        cache.put("my-pipeline", 1);
+        assertThat(cache.get("my-pipeline")).isEqualTo(1L);
+        assertThat(cache.get("my-pipeline")).isEqualTo(1L);
+
+        assertThat(hits.get()).isEqualTo(2);
+        assertThat(misses.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void evicts_least_recently_used_key() {
+        PrimaryKeyCache<String> cache = new PrimaryKeyCache<>(2, hits, misses);
+
+        cache.put("pipeline-1", 1);
+        cache.put("pipeline-2", 2);
+        cache.get("pipeline-1");
+        cache.put("pipeline-3", 3);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("pipeline-1")).isEqualTo(1L);
+        assertThat(cache.get("pipeline-2")).isNull();
+        assertThat(cache.get("pipeline-3")).isEqualTo(3L);
+    }
+
+    @Test
+    public void invalidate() {
+        PrimaryKeyCache<String> cache = new PrimaryKeyCache<>(10, hits, misses);
+        cache.put("1#1", 1);
+        cache.put("1#2", 2);
+        cache.put("2#1", 3);
+
+        assertThat(cache.invalidate("1#1")).isEqualTo(1L);
+        assertThat(cache.invalidate("1#1")).isNull();
+
+        cache.invalidateIf(key -> key.startsWith("1#"));
+        assertThat(cache.size()).isEqualTo(1);
+
+        cache.invalidateAll();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+}
@@ -24,19 +24,25 @@
 
 package org.jenkinsci.plugins.pipeline.maven.eventspy;
 
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import org.apache.maven.eventspy.AbstractEventSpy;
 import org.apache.maven.eventspy.EventSpy;
+import org.apache.maven.execution.ExecutionEvent;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.AbstractExecutionHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.ArtifactDeployedEventHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.CatchAllExecutionHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.DefaultSettingsBuildingRequestHandler;
@@ -56,6 +62,8 @@ import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.ProjectStartedExecu
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.ProjectSucceededExecutionHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.SessionEndedHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.SurefireTestExecutionHandler;
+import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.AsyncFileMavenEventReporter;
+import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.CompactFileMavenEventReporter;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.DevNullMavenEventReporter;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.FileMavenEventReporter;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.MavenEventReporter;
@@ -77,6 +85,30 @@ public class JenkinsMavenEventSpy extends AbstractEventSpy {
 
     public static final String DISABLE_MAVEN_EVENT_SPY_ENVIRONMENT_VARIABLE_NAME = "JENKINS_MAVEN_AGENT_DISABLED";
 
+    /**
+     * Write the events asynchronously, see {@link AsyncFileMavenEventReporter}
+     */
+    public static final String ASYNC_REPORTER_PROPERTY_NAME = JenkinsMavenEventSpy.class.getName() + ".asyncReporter";
+
+    /**
+     * Write the events in a compact binary encoding rather than in XML, see {@link CompactFileMavenEventReporter}.
+     * Takes precedence over {@link #ASYNC_REPORTER_PROPERTY_NAME}.
+     */
+    public static final String COMPACT_REPORTER_PROPERTY_NAME =
+            JenkinsMavenEventSpy.class.getName() + ".compactReporter";
+
+    /**
+     * Comma separated list of the events to record, all the events are recorded when not set. The subscriptions are
+     * the {@link ExecutionEvent.Type} names of the project events ({@code ProjectStarted}, {@code ProjectSucceeded},
+     * {@code ProjectFailed}), {@code DependencyResolutionRequest}, {@code DependencyResolutionResult},
+     * {@code ArtifactDeployed}, the {@code groupId:artifactId:goal} of the mojo executions or
+     * {@link #ALL_MOJO_EXECUTIONS_SUBSCRIPTION}. The Maven settings, the Maven execution request and result are
+     * always recorded. See {@link MavenEventHandler#subscribe(Set)}.
+     */
+    public static final String SUBSCRIPTIONS_PROPERTY_NAME = JenkinsMavenEventSpy.class.getName() + ".subscriptions";
+
+    public static final String ALL_MOJO_EXECUTIONS_SUBSCRIPTION = "*";
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private MavenEventReporter reporter;
@@ -86,7 +118,7 @@ public class JenkinsMavenEventSpy extends AbstractEventSpy {
      */
     protected final boolean disabled;
 
-    private Set<Class> blackList = new HashSet();
+    private Set<Class> blackList = ConcurrentHashMap.newKeySet();
     private Set<String> ignoredList = new HashSet(
             Collections.singletonList(
                     /*"org.eclipse.aether.RepositoryEvent",*/
@@ -95,6 +127,12 @@ public class JenkinsMavenEventSpy extends AbstractEventSpy {
 
     private List<MavenEventHandler> handlers = new ArrayList();
 
+    /**
+     * Handlers which can handle the events of each class, built at the first event of the class. Empty for the
+     * ignored and the black listed classes.
+     */
+    private final Map<Class<?>, EventDispatch> dispatchTable = new ConcurrentHashMap<>();
+
     public JenkinsMavenEventSpy() throws IOException {
         this.disabled = isEventSpyDisabled();
         if (disabled) {
@@ -115,7 +153,13 @@ public class JenkinsMavenEventSpy extends AbstractEventSpy {
         }
 
         if (reporter == null) {
-            this.reporter = new FileMavenEventReporter();
+            if (Boolean.getBoolean(COMPACT_REPORTER_PROPERTY_NAME)) {
+                this.reporter = new CompactFileMavenEventReporter();
+            } else if (Boolean.getBoolean(ASYNC_REPORTER_PROPERTY_NAME)) {
+                this.reporter = new AsyncFileMavenEventReporter();
+            } else {
+                this.reporter = new FileMavenEventReporter();
+            }
         }
         // Initialize handlers
         handlers.add(new ProjectSucceededExecutionHandler(reporter));
@@ -138,6 +182,12 @@ public class JenkinsMavenEventSpy extends AbstractEventSpy {
 
         handlers.add(new CatchAllExecutionHandler(reporter));
 
+        Set<String> subscriptions = getSubscriptions();
+        if (subscriptions != null) {
+            handlers.removeIf(handler -> !handler.subscribe(subscriptions));
+            reporter.print("subscriptions: " + new TreeSet<>(subscriptions));
+        }
+
         // Print context
         Xpp3Dom element = new Xpp3Dom("context");
         for (Map.Entry<String, Object> entry : context.getData().entrySet()) {
@@ -154,13 +204,8 @@ public class JenkinsMavenEventSpy extends AbstractEventSpy {
         if (disabled) return;
 
         try {
-            if (blackList.contains(event.getClass())) {
-                return;
-            } else if (ignoredList.contains(event.getClass().getName())) {
-                return;
-            }
-
-            for (MavenEventHandler handler : handlers) {
+            EventDispatch dispatch = dispatchTable.computeIfAbsent(event.getClass(), this::newEventDispatch);
+            for (MavenEventHandler handler : dispatch.getHandlers(event)) {
                 boolean handled = handler.handle(event);
                 if (handled) {
                     break;
@@ -169,6 +214,7 @@ public class JenkinsMavenEventSpy extends AbstractEventSpy {
 
         } catch (Throwable t) {
             blackList.add(event.getClass());
+            dispatchTable.put(event.getClass(), EventDispatch.NONE);
             logger.warn("[jenkins-event-spy] Exception processing " + event, t);
             reporter.print(getClass().getName() + ": Exception processing " + event);
         }
@@ -183,6 +229,33 @@ public class JenkinsMavenEventSpy extends AbstractEventSpy {
         reporter.close();
     }
 
+    private EventDispatch newEventDispatch(Class<?> eventClass) {
+        if (blackList.contains(eventClass) || ignoredList.contains(eventClass.getName())) {
+            return EventDispatch.NONE;
+        }
+        List<MavenEventHandler> eventHandlers = new ArrayList<>();
+        for (MavenEventHandler handler : handlers) {
+            if (handler.canHandle(eventClass)) {
+                eventHandlers.add(handler);
+            }
+        }
+        if (!ExecutionEvent.class.isAssignableFrom(eventClass)) {
+            return new EventDispatch(eventHandlers, null);
+        }
+        Map<ExecutionEvent.Type, List<MavenEventHandler>> handlersByType = new EnumMap<>(ExecutionEvent.Type.class);
+        for (ExecutionEvent.Type type : ExecutionEvent.Type.values()) {
+            List<MavenEventHandler> typeHandlers = new ArrayList<>();
+            for (MavenEventHandler handler : eventHandlers) {
+                if (!(handler instanceof AbstractExecutionHandler)
+                        || ((AbstractExecutionHandler) handler).canHandle(type)) {
+                    typeHandlers.add(handler);
+                }
+            }
+            handlersByType.put(type, typeHandlers);
+        }
+        return new EventDispatch(eventHandlers, handlersByType);
+    }
+
     /**
      * Visible for testing
      */
@@ -195,15 +268,63 @@ public class JenkinsMavenEventSpy extends AbstractEventSpy {
         return reporter;
     }
 
+    /**
+     * @return {@code null} if all the events are recorded, see {@link #SUBSCRIPTIONS_PROPERTY_NAME}
+     */
+    @Nullable
+    protected Set<String> getSubscriptions() {
+        String subscriptions = System.getProperty(SUBSCRIPTIONS_PROPERTY_NAME);
+        if (subscriptions == null) {
+            return null;
+        }
+        Set<String> result = new HashSet<>();
+        for (String subscription : subscriptions.split(",")) {
+            if (!subscription.trim().isEmpty()) {
+                result.add(subscription.trim());
+            }
+        }
+        return result;
+    }
+
     public List<MavenEventHandler> getHandlers() {
         return handlers;
     }
 
+    /**
+     * Handlers of the events of a class, and of each type for the {@link ExecutionEvent}s
+     */
+    private static class EventDispatch {
+        static final EventDispatch NONE = new EventDispatch(Collections.emptyList(), null);
+
+        private final List<MavenEventHandler> handlers;
+
+        @Nullable
+        private final Map<ExecutionEvent.Type, List<MavenEventHandler>> handlersByExecutionEventType;
+
+        EventDispatch(
+                List<MavenEventHandler> handlers,
+                @Nullable Map<ExecutionEvent.Type, List<MavenEventHandler>> handlersByExecutionEventType) {
+            this.handlers = handlers;
+            this.handlersByExecutionEventType = handlersByExecutionEventType;
+        }
+
+        List<MavenEventHandler> getHandlers(Object event) {
+            if (handlersByExecutionEventType == null) {
+                return handlers;
+            }
+            List<MavenEventHandler> typeHandlers =
+                    handlersByExecutionEventType.get(((ExecutionEvent) event).getType());
+            return typeHandlers == null ? handlers : typeHandlers;
+        }
+    }
+
     public void setHandlers(List<MavenEventHandler> handlers) {
         this.handlers = handlers;
+        // the dispatch table was computed with the previous handlers
+        dispatchTable.clear();
     }
 
     public void setHandlers(MavenEventHandler... handlers) {
-        this.handlers = Arrays.asList(handlers);
+        setHandlers(Arrays.asList(handlers));
     }
 }
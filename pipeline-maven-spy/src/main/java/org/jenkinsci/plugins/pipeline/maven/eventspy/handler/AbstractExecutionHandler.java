@@ -27,15 +27,23 @@ package org.jenkinsci.plugins.pipeline.maven.eventspy.handler;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.util.List;
+import java.util.Set;
 import org.apache.maven.execution.ExecutionEvent;
 import org.apache.maven.plugin.MojoExecution;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.jenkinsci.plugins.pipeline.maven.eventspy.JenkinsMavenEventSpy;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.MavenEventReporter;
 
 /**
  * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
  */
 public abstract class AbstractExecutionHandler extends AbstractMavenEventHandler<ExecutionEvent> {
+    /**
+     * {@link #getSupportedPluginGoal()} split once, {@code null} until the first event
+     */
+    @Nullable
+    private volatile String[] supportedPluginGoal;
+
     protected AbstractExecutionHandler(@NonNull MavenEventReporter reporter) {
         super(reporter);
     }
@@ -45,9 +53,7 @@ public abstract class AbstractExecutionHandler extends AbstractMavenEventHandler
             return false;
         }
         ExecutionEvent executionEvent = (ExecutionEvent) event;
-        ExecutionEvent.Type supportedType = getSupportedType();
-
-        if (supportedType != null && !(supportedType.equals(executionEvent.getType()))) {
+        if (!canHandle(executionEvent.getType())) {
             return false;
         }
 
@@ -55,7 +61,10 @@ public abstract class AbstractExecutionHandler extends AbstractMavenEventHandler
         if (supportedGoal == null) {
             return _handle(executionEvent);
         } else {
-            String[] gag = supportedGoal.split(":");
+            String[] gag = supportedPluginGoal;
+            if (gag == null) {
+                supportedPluginGoal = gag = supportedGoal.split(":");
+            }
             if (gag.length == 3) {
                 MojoExecution execution = executionEvent.getMojoExecution();
                 if (execution.getGroupId().equals(gag[0])
@@ -73,6 +82,30 @@ public abstract class AbstractExecutionHandler extends AbstractMavenEventHandler
         }
     }
 
+    /**
+     * Used to build the dispatch table of the spy.
+     *
+     * @return {@code false} if {@link #handle(Object)} never handles the execution events of the given type
+     */
+    public boolean canHandle(@NonNull ExecutionEvent.Type executionEventType) {
+        ExecutionEvent.Type supportedType = getSupportedType();
+        return supportedType == null || supportedType == executionEventType;
+    }
+
+    /**
+     * Subscribed to by the plugin goal if any, otherwise by the event type
+     */
+    @Override
+    public boolean subscribe(@NonNull Set<String> subscriptions) {
+        String supportedGoal = getSupportedPluginGoal();
+        if (supportedGoal != null) {
+            return subscriptions.contains(supportedGoal)
+                    || subscriptions.contains(JenkinsMavenEventSpy.ALL_MOJO_EXECUTIONS_SUBSCRIPTION);
+        }
+        ExecutionEvent.Type supportedType = getSupportedType();
+        return supportedType == null || subscriptions.contains(supportedType.name());
+    }
+
     @Override
     public boolean _handle(@NonNull ExecutionEvent executionEvent) {
         List<String> configurationParameters = getConfigurationParametersToReport(executionEvent);
@@ -81,7 +114,7 @@ public abstract class AbstractExecutionHandler extends AbstractMavenEventHandler
         root.setAttribute("class", executionEvent.getClass().getName());
         root.setAttribute("type", executionEvent.getType().name());
 
-        root.addChild(newElement("project", executionEvent.getProject()));
+        root.addChild(newProjectReference("project", executionEvent.getProject()));
 
         MojoExecution execution = executionEvent.getMojoExecution();
 
@@ -54,6 +54,13 @@ public abstract class AbstractMavenEventHandler<E> implements MavenEventHandler<
 
     protected final MavenEventReporter reporter;
 
+    /**
+     * Resolved once, the events are handled on the Maven threads
+     */
+    private final Class<?> supportedType;
+
+    private final ProjectDefinitions projectDefinitions;
+
     /**
      * Regex pattern to extract ANSI escape sequences
      */
@@ -61,27 +68,43 @@ public abstract class AbstractMavenEventHandler<E> implements MavenEventHandler<
 
     protected AbstractMavenEventHandler(MavenEventReporter reporter) {
         this.reporter = reporter;
+        this.supportedType = resolveSupportedType();
+        this.projectDefinitions = ProjectDefinitions.of(reporter);
     }
 
     @Override
     public boolean handle(Object event) {
-        Type type = getSupportedType();
-        Class<E> clazz = (Class<E>) type;
-        if (clazz.isAssignableFrom(event.getClass())) {
+        if (supportedType.isInstance(event)) {
             return _handle((E) event);
         }
         return false;
     }
 
-    private Type getSupportedType() {
-        return ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[0];
+    @Override
+    public boolean canHandle(@NonNull Class<?> eventClass) {
+        return supportedType.isAssignableFrom(eventClass);
+    }
+
+    /**
+     * @return the type argument {@code E} of the concrete handler class, {@link Object} if it's not a class
+     */
+    private Class<?> resolveSupportedType() {
+        for (Class<?> clazz = getClass(); clazz != AbstractMavenEventHandler.class; clazz = clazz.getSuperclass()) {
+            Type superclass = clazz.getGenericSuperclass();
+            if (superclass instanceof ParameterizedType
+                    && ((ParameterizedType) superclass).getRawType() == AbstractMavenEventHandler.class) {
+                Type type = ((ParameterizedType) superclass).getActualTypeArguments()[0];
+                return type instanceof Class ? (Class<?>) type : Object.class;
+            }
+        }
+        return Object.class;
     }
 
     protected abstract boolean _handle(E e);
 
     @Override
     public String toString() {
-        return getClass().getName() + "[type=" + getSupportedType() + "]";
+        return getClass().getName() + "[type=" + supportedType + "]";
     }
 
     public Xpp3Dom newElement(String name, String value) {
@@ -91,11 +114,25 @@ public abstract class AbstractMavenEventHandler<E> implements MavenEventHandler<
     }
 
     public Xpp3Dom newElement(@NonNull String name, @Nullable final MavenProject project) {
-        Xpp3Dom projectElt = new Xpp3Dom(name);
         if (project == null) {
-            return projectElt;
+            return new Xpp3Dom(name);
+        }
+        return new Xpp3Dom(projectDefinitions.get(project, this::newProjectElement, reporter).projectElt, name);
+    }
+
+    /**
+     * Reference to the {@code ProjectDefinition} element of the given project, printed when the project is first seen
+     */
+    public Xpp3Dom newProjectReference(@NonNull String name, @Nullable final MavenProject project) {
+        Xpp3Dom projectElt = new Xpp3Dom(name);
+        if (project != null) {
+            projectElt.setAttribute("ref", projectDefinitions.get(project, this::newProjectElement, reporter).id);
         }
+        return projectElt;
+    }
 
+    private Xpp3Dom newProjectElement(@NonNull final MavenProject project) {
+        Xpp3Dom projectElt = new Xpp3Dom("project");
         projectElt.setAttribute("name", project.getName());
         projectElt.setAttribute("groupId", project.getGroupId());
         projectElt.setAttribute("artifactId", project.getArtifactId());
@@ -172,8 +209,6 @@ public abstract class AbstractMavenEventHandler<E> implements MavenEventHandler<
     /**
      * If the Maven project uses the "flatten-maven-plugin" and defines the config parameter "flattenedPomFilename", get its value.
      *
-     * TODO optimize and keep in cache this result
-     *
      * @param project
      * @return the "flattenedPomFilename" defined at the "flatten" execution level or at the plugin definition level. {@code null}
      */
@@ -2,11 +2,12 @@ package org.jenkinsci.plugins.pipeline.maven.eventspy.handler;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.Set;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.eclipse.aether.RepositoryEvent;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.MavenEventReporter;
 
-public class ArtifactDeployedEventHandler implements MavenEventHandler {
+public class ArtifactDeployedEventHandler implements MavenEventHandler<RepositoryEvent> {
 
     protected final MavenEventReporter reporter;
 
@@ -29,6 +30,16 @@ public class ArtifactDeployedEventHandler implements MavenEventHandler {
         return false;
     }
 
+    @Override
+    public boolean canHandle(@NonNull Class<?> eventClass) {
+        return RepositoryEvent.class.isAssignableFrom(eventClass);
+    }
+
+    @Override
+    public boolean subscribe(@NonNull Set<String> subscriptions) {
+        return subscriptions.contains("ArtifactDeployed");
+    }
+
     protected Xpp3Dom newElement(@Nullable org.eclipse.aether.RepositoryEvent event) {
         Xpp3Dom element = new Xpp3Dom("RepositoryEvent");
         if (event == null) {
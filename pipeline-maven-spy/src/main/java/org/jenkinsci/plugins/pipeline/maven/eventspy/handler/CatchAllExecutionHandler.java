@@ -28,10 +28,13 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.apache.maven.execution.ExecutionEvent;
 import org.apache.maven.plugin.MojoExecution;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.jenkinsci.plugins.pipeline.maven.eventspy.JenkinsMavenEventSpy;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.MavenEventReporter;
 
 /**
@@ -39,10 +42,49 @@ import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.MavenEventReporter
  */
 public class CatchAllExecutionHandler extends AbstractExecutionHandler {
 
+    /**
+     * {@code groupId:artifactId:goal} of the mojo executions to record, {@code null} to record all the events
+     */
+    @Nullable
+    private Set<String> subscribedPluginGoals;
+
     public CatchAllExecutionHandler(@NonNull MavenEventReporter reporter) {
         super(reporter);
     }
 
+    /**
+     * Records all the events when subscribed to {@link JenkinsMavenEventSpy#ALL_MOJO_EXECUTIONS_SUBSCRIPTION},
+     * otherwise only the executions of the subscribed plugin goals
+     */
+    @Override
+    public boolean subscribe(@NonNull Set<String> subscriptions) {
+        if (subscriptions.contains(JenkinsMavenEventSpy.ALL_MOJO_EXECUTIONS_SUBSCRIPTION)) {
+            subscribedPluginGoals = null;
+            return true;
+        }
+        Set<String> pluginGoals = new HashSet<>();
+        for (String subscription : subscriptions) {
+            if (subscription.indexOf(':') != -1) {
+                pluginGoals.add(subscription);
+            }
+        }
+        subscribedPluginGoals = pluginGoals;
+        return !pluginGoals.isEmpty();
+    }
+
+    @Override
+    public boolean _handle(@NonNull ExecutionEvent executionEvent) {
+        if (subscribedPluginGoals != null) {
+            MojoExecution execution = executionEvent.getMojoExecution();
+            if (execution == null
+                    || !subscribedPluginGoals.contains(
+                            execution.getGroupId() + ":" + execution.getArtifactId() + ":" + execution.getGoal())) {
+                return false;
+            }
+        }
+        return super._handle(executionEvent);
+    }
+
     @NonNull
     @Override
     protected List<String> getConfigurationParametersToReport(ExecutionEvent executionEvent) {
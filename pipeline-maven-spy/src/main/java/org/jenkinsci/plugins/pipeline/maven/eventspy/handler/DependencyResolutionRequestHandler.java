@@ -24,6 +24,8 @@
 
 package org.jenkinsci.plugins.pipeline.maven.eventspy.handler;
 
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Set;
 import org.apache.maven.project.DependencyResolutionRequest;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.MavenEventReporter;
@@ -36,11 +38,16 @@ public class DependencyResolutionRequestHandler extends AbstractMavenEventHandle
         super(reporter);
     }
 
+    @Override
+    public boolean subscribe(@NonNull Set<String> subscriptions) {
+        return subscriptions.contains("DependencyResolutionRequest");
+    }
+
     @Override
     protected boolean _handle(DependencyResolutionRequest request) {
         Xpp3Dom root = new Xpp3Dom("DependencyResolutionRequest");
         root.setAttribute("class", request.getClass().getName());
-        root.addChild(newElement("project", request.getMavenProject()));
+        root.addChild(newProjectReference("project", request.getMavenProject()));
 
         reporter.print(root);
         return true;
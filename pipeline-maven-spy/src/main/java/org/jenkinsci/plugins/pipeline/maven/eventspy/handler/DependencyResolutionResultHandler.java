@@ -24,6 +24,7 @@
 
 package org.jenkinsci.plugins.pipeline.maven.eventspy.handler;
 
+import edu.umd.cs.findbugs.annotations.NonNull;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
@@ -56,6 +57,11 @@ public class DependencyResolutionResultHandler extends AbstractMavenEventHandler
         super(reporter);
     }
 
+    @Override
+    public boolean subscribe(@NonNull Set<String> subscriptions) {
+        return subscriptions.contains("DependencyResolutionResult");
+    }
+
     @Override
     protected boolean _handle(DependencyResolutionResult result) {
 
@@ -24,9 +24,32 @@
 
 package org.jenkinsci.plugins.pipeline.maven.eventspy.handler;
 
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Set;
+
 /**
  * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
  */
 public interface MavenEventHandler<E> {
     boolean handle(Object event);
+
+    /**
+     * Used to build the dispatch table of the spy: the events of the given class are not given to the handlers which
+     * can't handle them.
+     *
+     * @return {@code false} if {@link #handle(Object)} never handles the events of the given class
+     */
+    default boolean canHandle(@NonNull Class<?> eventClass) {
+        return true;
+    }
+
+    /**
+     * Restrict the handler to the events needed by the Jenkins publishers, the handlers which don't record any of them
+     * are not registered. See {@code JenkinsMavenEventSpy#SUBSCRIPTIONS_PROPERTY_NAME} for the subscriptions.
+     *
+     * @return {@code false} if the handler doesn't record any of the subscribed events
+     */
+    default boolean subscribe(@NonNull Set<String> subscriptions) {
+        return true;
+    }
 }
@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.eventspy.handler;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.apache.maven.model.Build;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.MavenEventReporter;
+
+/**
+ * Project elements of the Maven projects, shared by the handlers writing to the same {@link MavenEventReporter}.
+ * <p>
+ * A project element is built once per state of a {@link MavenProject} (the canonical paths are resolved once) and
+ * printed once as a {@code ProjectDefinition} element with a short id, the events then reference it with
+ * {@code <project ref="id"/>}. The references are resolved on the Jenkins controller by
+ * {@code org.jenkinsci.plugins.pipeline.maven.util.XmlUtils}.
+ */
+class ProjectDefinitions {
+
+    private static final Map<MavenEventReporter, ProjectDefinitions> PROJECT_DEFINITIONS =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Keyed by the state of the {@link MavenProject} rendered in the project element, the Maven projects can be
+     * modified during the build (e.g. the project file replaced by the flatten-maven-plugin)
+     */
+    private final Map<List<Object>, Definition> definitions = new ConcurrentHashMap<>();
+
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    static ProjectDefinitions of(@NonNull MavenEventReporter reporter) {
+        return PROJECT_DEFINITIONS.computeIfAbsent(reporter, r -> new ProjectDefinitions());
+    }
+
+    /**
+     * @param projectElementFactory builds the {@code project} element
+     * @return the definition of the project, printed to the reporter when the project is first seen
+     */
+    @NonNull
+    Definition get(
+            @NonNull MavenProject project,
+            @NonNull Function<MavenProject, Xpp3Dom> projectElementFactory,
+            @NonNull MavenEventReporter reporter) {
+        Build build = project.getBuild();
+        List<Object> key = Arrays.asList(
+                project.getName(),
+                project.getGroupId(),
+                project.getArtifactId(),
+                project.getVersion(),
+                project.getPackaging(),
+                project.getBasedir(),
+                project.getFile(),
+                build == null ? null : build.getDirectory(),
+                build == null ? null : build.getOutputDirectory(),
+                build == null ? null : build.getSourceDirectory());
+        Definition definition = definitions.get(key);
+        if (definition == null) {
+            // printed within computeIfAbsent: the definition precedes the references, even on the other Maven threads
+            definition = definitions.computeIfAbsent(key, k -> {
+                Definition newDefinition = new Definition(
+                        Integer.toString(lastId.incrementAndGet()), projectElementFactory.apply(project));
+                Xpp3Dom definitionElt = new Xpp3Dom(newDefinition.projectElt, "ProjectDefinition");
+                definitionElt.setAttribute("id", newDefinition.id);
+                reporter.print(definitionElt);
+                return newDefinition;
+            });
+        }
+        return definition;
+    }
+
+    static class Definition {
+        final String id;
+
+        /**
+         * Never modified, copied by the handlers
+         */
+        final Xpp3Dom projectElt;
+
+        Definition(String id, Xpp3Dom projectElt) {
+            this.id = id;
+            this.projectElt = projectElt;
+        }
+    }
+}
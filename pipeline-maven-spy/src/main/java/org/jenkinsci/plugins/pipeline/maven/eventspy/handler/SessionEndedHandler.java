@@ -28,6 +28,7 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import org.apache.maven.execution.ExecutionEvent;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.MavenEventReporter;
 
@@ -43,6 +44,14 @@ public class SessionEndedHandler extends AbstractExecutionHandler {
         super(reporter);
     }
 
+    /**
+     * Always registered, otherwise the {@link CatchAllExecutionHandler} would record the event
+     */
+    @Override
+    public boolean subscribe(@NonNull Set<String> subscriptions) {
+        return true;
+    }
+
     @Override
     public boolean _handle(@NonNull ExecutionEvent executionEvent) {
         return true;
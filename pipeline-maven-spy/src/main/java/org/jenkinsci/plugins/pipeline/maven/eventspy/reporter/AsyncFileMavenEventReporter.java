@@ -0,0 +1,250 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.eventspy.reporter;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * {@link FileMavenEventReporter} which doesn't block the Maven threads raising the events, intended for the parallel
+ * builds ({@code mvn -T ...}). The events are handed to a bounded lock-free queue and written to the file by a single
+ * writer thread.
+ * <p>
+ * When the queue is full, the Maven threads wait for the writer thread: the events are never dropped as the Jenkins
+ * Pipeline Maven Plugin needs all of them. {@link #close()} waits for all the queued events to be written before
+ * renaming the file.
+ * <p>
+ * The {@link Xpp3Dom} elements given to {@link #print(Xpp3Dom)} must not be modified afterward.
+ */
+public class AsyncFileMavenEventReporter extends FileMavenEventReporter {
+
+    public static final String QUEUE_CAPACITY_PROPERTY_NAME = AsyncFileMavenEventReporter.class.getName() + ".capacity";
+
+    private static final long WRITER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long FULL_QUEUE_WAIT_MILLIS = 100;
+
+    private final EventQueue queue;
+
+    private final Thread writer;
+
+    private volatile boolean writerWaiting;
+
+    private volatile boolean closing;
+
+    /**
+     * Signaled by the writer thread when it takes an event while Maven threads wait for the queue capacity
+     */
+    private final Object queueNotFull = new Object();
+
+    /**
+     * Guarded by {@link #queueNotFull}, read without lock by the writer thread
+     */
+    private volatile int waitingProducers;
+
+    private final AtomicLong fullQueueCount = new AtomicLong();
+
+    public AsyncFileMavenEventReporter() throws IOException {
+        super();
+        queue = new EventQueue(Integer.getInteger(QUEUE_CAPACITY_PROPERTY_NAME, 4096));
+        writer = new Thread(this::writeEvents, "jenkins-event-spy-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void print(Object message) {
+        enqueue(new Event(System.currentTimeMillis(), String.valueOf(message), null));
+    }
+
+    @Override
+    public void print(Xpp3Dom element) {
+        enqueue(new Event(System.currentTimeMillis(), null, element));
+    }
+
+    private void enqueue(Event event) {
+        if (!queue.offer(event)) {
+            fullQueueCount.incrementAndGet();
+            waitForQueueCapacity(event);
+        }
+        if (writerWaiting) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void waitForQueueCapacity(Event event) {
+        boolean interrupted = false;
+        synchronized (queueNotFull) {
+            waitingProducers++;
+            try {
+                // the event is offered after waitingProducers is incremented, the writer can't miss it
+                while (!queue.offer(event)) {
+                    if (!writer.isAlive()) {
+                        // should never happen, don't wait forever
+                        synchronized (this) {
+                            event.writeTo(this);
+                        }
+                        return;
+                    }
+                    try {
+                        queueNotFull.wait(FULL_QUEUE_WAIT_MILLIS);
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                waitingProducers--;
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Loop of the writer thread
+     */
+    private void writeEvents() {
+        while (true) {
+            Event event = queue.poll();
+            if (event != null) {
+                if (waitingProducers > 0) {
+                    synchronized (queueNotFull) {
+                        queueNotFull.notify();
+                    }
+                }
+                try {
+                    synchronized (this) {
+                        event.writeTo(this);
+                    }
+                } catch (RuntimeException e) {
+                    logger.warn("[jenkins-event-spy] Failure to write event", e);
+                }
+            } else if (closing) {
+                // no more event after close(), the events printed before close() are visible once closing is read
+                if (queue.isEmpty()) {
+                    return;
+                }
+            } else {
+                // the producers unpark the writer after having checked this flag
+                writerWaiting = true;
+                if (queue.isEmpty() && !closing) {
+                    LockSupport.parkNanos(this, WRITER_PARK_NANOS);
+                }
+                writerWaiting = false;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closing = true;
+        LockSupport.unpark(writer);
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        synchronized (this) {
+            if (isOpen && fullQueueCount.get() > 0) {
+                write(
+                        System.currentTimeMillis(),
+                        "Maven threads waited for the writer " + fullQueueCount.get() + " times, queue capacity: "
+                                + queue.capacity());
+            }
+            super.close();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Event {
+        final long timeInMillis;
+        final String message;
+        final Xpp3Dom element;
+
+        Event(long timeInMillis, String message, Xpp3Dom element) {
+            this.timeInMillis = timeInMillis;
+            this.message = message;
+            this.element = element;
+        }
+
+        void writeTo(FileMavenEventReporter reporter) {
+            if (element == null) {
+                reporter.write(timeInMillis, message);
+            } else {
+                reporter.write(timeInMillis, element);
+            }
+        }
+    }
+
+    /**
+     * Bounded lock-free queue: the producers reserve the capacity with an atomic counter then link the event in a
+     * {@link ConcurrentLinkedQueue}, an event is visible to the consumer as soon as it's linked.
+     */
+    private static class EventQueue {
+        private final ConcurrentLinkedQueue<Event> events = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final int capacity;
+
+        EventQueue(int capacity) {
+            this.capacity = Math.max(1, capacity);
+        }
+
+        int capacity() {
+            return capacity;
+        }
+
+        boolean offer(Event event) {
+            if (size.incrementAndGet() > capacity) {
+                size.decrementAndGet();
+                return false;
+            }
+            events.offer(event);
+            return true;
+        }
+
+        Event poll() {
+            Event event = events.poll();
+            if (event != null) {
+                size.decrementAndGet();
+            }
+            return event;
+        }
+
+        boolean isEmpty() {
+            return events.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.eventspy.reporter;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.jenkinsci.plugins.pipeline.maven.eventspy.RuntimeIOException;
+
+/**
+ * {@link FileMavenEventReporter} writing the events in a compact binary encoding rather than in XML, the report is
+ * decoded by {@code org.jenkinsci.plugins.pipeline.maven.util.CompactMavenSpyLogReader} which must be kept in sync.
+ * <p>
+ * Layout of the report, all the integers are unsigned varints unless specified:
+ * <ul>
+ *     <li>Header: the {@link #MAGIC} bytes, the {@link #VERSION} byte and the start time in millis as 8 bytes</li>
+ *     <li>Records: the length of the record followed by the record kind byte ({@link #RECORD_ELEMENT},
+ *     {@link #RECORD_COMMENT} or {@link #RECORD_END}), the zigzag encoded time elapsed since the start in millis and
+ *     the content of the record</li>
+ *     <li>Element: the name, the attributes count followed by the names and values of the attributes, the children
+ *     count shifted left by one with the lowest bit set when a value follows, then the children</li>
+ *     <li>String: the index of the string in the string table plus one when it has already been written, otherwise
+ *     {@code 0} followed by the length of the UTF-8 bytes and the bytes, the string is then appended to the table</li>
+ * </ul>
+ * The comments are written as literal strings, they are never repeated. A report without {@link #RECORD_END} record
+ * or ending with a truncated record has been interrupted.
+ */
+public class CompactFileMavenEventReporter extends FileMavenEventReporter {
+
+    public static final byte[] MAGIC = {'M', 'S', 'P', 'Y'};
+
+    public static final byte VERSION = 1;
+
+    public static final byte RECORD_END = 0;
+
+    public static final byte RECORD_ELEMENT = 1;
+
+    public static final byte RECORD_COMMENT = 2;
+
+    /**
+     * Not initialized in the declaration, see {@link #open(File, long)}
+     */
+    private OutputStream stream;
+
+    /**
+     * Buffer of the record being encoded, reused for all the records
+     */
+    private ByteArrayOutputStream record;
+
+    private Map<String, Integer> stringTable;
+
+    private long startTimeInMillis;
+
+    public CompactFileMavenEventReporter() throws IOException {
+        super();
+    }
+
+    @Override
+    protected void open(File outFile, long timeInMillis) throws IOException {
+        stream = new BufferedOutputStream(new FileOutputStream(outFile), 64 * 1024);
+        record = new ByteArrayOutputStream(1024);
+        stringTable = new HashMap<>();
+        startTimeInMillis = timeInMillis;
+
+        stream.write(MAGIC);
+        stream.write(VERSION);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            stream.write((int) (timeInMillis >>> shift));
+        }
+    }
+
+    @Override
+    protected void write(long timeInMillis, String message) {
+        startRecord(RECORD_COMMENT, timeInMillis);
+        writeLiteral(message);
+        endRecord();
+    }
+
+    @Override
+    protected void write(long timeInMillis, Xpp3Dom element) {
+        startRecord(RECORD_ELEMENT, timeInMillis);
+        writeElement(element);
+        endRecord();
+    }
+
+    @Override
+    protected void end() {
+        startRecord(RECORD_END, System.currentTimeMillis());
+        endRecord();
+        try {
+            stream.close();
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    private void startRecord(byte kind, long timeInMillis) {
+        record.reset();
+        record.write(kind);
+        long elapsed = timeInMillis - startTimeInMillis;
+        writeVarLong((elapsed << 1) ^ (elapsed >> 63));
+    }
+
+    private void endRecord() {
+        try {
+            writeVarInt(stream, record.size());
+            record.writeTo(stream);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    private void writeElement(Xpp3Dom element) {
+        writeString(element.getName());
+        String[] attributeNames = element.getAttributeNames();
+        writeVarInt(record, attributeNames.length);
+        for (String attributeName : attributeNames) {
+            writeString(attributeName);
+            writeString(element.getAttribute(attributeName));
+        }
+        String value = element.getValue();
+        Xpp3Dom[] children = element.getChildren();
+        writeVarInt(record, children.length << 1 | (value == null ? 0 : 1));
+        if (value != null) {
+            writeString(value);
+        }
+        for (Xpp3Dom child : children) {
+            writeElement(child);
+        }
+    }
+
+    private void writeString(String value) {
+        Integer index = stringTable.get(value);
+        if (index == null) {
+            stringTable.put(value, stringTable.size());
+            writeVarInt(record, 0);
+            writeLiteral(value);
+        } else {
+            writeVarInt(record, index + 1);
+        }
+    }
+
+    private void writeLiteral(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(record, bytes.length);
+        record.write(bytes, 0, bytes.length);
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            record.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        record.write((int) value);
+    }
+
+    private static void writeVarInt(OutputStream out, int value) {
+        try {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+}
@@ -83,10 +83,7 @@ public class FileMavenEventReporter implements MavenEventReporter {
         String now = new SimpleDateFormat("yyyyMMdd-HHmmss-S").format(new Date());
         outFile = File.createTempFile("maven-spy-" + now, ".log.tmp", reportsFolder);
 
-        out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(outFile), "UTF-8"));
-        xmlWriter = new PrettyPrintXMLWriter(out);
-        xmlWriter.startElement("mavenExecution");
-        xmlWriter.addAttribute("_time", new Timestamp(System.currentTimeMillis()).toString());
+        open(outFile, System.currentTimeMillis());
 
         try {
             logger.info("[jenkins-event-spy] Generate " + outFile.getCanonicalPath() + " ...");
@@ -96,24 +93,56 @@ public class FileMavenEventReporter implements MavenEventReporter {
         isOpen = true;
     }
 
+    /**
+     * Open the writer and write the beginning of the report, called by the constructor: the fields of the subclasses
+     * are not initialized yet.
+     */
+    protected void open(File outFile, long timeInMillis) throws IOException {
+        out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(outFile), "UTF-8"));
+        xmlWriter = new PrettyPrintXMLWriter(out);
+        xmlWriter.startElement("mavenExecution");
+        xmlWriter.addAttribute("_time", new Timestamp(timeInMillis).toString());
+    }
+
     @Override
     public synchronized void print(Object message) {
-        XmlWriterUtil.writeComment(xmlWriter, new Timestamp(System.currentTimeMillis()) + " - " + message);
-        XmlWriterUtil.writeLineBreak(xmlWriter);
+        write(System.currentTimeMillis(), String.valueOf(message));
     }
 
     @Override
     public synchronized void print(Xpp3Dom element) {
-        element.setAttribute("_time", new Timestamp(System.currentTimeMillis()).toString());
+        write(System.currentTimeMillis(), element);
+    }
+
+    /**
+     * Write the message raised at the given time, the caller guarantees the exclusive access to the writer
+     */
+    protected void write(long timeInMillis, String message) {
+        XmlWriterUtil.writeComment(xmlWriter, new Timestamp(timeInMillis) + " - " + message);
+        XmlWriterUtil.writeLineBreak(xmlWriter);
+    }
+
+    /**
+     * Write the element raised at the given time, the caller guarantees the exclusive access to the writer
+     */
+    protected void write(long timeInMillis, Xpp3Dom element) {
+        element.setAttribute("_time", new Timestamp(timeInMillis).toString());
         Xpp3DomWriter.write(xmlWriter, element);
         XmlWriterUtil.writeLineBreak(xmlWriter);
     }
 
+    /**
+     * Write the end of the report and close the writer
+     */
+    protected void end() {
+        xmlWriter.endElement();
+        out.close();
+    }
+
     @Override
     public synchronized void close() {
         if (isOpen) {
-            xmlWriter.endElement();
-            out.close();
+            end();
 
             isOpen = false;
 
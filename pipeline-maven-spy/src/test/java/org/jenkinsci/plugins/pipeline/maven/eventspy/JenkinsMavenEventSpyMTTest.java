@@ -44,6 +44,7 @@ import org.apache.maven.model.Model;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.FileUtils;
+import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.AsyncFileMavenEventReporter;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.FileMavenEventReporter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -58,8 +59,10 @@ public class JenkinsMavenEventSpyMTTest {
     }
 
     private JenkinsMavenEventSpy createSpy() throws Exception {
-        FileMavenEventReporter reporter = new FileMavenEventReporter();
+        return createSpy(new FileMavenEventReporter());
+    }
 
+    private JenkinsMavenEventSpy createSpy(FileMavenEventReporter reporter) throws Exception {
         JenkinsMavenEventSpy spy = new JenkinsMavenEventSpy(reporter) {
             @Override
             protected boolean isEventSpyDisabled() {
@@ -165,14 +168,33 @@ public class JenkinsMavenEventSpyMTTest {
 
     @Test // Issue JENKINS-46579
     public void testMavenExecutionMTRequestsSingleSpyReporter() throws Exception {
+        String actual = testMavenExecutionMTRequestsSingleSpy(createSpy());
+        assertThat(actual).contains("MavenExecutionRequest");
+    }
+
+    @Test
+    public void testMavenExecutionMTRequestsSingleSpyAsyncReporter() throws Exception {
+        // small queue to make the Maven threads wait for the writer
+        System.setProperty(AsyncFileMavenEventReporter.QUEUE_CAPACITY_PROPERTY_NAME, "64");
+        JenkinsMavenEventSpy spy;
+        try {
+            spy = createSpy(new AsyncFileMavenEventReporter());
+        } finally {
+            System.clearProperty(AsyncFileMavenEventReporter.QUEUE_CAPACITY_PROPERTY_NAME);
+        }
+        String actual = testMavenExecutionMTRequestsSingleSpy(spy);
+        // no event is lost
+        assertThat(actual.split("<MavenExecutionRequest ", -1)).hasSize(100 * 100 + 1);
+        assertThat(actual).contains("Maven threads waited for the writer");
+    }
+
+    private String testMavenExecutionMTRequestsSingleSpy(final JenkinsMavenEventSpy spy) throws Exception {
         int numThreads = 100;
         final CyclicBarrier barrier =
                 new CyclicBarrier(numThreads + 1); // we need to also stop the test thread (current)
         final AtomicInteger counter = new AtomicInteger(0);
         final ExceptionHolder exceptionHolder = new ExceptionHolder();
 
-        final JenkinsMavenEventSpy spy = createSpy();
-
         // Test some concurrency around persisted state. Launch 100 threads from which
         // 1/3 will try to change the
         // persisted state, the rest will read it a couple of times.
@@ -228,9 +250,9 @@ public class JenkinsMavenEventSpyMTTest {
         spy.close();
         File outFile = ((FileMavenEventReporter) spy.getReporter()).getFinalFile();
         System.out.println("Generated file: " + outFile);
-        String actual = FileUtils.fileRead(outFile);
-        assertThat(actual).contains("MavenExecutionRequest");
+        assertThat(outFile.getName()).endsWith(".log");
         validateXMLDocument(outFile);
+        return FileUtils.fileRead(outFile);
     }
 
     DocumentBuilder documentBuilder;
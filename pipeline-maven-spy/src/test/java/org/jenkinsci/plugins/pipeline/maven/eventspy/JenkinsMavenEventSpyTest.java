@@ -29,17 +29,21 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.io.File;
 import java.io.InputStream;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.apache.maven.eventspy.EventSpy;
 import org.apache.maven.execution.DefaultMavenExecutionRequest;
 import org.apache.maven.execution.ExecutionEvent;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.MavenEventReporter;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.OutputStreamEventReporter;
 import org.junit.jupiter.api.AfterEach;
@@ -140,4 +144,148 @@ public class JenkinsMavenEventSpyTest {
         assertThat(actual).contains("ProjectStarted");
         assertThat(actual).contains("petclinic");
     }
+
+    @Test
+    public void testExecutionEventsOfTheSameClassDispatchedByType() throws Exception {
+        Plugin plugin = new Plugin();
+        plugin.setGroupId("org.apache.maven.plugins");
+        plugin.setArtifactId("maven-compiler-plugin");
+        plugin.setVersion("3.13.0");
+        MojoExecution mojoExecution = new MojoExecution(plugin, "compile", "default-compile");
+        mojoExecution.setConfiguration(new Xpp3Dom("configuration"));
+
+        spy.onEvent("unhandled event");
+        spy.onEvent(new TestExecutionEvent(ExecutionEvent.Type.ProjectStarted, null));
+        spy.onEvent(new TestExecutionEvent(ExecutionEvent.Type.MojoStarted, mojoExecution));
+        spy.onEvent(new TestExecutionEvent(ExecutionEvent.Type.MojoSucceeded, mojoExecution));
+
+        String actual = writer.toString();
+        System.out.println(actual);
+        assertThat(actual).contains("type=\"ProjectStarted\"");
+        assertThat(actual).contains("type=\"MojoStarted\"");
+        assertThat(actual).contains("type=\"MojoSucceeded\"");
+        assertThat(actual).contains("maven-compiler-plugin");
+        assertThat(actual).doesNotContain("unhandled event");
+    }
+
+    @Test
+    public void testHandlersReplacedAfterDispatch() throws Exception {
+        spy.onEvent("unhandled event");
+
+        List<Object> handledEvents = new ArrayList<>();
+        spy.setHandlers(event -> handledEvents.add(event));
+        spy.onEvent("unhandled event");
+
+        assertThat(handledEvents).containsExactly("unhandled event");
+    }
+
+    @Test
+    public void testProjectDefinedOnce() throws Exception {
+        Plugin plugin = new Plugin();
+        plugin.setGroupId("org.apache.maven.plugins");
+        plugin.setArtifactId("maven-compiler-plugin");
+        plugin.setVersion("3.13.0");
+        MojoExecution mojoExecution = new MojoExecution(plugin, "compile", "default-compile");
+        mojoExecution.setConfiguration(new Xpp3Dom("configuration"));
+
+        spy.onEvent(new TestExecutionEvent(ExecutionEvent.Type.ProjectStarted, null));
+        spy.onEvent(new TestExecutionEvent(ExecutionEvent.Type.MojoStarted, mojoExecution));
+        spy.onEvent(new TestExecutionEvent(ExecutionEvent.Type.MojoSucceeded, mojoExecution));
+
+        String actual = writer.toString();
+        System.out.println(actual);
+        assertThat(actual.split("<ProjectDefinition ", -1)).hasSize(2);
+        assertThat(actual.split("artifactId=\"spring-petclinic\"", -1)).hasSize(2);
+        assertThat(actual.split("<project ref=\"1\"/>", -1)).hasSize(4);
+
+        // the project definition follows the state of the project
+        project.setFile(new File("path/to/.flattened-pom.xml"));
+        spy.onEvent(new TestExecutionEvent(ExecutionEvent.Type.ProjectSucceeded, null));
+        actual = writer.toString();
+        assertThat(actual.split("<ProjectDefinition ", -1)).hasSize(3);
+        assertThat(actual).contains("<project ref=\"2\"/>");
+    }
+
+    @Test
+    public void testSubscriptions() throws Exception {
+        Plugin compilerPlugin = new Plugin();
+        compilerPlugin.setGroupId("org.apache.maven.plugins");
+        compilerPlugin.setArtifactId("maven-compiler-plugin");
+        compilerPlugin.setVersion("3.13.0");
+        MojoExecution compile = new MojoExecution(compilerPlugin, "compile", "default-compile");
+        compile.setConfiguration(new Xpp3Dom("configuration"));
+        Plugin surefirePlugin = new Plugin();
+        surefirePlugin.setGroupId("org.apache.maven.plugins");
+        surefirePlugin.setArtifactId("maven-surefire-plugin");
+        surefirePlugin.setVersion("3.2.5");
+        MojoExecution test = new MojoExecution(surefirePlugin, "test", "default-test");
+        test.setConfiguration(new Xpp3Dom("configuration"));
+
+        System.setProperty(
+                JenkinsMavenEventSpy.SUBSCRIPTIONS_PROPERTY_NAME,
+                "ProjectSucceeded, org.apache.maven.plugins:maven-surefire-plugin:test");
+        try {
+            spy = new JenkinsMavenEventSpy(reporter) {
+                @Override
+                protected boolean isEventSpyDisabled() {
+                    return false;
+                }
+            };
+            spy.init(HashMap::new);
+        } finally {
+            System.clearProperty(JenkinsMavenEventSpy.SUBSCRIPTIONS_PROPERTY_NAME);
+        }
+        writer.getBuffer().setLength(0);
+
+        spy.onEvent(new TestExecutionEvent(ExecutionEvent.Type.ProjectStarted, null));
+        spy.onEvent(new TestExecutionEvent(ExecutionEvent.Type.MojoStarted, compile));
+        spy.onEvent(new TestExecutionEvent(ExecutionEvent.Type.MojoSucceeded, compile));
+        spy.onEvent(new TestExecutionEvent(ExecutionEvent.Type.MojoStarted, test));
+        spy.onEvent(new TestExecutionEvent(ExecutionEvent.Type.MojoFailed, test));
+        spy.onEvent(new TestExecutionEvent(ExecutionEvent.Type.ProjectSucceeded, null));
+
+        String actual = writer.toString();
+        System.out.println(actual);
+        assertThat(actual).doesNotContain("type=\"ProjectStarted\"");
+        assertThat(actual).doesNotContain("maven-compiler-plugin");
+        assertThat(actual).contains("type=\"MojoStarted\"");
+        assertThat(actual).contains("type=\"MojoFailed\"");
+        assertThat(actual).contains("maven-surefire-plugin");
+        assertThat(actual).contains("type=\"ProjectSucceeded\"");
+    }
+
+    private class TestExecutionEvent implements ExecutionEvent {
+        private final Type type;
+        private final MojoExecution mojoExecution;
+
+        TestExecutionEvent(Type type, MojoExecution mojoExecution) {
+            this.type = type;
+            this.mojoExecution = mojoExecution;
+        }
+
+        @Override
+        public Type getType() {
+            return type;
+        }
+
+        @Override
+        public MavenSession getSession() {
+            return null;
+        }
+
+        @Override
+        public MavenProject getProject() {
+            return project;
+        }
+
+        @Override
+        public MojoExecution getMojoExecution() {
+            return mojoExecution;
+        }
+
+        @Override
+        public Exception getException() {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,47 @@
+package org.jenkinsci.plugins.pipeline.maven.eventspy.reporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CompactFileMavenEventReporterTest {
+
+    @BeforeEach
+    public void before() throws Exception {
+        System.setProperty("org.jenkinsci.plugins.pipeline.maven.reportsFolder", "target");
+    }
+
+    @Test
+    public void testStringsWrittenOnce() throws Exception {
+        CompactFileMavenEventReporter reporter = new CompactFileMavenEventReporter();
+        for (int i = 0; i < 3; i++) {
+            Xpp3Dom element = new Xpp3Dom("ExecutionEvent");
+            element.setAttribute("type", "ProjectSucceeded");
+            Xpp3Dom project = new Xpp3Dom("project");
+            project.setAttribute("artifactId", "spring-petclinic");
+            project.setValue("Spring PetClinic");
+            element.addChild(project);
+            reporter.print(element);
+        }
+        reporter.print("Maven build completed");
+        reporter.close();
+
+        File outFile = reporter.getFinalFile();
+        assertThat(outFile.getName()).endsWith(".log");
+        byte[] actual = Files.readAllBytes(outFile.toPath());
+        assertThat(Arrays.copyOf(actual, CompactFileMavenEventReporter.MAGIC.length))
+                .isEqualTo(CompactFileMavenEventReporter.MAGIC);
+        assertThat(actual[CompactFileMavenEventReporter.MAGIC.length]).isEqualTo(CompactFileMavenEventReporter.VERSION);
+
+        String content = new String(actual, StandardCharsets.ISO_8859_1);
+        assertThat(content.split("spring-petclinic", -1)).hasSize(2);
+        assertThat(content.split("Spring PetClinic", -1)).hasSize(2);
+        assertThat(content).contains("Maven build completed");
+    }
+}
@@ -55,6 +55,9 @@ import net.sf.json.JSONObject;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.pipeline.maven.dao.PipelineMavenPluginDao;
 import org.jenkinsci.plugins.pipeline.maven.dao.PipelineMavenPluginNullDao;
+import org.jenkinsci.plugins.pipeline.maven.listeners.DownstreamPipelineTriggerPlanner;
+import org.jenkinsci.plugins.pipeline.maven.listeners.DownstreamPipelineTriggerRunListener;
+import org.jenkinsci.plugins.pipeline.maven.listeners.DownstreamPipelineTriggerThrottle;
 import org.jenkinsci.plugins.pipeline.maven.service.PipelineTriggerService;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
@@ -83,6 +86,18 @@ public class GlobalPipelineMavenConfig extends GlobalConfiguration {
     private boolean triggerDownstreamUponResultNotBuilt;
     private boolean triggerDownstreamUponResultAborted;
 
+    /**
+     * Trigger the downstream pipelines of an upstream build wave by wave, each one once the builds of all its upstream
+     * pipelines have completed
+     */
+    private boolean triggerDownstreamInTopologicalWaves;
+
+    /**
+     * Number of most recent builds of each job whose dependencies and generated artifacts are kept in the database,
+     * {@code 0} to keep the history of all the builds
+     */
+    private int buildRetentionCount;
+
     private String jdbcUrl;
     private String jdbcCredentialsId;
     private String properties;
@@ -185,6 +200,24 @@ public class GlobalPipelineMavenConfig extends GlobalConfiguration {
         this.triggerDownstreamUponResultAborted = triggerDownstreamUponResultAborted;
     }
 
+    public boolean isTriggerDownstreamInTopologicalWaves() {
+        return triggerDownstreamInTopologicalWaves;
+    }
+
+    @DataBoundSetter
+    public void setTriggerDownstreamInTopologicalWaves(boolean triggerDownstreamInTopologicalWaves) {
+        this.triggerDownstreamInTopologicalWaves = triggerDownstreamInTopologicalWaves;
+    }
+
+    public int getBuildRetentionCount() {
+        return buildRetentionCount;
+    }
+
+    @DataBoundSetter
+    public void setBuildRetentionCount(int buildRetentionCount) {
+        this.buildRetentionCount = Math.max(0, buildRetentionCount);
+    }
+
     public synchronized String getJdbcUrl() {
         return jdbcUrl;
     }
@@ -240,6 +273,22 @@ public class GlobalPipelineMavenConfig extends GlobalConfiguration {
         return dao != null ? dao.toPrettyString() : "Dao Not Ready yet";
     }
 
+    @CheckForNull
+    public String getTriggerPlannerPrettyString() {
+        DownstreamPipelineTriggerPlanner planner = ExtensionList.lookupSingleton(
+                        DownstreamPipelineTriggerRunListener.class)
+                .getPlanner();
+        return planner != null ? planner.toPrettyString() : null;
+    }
+
+    @CheckForNull
+    public String getTriggerThrottlePrettyString() {
+        DownstreamPipelineTriggerThrottle throttle = ExtensionList.lookupSingleton(
+                        DownstreamPipelineTriggerRunListener.class)
+                .getThrottle();
+        return throttle != null ? throttle.toPrettyString() : null;
+    }
+
     @NonNull
     public synchronized PipelineMavenPluginDao getDao() {
         if (dao != null) {
@@ -7,6 +7,7 @@ import hudson.model.AbstractDescribableImpl;
 import hudson.model.Descriptor;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Set;
 import java.util.logging.Logger;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.kohsuke.stapler.DataBoundSetter;
@@ -75,6 +76,26 @@ public abstract class MavenPublisher extends AbstractDescribableImpl<MavenPublis
         @Nullable
         public abstract String getSkipFileName();
 
+        /**
+         * Events of the Maven build consumed by this publisher, only the events subscribed to by the enabled publishers
+         * are recorded by the Maven spy. The subscriptions are:
+         * <ul>
+         *     <li>{@code ProjectStarted}, {@code ProjectSucceeded} and {@code ProjectFailed} execution events</li>
+         *     <li>{@code DependencyResolutionRequest} and {@code DependencyResolutionResult}</li>
+         *     <li>{@code ArtifactDeployed}</li>
+         *     <li>{@code groupId:artifactId:goal} for the executions of a plugin goal
+         *     ({@code MojoStarted}, {@code MojoSucceeded} and {@code MojoFailed} execution events)</li>
+         *     <li>{@code *} for the executions of all the plugin goals</li>
+         * </ul>
+         * The Maven settings and the Maven execution request and result are always recorded.
+         *
+         * @return the subscriptions, {@code null} to subscribe to all the events
+         */
+        @Nullable
+        public Set<String> getMavenSpyEventSubscriptions() {
+            return null;
+        }
+
         @Override
         public int compareTo(DescriptorImpl o) {
             int compare = Integer.compare(this.ordinal(), o.ordinal());
@@ -28,6 +28,7 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.FilePath;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
@@ -47,6 +48,7 @@ import javax.xml.parsers.ParserConfigurationException;
 import jenkins.model.InterruptedBuildAction;
 import org.jenkinsci.plugins.pipeline.maven.publishers.JenkinsMavenEventSpyLogsPublisher;
 import org.jenkinsci.plugins.pipeline.maven.publishers.MavenPipelinePublisherException;
+import org.jenkinsci.plugins.pipeline.maven.util.CompactMavenSpyLogReader;
 import org.jenkinsci.plugins.pipeline.maven.util.XmlUtils;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.w3c.dom.Element;
@@ -127,6 +129,7 @@ public class MavenSpyLogProcessor implements Serializable {
                 if (mavenSpyLogsInputStream == null) {
                     throw new IllegalStateException("InputStream for " + mavenSpyLogs.getRemote() + " is null");
                 }
+                mavenSpyLogsInputStream = new BufferedInputStream(mavenSpyLogsInputStream);
 
                 FilePath archiveJenkinsMavenEventSpyLogs = workspace.child(".archive-jenkins-maven-event-spy-logs");
                 if (archiveJenkinsMavenEventSpyLogs.exists()) {
@@ -134,8 +137,13 @@ public class MavenSpyLogProcessor implements Serializable {
                     new JenkinsMavenEventSpyLogsPublisher().process(context, mavenSpyLogs);
                 }
 
-                Element mavenSpyLogsElt =
-                        documentBuilder.parse(mavenSpyLogsInputStream).getDocumentElement();
+                Element mavenSpyLogsElt;
+                try (InputStream in = mavenSpyLogsInputStream) {
+                    // see WithMavenStep#setCompactSpyLog(Boolean)
+                    mavenSpyLogsElt = CompactMavenSpyLogReader.isCompactMavenSpyLog(in)
+                            ? CompactMavenSpyLogReader.read(in, documentBuilder)
+                            : documentBuilder.parse(in).getDocumentElement();
+                }
 
                 if (LOGGER.isLoggable(Level.FINE)) {
                     listener.getLogger()
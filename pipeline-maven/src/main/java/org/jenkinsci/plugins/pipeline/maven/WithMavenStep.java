@@ -76,6 +76,7 @@ public class WithMavenStep extends Step {
     private List<MavenPublisher> options = new ArrayList<>();
     private MavenPublisherStrategy publisherStrategy = MavenPublisherStrategy.IMPLICIT;
     private Boolean traceability = null;
+    private Boolean compactSpyLog = null;
 
     @DataBoundConstructor
     public WithMavenStep() {}
@@ -186,6 +187,22 @@ public class WithMavenStep extends Step {
         this.traceability = traceability;
     }
 
+    public Boolean isCompactSpyLog() {
+        return compactSpyLog;
+    }
+
+    public Boolean getCompactSpyLog() {
+        return isCompactSpyLog();
+    }
+
+    /**
+     * @param compactSpyLog write the Maven spy logs in a compact binary encoding rather than in XML
+     */
+    @DataBoundSetter
+    public void setCompactSpyLog(final Boolean compactSpyLog) {
+        this.compactSpyLog = compactSpyLog;
+    }
+
     public List<MavenPublisher> getOptions() {
         return options;
     }
@@ -69,6 +69,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.logging.Level;
@@ -383,6 +385,18 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
         }
         javaToolsOptions += "-Dmaven.ext.class.path=\"" + mavenSpyJarPath.getRemote() + "\" "
                 + "-Dorg.jenkinsci.plugins.pipeline.maven.reportsFolder=\"" + this.tempBinDir.getRemote() + "\" ";
+        if (Boolean.TRUE.equals(step.isCompactSpyLog())) {
+            // see JenkinsMavenEventSpy#COMPACT_REPORTER_PROPERTY_NAME
+            javaToolsOptions +=
+                    "-Dorg.jenkinsci.plugins.pipeline.maven.eventspy.JenkinsMavenEventSpy.compactReporter=true ";
+        }
+        String mavenSpyEventSubscriptions = computeMavenSpyEventSubscriptions();
+        if (mavenSpyEventSubscriptions != null) {
+            console.trace("[withMaven] Maven spy event subscriptions: " + mavenSpyEventSubscriptions);
+            // see JenkinsMavenEventSpy#SUBSCRIPTIONS_PROPERTY_NAME
+            javaToolsOptions += "-Dorg.jenkinsci.plugins.pipeline.maven.eventspy.JenkinsMavenEventSpy.subscriptions=\""
+                    + mavenSpyEventSubscriptions + "\" ";
+        }
         envOverride.put("JAVA_TOOL_OPTIONS", javaToolsOptions);
 
         // MAVEN SCRIPT WRAPPER
@@ -455,6 +469,33 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
         }
     }
 
+    /**
+     * Union of the events consumed by the enabled publishers, see
+     * {@link MavenPublisher.DescriptorImpl#getMavenSpyEventSubscriptions()}
+     *
+     * @return comma separated subscriptions, {@code null} if the Maven spy must record all the events
+     */
+    @Nullable
+    private String computeMavenSpyEventSubscriptions() throws IOException, InterruptedException {
+        if (ws.child(".archive-jenkins-maven-event-spy-logs").exists()) {
+            // the archived Maven spy logs are complete
+            return null;
+        }
+        Set<String> subscriptions = new TreeSet<>();
+        for (MavenPublisher publisher :
+                step.getPublisherStrategy().buildPublishersList(step.getOptions(), TaskListener.NULL)) {
+            if (Boolean.TRUE.equals(publisher.isDisabled())) {
+                continue;
+            }
+            Set<String> publisherSubscriptions = publisher.getDescriptor().getMavenSpyEventSubscriptions();
+            if (publisherSubscriptions == null) {
+                return null;
+            }
+            subscriptions.addAll(publisherSubscriptions);
+        }
+        return String.join(",", subscriptions);
+    }
+
     private FilePath setupMavenSpy() throws IOException, InterruptedException {
         if (tempBinDir == null) {
             throw new IllegalStateException("tempBinDir not defined");
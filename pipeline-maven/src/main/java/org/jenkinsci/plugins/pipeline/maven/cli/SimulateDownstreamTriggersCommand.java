@@ -0,0 +1,45 @@
+package org.jenkinsci.plugins.pipeline.maven.cli;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.cli.CLICommand;
+import hudson.model.Job;
+import hudson.model.Run;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.pipeline.maven.listeners.DownstreamPipelineTriggerRunListener;
+import org.kohsuke.args4j.Argument;
+
+/**
+ * Evaluate the downstream pipelines of a build without triggering them.
+ */
+@Extension
+public class SimulateDownstreamTriggersCommand extends CLICommand {
+    @Argument(index = 0, metaVar = "JOB", usage = "Full name of the upstream job", required = true)
+    public String jobFullName;
+
+    @Argument(index = 1, metaVar = "BUILD", usage = "Number of the upstream build", required = true)
+    public int buildNumber;
+
+    @Override
+    public String getShortDescription() {
+        return "Simulates the triggering of the downstream pipelines of the given build, with the skip reasons and the "
+                + "timings of the evaluation, without triggering them";
+    }
+
+    @Override
+    protected int run() throws Exception {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        Job<?, ?> job = Jenkins.get().getItemByFullName(jobFullName, Job.class);
+        if (job == null) {
+            throw new IllegalArgumentException("No such job: " + jobFullName);
+        }
+        Run<?, ?> build = job.getBuildByNumber(buildNumber);
+        if (build == null) {
+            throw new IllegalArgumentException("No such build: " + jobFullName + "#" + buildNumber);
+        }
+        stdout.println(ExtensionList.lookupSingleton(DownstreamPipelineTriggerRunListener.class)
+                .simulate(build)
+                .toPrettyString());
+        return 0;
+    }
+}
@@ -2,9 +2,15 @@ package org.jenkinsci.plugins.pipeline.maven.cli;
 
 import hudson.Extension;
 import hudson.cli.CLICommand;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import jenkins.model.Jenkins;
 import org.jenkinsci.plugins.pipeline.maven.GlobalPipelineMavenConfig;
+import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
 import org.jenkinsci.plugins.pipeline.maven.cause.MavenDependencyCliCause;
 import org.jenkinsci.plugins.pipeline.maven.service.PipelineTriggerService;
 import org.jenkinsci.plugins.pipeline.maven.service.ServiceLoggerImpl;
@@ -15,18 +21,17 @@ import org.kohsuke.args4j.Option;
  */
 @Extension
 public class TriggerDownstreamPipelinesCommand extends CLICommand {
-    @Option(name = "--groupId", aliases = "-g", usage = "Group ID", required = true)
+    @Option(name = "--groupId", aliases = "-g", usage = "Group ID")
     public String groupId;
 
-    @Option(name = "--artifactId", aliases = "-a", usage = "Artifact ID", required = true)
+    @Option(name = "--artifactId", aliases = "-a", usage = "Artifact ID")
     public String artifactId;
 
     @Option(
             name = "--version",
             aliases = "-v",
             usage =
-                    "Artifact version (e.g. '1.0-SNAPSHOT' is just built locally or '1.0-20100529-1213' when a SNAPSHOT artifact is deployed to a Maven repository or '1.0' for a released version",
-            required = true)
+                    "Artifact version (e.g. '1.0-SNAPSHOT' is just built locally or '1.0-20100529-1213' when a SNAPSHOT artifact is deployed to a Maven repository or '1.0' for a released version")
     public String version;
 
     @Option(
@@ -36,9 +41,16 @@ public class TriggerDownstreamPipelinesCommand extends CLICommand {
                     "Artifact base version (e.g. '1.0-SNAPSHOT'). The base version is different from the '--version' that provides the timestamped version number when uploading snapshots to Maven repository")
     public String baseVersion;
 
-    @Option(name = "--type", aliases = "-t", usage = "Artifact type", required = true)
+    @Option(name = "--type", aliases = "-t", usage = "Artifact type")
     public String type;
 
+    @Option(
+            name = "--batch",
+            usage =
+                    "Read the artifacts from the standard input, one 'groupId:artifactId:version[:type]' per line, instead of the other options. The downstream pipelines of all the artifacts are triggered once",
+            forbids = {"--groupId", "--artifactId", "--version", "--base-version", "--type"})
+    public boolean batch;
+
     @Override
     public String getShortDescription() {
         return "Triggers the downstream pipelines of the given Maven artifact based on their Maven dependencies";
@@ -51,15 +63,56 @@ public class TriggerDownstreamPipelinesCommand extends CLICommand {
 
         MavenDependencyCliCause cause =
                 new MavenDependencyCliCause(Jenkins.getAuthentication().getName());
-        Collection<String> triggeredPipelines = pipelineTriggerService.triggerDownstreamPipelines(
-                groupId,
-                artifactId,
-                baseVersion,
-                version,
-                type,
-                cause,
-                new ServiceLoggerImpl(this.stdout, this.stderr, null));
+        Collection<String> triggeredPipelines;
+        if (batch) {
+            triggeredPipelines = pipelineTriggerService.triggerDownstreamPipelines(
+                    readMavenArtifacts(), cause, new ServiceLoggerImpl(this.stdout, this.stderr, null));
+        } else {
+            if (groupId == null || artifactId == null || version == null || type == null) {
+                throw new IllegalArgumentException(
+                        "Options --groupId, --artifactId, --version and --type are required without --batch");
+            }
+            triggeredPipelines = pipelineTriggerService.triggerDownstreamPipelines(
+                    groupId,
+                    artifactId,
+                    baseVersion,
+                    version,
+                    type,
+                    cause,
+                    new ServiceLoggerImpl(this.stdout, this.stderr, null));
+        }
         stdout.println(triggeredPipelines);
         return 0;
     }
+
+    /**
+     * Read the {@code groupId:artifactId:version[:type]} lines of the standard input, the type defaults to
+     * {@code jar}. The empty lines and the lines starting with {@code #} are ignored.
+     */
+    private List<MavenArtifact> readMavenArtifacts() throws IOException, InterruptedException {
+        List<MavenArtifact> mavenArtifacts = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(stdin, getClientCharset()));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] coordinates = line.split(":");
+            if (coordinates.length < 3 || coordinates.length > 4) {
+                throw new IllegalArgumentException(
+                        "Invalid artifact '" + line + "', expected 'groupId:artifactId:version[:type]'");
+            }
+            MavenArtifact mavenArtifact = new MavenArtifact();
+            mavenArtifact.setGroupId(coordinates[0]);
+            mavenArtifact.setArtifactId(coordinates[1]);
+            mavenArtifact.setVersion(coordinates[2]);
+            mavenArtifact.setType(coordinates.length == 4 ? coordinates[3] : "jar");
+            mavenArtifacts.add(mavenArtifact);
+        }
+        if (mavenArtifacts.isEmpty()) {
+            throw new IllegalArgumentException("No artifact read from the standard input");
+        }
+        return mavenArtifacts;
+    }
 }
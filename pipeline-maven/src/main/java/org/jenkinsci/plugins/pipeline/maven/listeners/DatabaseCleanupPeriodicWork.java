@@ -0,0 +1,54 @@
+package org.jenkinsci.plugins.pipeline.maven.listeners;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.TaskListener;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jenkinsci.plugins.pipeline.maven.GlobalPipelineMavenConfig;
+import org.jenkinsci.plugins.pipeline.maven.dao.PipelineMavenPluginDao;
+
+/**
+ * Periodically compacts the build history according to {@link GlobalPipelineMavenConfig#getBuildRetentionCount()} and
+ * deletes the orphan artifacts of the database, a few pages at a time, resuming where the previous run stopped.
+ */
+@Extension
+public class DatabaseCleanupPeriodicWork extends AsyncPeriodicWork {
+
+    private static final Logger LOGGER = Logger.getLogger(DatabaseCleanupPeriodicWork.class.getName());
+
+    private static final long RECURRENCE_PERIOD_IN_MILLIS = TimeUnit.MINUTES.toMillis(Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.ARTIFACT_GC_RECURRENCE_PERIOD_IN_MINUTES", 10));
+
+    /**
+     * Time budget of each task of a run, {@code 0} disables the database cleanup
+     */
+    private static final long MAX_DURATION_IN_MILLIS = TimeUnit.SECONDS.toMillis(Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.ARTIFACT_GC_MAX_DURATION_IN_SECONDS", 60));
+
+    public DatabaseCleanupPeriodicWork() {
+        super("Pipeline Maven Plugin database cleanup");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return RECURRENCE_PERIOD_IN_MILLIS;
+    }
+
+    @Override
+    protected void execute(TaskListener listener) {
+        if (MAX_DURATION_IN_MILLIS <= 0) {
+            return;
+        }
+        GlobalPipelineMavenConfig globalPipelineMavenConfig = GlobalPipelineMavenConfig.get();
+        if (globalPipelineMavenConfig == null) {
+            return;
+        }
+        long startTimeInMillis = System.currentTimeMillis();
+        PipelineMavenPluginDao dao = globalPipelineMavenConfig.getDao();
+        dao.compactBuildHistory(globalPipelineMavenConfig.getBuildRetentionCount(), MAX_DURATION_IN_MILLIS);
+        dao.cleanup(MAX_DURATION_IN_MILLIS);
+        LOGGER.log(Level.FINE, "Database cleanup done in {0} ms", System.currentTimeMillis() - startTimeInMillis);
+    }
+}
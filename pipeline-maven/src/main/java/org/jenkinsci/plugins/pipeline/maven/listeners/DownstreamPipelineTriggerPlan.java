@@ -0,0 +1,235 @@
+package org.jenkinsci.plugins.pipeline.maven.listeners;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.console.ModelHyperlinkNote;
+import hudson.model.CauseAction;
+import hudson.model.Job;
+import hudson.model.Queue;
+import hudson.model.Queue.Task;
+import hudson.model.TaskListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import jenkins.model.Jenkins;
+import jenkins.model.ParameterizedJobMixIn;
+import org.jenkinsci.plugins.pipeline.maven.cause.MavenDependencyUpstreamCause;
+import org.jenkinsci.plugins.pipeline.maven.dao.PipelineMavenPluginDao;
+import org.jenkinsci.plugins.pipeline.maven.service.QueueSnapshot;
+
+/**
+ * Downstream pipelines to trigger for one or several upstream builds. Each downstream pipeline is scheduled once, with
+ * the causes of all the upstream builds triggering it.
+ */
+class DownstreamPipelineTriggerPlan {
+
+    @CheckForNull
+    private final DownstreamPipelineTriggerThrottle throttle;
+
+    @CheckForNull
+    private final DownstreamPipelineTriggerSimulation simulation;
+
+    private final Map<String, Job<?, ?>> downstreamJobs = new LinkedHashMap<>();
+    private final Map<String, List<MavenDependencyUpstreamCause>> causesByDownstreamJob = new LinkedHashMap<>();
+    /**
+     * Listeners of the upstream builds triggering each downstream pipeline, the triggering is reported in their console
+     */
+    private final Map<String, Set<TaskListener>> listenersByDownstreamJob = new LinkedHashMap<>();
+    private TaskListener upstreamBuildListener;
+    private Set<String> plannedForPreviousUpstreamBuilds = Collections.emptySet();
+    private int upstreamBuildCount;
+    private QueueSnapshot queueSnapshot;
+
+    DownstreamPipelineTriggerPlan() {
+        this(null);
+    }
+
+    /**
+     * @param throttle limits the triggering of the downstream pipelines, {@code null} to trigger them immediately
+     */
+    DownstreamPipelineTriggerPlan(@CheckForNull DownstreamPipelineTriggerThrottle throttle) {
+        this(throttle, null);
+    }
+
+    /**
+     * @param simulation records the evaluation, nothing is triggered nor saved if not {@code null}
+     */
+    DownstreamPipelineTriggerPlan(
+            @CheckForNull DownstreamPipelineTriggerThrottle throttle,
+            @CheckForNull DownstreamPipelineTriggerSimulation simulation) {
+        this.throttle = throttle;
+        this.simulation = simulation;
+    }
+
+    boolean isSimulation() {
+        return simulation != null;
+    }
+
+    /**
+     * @return the DAO to use for the evaluation
+     */
+    @NonNull
+    PipelineMavenPluginDao getDao(@NonNull PipelineMavenPluginDao dao) {
+        return simulation == null ? dao : simulation.monitor(dao);
+    }
+
+    /**
+     * Record, when simulating, why the downstream pipeline is not triggered.
+     */
+    void skip(@NonNull String downstreamJobFullName, @NonNull String reason) {
+        if (simulation != null) {
+            simulation.skip(downstreamJobFullName, reason);
+        }
+    }
+
+    /**
+     * Record, when simulating, the duration of the given phase of the evaluation.
+     */
+    <T> T time(@NonNull String phase, @NonNull Supplier<T> supplier) {
+        return simulation == null ? supplier.get() : simulation.time(phase, supplier);
+    }
+
+    /**
+     * Start the planning of the next upstream build. The downstream pipelines planned for the previous upstream builds
+     * are then considered as queued.
+     *
+     * @param listener listener of the upstream build, the triggering of its downstream pipelines is reported to it
+     */
+    void startUpstreamBuild(@NonNull TaskListener listener) {
+        plannedForPreviousUpstreamBuilds = new HashSet<>(downstreamJobs.keySet());
+        upstreamBuildListener = listener;
+        upstreamBuildCount++;
+    }
+
+    void add(
+            @NonNull String downstreamJobFullName,
+            @NonNull Job<?, ?> downstreamJob,
+            @NonNull MavenDependencyUpstreamCause cause) {
+        downstreamJobs.putIfAbsent(downstreamJobFullName, downstreamJob);
+        causesByDownstreamJob
+                .computeIfAbsent(downstreamJobFullName, k -> new ArrayList<>())
+                .add(cause);
+        listenersByDownstreamJob
+                .computeIfAbsent(downstreamJobFullName, k -> new LinkedHashSet<>())
+                .add(upstreamBuildListener);
+    }
+
+    boolean isBuilding(@NonNull String jobFullName) {
+        return time("queue check", () -> getQueueSnapshot().isBuilding(jobFullName));
+    }
+
+    boolean isInQueue(@NonNull String jobFullName) {
+        return plannedForPreviousUpstreamBuilds.contains(jobFullName)
+                || time("queue check", () -> getQueueSnapshot().isInQueue(jobFullName));
+    }
+
+    /**
+     * Taken when the first transitive upstream pipeline is checked.
+     */
+    private QueueSnapshot getQueueSnapshot() {
+        if (queueSnapshot == null) {
+            queueSnapshot = QueueSnapshot.take();
+        }
+        return queueSnapshot;
+    }
+
+    /**
+     * Schedule the planned downstream pipelines, reporting each of them to the listeners of the upstream builds
+     * triggering it.
+     *
+     * @return the full names of the downstream pipelines scheduled, deferred or, when simulating, that would be
+     *     triggered
+     */
+    @NonNull
+    Set<String> schedule() {
+        Set<String> scheduledDownstreamJobs = new HashSet<>();
+        for (Map.Entry<String, Job<?, ?>> entry : downstreamJobs.entrySet()) {
+            if (scheduleBuild(
+                    entry.getKey(),
+                    entry.getValue(),
+                    causesByDownstreamJob.get(entry.getKey()),
+                    listenersByDownstreamJob.get(entry.getKey()))) {
+                scheduledDownstreamJobs.add(entry.getKey());
+            }
+        }
+        return scheduledDownstreamJobs;
+    }
+
+    private boolean scheduleBuild(
+            String downstreamJobFullName,
+            Job<?, ?> downstreamJob,
+            List<MavenDependencyUpstreamCause> causes,
+            Set<TaskListener> listeners) {
+        // double check if Job is already in the queue. This avoids performance problems caused
+        // by locking in hudson.model.Queue.schedule2()
+
+        if (time("queue check", () -> isInQueue(downstreamJob))) {
+            println(
+                    listeners,
+                    "[withMaven] downstreamPipelineTriggerRunListener - Skip triggering "
+                            + ModelHyperlinkNote.encodeTo(downstreamJob) + " because it is already in the queue");
+            skip(downstreamJobFullName, "already in the queue");
+            return false;
+        }
+        String dependenciesMessage = causes.stream()
+                .map(MavenDependencyUpstreamCause::getMavenArtifactsDescription)
+                .collect(Collectors.joining(", "));
+        if (simulation != null) {
+            // scheduleBuild2 is not timed as nothing is scheduled
+            simulation.wouldTrigger(downstreamJobFullName, dependenciesMessage);
+            return true;
+        } else if (throttle != null && throttle.defer(downstreamJobFullName, downstreamJob, causes)) {
+            println(
+                    listeners,
+                    "[withMaven] downstreamPipelineTriggerRunListener - Defer triggering downstream pipeline "
+                            + ModelHyperlinkNote.encodeTo(downstreamJob) + " due to dependencies on "
+                            + dependenciesMessage + ", " + throttle.getDeferredTriggers() + " deferred triggers");
+            return true;
+        } else {
+            Queue.Item queuedItem =
+                    ParameterizedJobMixIn.scheduleBuild2(downstreamJob, -1, new CauseAction(new ArrayList<>(causes)));
+            if (queuedItem == null) {
+                println(
+                        listeners,
+                        "[withMaven] downstreamPipelineTriggerRunListener - Skip triggering downstream pipeline "
+                                + ModelHyperlinkNote.encodeTo(downstreamJob) + " due to dependencies on "
+                                + dependenciesMessage + ", invocation rejected.");
+                return false;
+            } else {
+                if (throttle != null) {
+                    throttle.onTriggered(queuedItem);
+                }
+                println(
+                        listeners,
+                        "[withMaven] downstreamPipelineTriggerRunListener - Triggering downstream pipeline "
+                                + ModelHyperlinkNote.encodeTo(downstreamJob) + "#" + downstreamJob.getNextBuildNumber()
+                                + " due to dependency on " + dependenciesMessage + " ...");
+                return true;
+            }
+        }
+    }
+
+    private static void println(Set<TaskListener> listeners, String message) {
+        for (TaskListener listener : listeners) {
+            listener.getLogger().println(message);
+        }
+    }
+
+    private boolean isInQueue(Job<?, ?> job) {
+        // isInQueue returns always false in WorkflowJob !
+        return job instanceof Task && Jenkins.get().getQueue().contains((Task) job);
+    }
+
+    @Override
+    public String toString() {
+        return "plan of " + downstreamJobs.size() + " downstream pipelines for " + upstreamBuildCount
+                + " upstream builds" + (queueSnapshot == null ? "" : ", " + queueSnapshot);
+    }
+}
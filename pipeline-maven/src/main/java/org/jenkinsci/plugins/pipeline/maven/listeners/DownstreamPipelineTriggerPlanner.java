@@ -0,0 +1,147 @@
+package org.jenkinsci.plugins.pipeline.maven.listeners;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Plan, on a dedicated thread, the triggering of the downstream pipelines of the completed upstream builds.
+ * <p>
+ * The upstream builds completed within the coalescing window are planned together: each downstream pipeline is
+ * scheduled once, with the causes of all the upstream builds triggering it.
+ */
+public class DownstreamPipelineTriggerPlanner {
+
+    private static final Logger LOGGER = Logger.getLogger(DownstreamPipelineTriggerPlanner.class.getName());
+
+    interface Evaluation {
+        void plan(Run<?, ?> upstreamBuild, TaskListener listener, DownstreamPipelineTriggerPlan plan);
+    }
+
+    private final long coalescingWindowInMillis;
+    private final Evaluation evaluation;
+    private final DownstreamPipelineTriggerThrottle throttle;
+    private final ConcurrentLinkedQueue<Completion> completions = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean planScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService executor;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger plannedUpstreamBuildCount = new AtomicInteger();
+    private final AtomicInteger planCount = new AtomicInteger();
+    private final AtomicLong planLatencyInNanos = new AtomicLong();
+    private final AtomicLong maxPlanLatencyInNanos = new AtomicLong();
+
+    DownstreamPipelineTriggerPlanner(
+            long coalescingWindowInMillis,
+            @NonNull Evaluation evaluation,
+            @CheckForNull DownstreamPipelineTriggerThrottle throttle) {
+        this.coalescingWindowInMillis = coalescingWindowInMillis;
+        this.evaluation = evaluation;
+        this.throttle = throttle;
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                1, new NamingThreadFactory(new DaemonThreadFactory(), "Pipeline Maven Plugin trigger planner"));
+        executor.setKeepAliveTime(60, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        this.executor = executor;
+    }
+
+    /**
+     * Enqueue the completed upstream build, it will be planned with the authentication of the calling thread and
+     * reported to the given listener of the upstream build.
+     */
+    void submit(@NonNull Run<?, ?> upstreamBuild, @NonNull TaskListener listener) {
+        completions.add(new Completion(upstreamBuild, listener, Jenkins.getAuthentication2()));
+        queueDepth.incrementAndGet();
+        if (planScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::plan, coalescingWindowInMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void plan() {
+        // completions submitted from now on are planned by the next run
+        planScheduled.set(false);
+        List<Completion> upstreamBuilds = new ArrayList<>();
+        for (Completion completion = completions.poll(); completion != null; completion = completions.poll()) {
+            upstreamBuilds.add(completion);
+        }
+        if (upstreamBuilds.isEmpty()) {
+            return;
+        }
+        queueDepth.addAndGet(-upstreamBuilds.size());
+
+        DownstreamPipelineTriggerPlan plan = new DownstreamPipelineTriggerPlan(throttle);
+        for (Completion completion : upstreamBuilds) {
+            try (ACLContext ignored = ACL.as2(completion.authentication)) {
+                evaluation.plan(completion.upstreamBuild, completion.listener, plan);
+            } catch (RuntimeException e) {
+                LOGGER.log(
+                        Level.WARNING,
+                        "Failure to plan the triggering of the downstream pipelines of " + completion.upstreamBuild,
+                        e);
+            }
+        }
+        try {
+            plan.schedule();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failure to trigger the downstream pipelines of the " + plan, e);
+        }
+
+        long nowInNanos = System.nanoTime();
+        for (Completion completion : upstreamBuilds) {
+            long latencyInNanos = nowInNanos - completion.submitTimeInNanos;
+            planLatencyInNanos.addAndGet(latencyInNanos);
+            maxPlanLatencyInNanos.accumulateAndGet(latencyInNanos, Math::max);
+        }
+        plannedUpstreamBuildCount.addAndGet(upstreamBuilds.size());
+        planCount.incrementAndGet();
+        LOGGER.log(Level.FINE, "Triggered the downstream pipelines of the {0}", new Object[] {plan});
+    }
+
+    /**
+     * Number of completed upstream builds waiting to be planned.
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public String toPrettyString() {
+        int upstreamBuilds = plannedUpstreamBuildCount.get();
+        return "Downstream pipeline trigger planner: " + "\r\n\t queueDepth=" + getQueueDepth()
+                + ", coalescingWindowInMs=" + coalescingWindowInMillis
+                + "\r\n\t plans=" + planCount.get() + ", upstreamBuilds=" + upstreamBuilds
+                + "\r\n\t planLatency: averageInMs="
+                + (upstreamBuilds == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(planLatencyInNanos.get() / upstreamBuilds))
+                + ", maxInMs=" + TimeUnit.NANOSECONDS.toMillis(maxPlanLatencyInNanos.get());
+    }
+
+    private static class Completion {
+        final Run<?, ?> upstreamBuild;
+        final TaskListener listener;
+        final Authentication authentication;
+        final long submitTimeInNanos = System.nanoTime();
+
+        Completion(Run<?, ?> upstreamBuild, TaskListener listener, Authentication authentication) {
+            this.upstreamBuild = upstreamBuild;
+            this.listener = listener;
+            this.authentication = authentication;
+        }
+    }
+}
@@ -1,20 +1,30 @@
 package org.jenkinsci.plugins.pipeline.maven.listeners;
 
 import com.google.common.annotations.VisibleForTesting;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
+import hudson.console.ConsoleNote;
 import hudson.console.ModelHyperlinkNote;
 import hudson.model.Cause;
 import hudson.model.CauseAction;
 import hudson.model.Job;
 import hudson.model.Queue;
-import hudson.model.Queue.Task;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.model.queue.Tasks;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -22,7 +32,13 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -35,8 +51,9 @@ import org.jenkinsci.plugins.pipeline.maven.cause.MavenDependencyCause;
 import org.jenkinsci.plugins.pipeline.maven.cause.MavenDependencyCauseHelper;
 import org.jenkinsci.plugins.pipeline.maven.cause.MavenDependencyUpstreamCause;
 import org.jenkinsci.plugins.pipeline.maven.cause.OtherMavenDependencyCause;
-import org.jenkinsci.plugins.pipeline.maven.dao.UpstreamMemory;
+import org.jenkinsci.plugins.pipeline.maven.dao.PipelineMavenPluginDao;
 import org.jenkinsci.plugins.pipeline.maven.trigger.WorkflowJobDependencyTrigger;
+import org.springframework.security.core.Authentication;
 
 /**
  * Trigger downstream pipelines.
@@ -48,8 +65,58 @@ public class DownstreamPipelineTriggerRunListener extends AbstractWorkflowRunLis
 
     private static final Logger LOGGER = Logger.getLogger(DownstreamPipelineTriggerRunListener.class.getName());
 
+    /**
+     * Maximum number of downstream pipeline candidates whose database queries run concurrently, for all the completed
+     * builds, {@code 1} to query sequentially. Keep it below the size of the connection pool (10 by default).
+     */
+    private static final int EVALUATION_PARALLELISM = Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.TRIGGER_EVALUATION_PARALLELISM", 4);
+
+    /**
+     * Maximum number of database queries of downstream pipeline candidates waiting for a thread of the
+     * {@link #EVALUATION_EXECUTOR}, the queries exceeding it run on the thread evaluating the candidates.
+     */
+    private static final int EVALUATION_QUEUE_CAPACITY = Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.TRIGGER_EVALUATION_QUEUE_CAPACITY", 256);
+
+    /**
+     * Maximum time to wait for the database queries of a downstream pipeline candidate run ahead, they are run again
+     * on the thread evaluating the candidate beyond it.
+     */
+    private static final long EVALUATION_TIMEOUT_IN_MILLIS = Long.getLong(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.TRIGGER_EVALUATION_TIMEOUT_IN_MILLIS", 30_000);
+
+    private static final ExecutorService EVALUATION_EXECUTOR = createEvaluationExecutor();
+
+    /**
+     * Window during which the completed upstream builds are coalesced to plan the triggering of their downstream
+     * pipelines asynchronously, {@code 0} to plan it synchronously when each upstream build completes.
+     */
+    private static final long TRIGGER_PLANNER_COALESCING_WINDOW_IN_MILLIS = Long.getLong(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.TRIGGER_PLANNER_COALESCING_WINDOW_IN_MILLIS", 0);
+
+    /**
+     * Maximum number of downstream pipelines triggered per minute, {@code 0} for no limit. The triggers exceeding the
+     * limit are deferred.
+     */
+    private static final int TRIGGER_MAX_RATE_PER_MINUTE = Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.TRIGGER_MAX_RATE_PER_MINUTE", 0);
+
+    /**
+     * Maximum number of builds triggered by the plugin waiting in the queue, {@code 0} for no limit. The triggers
+     * exceeding the limit are deferred.
+     */
+    private static final int TRIGGER_MAX_PENDING_ITEMS = Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.TRIGGER_MAX_PENDING_ITEMS", 0);
+
     private GlobalPipelineMavenConfig globalPipelineMavenConfig;
 
+    private final DownstreamPipelineTriggerThrottle throttle;
+
+    private final DownstreamPipelineTriggerPlanner planner;
+
+    private final TopologicalWaveTrigger topologicalWaveTrigger;
+
     public DownstreamPipelineTriggerRunListener() {
         this(GlobalPipelineMavenConfig.get());
     }
@@ -57,14 +124,43 @@ public class DownstreamPipelineTriggerRunListener extends AbstractWorkflowRunLis
     @VisibleForTesting
     DownstreamPipelineTriggerRunListener(GlobalPipelineMavenConfig globalPipelineMavenConfig) {
         this.globalPipelineMavenConfig = globalPipelineMavenConfig;
+        this.throttle = TRIGGER_MAX_RATE_PER_MINUTE > 0 || TRIGGER_MAX_PENDING_ITEMS > 0
+                ? new DownstreamPipelineTriggerThrottle(
+                        TRIGGER_MAX_RATE_PER_MINUTE,
+                        TRIGGER_MAX_PENDING_ITEMS,
+                        jobFullName -> globalPipelineMavenConfig.getDao().getLastBuildDurationInMillis(jobFullName))
+                : null;
+        this.planner = TRIGGER_PLANNER_COALESCING_WINDOW_IN_MILLIS > 0
+                ? new DownstreamPipelineTriggerPlanner(
+                        TRIGGER_PLANNER_COALESCING_WINDOW_IN_MILLIS, this::planDownstreamPipelines, throttle)
+                : null;
+        this.topologicalWaveTrigger = new TopologicalWaveTrigger(globalPipelineMavenConfig, throttle);
+    }
+
+    /**
+     * @return the throttle of the downstream pipelines triggering, {@code null} if they are triggered without limit
+     */
+    @CheckForNull
+    public DownstreamPipelineTriggerThrottle getThrottle() {
+        return throttle;
+    }
+
+    /**
+     * @return the planner of the downstream pipelines triggering, {@code null} if it is planned synchronously
+     */
+    @CheckForNull
+    public DownstreamPipelineTriggerPlanner getPlanner() {
+        return planner;
     }
 
     @Override
     public void onCompleted(Run<?, ?> upstreamBuild, @NonNull TaskListener listener) {
         LOGGER.log(Level.FINER, "onCompleted({0})", new Object[] {upstreamBuild});
 
-        UpstreamMemory upstreamMemory = new UpstreamMemory();
-        DaoHelper daoHelper = new DaoHelper(globalPipelineMavenConfig);
+        if (globalPipelineMavenConfig.isTriggerDownstreamInTopologicalWaves()
+                && topologicalWaveTrigger.onCompleted(upstreamBuild, listener)) {
+            return;
+        }
 
         if (!shouldRun(upstreamBuild, listener)) {
             LOGGER.log(
@@ -179,16 +275,117 @@ public class DownstreamPipelineTriggerRunListener extends AbstractWorkflowRunLis
             return;
         }
 
+        if (globalPipelineMavenConfig.isTriggerDownstreamInTopologicalWaves()) {
+            topologicalWaveTrigger.trigger(upstreamBuild, listener);
+            return;
+        }
+
+        if (planner != null) {
+            planner.submit(upstreamBuild, listener);
+            listener.getLogger()
+                    .println("[withMaven] downstreamPipelineTriggerRunListener - Triggering of the downstream "
+                            + "pipelines planned asynchronously");
+            return;
+        }
+
+        DownstreamPipelineTriggerPlan plan = new DownstreamPipelineTriggerPlan(throttle);
+        planDownstreamPipelines(upstreamBuild, listener, plan);
+        plan.schedule();
+
+        long durationInMillis =
+                TimeUnit.MILLISECONDS.convert(System.nanoTime() - startTimeInNanos, TimeUnit.NANOSECONDS);
+        if (durationInMillis > TimeUnit.MILLISECONDS.convert(5, TimeUnit.SECONDS) || LOGGER.isLoggable(Level.FINE)) {
+            listener.getLogger()
+                    .println("[withMaven] downstreamPipelineTriggerRunListener - completed in " + durationInMillis
+                            + " ms, " + plan);
+        }
+    }
+
+    /**
+     * Evaluate the downstream pipelines of the given upstream build like {@link #onCompleted(Run, TaskListener)}, with
+     * the authentication of the upstream build, without triggering nor saving anything. The topological waves, the
+     * planner and the throttle are not simulated.
+     */
+    @NonNull
+    public DownstreamPipelineTriggerSimulation simulate(@NonNull Run<?, ?> upstreamBuild) {
+        DownstreamPipelineTriggerSimulation simulation =
+                new DownstreamPipelineTriggerSimulation(upstreamBuild.getFullDisplayName());
+        ByteArrayOutputStream console = new ByteArrayOutputStream();
+        TaskListener listener = new StreamTaskListener(console, StandardCharsets.UTF_8);
+        long startTimeInNanos = System.nanoTime();
+        // onCompleted(...) runs in the executor of the upstream build, impersonating the authentication of the build
+        Job<?, ?> upstreamPipeline = upstreamBuild.getParent();
+        Authentication authentication = upstreamPipeline instanceof Queue.Task
+                ? Tasks.getAuthenticationOf2((Queue.Task) upstreamPipeline)
+                : ACL.SYSTEM2;
+        try (ACLContext ignored = ACL.as2(authentication)) {
+            if (globalPipelineMavenConfig
+                    .getTriggerDownstreamBuildsResultsCriteria()
+                    .contains(upstreamBuild.getResult())) {
+                simulation.time("infinite loop check", () -> {
+                    globalPipelineMavenConfig
+                            .getPipelineTriggerService()
+                            .checkNoInfiniteLoopOfUpstreamCause(upstreamBuild);
+                    return null;
+                });
+                DownstreamPipelineTriggerPlan plan = new DownstreamPipelineTriggerPlan(null, simulation);
+                planDownstreamPipelines(upstreamBuild, listener, plan);
+                plan.schedule();
+            } else {
+                listener.getLogger()
+                        .println("[withMaven] Skip triggering downstream jobs for upstream build with ignored result "
+                                + "status " + upstreamBuild.getResult());
+            }
+        } catch (IllegalStateException e) {
+            listener.getLogger().println("[withMaven] WARNING abort infinite build trigger loop: " + e.getMessage());
+        }
+        listener.getLogger().flush();
+        simulation.complete(
+                System.nanoTime() - startTimeInNanos,
+                ConsoleNote.removeNotes(new String(console.toByteArray(), StandardCharsets.UTF_8)));
+        return simulation;
+    }
+
+    /**
+     * Add to the plan the downstream pipelines to trigger for the given upstream build.
+     */
+    private void planDownstreamPipelines(
+            Run<?, ?> upstreamBuild, TaskListener listener, DownstreamPipelineTriggerPlan plan) {
+        plan.startUpstreamBuild(listener);
         Job<?, ?> upstreamPipeline = upstreamBuild.getParent();
 
         String upstreamPipelineFullName = upstreamPipeline.getFullName();
         int upstreamBuildNumber = upstreamBuild.getNumber();
-        Map<MavenArtifact, SortedSet<String>> downstreamPipelinesByArtifact = globalPipelineMavenConfig
-                .getDao()
-                .listDownstreamJobsByArtifact(upstreamPipelineFullName, upstreamBuildNumber);
+        PipelineMavenPluginDao dao = plan.getDao(globalPipelineMavenConfig.getDao());
+        Map<MavenArtifact, SortedSet<String>> downstreamPipelinesByArtifact =
+                dao.listDownstreamJobsByArtifact(upstreamPipelineFullName, upstreamBuildNumber);
         LOGGER.log(Level.FINER, "got downstreamPipelinesByArtifact for project {0} and build #{1}: {2}", new Object[] {
             upstreamPipelineFullName, upstreamBuildNumber, downstreamPipelinesByArtifact
         });
+        Map<String, Future<CandidateQueries>> candidateQueries =
+                queryCandidates(dao, plan, upstreamPipelineFullName, downstreamPipelinesByArtifact);
+        try {
+            evaluateCandidates(upstreamBuild, listener, plan, dao, downstreamPipelinesByArtifact, candidateQueries);
+        } finally {
+            // the queries of the candidates rejected before looking at them are no longer needed
+            for (Future<CandidateQueries> future : candidateQueries.values()) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Add to the plan the downstream pipeline candidates of the given upstream build that are eligible.
+     */
+    private void evaluateCandidates(
+            Run<?, ?> upstreamBuild,
+            TaskListener listener,
+            DownstreamPipelineTriggerPlan plan,
+            PipelineMavenPluginDao dao,
+            Map<MavenArtifact, SortedSet<String>> downstreamPipelinesByArtifact,
+            Map<String, Future<CandidateQueries>> candidateQueries) {
+        Job<?, ?> upstreamPipeline = upstreamBuild.getParent();
+        String upstreamPipelineFullName = upstreamPipeline.getFullName();
 
         Map<String, Set<MavenArtifact>> jobsToTrigger = new TreeMap<>();
         Map<String, Set<String>> omittedPipelineTriggersByPipelineFullname = new HashMap<>();
@@ -231,6 +428,7 @@ public class DownstreamPipelineTriggerRunListener extends AbstractWorkflowRunLis
 
                 if (Objects.equals(downstreamPipelineFullName, upstreamPipelineFullName)) {
                     // Don't trigger myself
+                    plan.skip(downstreamPipelineFullName, "upstream pipeline itself");
                     continue;
                 }
 
@@ -241,9 +439,10 @@ public class DownstreamPipelineTriggerRunListener extends AbstractWorkflowRunLis
                     continue;
                 }
 
-                final Job<?, ?> downstreamPipeline =
-                        Jenkins.get().getItemByFullName(downstreamPipelineFullName, Job.class);
+                final Job<?, ?> downstreamPipeline = plan.time(
+                        "job lookup", () -> Jenkins.get().getItemByFullName(downstreamPipelineFullName, Job.class));
                 if (downstreamPipeline == null || downstreamPipeline.getLastBuild() == null) {
+                    plan.skip(downstreamPipelineFullName, "pipeline or last build not found");
                     LOGGER.log(
                             Level.FINE,
                             "Downstream pipeline {0} or downstream pipeline last build not found from upstream build {1}. Database synchronization issue or security restriction?",
@@ -257,9 +456,10 @@ public class DownstreamPipelineTriggerRunListener extends AbstractWorkflowRunLis
                 }
 
                 int downstreamBuildNumber = downstreamPipeline.getLastBuild().getNumber();
+                CandidateQueries queries = getCandidateQueries(
+                        dao, candidateQueries, downstreamPipeline, downstreamPipelineFullName, downstreamBuildNumber);
 
-                List<MavenArtifact> downstreamPipelineGeneratedArtifacts =
-                        daoHelper.getGeneratedArtifacts(downstreamPipelineFullName, downstreamBuildNumber);
+                List<MavenArtifact> downstreamPipelineGeneratedArtifacts = queries.getGeneratedArtifacts();
                 if (LOGGER.isLoggable(Level.FINEST)) {
                     listener.getLogger()
                             .println("[withMaven] downstreamPipelineTriggerRunListener - Pipeline "
@@ -280,12 +480,17 @@ public class DownstreamPipelineTriggerRunListener extends AbstractWorkflowRunLis
                                             + " because it generates artifact with same groupId:artifactId "
                                             + downstreamPipelineGeneratedArtifact);
                         }
+                        plan.skip(
+                                downstreamPipelineFullName,
+                                "generates " + downstreamPipelineGeneratedArtifact.getShortDescription()
+                                        + " with the same groupId:artifactId as "
+                                        + mavenArtifact.getShortDescription());
                         continue downstreamPipelinesLoop;
                     }
                 }
 
                 Map<MavenArtifact, SortedSet<String>> downstreamDownstreamPipelinesByArtifact =
-                        daoHelper.listDownstreamJobsByArtifact(downstreamPipelineFullName, downstreamBuildNumber);
+                        queries.getDownstreamJobsByArtifact();
                 for (Map.Entry<MavenArtifact, SortedSet<String>> entry2 :
                         downstreamDownstreamPipelinesByArtifact.entrySet()) {
                     SortedSet<String> downstreamDownstreamPipelines = entry2.getValue();
@@ -301,15 +506,18 @@ public class DownstreamPipelineTriggerRunListener extends AbstractWorkflowRunLis
                                                 + " (dependency: "
                                                 + entry2.getKey().getShortDescription() + ")");
                         // prevent infinite loop
+                        plan.skip(
+                                downstreamPipelineFullName,
+                                "infinite loop, it triggers the upstream pipeline for "
+                                        + entry2.getKey().getShortDescription());
                         continue downstreamPipelinesLoop;
                     }
                 }
 
                 // Avoid excessive triggering
                 // See #46313
-                Map<String, Integer> transitiveUpstreamPipelines = globalPipelineMavenConfig
-                        .getDao()
-                        .listTransitiveUpstreamJobs(downstreamPipelineFullName, downstreamBuildNumber, upstreamMemory);
+                Map<String, Integer> transitiveUpstreamPipelines =
+                        queries.getTransitiveUpstreamJobs(downstreamBuildNumber);
                 if (LOGGER.isLoggable(Level.FINER)) {
                     listener.getLogger()
                             .println(
@@ -322,14 +530,12 @@ public class DownstreamPipelineTriggerRunListener extends AbstractWorkflowRunLis
                 // If a job is running in this moment we get an empty list. We use the last successful build in this
                 // case
                 if (transitiveUpstreamPipelines != null && transitiveUpstreamPipelines.isEmpty()) {
-                    Job<?, ?> job = Jenkins.get().getItemByFullName(downstreamPipelineFullName, Job.class);
+                    Job<?, ?> job = plan.time(
+                            "job lookup", () -> Jenkins.get().getItemByFullName(downstreamPipelineFullName, Job.class));
                     if (job != null) {
                         Run lastSuccessfulBuild = job.getLastSuccessfulBuild();
                         if (lastSuccessfulBuild != null) {
-                            transitiveUpstreamPipelines = globalPipelineMavenConfig
-                                    .getDao()
-                                    .listTransitiveUpstreamJobs(
-                                            downstreamPipelineFullName, lastSuccessfulBuild.number, upstreamMemory);
+                            transitiveUpstreamPipelines = queries.getTransitiveUpstreamJobs(lastSuccessfulBuild.number);
                             if (LOGGER.isLoggable(Level.FINER)) {
                                 listener.getLogger()
                                         .println(
@@ -345,45 +551,59 @@ public class DownstreamPipelineTriggerRunListener extends AbstractWorkflowRunLis
                 for (String transitiveUpstreamPipelineName : transitiveUpstreamPipelines.keySet()) {
                     // Skip if one of the downstream's upstream is already building or in queue
                     // Then it will get triggered anyway by that upstream, we don't need to trigger it again
-                    Job<?, ?> transitiveUpstreamPipeline =
-                            Jenkins.get().getItemByFullName(transitiveUpstreamPipelineName, Job.class);
-
-                    if (transitiveUpstreamPipeline == null) {
-                        // security: not allowed to view this transitive upstream pipeline, continue to loop
+                    if (transitiveUpstreamPipelineName.equals(upstreamPipelineFullName)) {
+                        // this upstream pipeline of  the current downstreamPipeline is the upstream pipeline itself,
+                        // continue to loop
                         if (LOGGER.isLoggable(Level.FINER)) {
                             listener.getLogger()
                                     .println("[withMaven] downstreamPipelineTriggerRunListener - Skip triggering "
                                             + ModelHyperlinkNote.encodeTo(downstreamPipeline)
                                             + " because transitive pipeline " + transitiveUpstreamPipelineName
-                                            + " is unaccessible");
+                                            + " is the current one");
                         }
                         continue;
-                    } else if (transitiveUpstreamPipeline.getFullName().equals(upstreamPipeline.getFullName())) {
-                        // this upstream pipeline of  the current downstreamPipeline is the upstream pipeline itself,
-                        // continue to loop
+                    }
+                    boolean building = plan.isBuilding(transitiveUpstreamPipelineName);
+                    boolean inQueue = !building && plan.isInQueue(transitiveUpstreamPipelineName);
+                    if (!building && !inQueue && !downstreamPipelines.contains(transitiveUpstreamPipelineName)) {
+                        continue;
+                    }
+
+                    // only the transitive upstream pipelines preventing the trigger are looked up
+                    Job<?, ?> transitiveUpstreamPipeline = plan.time(
+                            "job lookup",
+                            () -> Jenkins.get().getItemByFullName(transitiveUpstreamPipelineName, Job.class));
+                    if (transitiveUpstreamPipeline == null) {
+                        // security: not allowed to view this transitive upstream pipeline, continue to loop
                         if (LOGGER.isLoggable(Level.FINER)) {
                             listener.getLogger()
                                     .println("[withMaven] downstreamPipelineTriggerRunListener - Skip triggering "
                                             + ModelHyperlinkNote.encodeTo(downstreamPipeline)
                                             + " because transitive pipeline " + transitiveUpstreamPipelineName
-                                            + " is the current one");
+                                            + " is unaccessible");
                         }
                         continue;
-                    } else if (transitiveUpstreamPipeline.isBuilding()) {
+                    } else if (building) {
                         listener.getLogger()
                                 .println("[withMaven] downstreamPipelineTriggerRunListener - Skip triggering "
                                         + ModelHyperlinkNote.encodeTo(downstreamPipeline)
                                         + " because it has a dependency already building: "
                                         + ModelHyperlinkNote.encodeTo(transitiveUpstreamPipeline));
+                        plan.skip(
+                                downstreamPipelineFullName,
+                                "transitive upstream " + transitiveUpstreamPipelineName + " already building");
                         continue downstreamPipelinesLoop;
-                    } else if (isInQueue(transitiveUpstreamPipeline)) {
+                    } else if (inQueue) {
                         listener.getLogger()
                                 .println("[withMaven] downstreamPipelineTriggerRunListener - Skip triggering "
                                         + ModelHyperlinkNote.encodeTo(downstreamPipeline)
                                         + " because it has a dependency already building or in queue: "
                                         + ModelHyperlinkNote.encodeTo(transitiveUpstreamPipeline));
+                        plan.skip(
+                                downstreamPipelineFullName,
+                                "transitive upstream " + transitiveUpstreamPipelineName + " already in queue");
                         continue downstreamPipelinesLoop;
-                    } else if (downstreamPipelines.contains(transitiveUpstreamPipelineName)) {
+                    } else {
                         // Skip if this downstream pipeline will be triggered by another one of our downstream pipelines
                         // That's the case when one of the downstream's transitive upstream is our own downstream
                         listener.getLogger()
@@ -394,6 +614,10 @@ public class DownstreamPipelineTriggerRunListener extends AbstractWorkflowRunLis
                         omittedPipelineTriggersByPipelineFullname
                                 .computeIfAbsent(transitiveUpstreamPipelineName, p -> new TreeSet<>())
                                 .add(downstreamPipelineFullName);
+                        plan.skip(
+                                downstreamPipelineFullName,
+                                "transitive upstream " + transitiveUpstreamPipelineName
+                                        + " triggered by this build");
                         continue downstreamPipelinesLoop;
                     }
                 }
@@ -416,14 +640,17 @@ public class DownstreamPipelineTriggerRunListener extends AbstractWorkflowRunLis
                                                 + " from upstream build "
                                                 + upstreamBuild.getFullDisplayName());
                     }
+                    plan.skip(downstreamPipelineFullName, "not buildable");
                     rejectedPipelines.add(downstreamPipelineFullName);
                     continue;
                 }
 
-                WorkflowJobDependencyTrigger downstreamPipelineTrigger = globalPipelineMavenConfig
-                        .getPipelineTriggerService()
-                        .getWorkflowJobDependencyTrigger(
-                                (ParameterizedJobMixIn.ParameterizedJob<?, ?>) downstreamPipeline);
+                WorkflowJobDependencyTrigger downstreamPipelineTrigger = plan.time(
+                        "trigger configuration",
+                        () -> globalPipelineMavenConfig
+                                .getPipelineTriggerService()
+                                .getWorkflowJobDependencyTrigger(
+                                        (ParameterizedJobMixIn.ParameterizedJob<?, ?>) downstreamPipeline));
                 if (downstreamPipelineTrigger == null) {
                     listener.getLogger()
                             .println(
@@ -431,16 +658,21 @@ public class DownstreamPipelineTriggerRunListener extends AbstractWorkflowRunLis
                                             + downstreamPipeline.getFullName() + " from upstream build "
                                             + upstreamBuild.getFullDisplayName()
                                             + ": dependency trigger not configured");
+                    plan.skip(downstreamPipelineFullName, "dependency trigger not configured");
                     rejectedPipelines.add(downstreamPipelineFullName);
                     continue;
                 }
 
-                boolean downstreamVisibleByUpstreamBuildAuth = globalPipelineMavenConfig
-                        .getPipelineTriggerService()
-                        .isDownstreamVisibleByUpstreamBuildAuth(downstreamPipeline);
-                boolean upstreamVisibleByDownstreamBuildAuth = globalPipelineMavenConfig
-                        .getPipelineTriggerService()
-                        .isUpstreamBuildVisibleByDownstreamBuildAuth(upstreamPipeline, downstreamPipeline);
+                boolean downstreamVisibleByUpstreamBuildAuth = plan.time(
+                        "authorization",
+                        () -> globalPipelineMavenConfig
+                                .getPipelineTriggerService()
+                                .isDownstreamVisibleByUpstreamBuildAuth(downstreamPipeline));
+                boolean upstreamVisibleByDownstreamBuildAuth = plan.time(
+                        "authorization",
+                        () -> globalPipelineMavenConfig
+                                .getPipelineTriggerService()
+                                .isUpstreamBuildVisibleByDownstreamBuildAuth(upstreamPipeline, downstreamPipeline));
 
                 if (LOGGER.isLoggable(Level.FINER)) {
                     LOGGER.log(
@@ -460,6 +692,11 @@ public class DownstreamPipelineTriggerRunListener extends AbstractWorkflowRunLis
                         mavenArtifactsCausingTheTrigger.add(mavenArtifact);
                     }
                 } else {
+                    plan.skip(
+                            downstreamPipelineFullName,
+                            "not visible, downstreamVisibleByUpstreamBuildAuth: " + downstreamVisibleByUpstreamBuildAuth
+                                    + ", upstreamVisibleByDownstreamBuildAuth: "
+                                    + upstreamVisibleByDownstreamBuildAuth);
                     if (LOGGER.isLoggable(Level.FINER)) {
                         listener.getLogger()
                                 .println("[withMaven] downstreamPipelineTriggerRunListener - Skip triggering of "
@@ -480,11 +717,13 @@ public class DownstreamPipelineTriggerRunListener extends AbstractWorkflowRunLis
         triggerPipelinesLoop:
         for (Map.Entry<String, Set<MavenArtifact>> entry : jobsToTrigger.entrySet()) {
             String downstreamJobFullName = entry.getKey();
-            Job downstreamJob = Jenkins.get().getItemByFullName(downstreamJobFullName, Job.class);
+            Job downstreamJob =
+                    plan.time("job lookup", () -> Jenkins.get().getItemByFullName(downstreamJobFullName, Job.class));
             if (downstreamJob == null) {
                 listener.getLogger()
                         .println("[withMaven] downstreamPipelineTriggerRunListener - Illegal state: "
                                 + downstreamJobFullName + " not resolved");
+                plan.skip(downstreamJobFullName, "not resolved");
                 continue;
             }
             Set<MavenArtifact> mavenArtifacts = entry.getValue();
@@ -500,8 +739,9 @@ public class DownstreamPipelineTriggerRunListener extends AbstractWorkflowRunLis
                 // should never happen, we need at least one build to know the dependencies
                 // trigger downstream pipeline anyway
             } else {
-                List<MavenArtifact> matchingMavenDependencies =
-                        MavenDependencyCauseHelper.isSameCause(cause, downstreamJobLastBuild.getCauses());
+                List<MavenArtifact> matchingMavenDependencies = plan.time(
+                        "cause check",
+                        () -> MavenDependencyCauseHelper.isSameCause(cause, downstreamJobLastBuild.getCauses()));
                 if (matchingMavenDependencies.isEmpty()) {
                     for (Map.Entry<String, Set<String>> omittedPipeline :
                             omittedPipelineTriggersByPipelineFullname.entrySet()) {
@@ -512,10 +752,16 @@ public class DownstreamPipelineTriggerRunListener extends AbstractWorkflowRunLis
                                             + "downstream pipeline " + ModelHyperlinkNote.encodeTo(downstreamJob)
                                             + "because it will be triggered by transitive downstream "
                                             + ModelHyperlinkNote.encodeTo(transitiveDownstreamJob));
+                            plan.skip(
+                                    downstreamJobFullName,
+                                    "triggered by transitive downstream " + omittedPipeline.getKey());
                             continue triggerPipelinesLoop; // don't trigger downstream pipeline
                         }
                     }
                     // trigger downstream pipeline
+                } else if (plan.isSimulation()) {
+                    plan.skip(downstreamJobFullName, "already triggered for these Maven dependencies");
+                    continue;
                 } else {
                     downstreamJobLastBuild.addAction(new CauseAction(cause));
                     listener.getLogger()
@@ -539,46 +785,169 @@ public class DownstreamPipelineTriggerRunListener extends AbstractWorkflowRunLis
                 }
             }
 
-            scheduleBuild(downstreamJob, cause, listener);
+            plan.add(downstreamJobFullName, downstreamJob, cause);
         }
+    }
 
-        long durationInMillis =
-                TimeUnit.MILLISECONDS.convert(System.nanoTime() - startTimeInNanos, TimeUnit.NANOSECONDS);
-        if (durationInMillis > TimeUnit.MILLISECONDS.convert(5, TimeUnit.SECONDS) || LOGGER.isLoggable(Level.FINE)) {
-            listener.getLogger()
-                    .println("[withMaven] downstreamPipelineTriggerRunListener - completed in " + durationInMillis
-                            + " ms");
-        }
+    private static ExecutorService createEvaluationExecutor() {
+        int threads = Math.max(1, EVALUATION_PARALLELISM);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, EVALUATION_QUEUE_CAPACITY)),
+                new NamingThreadFactory(new DaemonThreadFactory(), "Pipeline Maven Plugin trigger evaluation"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
-    private void scheduleBuild(Job downstreamJob, MavenDependencyUpstreamCause cause, TaskListener listener) {
-        // double check if Job is already in the queue. This avoids performance problems caused
-        // by locking in hudson.model.Queue.schedule2()
+    /**
+     * Run ahead, on the {@link #EVALUATION_EXECUTOR}, the database queries of the evaluation of the downstream
+     * pipeline candidates. The eligibility of the candidates is then decided sequentially, in the same order, with the
+     * results of these queries.
+     * <p>
+     * The jobs are resolved by the calling thread, with its authentication.
+     *
+     * @return the queries by candidate full name, empty if the queries are not run ahead
+     */
+    private Map<String, Future<CandidateQueries>> queryCandidates(
+            PipelineMavenPluginDao dao,
+            DownstreamPipelineTriggerPlan plan,
+            String upstreamPipelineFullName,
+            Map<MavenArtifact, SortedSet<String>> downstreamPipelinesByArtifact) {
+        Map<String, Set<MavenArtifact>> artifactsByCandidate = new TreeMap<>();
+        for (Map.Entry<MavenArtifact, SortedSet<String>> entry : downstreamPipelinesByArtifact.entrySet()) {
+            for (String downstreamPipelineFullName : entry.getValue()) {
+                if (!Objects.equals(downstreamPipelineFullName, upstreamPipelineFullName)) {
+                    artifactsByCandidate
+                            .computeIfAbsent(downstreamPipelineFullName, k -> new HashSet<>())
+                            .add(entry.getKey());
+                }
+            }
+        }
+        if (EVALUATION_PARALLELISM <= 1 || artifactsByCandidate.size() <= 1) {
+            return Collections.emptyMap();
+        }
 
-        if (isInQueue(downstreamJob)) {
-            listener.getLogger()
-                    .println("[withMaven] downstreamPipelineTriggerRunListener - Skip triggering "
-                            + ModelHyperlinkNote.encodeTo(downstreamJob) + " because it is already in the queue");
-        } else {
-            Queue.Item queuedItem = ParameterizedJobMixIn.scheduleBuild2(downstreamJob, -1, new CauseAction(cause));
-            String dependenciesMessage = cause.getMavenArtifactsDescription();
-            if (queuedItem == null) {
-                listener.getLogger()
-                        .println(
-                                "[withMaven] downstreamPipelineTriggerRunListener - Skip triggering downstream pipeline "
-                                        + ModelHyperlinkNote.encodeTo(downstreamJob) + " due to dependencies on "
-                                        + dependenciesMessage + ", invocation rejected.");
-            } else {
-                listener.getLogger()
-                        .println("[withMaven] downstreamPipelineTriggerRunListener - Triggering downstream pipeline "
-                                + ModelHyperlinkNote.encodeTo(downstreamJob) + "#" + downstreamJob.getNextBuildNumber()
-                                + " due to dependency on " + dependenciesMessage + " ...");
+        Map<String, Future<CandidateQueries>> candidateQueries = new HashMap<>();
+        for (Map.Entry<String, Set<MavenArtifact>> entry : artifactsByCandidate.entrySet()) {
+            String downstreamPipelineFullName = entry.getKey();
+            Job<?, ?> downstreamPipeline = plan.time(
+                    "job lookup", () -> Jenkins.get().getItemByFullName(downstreamPipelineFullName, Job.class));
+            if (downstreamPipeline == null || downstreamPipeline.getLastBuild() == null) {
+                continue;
             }
+            CandidateQueries queries = new CandidateQueries(
+                    dao,
+                    downstreamPipelineFullName,
+                    downstreamPipeline.getLastBuild().getNumber());
+            candidateQueries.put(
+                    downstreamPipelineFullName,
+                    EVALUATION_EXECUTOR.submit(
+                            () -> queries.run(downstreamPipeline, entry.getValue(), upstreamPipelineFullName)));
         }
+        return candidateQueries;
     }
 
-    private boolean isInQueue(Job<?, ?> job) {
-        // isInQueue returns always false in WorkflowJob !
-        return job instanceof Task && Jenkins.get().getQueue().contains((Task) job);
+    /**
+     * @return the queries run ahead for the given build or, if they were not or did not complete in time, queries run
+     *     on demand
+     */
+    private CandidateQueries getCandidateQueries(
+            PipelineMavenPluginDao dao,
+            Map<String, Future<CandidateQueries>> candidateQueries,
+            Job<?, ?> downstreamPipeline,
+            String downstreamPipelineFullName,
+            int downstreamBuildNumber) {
+        Future<CandidateQueries> future = candidateQueries.get(downstreamPipelineFullName);
+        if (future != null) {
+            try {
+                CandidateQueries queries = future.get(EVALUATION_TIMEOUT_IN_MILLIS, TimeUnit.MILLISECONDS);
+                if (queries.buildNumber == downstreamBuildNumber) {
+                    return queries;
+                }
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                LOGGER.log(
+                        Level.FINE,
+                        "Timeout querying the database for {0} after {1} ms, query again",
+                        new Object[] {downstreamPipelineFullName, EVALUATION_TIMEOUT_IN_MILLIS});
+            } catch (ExecutionException e) {
+                LOGGER.log(
+                        Level.FINE,
+                        "Exception querying the database for " + downstreamPipelineFullName + ", query again",
+                        e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return new CandidateQueries(dao, downstreamPipelineFullName, downstreamBuildNumber);
+    }
+
+    /**
+     * Database queries of the evaluation of a downstream pipeline candidate, each one is run once.
+     */
+    private static class CandidateQueries {
+
+        private final PipelineMavenPluginDao dao;
+        private final String jobFullName;
+        private final int buildNumber;
+
+        private List<MavenArtifact> generatedArtifacts;
+        private Map<MavenArtifact, SortedSet<String>> downstreamJobsByArtifact;
+        private final Map<Integer, Map<String, Integer>> transitiveUpstreamJobsByBuildNumber = new HashMap<>();
+
+        CandidateQueries(PipelineMavenPluginDao dao, String jobFullName, int buildNumber) {
+            this.dao = dao;
+            this.jobFullName = jobFullName;
+            this.buildNumber = buildNumber;
+        }
+
+        /**
+         * Run the queries the evaluation of the candidate for the given artifacts needs, stopping where the evaluation
+         * stops: the candidate generating all the artifacts or triggering the upstream pipeline.
+         */
+        CandidateQueries run(Job<?, ?> job, Set<MavenArtifact> mavenArtifacts, String upstreamPipelineFullName) {
+            List<MavenArtifact> generatedArtifacts = getGeneratedArtifacts();
+            boolean generatesAllArtifacts = mavenArtifacts.stream()
+                    .allMatch(mavenArtifact -> generatedArtifacts.stream()
+                            .anyMatch(generatedArtifact ->
+                                    Objects.equals(mavenArtifact.getGroupId(), generatedArtifact.getGroupId())
+                                            && Objects.equals(
+                                                    mavenArtifact.getArtifactId(), generatedArtifact.getArtifactId())));
+            if (generatesAllArtifacts
+                    || getDownstreamJobsByArtifact().values().stream()
+                            .anyMatch(jobs -> jobs.contains(upstreamPipelineFullName))) {
+                return this;
+            }
+            if (getTransitiveUpstreamJobs(buildNumber).isEmpty()) {
+                Run<?, ?> lastSuccessfulBuild = job.getLastSuccessfulBuild();
+                if (lastSuccessfulBuild != null) {
+                    getTransitiveUpstreamJobs(lastSuccessfulBuild.getNumber());
+                }
+            }
+            return this;
+        }
+
+        List<MavenArtifact> getGeneratedArtifacts() {
+            if (generatedArtifacts == null) {
+                generatedArtifacts = dao.getGeneratedArtifacts(jobFullName, buildNumber);
+            }
+            return generatedArtifacts;
+        }
+
+        Map<MavenArtifact, SortedSet<String>> getDownstreamJobsByArtifact() {
+            if (downstreamJobsByArtifact == null) {
+                downstreamJobsByArtifact = dao.listDownstreamJobsByArtifact(jobFullName, buildNumber);
+            }
+            return downstreamJobsByArtifact;
+        }
+
+        Map<String, Integer> getTransitiveUpstreamJobs(int number) {
+            return transitiveUpstreamJobsByBuildNumber.computeIfAbsent(
+                    number, n -> dao.listTransitiveUpstreamJobs(jobFullName, n));
+        }
     }
 }
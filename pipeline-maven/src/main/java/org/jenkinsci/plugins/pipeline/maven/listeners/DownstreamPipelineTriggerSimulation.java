@@ -0,0 +1,168 @@
+package org.jenkinsci.plugins.pipeline.maven.listeners;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
+import org.jenkinsci.plugins.pipeline.maven.dao.AbstractPipelineMavenPluginDaoDecorator;
+import org.jenkinsci.plugins.pipeline.maven.dao.PipelineMavenPluginDao;
+
+/**
+ * Evaluation of the downstream pipelines of an upstream build without triggering them: the pipelines that would be
+ * triggered, the reasons why the other candidates are skipped and the time spent in each phase of the evaluation and
+ * in each DAO call.
+ */
+public class DownstreamPipelineTriggerSimulation {
+
+    private final String upstreamBuild;
+    private final SortedMap<String, String> wouldTriggerPipelines = new TreeMap<>();
+    private final SortedMap<String, Set<String>> skipReasons = new TreeMap<>();
+    private final Map<String, Timing> phaseTimings = new ConcurrentHashMap<>();
+    private final Map<String, Timing> daoCallTimings = new ConcurrentHashMap<>();
+    private long durationInNanos;
+    private String console = "";
+
+    DownstreamPipelineTriggerSimulation(@NonNull String upstreamBuild) {
+        this.upstreamBuild = upstreamBuild;
+    }
+
+    /**
+     * @return the pipelines that would be triggered and the dependencies triggering them
+     */
+    @NonNull
+    public synchronized SortedMap<String, String> getWouldTriggerPipelines() {
+        return new TreeMap<>(wouldTriggerPipelines);
+    }
+
+    /**
+     * @return the reasons why each candidate which would not be triggered is skipped
+     */
+    @NonNull
+    public synchronized SortedMap<String, List<String>> getSkipReasons() {
+        SortedMap<String, List<String>> result = new TreeMap<>();
+        for (Map.Entry<String, Set<String>> entry : skipReasons.entrySet()) {
+            if (!wouldTriggerPipelines.containsKey(entry.getKey())) {
+                result.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
+        }
+        return result;
+    }
+
+    synchronized void wouldTrigger(@NonNull String downstreamJobFullName, @NonNull String dependencies) {
+        wouldTriggerPipelines.put(downstreamJobFullName, dependencies);
+    }
+
+    synchronized void skip(@NonNull String downstreamJobFullName, @NonNull String reason) {
+        skipReasons.computeIfAbsent(downstreamJobFullName, k -> new LinkedHashSet<>()).add(reason);
+    }
+
+    <T> T time(@NonNull String phase, @NonNull Supplier<T> supplier) {
+        return time(phaseTimings, phase, supplier);
+    }
+
+    private static <T> T time(Map<String, Timing> timings, String name, Supplier<T> supplier) {
+        long startTimeInNanos = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            timings.computeIfAbsent(name, k -> new Timing()).add(System.nanoTime() - startTimeInNanos);
+        }
+    }
+
+    synchronized void complete(long durationInNanos, @NonNull String console) {
+        this.durationInNanos = durationInNanos;
+        this.console = console;
+    }
+
+    /**
+     * @return the given DAO recording the duration of the calls of the evaluation
+     */
+    @NonNull
+    PipelineMavenPluginDao monitor(@NonNull PipelineMavenPluginDao dao) {
+        return new AbstractPipelineMavenPluginDaoDecorator(dao) {
+            @NonNull
+            @Override
+            public List<MavenArtifact> getGeneratedArtifacts(@NonNull String jobFullName, int buildNumber) {
+                return time(
+                        daoCallTimings,
+                        "getGeneratedArtifacts",
+                        () -> super.getGeneratedArtifacts(jobFullName, buildNumber));
+            }
+
+            @NonNull
+            @Override
+            public Map<MavenArtifact, SortedSet<String>> listDownstreamJobsByArtifact(
+                    @NonNull String jobFullName, int buildNumber) {
+                return time(
+                        daoCallTimings,
+                        "listDownstreamJobsByArtifact",
+                        () -> super.listDownstreamJobsByArtifact(jobFullName, buildNumber));
+            }
+
+            @NonNull
+            @Override
+            public Map<String, Integer> listTransitiveUpstreamJobs(@NonNull String jobFullName, int buildNumber) {
+                return time(
+                        daoCallTimings,
+                        "listTransitiveUpstreamJobs",
+                        () -> super.listTransitiveUpstreamJobs(jobFullName, buildNumber));
+            }
+        };
+    }
+
+    public synchronized String toPrettyString() {
+        StringBuilder builder = new StringBuilder("Simulation of the downstream pipelines triggering of ")
+                .append(upstreamBuild)
+                .append(" in ")
+                .append(durationInNanos)
+                .append(" ns");
+        builder.append("\r\n Would trigger: ");
+        for (Map.Entry<String, String> entry : wouldTriggerPipelines.entrySet()) {
+            builder.append("\r\n\t ").append(entry.getKey()).append(": ").append(entry.getValue());
+        }
+        builder.append("\r\n Skipped: ");
+        for (Map.Entry<String, List<String>> entry : getSkipReasons().entrySet()) {
+            builder.append("\r\n\t ").append(entry.getKey()).append(": ").append(String.join(", ", entry.getValue()));
+        }
+        builder.append("\r\n Phases: ");
+        appendTimings(builder, phaseTimings);
+        builder.append("\r\n DAO calls (partly run concurrently): ");
+        appendTimings(builder, daoCallTimings);
+        builder.append("\r\n Console: \r\n").append(console);
+        return builder.toString();
+    }
+
+    private static void appendTimings(StringBuilder builder, Map<String, Timing> timings) {
+        List<String> names = new ArrayList<>(timings.keySet());
+        Collections.sort(names);
+        for (String name : names) {
+            Timing timing = timings.get(name);
+            builder.append("\r\n\t ")
+                    .append(name)
+                    .append(": count=")
+                    .append(timing.count.get())
+                    .append(", durationInNanos=")
+                    .append(timing.durationInNanos.get());
+        }
+    }
+
+    private static class Timing {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong durationInNanos = new AtomicLong();
+
+        void add(long durationInNanos) {
+            count.incrementAndGet();
+            this.durationInNanos.addAndGet(durationInNanos);
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package org.jenkinsci.plugins.pipeline.maven.listeners;
+
+import com.google.common.annotations.VisibleForTesting;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.CauseAction;
+import hudson.model.Job;
+import hudson.model.Queue;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import jenkins.model.Jenkins;
+import jenkins.model.ParameterizedJobMixIn;
+import org.jenkinsci.plugins.pipeline.maven.cause.MavenDependencyUpstreamCause;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Limit the rate at which the downstream pipelines are triggered and the number of triggered builds waiting in the
+ * queue. The triggers exceeding these limits are deferred, then dispatched the longest last build first so that the
+ * slowest downstream pipelines start as early as possible.
+ */
+public class DownstreamPipelineTriggerThrottle {
+
+    private static final Logger LOGGER = Logger.getLogger(DownstreamPipelineTriggerThrottle.class.getName());
+
+    private static final long PENDING_ITEMS_POLL_INTERVAL_IN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int maxTriggersPerMinute;
+    private final int maxPendingItems;
+    private final Function<String, Long> lastBuildDurationInMillis;
+    private final ScheduledExecutorService executor;
+
+    private final long permitIntervalInNanos;
+    private final long burstToleranceInNanos;
+    /**
+     * Theoretical time of the next trigger if the triggers were evenly spaced (generic cell rate algorithm).
+     */
+    private long theoreticalTriggerTimeInNanos = Long.MIN_VALUE;
+
+    private final Set<Long> pendingItemIds = new HashSet<>();
+    private final Map<String, DeferredTrigger> deferredTriggersByJob = new HashMap<>();
+    private final PriorityQueue<DeferredTrigger> deferredTriggers = new PriorityQueue<>(Comparator.comparingLong(
+                    (DeferredTrigger trigger) -> trigger.lastBuildDurationInMillis)
+            .reversed()
+            .thenComparingLong(trigger -> trigger.sequence));
+    private long sequence;
+    private boolean dispatchScheduled;
+
+    private long deferredTriggerCount;
+    private long dispatchedTriggerCount;
+    private long rejectedTriggerCount;
+    private long deferralInNanos;
+    private long maxDeferralInNanos;
+
+    /**
+     * @param maxTriggersPerMinute      maximum number of downstream pipelines triggered per minute, {@code 0} for no
+     *                                  limit. Up to one second of triggers can be issued at once.
+     * @param maxPendingItems           maximum number of builds triggered by the plugin waiting in the queue, {@code 0}
+     *                                  for no limit
+     * @param lastBuildDurationInMillis duration of the last build of the given job, {@code null} if unknown
+     */
+    DownstreamPipelineTriggerThrottle(
+            int maxTriggersPerMinute,
+            int maxPendingItems,
+            @NonNull Function<String, Long> lastBuildDurationInMillis) {
+        this(maxTriggersPerMinute, maxPendingItems, lastBuildDurationInMillis, createExecutor());
+    }
+
+    @VisibleForTesting
+    DownstreamPipelineTriggerThrottle(
+            int maxTriggersPerMinute,
+            int maxPendingItems,
+            @NonNull Function<String, Long> lastBuildDurationInMillis,
+            @NonNull ScheduledExecutorService executor) {
+        this.maxTriggersPerMinute = maxTriggersPerMinute;
+        this.maxPendingItems = maxPendingItems;
+        this.lastBuildDurationInMillis = lastBuildDurationInMillis;
+        this.executor = executor;
+        this.permitIntervalInNanos = maxTriggersPerMinute > 0 ? TimeUnit.MINUTES.toNanos(1) / maxTriggersPerMinute : 0;
+        this.burstToleranceInNanos = permitIntervalInNanos * (Math.max(1, maxTriggersPerMinute / 60) - 1);
+    }
+
+    private static ScheduledExecutorService createExecutor() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                1, new NamingThreadFactory(new DaemonThreadFactory(), "Pipeline Maven Plugin trigger throttle"));
+        executor.setKeepAliveTime(60, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Defer the trigger of the downstream pipeline if a limit is reached or if other triggers are already deferred.
+     * Otherwise, the caller triggers the downstream pipeline and reports it with {@link #onTriggered(Queue.Item)}.
+     * A deferred trigger is dispatched with the authentication of the caller deferring it first.
+     *
+     * @return {@code true} if the trigger is deferred
+     */
+    boolean defer(
+            @NonNull String downstreamJobFullName,
+            @NonNull Job<?, ?> downstreamJob,
+            @NonNull List<MavenDependencyUpstreamCause> causes) {
+        forgetLeftItems();
+        synchronized (this) {
+            if (deferredTriggers.isEmpty() && hasPendingItemCapacity(0) && tryAcquirePermit(System.nanoTime())) {
+                return false;
+            }
+            if (addCauses(downstreamJobFullName, causes)) {
+                return true;
+            }
+        }
+        // the database is queried without holding the monitor
+        long lastBuildDurationInMillis = getLastBuildDurationInMillis(downstreamJobFullName);
+        synchronized (this) {
+            if (!addCauses(downstreamJobFullName, causes)) {
+                DeferredTrigger trigger =
+                        new DeferredTrigger(downstreamJobFullName, downstreamJob, lastBuildDurationInMillis);
+                trigger.causes.addAll(causes);
+                deferredTriggersByJob.put(downstreamJobFullName, trigger);
+                deferredTriggers.add(trigger);
+                deferredTriggerCount++;
+                scheduleDispatch();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return {@code false} if the trigger of the given downstream pipeline is not deferred
+     */
+    private boolean addCauses(String downstreamJobFullName, List<MavenDependencyUpstreamCause> causes) {
+        DeferredTrigger trigger = deferredTriggersByJob.get(downstreamJobFullName);
+        if (trigger == null) {
+            return false;
+        }
+        trigger.causes.addAll(causes);
+        scheduleDispatch();
+        return true;
+    }
+
+    synchronized void onTriggered(@NonNull Queue.Item queuedItem) {
+        if (maxPendingItems > 0) {
+            pendingItemIds.add(queuedItem.getId());
+        }
+    }
+
+    private long getLastBuildDurationInMillis(String jobFullName) {
+        try {
+            Long durationInMillis = lastBuildDurationInMillis.apply(jobFullName);
+            return durationInMillis == null ? -1 : durationInMillis;
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.FINE, "Failure to get the last build duration of " + jobFullName, e);
+            return -1;
+        }
+    }
+
+    private boolean tryAcquirePermit(long nowInNanos) {
+        if (maxTriggersPerMinute <= 0) {
+            return true;
+        }
+        if (getNanosUntilNextPermit(nowInNanos) > 0) {
+            return false;
+        }
+        theoreticalTriggerTimeInNanos = Math.max(theoreticalTriggerTimeInNanos, nowInNanos) + permitIntervalInNanos;
+        return true;
+    }
+
+    private long getNanosUntilNextPermit(long nowInNanos) {
+        if (maxTriggersPerMinute <= 0 || theoreticalTriggerTimeInNanos == Long.MIN_VALUE) {
+            return 0;
+        }
+        return Math.max(0, theoreticalTriggerTimeInNanos - burstToleranceInNanos - nowInNanos);
+    }
+
+    /**
+     * @param inFlight triggers about to be issued and not yet in the queue
+     */
+    private boolean hasPendingItemCapacity(int inFlight) {
+        return maxPendingItems <= 0 || pendingItemIds.size() + inFlight < maxPendingItems;
+    }
+
+    /**
+     * Forget the triggered items that left the queue when the limit of pending items may be reached. The queue is
+     * looked up without holding the monitor.
+     */
+    private void forgetLeftItems() {
+        if (maxPendingItems <= 0) {
+            return;
+        }
+        List<Long> itemIds;
+        synchronized (this) {
+            if (pendingItemIds.size() + Math.max(1, deferredTriggers.size()) <= maxPendingItems) {
+                return;
+            }
+            itemIds = new ArrayList<>(pendingItemIds);
+        }
+        Queue queue = Jenkins.get().getQueue();
+        List<Long> leftItemIds = new ArrayList<>();
+        for (Long itemId : itemIds) {
+            Queue.Item item = queue.getItem(itemId);
+            if (item == null || item instanceof Queue.LeftItem) {
+                leftItemIds.add(itemId);
+            }
+        }
+        synchronized (this) {
+            leftItemIds.forEach(pendingItemIds::remove);
+        }
+    }
+
+    private void scheduleDispatch() {
+        if (dispatchScheduled) {
+            return;
+        }
+        long delayInNanos = hasPendingItemCapacity(0)
+                ? getNanosUntilNextPermit(System.nanoTime())
+                : PENDING_ITEMS_POLL_INTERVAL_IN_NANOS;
+        executor.schedule(this::dispatch, delayInNanos, TimeUnit.NANOSECONDS);
+        dispatchScheduled = true;
+    }
+
+    /**
+     * Trigger the deferred downstream pipelines allowed by the limits and schedule the next dispatch.
+     */
+    @VisibleForTesting
+    void dispatch() {
+        forgetLeftItems();
+        List<DeferredTrigger> triggers = new ArrayList<>();
+        synchronized (this) {
+            dispatchScheduled = false;
+            long nowInNanos = System.nanoTime();
+            while (!deferredTriggers.isEmpty()
+                    && hasPendingItemCapacity(triggers.size())
+                    && tryAcquirePermit(nowInNanos)) {
+                DeferredTrigger trigger = deferredTriggers.poll();
+                deferredTriggersByJob.remove(trigger.jobFullName);
+                triggers.add(trigger);
+            }
+        }
+        for (DeferredTrigger trigger : triggers) {
+            try {
+                trigger(trigger);
+            } catch (RuntimeException e) {
+                LOGGER.log(
+                        Level.WARNING, "Failure to trigger the deferred downstream pipeline " + trigger.jobFullName, e);
+            }
+        }
+        synchronized (this) {
+            if (!deferredTriggers.isEmpty()) {
+                scheduleDispatch();
+            }
+        }
+    }
+
+    private void trigger(DeferredTrigger trigger) {
+        Queue.Item queuedItem;
+        try (ACLContext ignored = ACL.as2(trigger.authentication)) {
+            queuedItem = ParameterizedJobMixIn.scheduleBuild2(
+                    trigger.job, -1, new CauseAction(new ArrayList<>(trigger.causes)));
+        }
+        long deferralInNanos = System.nanoTime() - trigger.deferTimeInNanos;
+        synchronized (this) {
+            this.deferralInNanos += deferralInNanos;
+            this.maxDeferralInNanos = Math.max(this.maxDeferralInNanos, deferralInNanos);
+            if (queuedItem == null) {
+                rejectedTriggerCount++;
+            } else {
+                dispatchedTriggerCount++;
+                onTriggered(queuedItem);
+            }
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(
+                    Level.FINE,
+                    "Triggered deferred downstream pipeline {0} after {1} ms due to dependencies on {2}: {3}",
+                    new Object[] {
+                        trigger.jobFullName,
+                        TimeUnit.NANOSECONDS.toMillis(deferralInNanos),
+                        trigger.causes.stream()
+                                .map(MavenDependencyUpstreamCause::getMavenArtifactsDescription)
+                                .collect(Collectors.joining(", ")),
+                        queuedItem == null ? "invocation rejected" : queuedItem
+                    });
+        }
+    }
+
+    /**
+     * Number of downstream pipeline triggers waiting for the limits.
+     */
+    public synchronized int getDeferredTriggers() {
+        return deferredTriggers.size();
+    }
+
+    public synchronized String toPrettyString() {
+        long dispatched = dispatchedTriggerCount + rejectedTriggerCount;
+        return "Downstream pipeline trigger throttle: " + "\r\n\t maxTriggersPerMinute=" + maxTriggersPerMinute
+                + ", maxPendingItems=" + maxPendingItems
+                + "\r\n\t deferredTriggers=" + getDeferredTriggers() + ", pendingItems=" + pendingItemIds.size()
+                + "\r\n\t deferred=" + deferredTriggerCount + ", dispatched=" + dispatchedTriggerCount
+                + ", rejected=" + rejectedTriggerCount
+                + "\r\n\t deferral: averageInMs="
+                + (dispatched == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(deferralInNanos / dispatched))
+                + ", maxInMs=" + TimeUnit.NANOSECONDS.toMillis(maxDeferralInNanos);
+    }
+
+    private class DeferredTrigger {
+        final String jobFullName;
+        final Job<?, ?> job;
+        final long lastBuildDurationInMillis;
+        final long sequence = DownstreamPipelineTriggerThrottle.this.sequence++;
+        final long deferTimeInNanos = System.nanoTime();
+        final Authentication authentication = Jenkins.getAuthentication2();
+        final List<MavenDependencyUpstreamCause> causes = new ArrayList<>();
+
+        DeferredTrigger(String jobFullName, Job<?, ?> job, long lastBuildDurationInMillis) {
+            this.jobFullName = jobFullName;
+            this.job = job;
+            this.lastBuildDurationInMillis = lastBuildDurationInMillis;
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package org.jenkinsci.plugins.pipeline.maven.listeners;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.console.ModelHyperlinkNote;
+import hudson.model.Cause;
+import hudson.model.CauseAction;
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import jenkins.model.Jenkins;
+import jenkins.model.ParameterizedJobMixIn;
+import org.jenkinsci.plugins.pipeline.maven.GlobalPipelineMavenConfig;
+import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
+import org.jenkinsci.plugins.pipeline.maven.cause.MavenDependencyCauseHelper;
+import org.jenkinsci.plugins.pipeline.maven.cause.MavenDependencyUpstreamCause;
+import org.jenkinsci.plugins.pipeline.maven.dao.PipelineMavenPluginDao;
+import org.jenkinsci.plugins.pipeline.maven.service.PipelineTriggerService;
+
+/**
+ * Trigger the downstream pipelines of an upstream build in topological waves.
+ * <p>
+ * The downstream closure of the upstream build is computed once from the database. The pipelines of the closure
+ * having no other upstream pipeline in the closure are triggered first, each other pipeline is triggered once all its
+ * upstream pipelines of the closure have completed. Each pipeline of the closure builds at most once per upstream
+ * build, whatever the order in which the builds of its upstream pipelines complete.
+ * <p>
+ * The waves in progress are kept in memory, by job full name and build number: the pipelines still waiting for their
+ * upstream pipelines when Jenkins restarts are not triggered. The pipelines of a wave are scheduled outside the
+ * monitor, with the throttle and the checks of the other triggers.
+ */
+class TopologicalWaveTrigger {
+
+    private static final Logger LOGGER = Logger.getLogger(TopologicalWaveTrigger.class.getName());
+
+    /**
+     * Waves still in progress after this delay are forgotten, for example when a triggered pipeline never builds.
+     */
+    private static final long WAVES_EXPIRATION_IN_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    private final GlobalPipelineMavenConfig globalPipelineMavenConfig;
+
+    @CheckForNull
+    private final DownstreamPipelineTriggerThrottle throttle;
+
+    /**
+     * Guarded by {@code this}.
+     */
+    private final List<Waves> wavesInProgress = new ArrayList<>();
+
+    /**
+     * Pipelines triggered by the waves in progress, read without lock to ignore the builds of the other pipelines.
+     */
+    private volatile Set<String> triggeredPipelineFullNames = Collections.emptySet();
+
+    /**
+     * @param throttle limits the triggering of the downstream pipelines, {@code null} to trigger them immediately
+     */
+    TopologicalWaveTrigger(
+            @NonNull GlobalPipelineMavenConfig globalPipelineMavenConfig,
+            @CheckForNull DownstreamPipelineTriggerThrottle throttle) {
+        this.globalPipelineMavenConfig = globalPipelineMavenConfig;
+        this.throttle = throttle;
+    }
+
+    /**
+     * Trigger the first wave of the downstream closure of the given upstream build.
+     */
+    void trigger(@NonNull Run<?, ?> upstreamBuild, @NonNull TaskListener listener) {
+        // the closure is computed without lock, onCompleted(...) is invoked for every completed build
+        Waves waves = computeWaves(upstreamBuild, listener);
+        if (waves.isDone()) {
+            return;
+        }
+        List<WaveTrigger> triggers = new ArrayList<>();
+        synchronized (this) {
+            wavesInProgress.add(waves);
+            waves.complete(
+                    waves.upstreamPipelineFullName, upstreamBuild.getNumber(), upstreamBuild.getResult(), triggers);
+            updateWavesInProgress();
+        }
+        schedule(triggers, listener);
+    }
+
+    /**
+     * Trigger the next wave if the given build has been triggered by a wave in progress.
+     *
+     * @return {@code true} if the build has been triggered by a wave in progress, its downstream pipelines are then
+     *     triggered by the waves. A build triggered by several waves, the triggers of a pipeline being merged in a
+     *     single queue item, completes all of them.
+     */
+    boolean onCompleted(@NonNull Run<?, ?> build, @NonNull TaskListener listener) {
+        String jobFullName = build.getParent().getFullName();
+        if (!triggeredPipelineFullNames.contains(jobFullName)) {
+            return false;
+        }
+        List<Cause> causes = build.getCauses();
+        List<WaveTrigger> triggers = new ArrayList<>();
+        boolean triggered = false;
+        synchronized (this) {
+            for (Waves waves : wavesInProgress) {
+                if (waves.isTriggered(jobFullName, causes)) {
+                    waves.complete(jobFullName, build.getNumber(), build.getResult(), triggers);
+                    triggered = true;
+                }
+            }
+            updateWavesInProgress();
+        }
+        schedule(triggers, listener);
+        return triggered;
+    }
+
+    /**
+     * Forget the waves done or expired and publish the pipelines triggered by the remaining ones.
+     */
+    private synchronized void updateWavesInProgress() {
+        long nowInMillis = System.currentTimeMillis();
+        wavesInProgress.removeIf(
+                waves -> waves.isDone() || nowInMillis - waves.startTimeInMillis > WAVES_EXPIRATION_IN_MILLIS);
+        Set<String> pipelineFullNames = new HashSet<>();
+        for (Waves waves : wavesInProgress) {
+            pipelineFullNames.addAll(waves.triggeredPipelines);
+        }
+        triggeredPipelineFullNames = pipelineFullNames;
+    }
+
+    /**
+     * Schedule, outside the monitor, the pipelines whose upstream pipelines of the closure are all done. The pipelines
+     * not scheduled are done in turn, which may make their downstream pipelines ready to be scheduled.
+     */
+    private void schedule(List<WaveTrigger> triggers, TaskListener listener) {
+        while (!triggers.isEmpty()) {
+            DownstreamPipelineTriggerPlan plan = new DownstreamPipelineTriggerPlan(throttle);
+            plan.startUpstreamBuild(listener);
+            List<WaveTrigger> acceptedTriggers = new ArrayList<>();
+            for (WaveTrigger trigger : triggers) {
+                if (addToPlan(trigger, plan, listener)) {
+                    acceptedTriggers.add(trigger);
+                }
+            }
+            Set<String> scheduledPipelineFullNames = plan.schedule();
+            List<WaveTrigger> nextTriggers = new ArrayList<>();
+            synchronized (this) {
+                for (WaveTrigger trigger : triggers) {
+                    if (!acceptedTriggers.contains(trigger)
+                            || !scheduledPipelineFullNames.contains(trigger.pipelineFullName)) {
+                        trigger.waves.skip(trigger.pipelineFullName, nextTriggers);
+                    }
+                }
+                updateWavesInProgress();
+            }
+            triggers = nextTriggers;
+        }
+    }
+
+    /**
+     * Add the given pipeline to the plan with the causes of the triggering upstream builds of the closure, unless it
+     * is not triggerable, has already been triggered for these causes or has a transitive upstream pipeline, outside
+     * of the closure, already building or in the queue.
+     *
+     * @return {@code true} if the pipeline has been added to the plan
+     */
+    private boolean addToPlan(WaveTrigger trigger, DownstreamPipelineTriggerPlan plan, TaskListener listener) {
+        String pipelineFullName = trigger.pipelineFullName;
+        Job<?, ?> pipeline = Jenkins.get().getItemByFullName(pipelineFullName, Job.class);
+        if (pipeline == null) {
+            listener.getLogger()
+                    .println("[withMaven] downstreamPipelineTriggerRunListener - Illegal state: " + pipelineFullName
+                            + " not resolved");
+            return false;
+        }
+        if (!pipeline.isBuildable()) {
+            if (LOGGER.isLoggable(Level.FINER)) {
+                listener.getLogger()
+                        .println("[withMaven] downstreamPipelineTriggerRunListener - Skip triggering of non "
+                                + "buildable downstream pipeline " + pipelineFullName);
+            }
+            return false;
+        }
+        PipelineTriggerService pipelineTriggerService = globalPipelineMavenConfig.getPipelineTriggerService();
+        if (pipelineTriggerService.getWorkflowJobDependencyTrigger(
+                        (ParameterizedJobMixIn.ParameterizedJob<?, ?>) pipeline)
+                == null) {
+            listener.getLogger()
+                    .println("[withMaven] downstreamPipelineTriggerRunListener - Skip triggering of downstream "
+                            + "pipeline " + pipelineFullName + ": dependency trigger not configured");
+            return false;
+        }
+        if (!pipelineTriggerService.isDownstreamVisibleByUpstreamBuildAuth(pipeline)) {
+            return false;
+        }
+
+        List<MavenDependencyUpstreamCause> causes = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : trigger.upstreamBuildNumbers.entrySet()) {
+            Job<?, ?> upstreamPipeline = Jenkins.get().getItemByFullName(entry.getKey(), Job.class);
+            Run<?, ?> upstreamBuild =
+                    upstreamPipeline == null ? null : upstreamPipeline.getBuildByNumber(entry.getValue());
+            if (upstreamBuild != null
+                    && pipelineTriggerService.isUpstreamBuildVisibleByDownstreamBuildAuth(upstreamPipeline, pipeline)) {
+                causes.add(new MavenDependencyUpstreamCause(
+                        upstreamBuild,
+                        trigger.waves.getUpstreamArtifacts(pipelineFullName, entry.getKey()),
+                        Collections.emptyList()));
+            }
+        }
+        if (causes.isEmpty()) {
+            if (LOGGER.isLoggable(Level.FINER)) {
+                listener.getLogger()
+                        .println("[withMaven] downstreamPipelineTriggerRunListener - Skip triggering "
+                                + ModelHyperlinkNote.encodeTo(pipeline)
+                                + " because none of its upstream pipelines triggers it");
+            }
+            return false;
+        }
+
+        Run<?, ?> lastBuild = pipeline.getLastBuild();
+        if (lastBuild != null) {
+            List<MavenArtifact> matchingMavenDependencies = new ArrayList<>();
+            List<MavenDependencyUpstreamCause> matchingCauses = new ArrayList<>();
+            for (MavenDependencyUpstreamCause cause : causes) {
+                List<MavenArtifact> matchingCauseDependencies =
+                        MavenDependencyCauseHelper.isSameCause(cause, lastBuild.getCauses());
+                if (!matchingCauseDependencies.isEmpty()) {
+                    matchingMavenDependencies.addAll(matchingCauseDependencies);
+                    matchingCauses.add(cause);
+                }
+            }
+            if (!matchingCauses.isEmpty()) {
+                causes.removeAll(matchingCauses);
+                lastBuild.addAction(new CauseAction(new ArrayList<>(matchingCauses)));
+                try {
+                    lastBuild.save();
+                } catch (IOException e) {
+                    listener.getLogger()
+                            .println("[withMaven] downstreamPipelineTriggerRunListener - Failure to update build "
+                                    + lastBuild.getFullDisplayName() + ": " + e.toString());
+                }
+                if (causes.isEmpty()) {
+                    listener.getLogger()
+                            .println("[withMaven] downstreamPipelineTriggerRunListener - Skip triggering downstream "
+                                    + "pipeline " + ModelHyperlinkNote.encodeTo(pipeline)
+                                    + " as it was already triggered for Maven dependencies: "
+                                    + matchingMavenDependencies.stream()
+                                            .map(MavenArtifact::getShortDescription)
+                                            .collect(Collectors.joining(", ")));
+                    return false;
+                }
+            }
+
+            // the transitive upstream pipelines of the closure are awaited by the waves
+            Map<String, Integer> transitiveUpstreamPipelines = globalPipelineMavenConfig
+                    .getDao()
+                    .listTransitiveUpstreamJobs(pipelineFullName, lastBuild.getNumber());
+            for (String transitiveUpstreamPipelineFullName : transitiveUpstreamPipelines.keySet()) {
+                if (!trigger.waves.contains(transitiveUpstreamPipelineFullName)
+                        && (plan.isBuilding(transitiveUpstreamPipelineFullName)
+                                || plan.isInQueue(transitiveUpstreamPipelineFullName))) {
+                    listener.getLogger()
+                            .println("[withMaven] downstreamPipelineTriggerRunListener - Skip triggering "
+                                    + ModelHyperlinkNote.encodeTo(pipeline)
+                                    + " because it has a dependency already building or in queue: "
+                                    + transitiveUpstreamPipelineFullName);
+                    return false;
+                }
+            }
+        }
+
+        for (MavenDependencyUpstreamCause cause : causes) {
+            plan.add(pipelineFullName, pipeline, cause);
+        }
+        return true;
+    }
+
+    private Waves computeWaves(Run<?, ?> upstreamBuild, TaskListener listener) {
+        PipelineMavenPluginDao dao = globalPipelineMavenConfig.getDao();
+        Waves waves = new Waves(upstreamBuild.getParent().getFullName());
+        Map<String, Integer> buildNumbers = new HashMap<>();
+        Map<String, List<MavenArtifact>> generatedArtifacts = new HashMap<>();
+
+        Deque<String> pipelinesToVisit = new ArrayDeque<>();
+        pipelinesToVisit.add(waves.upstreamPipelineFullName);
+        buildNumbers.put(waves.upstreamPipelineFullName, upstreamBuild.getNumber());
+        while (!pipelinesToVisit.isEmpty()) {
+            String pipelineFullName = pipelinesToVisit.poll();
+            Map<MavenArtifact, SortedSet<String>> downstreamPipelinesByArtifact =
+                    dao.listDownstreamJobsByArtifact(pipelineFullName, buildNumbers.get(pipelineFullName));
+            for (Map.Entry<MavenArtifact, SortedSet<String>> entry : downstreamPipelinesByArtifact.entrySet()) {
+                MavenArtifact mavenArtifact = entry.getKey();
+                for (String downstreamPipelineFullName : entry.getValue()) {
+                    if (downstreamPipelineFullName.equals(pipelineFullName)
+                            || downstreamPipelineFullName.equals(waves.upstreamPipelineFullName)) {
+                        continue;
+                    }
+                    if (!buildNumbers.containsKey(downstreamPipelineFullName)) {
+                        Job<?, ?> downstreamPipeline =
+                                Jenkins.get().getItemByFullName(downstreamPipelineFullName, Job.class);
+                        Run<?, ?> lastBuild = downstreamPipeline == null ? null : downstreamPipeline.getLastBuild();
+                        if (lastBuild == null) {
+                            LOGGER.log(
+                                    Level.FINE,
+                                    "Downstream pipeline {0} or downstream pipeline last build not found from upstream build {1}. Database synchronization issue or security restriction?",
+                                    new Object[] {downstreamPipelineFullName, upstreamBuild.getFullDisplayName()});
+                            buildNumbers.put(downstreamPipelineFullName, null);
+                            continue;
+                        }
+                        buildNumbers.put(downstreamPipelineFullName, lastBuild.getNumber());
+                        generatedArtifacts.put(
+                                downstreamPipelineFullName,
+                                dao.getGeneratedArtifacts(downstreamPipelineFullName, lastBuild.getNumber()));
+                        pipelinesToVisit.add(downstreamPipelineFullName);
+                    }
+                    if (buildNumbers.get(downstreamPipelineFullName) == null
+                            || generatedArtifacts.get(downstreamPipelineFullName).stream()
+                                    .anyMatch(generatedArtifact ->
+                                            Objects.equals(mavenArtifact.getGroupId(), generatedArtifact.getGroupId())
+                                                    && Objects.equals(
+                                                            mavenArtifact.getArtifactId(),
+                                                            generatedArtifact.getArtifactId()))) {
+                        continue;
+                    }
+                    waves.addDependency(downstreamPipelineFullName, pipelineFullName, mavenArtifact);
+                }
+            }
+        }
+        waves.sort(listener);
+        LOGGER.log(Level.FINE, "Downstream closure of {0}: {1}", new Object[] {
+            upstreamBuild.getFullDisplayName(), waves.pendingPipelines
+        });
+        return waves;
+    }
+
+    /**
+     * Pipeline of the closure whose upstream pipelines are all done, with the builds of its upstream pipelines
+     * triggering it.
+     */
+    private static class WaveTrigger {
+        final Waves waves;
+        final String pipelineFullName;
+        final Map<String, Integer> upstreamBuildNumbers;
+
+        WaveTrigger(Waves waves, String pipelineFullName, Map<String, Integer> upstreamBuildNumbers) {
+            this.waves = waves;
+            this.pipelineFullName = pipelineFullName;
+            this.upstreamBuildNumbers = upstreamBuildNumbers;
+        }
+    }
+
+    /**
+     * Downstream closure of an upstream build. The closure itself is not modified once computed, the progress of the
+     * waves is guarded by the monitor of the {@link TopologicalWaveTrigger}.
+     */
+    private class Waves {
+
+        final long startTimeInMillis = System.currentTimeMillis();
+        final String upstreamPipelineFullName;
+
+        /**
+         * Artifacts each pipeline of the closure depends on, by upstream pipeline.
+         */
+        final Map<String, Map<String, Set<MavenArtifact>>> upstreamArtifactsByPipeline = new TreeMap<>();
+
+        final Map<String, Set<String>> downstreamPipelines = new HashMap<>();
+
+        /**
+         * Pipelines waiting for the builds of their upstream pipelines to complete.
+         */
+        final Set<String> pendingPipelines = new LinkedHashSet<>();
+
+        /**
+         * Pipelines triggered and not completed yet.
+         */
+        final Set<String> triggeredPipelines = new HashSet<>();
+
+        /**
+         * Pipelines either completed or not triggered.
+         */
+        final Set<String> donePipelines = new HashSet<>();
+
+        /**
+         * Numbers of the builds completed with a result triggering downstream pipelines.
+         */
+        final Map<String, Integer> triggeringBuildNumbers = new HashMap<>();
+
+        Waves(String upstreamPipelineFullName) {
+            this.upstreamPipelineFullName = upstreamPipelineFullName;
+        }
+
+        void addDependency(String pipelineFullName, String upstreamPipelineFullName, MavenArtifact mavenArtifact) {
+            upstreamArtifactsByPipeline
+                    .computeIfAbsent(pipelineFullName, p -> new TreeMap<>())
+                    .computeIfAbsent(upstreamPipelineFullName, p -> new TreeSet<>())
+                    .add(mavenArtifact);
+            downstreamPipelines
+                    .computeIfAbsent(upstreamPipelineFullName, p -> new TreeSet<>())
+                    .add(pipelineFullName);
+        }
+
+        /**
+         * Keep the pipelines of the closure in topological order, the pipelines in or after a dependency cycle are not
+         * triggered.
+         */
+        void sort(TaskListener listener) {
+            Map<String, Integer> upstreamCounts = new HashMap<>();
+            upstreamArtifactsByPipeline.forEach(
+                    (pipeline, upstreamArtifacts) -> upstreamCounts.put(pipeline, upstreamArtifacts.size()));
+            Deque<String> sortedPipelines = new ArrayDeque<>();
+            sortedPipelines.add(upstreamPipelineFullName);
+            while (!sortedPipelines.isEmpty()) {
+                String pipelineFullName = sortedPipelines.poll();
+                for (String downstreamPipelineFullName :
+                        downstreamPipelines.getOrDefault(pipelineFullName, Collections.emptySet())) {
+                    if (upstreamCounts.merge(downstreamPipelineFullName, -1, Integer::sum) == 0) {
+                        pendingPipelines.add(downstreamPipelineFullName);
+                        sortedPipelines.add(downstreamPipelineFullName);
+                    }
+                }
+            }
+            for (String pipelineFullName : upstreamArtifactsByPipeline.keySet()) {
+                if (!pendingPipelines.contains(pipelineFullName)) {
+                    listener.getLogger()
+                            .println("[withMaven] downstreamPipelineTriggerRunListener - Infinite loop detected: skip "
+                                    + "triggering " + pipelineFullName + " because it depends on a dependency cycle");
+                }
+            }
+        }
+
+        boolean isDone() {
+            return pendingPipelines.isEmpty() && triggeredPipelines.isEmpty();
+        }
+
+        /**
+         * @return {@code true} if the given pipeline is the upstream pipeline or a pipeline of the closure
+         */
+        boolean contains(String pipelineFullName) {
+            return pipelineFullName.equals(upstreamPipelineFullName)
+                    || upstreamArtifactsByPipeline.containsKey(pipelineFullName);
+        }
+
+        Set<MavenArtifact> getUpstreamArtifacts(String pipelineFullName, String upstreamPipelineFullName) {
+            return upstreamArtifactsByPipeline.get(pipelineFullName).get(upstreamPipelineFullName);
+        }
+
+        /**
+         * @return {@code true} if the build of the given pipeline with the given causes has been triggered by these
+         *     waves
+         */
+        boolean isTriggered(String pipelineFullName, List<Cause> causes) {
+            if (!triggeredPipelines.contains(pipelineFullName)) {
+                return false;
+            }
+            for (Cause cause : causes) {
+                if (cause instanceof MavenDependencyUpstreamCause) {
+                    MavenDependencyUpstreamCause upstreamCause = (MavenDependencyUpstreamCause) cause;
+                    Integer triggeringBuildNumber = triggeringBuildNumbers.get(upstreamCause.getUpstreamProject());
+                    if (triggeringBuildNumber != null && triggeringBuildNumber == upstreamCause.getUpstreamBuild()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Complete the given pipeline and collect its downstream pipelines ready to be triggered.
+         */
+        void complete(String pipelineFullName, int buildNumber, Result result, List<WaveTrigger> triggers) {
+            triggeredPipelines.remove(pipelineFullName);
+            donePipelines.add(pipelineFullName);
+            if (globalPipelineMavenConfig.getTriggerDownstreamBuildsResultsCriteria().contains(result)) {
+                triggeringBuildNumbers.put(pipelineFullName, buildNumber);
+            }
+            completeUpstream(pipelineFullName, triggers);
+        }
+
+        /**
+         * The given pipeline has not been scheduled, consider it as done.
+         */
+        void skip(String pipelineFullName, List<WaveTrigger> triggers) {
+            triggeredPipelines.remove(pipelineFullName);
+            donePipelines.add(pipelineFullName);
+            completeUpstream(pipelineFullName, triggers);
+        }
+
+        /**
+         * Collect the downstream pipelines of the given pipeline whose upstream pipelines are all done, they are
+         * considered as triggered until they are scheduled or skipped.
+         */
+        private void completeUpstream(String pipelineFullName, List<WaveTrigger> triggers) {
+            for (String downstreamPipelineFullName :
+                    downstreamPipelines.getOrDefault(pipelineFullName, Collections.emptySet())) {
+                Set<String> upstreamPipelineFullNames =
+                        upstreamArtifactsByPipeline.get(downstreamPipelineFullName).keySet();
+                if (pendingPipelines.contains(downstreamPipelineFullName)
+                        && donePipelines.containsAll(upstreamPipelineFullNames)) {
+                    pendingPipelines.remove(downstreamPipelineFullName);
+                    triggeredPipelines.add(downstreamPipelineFullName);
+                    Map<String, Integer> upstreamBuildNumbers = new TreeMap<>();
+                    for (String upstreamPipelineFullName : upstreamPipelineFullNames) {
+                        Integer triggeringBuildNumber = triggeringBuildNumbers.get(upstreamPipelineFullName);
+                        if (triggeringBuildNumber != null) {
+                            upstreamBuildNumbers.put(upstreamPipelineFullName, triggeringBuildNumber);
+                        }
+                    }
+                    triggers.add(new WaveTrigger(this, downstreamPipelineFullName, upstreamBuildNumbers));
+                }
+            }
+        }
+    }
+}
@@ -186,5 +186,13 @@ public class ConcordionTestsPublisher extends MavenPublisher {
         public String getSkipFileName() {
             return ".skip-publish-concordion-results";
         }
+
+        @NonNull
+        @Override
+        public Set<String> getMavenSpyEventSubscriptions() {
+            return Set.of(
+                    GROUP_ID + ":" + SUREFIRE_ID + ":" + SUREFIRE_GOAL,
+                    GROUP_ID + ":" + FAILSAFE_ID + ":" + FAILSAFE_GOAL);
+        }
     }
 }
@@ -20,6 +20,7 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -267,6 +268,14 @@ public class CoveragePublisher extends MavenPublisher {
             return ".skip-publish-coverage-results";
         }
 
+        @NonNull
+        @Override
+        public Set<String> getMavenSpyEventSubscriptions() {
+            return Set.of(
+                    COBERTURA_GROUP_ID + ":" + COBERTURA_ID + ":" + COBERTURA_REPORT_GOAL,
+                    JACOCO_GROUP_ID + ":" + JACOCO_ID + ":" + JACOCO_REPORT_GOAL);
+        }
+
         @POST
         public ListBoxModel doFillSourceCodeRetentionItems() {
             if (Jenkins.get().getACL().hasPermission(Jenkins.READ)) {
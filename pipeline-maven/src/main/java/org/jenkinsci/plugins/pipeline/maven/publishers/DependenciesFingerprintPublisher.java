@@ -282,5 +282,11 @@ public class DependenciesFingerprintPublisher extends MavenPublisher {
         public String getSkipFileName() {
             return ".skip-fingerprint-maven-dependencies";
         }
+
+        @NonNull
+        @Override
+        public Set<String> getMavenSpyEventSubscriptions() {
+            return Set.of("DependencyResolutionResult");
+        }
     }
 }
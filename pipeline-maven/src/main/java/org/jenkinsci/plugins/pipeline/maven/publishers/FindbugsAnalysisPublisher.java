@@ -34,6 +34,7 @@ import hudson.plugins.findbugs.FindBugsPublisher;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jenkinsci.Symbol;
@@ -267,5 +268,11 @@ public class FindbugsAnalysisPublisher extends AbstractHealthAwarePublisher {
         public String getSkipFileName() {
             return ".skip-publish-findbugs-results";
         }
+
+        @NonNull
+        @Override
+        public Set<String> getMavenSpyEventSubscriptions() {
+            return Set.of("org.codehaus.mojo:findbugs-maven-plugin:findbugs");
+        }
     }
 }
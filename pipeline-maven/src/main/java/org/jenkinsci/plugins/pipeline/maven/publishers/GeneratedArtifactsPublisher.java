@@ -15,6 +15,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jenkins.model.ArtifactManager;
@@ -189,6 +190,12 @@ public class GeneratedArtifactsPublisher extends MavenPublisher {
         public String getSkipFileName() {
             return ".skip-archive-generated-artifacts";
         }
+
+        @NonNull
+        @Override
+        public Set<String> getMavenSpyEventSubscriptions() {
+            return Set.of("ProjectSucceeded", "ArtifactDeployed");
+        }
     }
 
     public boolean isFingerprintFilesDisabled() {
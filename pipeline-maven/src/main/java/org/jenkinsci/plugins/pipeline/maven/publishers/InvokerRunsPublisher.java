@@ -36,6 +36,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jenkinsci.Symbol;
@@ -317,5 +318,13 @@ public class InvokerRunsPublisher extends MavenPublisher {
         public String getSkipFileName() {
             return ".skip-publish-invoker-runs";
         }
+
+        @NonNull
+        @Override
+        public Set<String> getMavenSpyEventSubscriptions() {
+            return Set.of(
+                    GROUP_ID + ":" + ARTIFACT_ID + ":" + RUN_GOAL,
+                    GROUP_ID + ":" + ARTIFACT_ID + ":" + INTEGRATION_TEST_GOAL);
+        }
     }
 }
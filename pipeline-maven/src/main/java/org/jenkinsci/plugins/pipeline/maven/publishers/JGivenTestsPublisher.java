@@ -30,6 +30,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jenkinsci.Symbol;
@@ -138,5 +139,11 @@ public class JGivenTestsPublisher extends MavenPublisher {
         public String getSkipFileName() {
             return ".skip-publish-jgiven-results";
         }
+
+        @NonNull
+        @Override
+        public Set<String> getMavenSpyEventSubscriptions() {
+            return Set.of("DependencyResolutionResult");
+        }
     }
 }
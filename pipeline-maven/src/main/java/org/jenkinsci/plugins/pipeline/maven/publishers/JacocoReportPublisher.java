@@ -28,6 +28,7 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.AbortException;
 import hudson.Extension;
 import java.io.IOException;
+import java.util.Set;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.pipeline.maven.MavenPublisher;
 import org.jenkinsci.plugins.pipeline.maven.Messages;
@@ -139,5 +140,14 @@ public class JacocoReportPublisher extends MavenPublisher {
         public String getSkipFileName() {
             return ".skip-publish-jacoco-results";
         }
+
+        /**
+         * Deprecated publisher which fails the build, see {@link CoveragePublisher}
+         */
+        @NonNull
+        @Override
+        public Set<String> getMavenSpyEventSubscriptions() {
+            return Set.of();
+        }
     }
 }
@@ -38,6 +38,7 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -417,5 +418,16 @@ public class JunitTestsPublisher extends MavenPublisher {
         public String getSkipFileName() {
             return ".skip-publish-junit-results";
         }
+
+        @NonNull
+        @Override
+        public Set<String> getMavenSpyEventSubscriptions() {
+            return Set.of(
+                    APACHE_GROUP_ID + ":" + SUREFIRE_ID + ":" + SUREFIRE_GOAL,
+                    APACHE_GROUP_ID + ":" + FAILSAFE_ID + ":" + FAILSAFE_GOAL,
+                    TYCHO_GROUP_ID + ":" + TYCHO_ID + ":" + TYCHO_GOAL,
+                    KARMA_GROUP_ID + ":" + KARMA_ID + ":" + KARMA_GOAL,
+                    FRONTEND_GROUP_ID + ":" + FRONTEND_ID + ":" + FRONTEND_GOAL);
+        }
     }
 }
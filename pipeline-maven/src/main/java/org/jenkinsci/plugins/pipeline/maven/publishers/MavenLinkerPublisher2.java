@@ -3,6 +3,7 @@ package org.jenkinsci.plugins.pipeline.maven.publishers;
 import hudson.Extension;
 import hudson.model.Run;
 import java.io.IOException;
+import java.util.Set;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.pipeline.maven.MavenPublisher;
 import org.jenkinsci.plugins.pipeline.maven.Messages;
@@ -56,6 +57,14 @@ public class MavenLinkerPublisher2 extends MavenPublisher {
             return ".skip-maven-linker-publisher";
         }
 
+        /**
+         * Doesn't read the Maven spy logs
+         */
+        @Override
+        public Set<String> getMavenSpyEventSubscriptions() {
+            return Set.of();
+        }
+
         @Override
         public String getDisplayName() {
             return Messages.publisher_maven_linker_description();
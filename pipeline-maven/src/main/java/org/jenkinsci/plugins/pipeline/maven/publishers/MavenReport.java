@@ -2,6 +2,7 @@ package org.jenkinsci.plugins.pipeline.maven.publishers;
 
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.ExtensionList;
 import hudson.model.Action;
 import hudson.model.Item;
 import hudson.model.Job;
@@ -26,6 +27,10 @@ import org.jenkinsci.plugins.pipeline.maven.GlobalPipelineMavenConfig;
 import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
 import org.jenkinsci.plugins.pipeline.maven.MavenDependency;
 import org.jenkinsci.plugins.pipeline.maven.Messages;
+import org.jenkinsci.plugins.pipeline.maven.listeners.DownstreamPipelineTriggerRunListener;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.verb.POST;
 
 /**
  * Maven report for the build. Intended to be extended.
@@ -201,4 +206,16 @@ public class MavenReport implements RunAction2, SimpleBuildStep.LastBuildAction,
     public String getUrlName() {
         return "maven";
     }
+
+    /**
+     * Evaluate the downstream pipelines of the build without triggering them, see
+     * {@link DownstreamPipelineTriggerRunListener#simulate(Run)}.
+     */
+    @POST
+    public HttpResponse doSimulateDownstreamTriggers() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        return HttpResponses.plainText(ExtensionList.lookupSingleton(DownstreamPipelineTriggerRunListener.class)
+                .simulate(run)
+                .toPrettyString());
+    }
 }
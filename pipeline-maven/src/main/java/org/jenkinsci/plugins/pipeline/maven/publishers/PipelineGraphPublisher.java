@@ -9,6 +9,7 @@ import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.util.ListBoxModel;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
@@ -86,9 +87,32 @@ public class PipelineGraphPublisher extends MavenPublisher {
         List<MavenArtifact> generatedArtifacts = XmlUtils.listGeneratedArtifacts(mavenSpyLogsElt, true);
         List<String> executedLifecyclePhases = XmlUtils.getExecutedLifecyclePhases(mavenSpyLogsElt);
 
-        recordParentProject(parentProjects, run, listener, dao);
-        recordDependencies(dependencies, generatedArtifacts, run, listener, dao);
-        recordGeneratedArtifacts(generatedArtifacts, executedLifecyclePhases, run, listener, dao);
+        boolean skipDownstreamPipelines =
+                this.skipDownstreamTriggers || (!executedLifecyclePhases.contains(this.lifecycleThreshold));
+
+        List<MavenArtifact> recordedParentProjects = filterParentProjects(parentProjects, listener);
+        List<MavenDependency> recordedDependencies = filterDependencies(dependencies, listener);
+        logGeneratedArtifacts(generatedArtifacts, executedLifecyclePhases, run, listener);
+
+        try {
+            dao.recordBuildGraph(
+                    run.getParent().getFullName(),
+                    run.getNumber(),
+                    recordedDependencies,
+                    recordedParentProjects,
+                    generatedArtifacts,
+                    this.ignoreUpstreamTriggers,
+                    skipDownstreamPipelines);
+        } catch (RuntimeException e) {
+            listener.error("[withMaven] pipelineGraphPublisher - WARNING: Exception recording the dependency graph of "
+                    + run.getParent().getFullName() + "#" + run.getNumber() + ", record it row by row");
+            e.printStackTrace(listener.getLogger());
+            listener.getLogger().flush();
+
+            recordParentProject(parentProjects, run, listener, dao);
+            recordDependencies(dependencies, generatedArtifacts, run, listener, dao);
+            recordGeneratedArtifacts(generatedArtifacts, executedLifecyclePhases, run, listener, dao);
+        }
     }
 
     protected void recordParentProject(
@@ -96,6 +120,87 @@ public class PipelineGraphPublisher extends MavenPublisher {
             @NonNull Run run,
             @NonNull TaskListener listener,
             @NonNull PipelineMavenPluginDao dao) {
+        for (MavenArtifact parentProject : filterParentProjects(parentProjects, listener)) {
+            try {
+                dao.recordParentProject(
+                        run.getParent().getFullName(),
+                        run.getNumber(),
+                        parentProject.getGroupId(),
+                        parentProject.getArtifactId(),
+                        parentProject.getVersion(),
+                        this.ignoreUpstreamTriggers);
+
+            } catch (RuntimeException e) {
+                listener.error("[withMaven] pipelineGraphPublisher - WARNING: Exception recording parent project "
+                        + parentProject.getId() + " on build, skip");
+                e.printStackTrace(listener.getLogger());
+                listener.getLogger().flush();
+            }
+        }
+    }
+
+    protected void recordDependencies(
+            List<MavenDependency> dependencies,
+            List<MavenArtifact> generatedArtifacts,
+            @NonNull Run run,
+            @NonNull TaskListener listener,
+            @NonNull PipelineMavenPluginDao dao) {
+        for (MavenDependency dependency : filterDependencies(dependencies, listener)) {
+            try {
+                dao.recordDependency(
+                        run.getParent().getFullName(),
+                        run.getNumber(),
+                        dependency.getGroupId(),
+                        dependency.getArtifactId(),
+                        dependency.getBaseVersion(),
+                        dependency.getType(),
+                        dependency.getScope(),
+                        this.ignoreUpstreamTriggers,
+                        dependency.getClassifier());
+
+            } catch (RuntimeException e) {
+                listener.error("[withMaven] pipelineGraphPublisher - WARNING: Exception recording " + dependency.getId()
+                        + " on build, skip");
+                e.printStackTrace(listener.getLogger());
+                listener.getLogger().flush();
+            }
+        }
+    }
+
+    /**
+     * @param generatedArtifacts           deployed artifacts
+     * @param executedLifecyclePhases Maven lifecycle phases that have been gone through during the Maven execution (e.g. "..., compile, test, package..." )
+     * @param run
+     * @param listener
+     * @param dao
+     */
+    protected void recordGeneratedArtifacts(
+            List<MavenArtifact> generatedArtifacts,
+            List<String> executedLifecyclePhases,
+            @NonNull Run run,
+            @NonNull TaskListener listener,
+            @NonNull PipelineMavenPluginDao dao) {
+        logGeneratedArtifacts(generatedArtifacts, executedLifecyclePhases, run, listener);
+        boolean skipDownstreamPipelines =
+                this.skipDownstreamTriggers || (!executedLifecyclePhases.contains(this.lifecycleThreshold));
+        for (MavenArtifact artifact : generatedArtifacts) {
+            dao.recordGeneratedArtifact(
+                    run.getParent().getFullName(),
+                    run.getNumber(),
+                    artifact.getGroupId(),
+                    artifact.getArtifactId(),
+                    artifact.getVersion(),
+                    artifact.getType(),
+                    artifact.getBaseVersion(),
+                    artifact.getRepositoryUrl(),
+                    skipDownstreamPipelines,
+                    artifact.getExtension(),
+                    artifact.getClassifier());
+        }
+    }
+
+    private List<MavenArtifact> filterParentProjects(
+            List<MavenArtifact> parentProjects, @NonNull TaskListener listener) {
         if (LOGGER.isLoggable(Level.FINE)) {
             listener.getLogger()
                     .println("[withMaven] pipelineGraphPublisher - recordParentProject - filter: "
@@ -103,6 +208,7 @@ public class PipelineGraphPublisher extends MavenPublisher {
                             + isIncludeReleaseVersions() + "]");
         }
 
+        List<MavenArtifact> result = new ArrayList<>();
         for (MavenArtifact parentProject : parentProjects) {
             if (parentProject.isSnapshot()) {
                 if (!includeSnapshotVersions) {
@@ -124,36 +230,18 @@ public class PipelineGraphPublisher extends MavenPublisher {
                 }
             }
 
-            try {
-                if (LOGGER.isLoggable(Level.FINE)) {
-                    listener.getLogger()
-                            .println("[withMaven] pipelineGraphPublisher - Record parent project: "
-                                    + parentProject.getId() + ", ignoreUpstreamTriggers: " + ignoreUpstreamTriggers);
-                }
-
-                dao.recordParentProject(
-                        run.getParent().getFullName(),
-                        run.getNumber(),
-                        parentProject.getGroupId(),
-                        parentProject.getArtifactId(),
-                        parentProject.getVersion(),
-                        this.ignoreUpstreamTriggers);
-
-            } catch (RuntimeException e) {
-                listener.error("[withMaven] pipelineGraphPublisher - WARNING: Exception recording parent project "
-                        + parentProject.getId() + " on build, skip");
-                e.printStackTrace(listener.getLogger());
-                listener.getLogger().flush();
+            if (LOGGER.isLoggable(Level.FINE)) {
+                listener.getLogger()
+                        .println("[withMaven] pipelineGraphPublisher - Record parent project: " + parentProject.getId()
+                                + ", ignoreUpstreamTriggers: " + ignoreUpstreamTriggers);
             }
+            result.add(parentProject);
         }
+        return result;
     }
 
-    protected void recordDependencies(
-            List<MavenDependency> dependencies,
-            List<MavenArtifact> generatedArtifacts,
-            @NonNull Run run,
-            @NonNull TaskListener listener,
-            @NonNull PipelineMavenPluginDao dao) {
+    private List<MavenDependency> filterDependencies(
+            List<MavenDependency> dependencies, @NonNull TaskListener listener) {
         if (LOGGER.isLoggable(Level.FINE)) {
             listener.getLogger()
                     .println(
@@ -163,6 +251,8 @@ public class PipelineGraphPublisher extends MavenPublisher {
                                     + getIncludedScopes());
         }
 
+        Set<String> includedScopes = getIncludedScopes();
+        List<MavenDependency> result = new ArrayList<>();
         for (MavenDependency dependency : dependencies) {
             if (dependency.isSnapshot()) {
                 if (!includeSnapshotVersions) {
@@ -183,7 +273,7 @@ public class PipelineGraphPublisher extends MavenPublisher {
                     continue;
                 }
             }
-            if (!getIncludedScopes().contains(dependency.getScope())) {
+            if (!includedScopes.contains(dependency.getScope())) {
                 if (LOGGER.isLoggable(Level.FINER)) {
                     listener.getLogger()
                             .println(
@@ -193,31 +283,14 @@ public class PipelineGraphPublisher extends MavenPublisher {
                 continue;
             }
 
-            try {
-                if (LOGGER.isLoggable(Level.FINE)) {
-                    listener.getLogger()
-                            .println("[withMaven] pipelineGraphPublisher - Record dependency: " + dependency.getId()
-                                    + ", ignoreUpstreamTriggers: " + ignoreUpstreamTriggers);
-                }
-
-                dao.recordDependency(
-                        run.getParent().getFullName(),
-                        run.getNumber(),
-                        dependency.getGroupId(),
-                        dependency.getArtifactId(),
-                        dependency.getBaseVersion(),
-                        dependency.getType(),
-                        dependency.getScope(),
-                        this.ignoreUpstreamTriggers,
-                        dependency.getClassifier());
-
-            } catch (RuntimeException e) {
-                listener.error("[withMaven] pipelineGraphPublisher - WARNING: Exception recording " + dependency.getId()
-                        + " on build, skip");
-                e.printStackTrace(listener.getLogger());
-                listener.getLogger().flush();
+            if (LOGGER.isLoggable(Level.FINE)) {
+                listener.getLogger()
+                        .println("[withMaven] pipelineGraphPublisher - Record dependency: " + dependency.getId()
+                                + ", ignoreUpstreamTriggers: " + ignoreUpstreamTriggers);
             }
+            result.add(dependency);
         }
+        return result;
     }
 
     /**
@@ -225,55 +298,37 @@ public class PipelineGraphPublisher extends MavenPublisher {
      * @param executedLifecyclePhases Maven lifecycle phases that have been gone through during the Maven execution (e.g. "..., compile, test, package..." )
      * @param run
      * @param listener
-     * @param dao
      */
-    protected void recordGeneratedArtifacts(
+    private void logGeneratedArtifacts(
             List<MavenArtifact> generatedArtifacts,
             List<String> executedLifecyclePhases,
             @NonNull Run run,
-            @NonNull TaskListener listener,
-            @NonNull PipelineMavenPluginDao dao) {
-        if (LOGGER.isLoggable(Level.FINE)) {
-            listener.getLogger().println("[withMaven] pipelineGraphPublisher - recordGeneratedArtifacts...");
+            @NonNull TaskListener listener) {
+        if (!LOGGER.isLoggable(Level.FINE)) {
+            return;
         }
+        listener.getLogger().println("[withMaven] pipelineGraphPublisher - recordGeneratedArtifacts...");
         for (MavenArtifact artifact : generatedArtifacts) {
-            boolean skipDownstreamPipelines =
-                    this.skipDownstreamTriggers || (!executedLifecyclePhases.contains(this.lifecycleThreshold));
-
-            if (LOGGER.isLoggable(Level.FINE)) {
-                LOGGER.log(
-                        Level.FINE,
-                        "Build {0}#{1} - record generated {2}:{3}, version:{4}, " + "executedLifecyclePhases: {5}, "
-                                + "skipDownstreamTriggers:{6}, lifecycleThreshold: {7}",
-                        new Object[] {
-                            run.getParent().getFullName(),
-                            run.getNumber(),
-                            artifact.getId(),
-                            artifact.getType(),
-                            artifact.getVersion(),
-                            executedLifecyclePhases,
-                            skipDownstreamTriggers,
-                            lifecycleThreshold
-                        });
-                listener.getLogger()
-                        .println("[withMaven] pipelineGraphPublisher - Record generated artifact: " + artifact.getId()
-                                + ", version: " + artifact.getVersion() + ", executedLifecyclePhases: "
-                                + executedLifecyclePhases + ", skipDownstreamTriggers: "
-                                + skipDownstreamTriggers + ", lifecycleThreshold:" + lifecycleThreshold + ", file: "
-                                + artifact.getFile());
-            }
-            dao.recordGeneratedArtifact(
-                    run.getParent().getFullName(),
-                    run.getNumber(),
-                    artifact.getGroupId(),
-                    artifact.getArtifactId(),
-                    artifact.getVersion(),
-                    artifact.getType(),
-                    artifact.getBaseVersion(),
-                    artifact.getRepositoryUrl(),
-                    skipDownstreamPipelines,
-                    artifact.getExtension(),
-                    artifact.getClassifier());
+            LOGGER.log(
+                    Level.FINE,
+                    "Build {0}#{1} - record generated {2}:{3}, version:{4}, " + "executedLifecyclePhases: {5}, "
+                            + "skipDownstreamTriggers:{6}, lifecycleThreshold: {7}",
+                    new Object[] {
+                        run.getParent().getFullName(),
+                        run.getNumber(),
+                        artifact.getId(),
+                        artifact.getType(),
+                        artifact.getVersion(),
+                        executedLifecyclePhases,
+                        skipDownstreamTriggers,
+                        lifecycleThreshold
+                    });
+            listener.getLogger()
+                    .println("[withMaven] pipelineGraphPublisher - Record generated artifact: " + artifact.getId()
+                            + ", version: " + artifact.getVersion() + ", executedLifecyclePhases: "
+                            + executedLifecyclePhases + ", skipDownstreamTriggers: "
+                            + skipDownstreamTriggers + ", lifecycleThreshold:" + lifecycleThreshold + ", file: "
+                            + artifact.getFile());
         }
     }
 
@@ -390,6 +445,15 @@ public class PipelineGraphPublisher extends MavenPublisher {
             return ".skip-pipeline-graph";
         }
 
+        /**
+         * All the plugin goals for the executed lifecycle phases
+         */
+        @NonNull
+        @Override
+        public Set<String> getMavenSpyEventSubscriptions() {
+            return Set.of("ProjectStarted", "ProjectSucceeded", "ArtifactDeployed", "DependencyResolutionResult", "*");
+        }
+
         /**
          * Only propose "package", "install" and "deploy" because the other lifecycle phases are unlikely to be useful
          * @return
@@ -32,6 +32,7 @@ import hudson.model.TaskListener;
 import hudson.plugins.findbugs.FindBugsPublisher;
 import java.io.IOException;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jenkinsci.Symbol;
@@ -265,5 +266,11 @@ public class SpotBugsAnalysisPublisher extends AbstractHealthAwarePublisher {
         public String getSkipFileName() {
             return ".skip-publish-spotbugs-results";
         }
+
+        @NonNull
+        @Override
+        public Set<String> getMavenSpyEventSubscriptions() {
+            return Set.of("com.github.spotbugs:spotbugs-maven-plugin:spotbugs");
+        }
     }
 }
@@ -12,6 +12,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -277,5 +278,11 @@ public class TasksScannerPublisher extends AbstractHealthAwarePublisher {
         public String getSkipFileName() {
             return ".skip-task-scanner";
         }
+
+        @NonNull
+        @Override
+        public Set<String> getMavenSpyEventSubscriptions() {
+            return Set.of("ProjectSucceeded", "ProjectFailed");
+        }
     }
 }
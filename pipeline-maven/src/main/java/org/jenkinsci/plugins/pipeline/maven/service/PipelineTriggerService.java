@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +39,7 @@ import org.acegisecurity.AccessDeniedException;
 import org.acegisecurity.Authentication;
 import org.jenkinsci.plugins.pipeline.maven.GlobalPipelineMavenConfig;
 import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
+import org.jenkinsci.plugins.pipeline.maven.cause.MavenDependencyAbstractCause;
 import org.jenkinsci.plugins.pipeline.maven.cause.MavenDependencyCause;
 import org.jenkinsci.plugins.pipeline.maven.cause.MavenDependencyCauseHelper;
 import org.jenkinsci.plugins.pipeline.maven.dao.PipelineMavenPluginDao;
@@ -51,6 +53,12 @@ public class PipelineTriggerService {
     private static final java.util.logging.Logger LOGGER =
             java.util.logging.Logger.getLogger(PipelineTriggerService.class.getName());
 
+    /**
+     * Maximum number of builds loaded to walk the upstream causes when the database can't answer.
+     */
+    private static final int UPSTREAM_CAUSE_WALK_MAX_BUILDS = Integer.getInteger(
+            "org.jenkinsci.plugins.pipeline.PipelineMavenPluginDao.UPSTREAM_CAUSE_WALK_MAX_BUILDS", 1_000);
+
     private final GlobalPipelineMavenConfig globalPipelineMavenConfig;
 
     public PipelineTriggerService(@NonNull GlobalPipelineMavenConfig globalPipelineMavenConfig) {
@@ -77,43 +85,44 @@ public class PipelineTriggerService {
 
     public Collection<String> triggerDownstreamPipelines(
             @NonNull Collection<MavenArtifact> upstreamArtifacts,
-            @NonNull MavenDependencyCause cause,
+            @NonNull MavenDependencyCause upstreamCause,
             @NonNull ServiceLogger logger) {
 
-        if (!(cause instanceof Cause)) {
-            throw new IllegalArgumentException("Given cause must extend hudson.model.Cause: " + cause);
+        if (!(upstreamCause instanceof Cause)) {
+            throw new IllegalArgumentException("Given cause must extend hudson.model.Cause: " + upstreamCause);
         }
 
-        if (cause.getMavenArtifacts() == null) {
+        if (upstreamCause.getMavenArtifacts() == null) {
             throw new IllegalArgumentException("given cause.mavenArtifacts cannot be null");
         }
 
         long startTimeInNanos = System.nanoTime();
 
-        Map<MavenArtifact, SortedSet<String>> downstreamPipelinesByArtifact = new HashMap<>();
-        for (MavenArtifact mavenArtifact : upstreamArtifacts) {
-            PipelineMavenPluginDao dao = globalPipelineMavenConfig.getDao();
-            // FIXME use classifier in search query
-            SortedSet<String> downstreamPipelines = dao.listDownstreamJobs(
-                    mavenArtifact.getGroupId(),
-                    mavenArtifact.getArtifactId(),
-                    mavenArtifact.getVersion(),
-                    mavenArtifact.getBaseVersion(),
-                    mavenArtifact.getType());
-            downstreamPipelinesByArtifact.put(mavenArtifact, downstreamPipelines);
+        PipelineMavenPluginDao dao = globalPipelineMavenConfig.getDao();
+        Map<MavenArtifact, SortedSet<String>> downstreamPipelinesByArtifact =
+                dao.listDownstreamJobsByArtifact(upstreamArtifacts);
+        int queryCount = 1;
+
+        // the downstream pipelines of all the given artifacts are evaluated as a whole
+        Set<String> downstreamPipelines = new HashSet<>();
+        for (SortedSet<String> artifactDownstreamPipelines : downstreamPipelinesByArtifact.values()) {
+            downstreamPipelines.addAll(artifactDownstreamPipelines);
         }
+        // the eligibility of a downstream pipeline doesn't depend on the artifact, it is evaluated once
+        Set<String> evaluatedPipelines = new HashSet<>();
 
         Map<String, Set<MavenArtifact>> jobsToTrigger = new TreeMap<>();
         Map<String, Set<String>> omittedPipelineTriggersByPipelineFullname = new HashMap<>();
+        // taken when the first transitive upstream pipeline is checked
+        QueueSnapshot queueSnapshot = null;
 
         // build the list of pipelines to trigger
         for (Map.Entry<MavenArtifact, SortedSet<String>> entry : downstreamPipelinesByArtifact.entrySet()) {
 
             MavenArtifact mavenArtifact = entry.getKey();
-            SortedSet<String> downstreamPipelines = entry.getValue();
 
             downstreamPipelinesLoop:
-            for (String downstreamPipelineFullName : downstreamPipelines) {
+            for (String downstreamPipelineFullName : entry.getValue()) {
 
                 if (jobsToTrigger.containsKey(downstreamPipelineFullName)) {
                     // downstream pipeline has already been added to the list of pipelines to trigger,
@@ -136,6 +145,10 @@ public class PipelineTriggerService {
                     }
                     continue;
                 }
+                if (!evaluatedPipelines.add(downstreamPipelineFullName)) {
+                    // downstream pipeline has already been found not eligible
+                    continue;
+                }
 
                 final Job<?, ?> downstreamPipeline =
                         Jenkins.get().getItemByFullName(downstreamPipelineFullName, Job.class);
@@ -153,33 +166,42 @@ public class PipelineTriggerService {
 
                 // Avoid excessive triggering
                 // See #46313
-                Map<String, Integer> transitiveUpstreamPipelines = globalPipelineMavenConfig
-                        .getDao()
-                        .listTransitiveUpstreamJobs(downstreamPipelineFullName, downstreamBuildNumber);
+                Map<String, Integer> transitiveUpstreamPipelines =
+                        dao.listTransitiveUpstreamJobs(downstreamPipelineFullName, downstreamBuildNumber);
+                queryCount++;
                 for (String transitiveUpstreamPipelineName : transitiveUpstreamPipelines.keySet()) {
                     // Skip if one of the downstream's upstream is already building or in queue
                     // Then it will get triggered anyway by that upstream, we don't need to trigger it again
+                    if (queueSnapshot == null) {
+                        queueSnapshot = QueueSnapshot.take();
+                    }
+                    boolean building = queueSnapshot.isBuilding(transitiveUpstreamPipelineName);
+                    boolean inQueue = !building && queueSnapshot.isInQueue(transitiveUpstreamPipelineName);
+                    if (!building && !inQueue && !downstreamPipelines.contains(transitiveUpstreamPipelineName)) {
+                        continue;
+                    }
+
+                    // only the transitive upstream pipelines preventing the trigger are looked up
                     Job<?, ?> transitiveUpstreamPipeline =
                             Jenkins.get().getItemByFullName(transitiveUpstreamPipelineName, Job.class);
-
                     if (transitiveUpstreamPipeline == null) {
                         // security: not allowed to view this transitive upstream pipeline, continue to loop
                         continue;
-                    } else if (transitiveUpstreamPipeline.isBuilding()) {
+                    } else if (building) {
                         logger.log(
                                 Level.INFO,
                                 "Not triggering " + logger.modelHyperlinkNoteEncodeTo(downstreamPipeline)
                                         + " because it has a dependency already building: "
                                         + logger.modelHyperlinkNoteEncodeTo(transitiveUpstreamPipeline));
                         continue downstreamPipelinesLoop;
-                    } else if (transitiveUpstreamPipeline.isInQueue()) {
+                    } else if (inQueue) {
                         logger.log(
                                 Level.INFO,
                                 "Not triggering " + logger.modelHyperlinkNoteEncodeTo(downstreamPipeline)
                                         + " because it has a dependency already building or in queue: "
                                         + logger.modelHyperlinkNoteEncodeTo(transitiveUpstreamPipeline));
                         continue downstreamPipelinesLoop;
-                    } else if (downstreamPipelines.contains(transitiveUpstreamPipelineName)) {
+                    } else {
                         // Skip if this downstream pipeline will be triggered by another one of our downstream pipelines
                         // That's the case when one of the downstream's transitive upstream is our own downstream
                         logger.log(
@@ -239,7 +261,7 @@ public class PipelineTriggerService {
                     }
                 } else {
                     LOGGER.log(Level.FINE, "Skip triggering of {0} by {1}", new Object[] {
-                        downstreamPipeline.getFullName(), cause
+                        downstreamPipeline.getFullName(), upstreamCause
                     });
                 }
             }
@@ -261,6 +283,7 @@ public class PipelineTriggerService {
             if (omittedPipelines == null) {
                 omittedPipelines = Collections.emptySet();
             }
+            MavenDependencyCause cause = getDownstreamPipelineCause(upstreamCause, entry.getValue());
             cause.setOmittedPipelineFullNames(new ArrayList<>(omittedPipelines));
             // See jenkins.triggers.ReverseBuildTrigger.RunListenerImpl.onCompleted(Run, TaskListener)
             Run downstreamJobLastBuild = downstreamJob.getLastBuild();
@@ -327,35 +350,93 @@ public class PipelineTriggerService {
         }
         long durationInMillis =
                 TimeUnit.MILLISECONDS.convert(System.nanoTime() - startTimeInNanos, TimeUnit.NANOSECONDS);
-        if (durationInMillis > TimeUnit.MILLISECONDS.convert(5, TimeUnit.SECONDS) || logger.isLoggable(Level.FINE)) {
-            logger.log(Level.INFO, "triggerDownstreamPipelines completed in " + durationInMillis + " ms");
-        }
+        logger.log(
+                Level.FINE,
+                "triggerDownstreamPipelines completed for " + upstreamArtifacts.size() + " artifacts in "
+                        + durationInMillis + " ms with " + queryCount + " queries"
+                        + (queueSnapshot == null ? "" : ", " + queueSnapshot));
         return triggeredPipelines;
     }
 
+    /**
+     * The downstream pipeline is triggered once for all its matching artifacts, the cause lists them. The given cause
+     * is used as is if it can't be cloned.
+     */
+    private MavenDependencyCause getDownstreamPipelineCause(
+            MavenDependencyCause upstreamCause, Set<MavenArtifact> mavenArtifacts) {
+        if (!(upstreamCause instanceof MavenDependencyAbstractCause)) {
+            return upstreamCause;
+        }
+        try {
+            MavenDependencyAbstractCause cause = ((MavenDependencyAbstractCause) upstreamCause).clone();
+            cause.setMavenArtifacts(new ArrayList<>(mavenArtifacts));
+            return cause;
+        } catch (CloneNotSupportedException e) {
+            return upstreamCause;
+        }
+    }
+
     /**
      * Check NO infinite loop of job triggers caused by {@link hudson.model.Cause.UpstreamCause}.
+     * <p>
+     * The upstream causes recorded in the database are checked first. The builds are loaded to walk their upstream
+     * causes, up to a bounded number of builds, only when the database can't answer.
      *
      * @param initialBuild
      * @throws IllegalStateException if an infinite loop is detected
      */
     public void checkNoInfiniteLoopOfUpstreamCause(@NonNull Run initialBuild) throws IllegalStateException {
-        java.util.Queue<Run> builds = new LinkedList<>(Collections.singleton(initialBuild));
-        Run currentBuild;
-        while ((currentBuild = builds.poll()) != null) {
-            for (Cause cause : ((List<Cause>) currentBuild.getCauses())) {
+        String initialJobFullName = initialBuild.getParent().getFullName();
+        for (Cause cause : ((List<Cause>) initialBuild.getCauses())) {
+            if (cause instanceof Cause.UpstreamCause) {
+                Cause.UpstreamCause upstreamCause = (Cause.UpstreamCause) cause;
+                if (Objects.equals(upstreamCause.getUpstreamProject(), initialJobFullName)) {
+                    throw new IllegalStateException("Infinite loop of job triggers ");
+                }
+                Boolean upstreamCauseAncestor = globalPipelineMavenConfig
+                        .getDao()
+                        .isUpstreamCauseAncestor(
+                                upstreamCause.getUpstreamProject(),
+                                upstreamCause.getUpstreamBuild(),
+                                initialJobFullName);
+                if (upstreamCauseAncestor == null) {
+                    walkUpstreamCauses(upstreamCause, initialJobFullName);
+                } else if (upstreamCauseAncestor) {
+                    throw new IllegalStateException("Infinite loop of job triggers ");
+                }
+            }
+        }
+    }
+
+    private void walkUpstreamCauses(Cause.UpstreamCause initialUpstreamCause, String initialJobFullName) {
+        java.util.Queue<Cause.UpstreamCause> upstreamCauses =
+                new LinkedList<>(Collections.singleton(initialUpstreamCause));
+        Set<String> visitedBuilds = new HashSet<>();
+        Cause.UpstreamCause upstreamCause;
+        while ((upstreamCause = upstreamCauses.poll()) != null) {
+            if (!visitedBuilds.add(upstreamCause.getUpstreamProject() + "#" + upstreamCause.getUpstreamBuild())) {
+                // diamond in the upstream causes, build already visited
+                continue;
+            }
+            if (visitedBuilds.size() > UPSTREAM_CAUSE_WALK_MAX_BUILDS) {
+                LOGGER.log(
+                        Level.FINE,
+                        "Stop checking the upstream causes of {0} after {1} builds",
+                        new Object[] {initialJobFullName, UPSTREAM_CAUSE_WALK_MAX_BUILDS});
+                return;
+            }
+            Run<?, ?> upstreamBuild = upstreamCause.getUpstreamRun();
+            if (upstreamBuild == null) {
+                // Can be Authorization, build deleted on the file system...
+                continue;
+            }
+            for (Cause cause : upstreamBuild.getCauses()) {
                 if (cause instanceof Cause.UpstreamCause) {
-                    Cause.UpstreamCause upstreamCause = (Cause.UpstreamCause) cause;
-                    Run<?, ?> upstreamBuild = upstreamCause.getUpstreamRun();
-                    if (upstreamBuild == null) {
-                        // Can be Authorization, build deleted on the file system...
-                    } else if (Objects.equals(
-                            upstreamBuild.getParent().getFullName(),
-                            initialBuild.getParent().getFullName())) {
+                    Cause.UpstreamCause upstreamUpstreamCause = (Cause.UpstreamCause) cause;
+                    if (Objects.equals(upstreamUpstreamCause.getUpstreamProject(), initialJobFullName)) {
                         throw new IllegalStateException("Infinite loop of job triggers ");
-                    } else {
-                        builds.add(upstreamBuild);
                     }
+                    upstreamCauses.add(upstreamUpstreamCause);
                 }
             }
         }
@@ -0,0 +1,86 @@
+package org.jenkinsci.plugins.pipeline.maven.service;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Computer;
+import hudson.model.Executor;
+import hudson.model.Item;
+import hudson.model.Queue;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import jenkins.model.Jenkins;
+
+/**
+ * Full names of the jobs building or waiting in the queue at a given time.
+ * <p>
+ * The evaluation of the downstream pipelines to trigger checks whether the transitive upstream pipelines of each
+ * candidate are building or queued. Answering from a snapshot taken once avoids looking up each job and scanning the
+ * queue for each check.
+ */
+public class QueueSnapshot {
+
+    private final Set<String> buildingJobFullNames;
+    private final Set<String> queuedJobFullNames;
+    private final long durationInNanos;
+    private final AtomicInteger checkCount = new AtomicInteger();
+
+    QueueSnapshot(
+            @NonNull Set<String> buildingJobFullNames, @NonNull Set<String> queuedJobFullNames, long durationInNanos) {
+        this.buildingJobFullNames = buildingJobFullNames;
+        this.queuedJobFullNames = queuedJobFullNames;
+        this.durationInNanos = durationInNanos;
+    }
+
+    /**
+     * Collect the jobs owning the executables of the executors, including the flyweight executors of the pipelines,
+     * and the jobs of the queue items.
+     */
+    @NonNull
+    public static QueueSnapshot take() {
+        long startTimeInNanos = System.nanoTime();
+        Jenkins jenkins = Jenkins.get();
+        Set<String> buildingJobFullNames = new HashSet<>();
+        for (Computer computer : jenkins.getComputers()) {
+            for (Executor executor : computer.getAllExecutors()) {
+                Queue.Executable executable = executor.getCurrentExecutable();
+                if (executable != null) {
+                    Queue.Task task = executable.getParent().getOwnerTask();
+                    if (task instanceof Item) {
+                        buildingJobFullNames.add(((Item) task).getFullName());
+                    }
+                }
+            }
+        }
+        Set<String> queuedJobFullNames = new HashSet<>();
+        for (Queue.Item item : jenkins.getQueue().getItems()) {
+            if (item.task instanceof Item) {
+                queuedJobFullNames.add(((Item) item.task).getFullName());
+            }
+        }
+        return new QueueSnapshot(buildingJobFullNames, queuedJobFullNames, System.nanoTime() - startTimeInNanos);
+    }
+
+    /**
+     * @param jobFullName see {@link Item#getFullName()}
+     */
+    public boolean isBuilding(@NonNull String jobFullName) {
+        checkCount.incrementAndGet();
+        return buildingJobFullNames.contains(jobFullName);
+    }
+
+    /**
+     * @param jobFullName see {@link Item#getFullName()}
+     */
+    public boolean isInQueue(@NonNull String jobFullName) {
+        checkCount.incrementAndGet();
+        return queuedJobFullNames.contains(jobFullName);
+    }
+
+    @Override
+    public String toString() {
+        return "queue snapshot of " + buildingJobFullNames.size() + " building and " + queuedJobFullNames.size()
+                + " queued jobs taken in " + TimeUnit.NANOSECONDS.toMillis(durationInNanos) + " ms answered "
+                + checkCount.get() + " checks";
+    }
+}
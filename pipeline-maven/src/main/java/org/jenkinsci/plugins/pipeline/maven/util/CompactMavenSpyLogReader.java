@@ -0,0 +1,221 @@
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilder;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+/**
+ * Streaming decoder of the Maven spy logs written in the compact binary encoding by the
+ * {@code org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.CompactFileMavenEventReporter} of the Maven spy, see
+ * its Javadoc for the layout.
+ * <p>
+ * The records are decoded one at a time into the same DOM as the one parsed from the XML Maven spy logs so that the
+ * {@link org.jenkinsci.plugins.pipeline.maven.MavenPublisher}s don't depend on the encoding, including the
+ * {@code _time} attributes and the comments.
+ */
+public class CompactMavenSpyLogReader {
+
+    private static final byte[] MAGIC = {'M', 'S', 'P', 'Y'};
+
+    private static final byte VERSION = 1;
+
+    private static final byte RECORD_END = 0;
+
+    private static final byte RECORD_ELEMENT = 1;
+
+    private static final byte RECORD_COMMENT = 2;
+
+    private final DataInputStream in;
+
+    private final Document document;
+
+    private final List<String> stringTable = new ArrayList<>();
+
+    private byte[] record = new byte[1024];
+
+    private int position;
+
+    private int limit;
+
+    private CompactMavenSpyLogReader(InputStream in, Document document) {
+        this.in = new DataInputStream(in);
+        this.document = document;
+    }
+
+    /**
+     * Check the header of the given Maven spy logs without consuming it
+     *
+     * @param in Maven spy logs, must support {@link InputStream#mark(int)}
+     * @return {@code true} if the logs have been written in the compact binary encoding
+     */
+    public static boolean isCompactMavenSpyLog(@NonNull InputStream in) throws IOException {
+        byte[] header = new byte[MAGIC.length];
+        in.mark(header.length);
+        try {
+            return in.readNBytes(header, 0, header.length) == header.length && Arrays.equals(header, MAGIC);
+        } finally {
+            in.reset();
+        }
+    }
+
+    /**
+     * @param in              Maven spy logs written in the compact binary encoding
+     * @param documentBuilder used to create the DOM document
+     * @return the {@code mavenExecution} element
+     * @throws SAXException if the logs are truncated, typically because the Maven execution has been interrupted,
+     *                      to be handled like the invalid XML Maven spy logs
+     */
+    @NonNull
+    public static Element read(@NonNull InputStream in, @NonNull DocumentBuilder documentBuilder)
+            throws IOException, SAXException {
+        return new CompactMavenSpyLogReader(in, documentBuilder.newDocument()).read();
+    }
+
+    private Element read() throws IOException, SAXException {
+        long startTimeInMillis;
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new SAXException("Invalid compact Maven spy logs header");
+            }
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new SAXException("Unsupported compact Maven spy logs version " + version);
+            }
+            startTimeInMillis = in.readLong();
+        } catch (EOFException e) {
+            throw new SAXException("Truncated compact Maven spy logs header", e);
+        }
+
+        Element mavenExecutionElt = document.createElement("mavenExecution");
+        mavenExecutionElt.setAttribute("_time", new Timestamp(startTimeInMillis).toString());
+        document.appendChild(mavenExecutionElt);
+
+        while (true) {
+            if (!readRecord()) {
+                throw new SAXException("Truncated compact Maven spy logs, no end record");
+            }
+            byte kind = record[position++];
+            long elapsed = readVarLong();
+            String time = new Timestamp(startTimeInMillis + ((elapsed >>> 1) ^ -(elapsed & 1))).toString();
+            switch (kind) {
+                case RECORD_END:
+                    return mavenExecutionElt;
+                case RECORD_ELEMENT:
+                    Element element = readElement();
+                    element.setAttribute("_time", time);
+                    mavenExecutionElt.appendChild(element);
+                    break;
+                case RECORD_COMMENT:
+                    mavenExecutionElt.appendChild(document.createComment(time + " - " + readLiteral()));
+                    break;
+                default:
+                    throw new SAXException("Unsupported compact Maven spy logs record " + kind);
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} if there is no complete record left
+     */
+    private boolean readRecord() throws IOException {
+        int length;
+        try {
+            length = readVarInt(in);
+            if (length < 0) {
+                throw new IOException("Invalid record length in compact Maven spy logs");
+            }
+            if (length > record.length) {
+                record = new byte[Math.max(length, record.length * 2)];
+            }
+            in.readFully(record, 0, length);
+        } catch (EOFException e) {
+            return false;
+        }
+        position = 0;
+        limit = length;
+        return length > 0;
+    }
+
+    private Element readElement() throws IOException {
+        Element element = document.createElement(readString());
+        int attributesCount = readVarInt();
+        for (int i = 0; i < attributesCount; i++) {
+            String name = readString();
+            element.setAttribute(name, readString());
+        }
+        int childrenCountAndValueFlag = readVarInt();
+        if ((childrenCountAndValueFlag & 1) != 0) {
+            element.appendChild(document.createTextNode(readString()));
+        }
+        for (int i = childrenCountAndValueFlag >>> 1; i > 0; i--) {
+            element.appendChild(readElement());
+        }
+        return element;
+    }
+
+    private String readString() throws IOException {
+        int index = readVarInt();
+        if (index == 0) {
+            String value = readLiteral();
+            stringTable.add(value);
+            return value;
+        } else if (index > stringTable.size()) {
+            throw new IOException("Invalid string reference " + index + " in compact Maven spy logs");
+        }
+        return stringTable.get(index - 1);
+    }
+
+    private String readLiteral() throws IOException {
+        int length = readVarInt();
+        if (length < 0 || length > limit - position) {
+            throw new IOException("Invalid string length " + length + " in compact Maven spy logs");
+        }
+        String value = new String(record, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    private int readVarInt() throws IOException {
+        return (int) readVarLong();
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= limit) {
+                throw new IOException("Invalid record in compact Maven spy logs");
+            }
+            byte b = record[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid varint in compact Maven spy logs");
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid record length in compact Maven spy logs");
+    }
+}
@@ -33,9 +33,11 @@ import java.io.StringWriter;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.logging.Level;
@@ -51,6 +53,7 @@ import org.jenkinsci.plugins.pipeline.maven.MavenDependency;
 import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogProcessor;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.EntityResolver;
@@ -63,6 +66,8 @@ import org.xml.sax.SAXException;
 public class XmlUtils {
     private static final Logger LOGGER = Logger.getLogger(XmlUtils.class.getName());
 
+    private static final String PROJECT_DEFINITIONS_USER_DATA_KEY = XmlUtils.class.getName() + ".projectDefinitions";
+
     public static MavenArtifact newMavenArtifact(Element artifactElt) {
         MavenArtifact mavenArtifact = new MavenArtifact();
         loadMavenArtifact(artifactElt, mavenArtifact);
@@ -152,13 +157,67 @@ public class XmlUtils {
         for (int i = 0; i < childElts.getLength(); i++) {
             Node node = childElts.item(i);
             if (node instanceof Element && node.getNodeName().equals(childElementName)) {
-                result.add((Element) node);
+                Element childElt = (Element) node;
+                if (childElt.hasAttribute("ref") && "project".equals(childElementName)) {
+                    resolveProjectReference(childElt);
+                }
+                result.add(childElt);
             }
         }
 
         return result;
     }
 
+    /**
+     * The Maven spy prints the project once as a {@code ProjectDefinition} element then references it from the events
+     * with {@code <project ref="id"/>}. Copies the definition into the referencing element, once.
+     *
+     * <pre>{@code
+     * <ProjectDefinition id="1" name="my-jar" groupId="com.example" artifactId="my-jar" ...>
+     *   <build sourceDirectory="/path/to/my-jar/src/main/java" directory="/path/to/my-jar/target"/>
+     * </ProjectDefinition>
+     * <ExecutionEvent type="MojoStarted" ...>
+     *   <project ref="1"/>
+     *   ...
+     * </ExecutionEvent>
+     * }</pre>
+     */
+    private static void resolveProjectReference(@NonNull Element projectElt) {
+        Element mavenSpyLogs = projectElt.getOwnerDocument().getDocumentElement();
+        @SuppressWarnings("unchecked")
+        Map<String, Element> projectDefinitions =
+                (Map<String, Element>) mavenSpyLogs.getUserData(PROJECT_DEFINITIONS_USER_DATA_KEY);
+        if (projectDefinitions == null) {
+            projectDefinitions = new HashMap<>();
+            NodeList nodes = mavenSpyLogs.getChildNodes();
+            for (int i = 0; i < nodes.getLength(); i++) {
+                Node node = nodes.item(i);
+                if (node instanceof Element && node.getNodeName().equals("ProjectDefinition")) {
+                    projectDefinitions.put(((Element) node).getAttribute("id"), (Element) node);
+                }
+            }
+            mavenSpyLogs.setUserData(PROJECT_DEFINITIONS_USER_DATA_KEY, projectDefinitions, null);
+        }
+
+        String ref = projectElt.getAttribute("ref");
+        Element projectDefinitionElt = projectDefinitions.get(ref);
+        if (projectDefinitionElt == null) {
+            LOGGER.log(Level.WARNING, "No <ProjectDefinition> found for <project ref=\"{0}\">", new Object[] {ref});
+            return;
+        }
+        projectElt.removeAttribute("ref");
+        NamedNodeMap attributes = projectDefinitionElt.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Attr attribute = (Attr) attributes.item(i);
+            if (!attribute.getName().equals("id")) {
+                projectElt.setAttribute(attribute.getName(), attribute.getValue());
+            }
+        }
+        for (Node child = projectDefinitionElt.getFirstChild(); child != null; child = child.getNextSibling()) {
+            projectElt.appendChild(child.cloneNode(true));
+        }
+    }
+
     @NonNull
     public static String toString(@Nullable Node node) {
         try {
@@ -0,0 +1,170 @@
+package org.jenkinsci.plugins.pipeline.maven.dao;
+
+import static java.util.Collections.singletonMap;
+import static java.util.regex.Pattern.DOTALL;
+import static java.util.regex.Pattern.compile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import hudson.model.Result;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
+import org.junit.jupiter.api.Test;
+
+public class CachingPipelineMavenPluginDaoDecoratorTest {
+
+    private PipelineMavenPluginDao delegate = mock(PipelineMavenPluginDao.class);
+
+    private CachingPipelineMavenPluginDaoDecorator decorator =
+            new CachingPipelineMavenPluginDaoDecorator(delegate, 2, TimeUnit.MINUTES.toNanos(5));
+
+    @Test
+    public void shouldAnswerFromTheCache() {
+        MavenArtifact artifact = new MavenArtifact("groupId:artifactId:version");
+        when(delegate.getGeneratedArtifacts("a job", 42)).thenReturn(Collections.singletonList(artifact));
+        when(delegate.listUpstreamJobs("a job", 42)).thenReturn(singletonMap("upstream", 1));
+
+        assertThat(decorator.getGeneratedArtifacts("a job", 42)).containsExactly(artifact);
+        assertThat(decorator.getGeneratedArtifacts("a job", 42)).containsExactly(artifact);
+        assertThat(decorator.listUpstreamJobs("a job", 42)).containsEntry("upstream", 1);
+        assertThat(decorator.listUpstreamJobs("a job", 42)).containsEntry("upstream", 1);
+        decorator.listTransitiveUpstreamJobs("a job", 42);
+        decorator.listTransitiveUpstreamJobs("a job", 42, new UpstreamMemory());
+        decorator.listDownstreamJobsByArtifact("a job", 42);
+        decorator.listDownstreamJobsByArtifact("a job", 42);
+
+        verify(delegate).getGeneratedArtifacts("a job", 42);
+        verify(delegate).listUpstreamJobs("a job", 42);
+        verify(delegate).listTransitiveUpstreamJobs("a job", 42);
+        verify(delegate).listDownstreamJobsByArtifact("a job", 42);
+        assertThat(decorator.toPrettyString())
+                .matches(compile(
+                        ".*generatedArtifacts=1, downstreamJobsByArtifact=1, upstreamJobs=1, "
+                                + "transitiveUpstreamJobs=1.*",
+                        DOTALL));
+    }
+
+    @Test
+    public void shouldInvalidateTheRecordedBuild() {
+        decorator.getGeneratedArtifacts("a job", 42);
+        decorator.getGeneratedArtifacts("a job", 41);
+
+        decorator.recordGeneratedArtifact("a job", 42, "g", "a", "v", "jar", "v", null, false, "jar", null);
+        decorator.getGeneratedArtifacts("a job", 42);
+        decorator.getGeneratedArtifacts("a job", 41);
+
+        verify(delegate, times(2)).getGeneratedArtifacts("a job", 42);
+        verify(delegate).getGeneratedArtifacts("a job", 41);
+    }
+
+    @Test
+    public void shouldInvalidateTheJobsRelatedToASuccessfulBuild() {
+        when(delegate.listUpstreamJobs("service", 3)).thenReturn(singletonMap("core", 1));
+        when(delegate.listUpstreamJobs("webapp", 1)).thenReturn(singletonMap("other-service", 1));
+        decorator.listUpstreamJobs("service", 3);
+        decorator.listUpstreamJobs("webapp", 1);
+        decorator.listTransitiveUpstreamJobs("webapp", 1);
+
+        // the new last successful build of core makes webapp a downstream job of core
+        when(delegate.listDownstreamJobsByArtifact("core", 2))
+                .thenReturn(singletonMap(
+                        new MavenArtifact("com.mycompany:core:1.0"), new TreeSet<>(Collections.singleton("webapp"))));
+        decorator.updateBuildOnCompletion("core", 2, Result.SUCCESS.ordinal, 1, 2);
+        // the related jobs are loaded by the next read
+        verify(delegate, never()).listDownstreamJobsByArtifact("core", 2);
+
+        decorator.listUpstreamJobs("service", 3);
+        decorator.listUpstreamJobs("webapp", 1);
+        decorator.listTransitiveUpstreamJobs("webapp", 1);
+        decorator.listDownstreamJobsByArtifact("core", 2);
+
+        verify(delegate, times(2)).listUpstreamJobs("service", 3);
+        verify(delegate, times(2)).listUpstreamJobs("webapp", 1);
+        verify(delegate, times(2)).listTransitiveUpstreamJobs("webapp", 1);
+        // loaded to find the related jobs and cached
+        verify(delegate).listDownstreamJobsByArtifact("core", 2);
+    }
+
+    @Test
+    public void shouldReturnUnmodifiableAnswers() {
+        MavenArtifact artifact = new MavenArtifact("com.mycompany:core:1.0");
+        Map<MavenArtifact, SortedSet<String>> downstreamJobsByArtifact = new HashMap<>();
+        downstreamJobsByArtifact.put(artifact, new TreeSet<>(Collections.singleton("webapp")));
+        when(delegate.listDownstreamJobsByArtifact("core", 2)).thenReturn(downstreamJobsByArtifact);
+        when(delegate.listUpstreamJobs("webapp", 1)).thenReturn(new HashMap<>(singletonMap("core", 2)));
+
+        assertThatThrownBy(() -> decorator
+                        .listDownstreamJobsByArtifact("core", 2)
+                        .get(artifact)
+                        .add("other"))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> decorator.listDownstreamJobsByArtifact("core", 2).clear())
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> decorator.listUpstreamJobs("webapp", 1).remove("core"))
+                .isInstanceOf(UnsupportedOperationException.class);
+
+        assertThat(decorator.listDownstreamJobsByArtifact("core", 2).get(artifact))
+                .containsExactly("webapp");
+        assertThat(decorator.listUpstreamJobs("webapp", 1)).containsEntry("core", 2);
+    }
+
+    @Test
+    public void shouldNotInvalidateTheUnrelatedJobsOnAFailedBuild() {
+        when(delegate.listUpstreamJobs("service", 3)).thenReturn(singletonMap("core", 1));
+        decorator.listUpstreamJobs("service", 3);
+
+        decorator.updateBuildOnCompletion("core", 2, Result.FAILURE.ordinal, 1, 2);
+        decorator.listUpstreamJobs("service", 3);
+
+        verify(delegate).listUpstreamJobs("service", 3);
+    }
+
+    @Test
+    public void shouldInvalidateTheRenamedAndDeletedJobs() {
+        when(delegate.listUpstreamJobs("service", 3)).thenReturn(singletonMap("core", 1));
+        decorator.listUpstreamJobs("service", 3);
+        decorator.renameJob("core", "renamed-core");
+        decorator.listUpstreamJobs("service", 3);
+
+        decorator.getGeneratedArtifacts("service", 3);
+        decorator.deleteJob("service");
+        decorator.getGeneratedArtifacts("service", 3);
+
+        decorator.getGeneratedArtifacts("webapp", 1);
+        decorator.deleteBuild("webapp", 1);
+        decorator.getGeneratedArtifacts("webapp", 1);
+
+        verify(delegate, times(2)).listUpstreamJobs("service", 3);
+        verify(delegate, times(2)).getGeneratedArtifacts("service", 3);
+        verify(delegate, times(2)).getGeneratedArtifacts("webapp", 1);
+    }
+
+    @Test
+    public void shouldEvictTheLeastRecentlyUsedAndExpiredEntries() {
+        decorator.getGeneratedArtifacts("a job", 1);
+        decorator.getGeneratedArtifacts("a job", 2);
+        decorator.getGeneratedArtifacts("a job", 1);
+        decorator.getGeneratedArtifacts("a job", 3);
+        decorator.getGeneratedArtifacts("a job", 1);
+        decorator.getGeneratedArtifacts("a job", 2);
+
+        verify(delegate).getGeneratedArtifacts("a job", 1);
+        verify(delegate, times(2)).getGeneratedArtifacts("a job", 2);
+
+        CachingPipelineMavenPluginDaoDecorator expiring = new CachingPipelineMavenPluginDaoDecorator(delegate, 2, 0);
+        expiring.getGeneratedArtifacts("other job", 1);
+        expiring.getGeneratedArtifacts("other job", 1);
+
+        verify(delegate, times(2)).getGeneratedArtifacts("other job", 1);
+    }
+}
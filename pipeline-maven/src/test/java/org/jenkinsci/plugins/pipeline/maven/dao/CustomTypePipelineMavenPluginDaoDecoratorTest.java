@@ -1,14 +1,22 @@
 package org.jenkinsci.plugins.pipeline.maven.dao;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 public class CustomTypePipelineMavenPluginDaoDecoratorTest {
@@ -46,6 +54,50 @@ public class CustomTypePipelineMavenPluginDaoDecoratorTest {
         verifyNoMoreInteractions(mockDelegate);
     }
 
+    @ParameterizedTest
+    @MethodSource("testHandlingOfCustomJarTypes")
+    public void testHandlingOfCustomJarTypesInBuildGraph(
+            String type, String extension, List<String> additionalExpectedReportedTypes) {
+        MavenArtifact artifact = new MavenArtifact();
+        artifact.setGroupId(GROUP_ID);
+        artifact.setArtifactId(ARTIFACT_ID);
+        artifact.setVersion(VERSION);
+        artifact.setBaseVersion(BASE_VERSION);
+        artifact.setType(type);
+        artifact.setExtension(extension);
+        artifact.setClassifier(CLASSIFIER);
+        artifact.setRepositoryUrl(REPOSITORY_URL);
+
+        decorator.recordBuildGraph(
+                JOB_FULL_NAME, BUILD_NUMBER, List.of(), List.of(), List.of(artifact), false, SKIP_DOWNSTREAM_TRIGGERS);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<MavenArtifact>> generatedArtifacts = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(mockDelegate)
+                .recordBuildGraph(
+                        eq(JOB_FULL_NAME),
+                        eq(BUILD_NUMBER),
+                        anyCollection(),
+                        anyCollection(),
+                        generatedArtifacts.capture(),
+                        eq(false),
+                        eq(SKIP_DOWNSTREAM_TRIGGERS));
+        List<String> expectedReportedTypes = new ArrayList<>();
+        expectedReportedTypes.add(type);
+        expectedReportedTypes.addAll(additionalExpectedReportedTypes);
+        assertThat(generatedArtifacts.getValue().stream()
+                        .map(MavenArtifact::getType)
+                        .collect(Collectors.toList()))
+                .isEqualTo(expectedReportedTypes);
+        assertThat(generatedArtifacts.getValue()).allSatisfy(generatedArtifact -> {
+            assertThat(generatedArtifact.getExtension()).isEqualTo(extension);
+            assertThat(generatedArtifact.getClassifier()).isEqualTo(CLASSIFIER);
+            assertThat(generatedArtifact.getRepositoryUrl()).isEqualTo(REPOSITORY_URL);
+        });
+
+        verifyNoMoreInteractions(mockDelegate);
+    }
+
     static Stream<Arguments> testHandlingOfCustomJarTypes() {
         return Stream.of(
                 // simple cases
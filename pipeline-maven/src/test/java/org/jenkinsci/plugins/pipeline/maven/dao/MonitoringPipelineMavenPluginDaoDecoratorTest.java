@@ -7,6 +7,8 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
+import java.util.Collections;
+import java.util.List;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
@@ -50,6 +52,15 @@ public class MonitoringPipelineMavenPluginDaoDecoratorTest {
         verify(delegate).recordGeneratedArtifact("j", 42, "g", "a", "v", "t", "bv", "r", false, "e", "c");
     }
 
+    @Test
+    public void shoudIncrementWriteWhenRecordBuildGraph() {
+        decorator.recordBuildGraph("j", 42, List.of(), List.of(), List.of(), false, true);
+
+        assertThat(decorator.toPrettyString()).matches(compile(".*find:.*count=0.*write:.*count=1.*Cache.*", DOTALL));
+
+        verify(delegate).recordBuildGraph("j", 42, List.of(), List.of(), List.of(), false, true);
+    }
+
     @Test
     public void shoudIncrementWriteWhenRecordBuildUpstreamCause() {
         decorator.recordBuildUpstreamCause("j", 42, "d", 4242);
@@ -131,6 +142,15 @@ public class MonitoringPipelineMavenPluginDaoDecoratorTest {
         verify(delegate).listDownstreamJobs("g", "a", "v", "bv", "t", "c");
     }
 
+    @Test
+    public void shoudIncrementReadWhenGetListDownstreamJobsByArtifacts() {
+        decorator.listDownstreamJobsByArtifact(Collections.emptyList());
+
+        assertThat(decorator.toPrettyString()).matches(compile(".*find:.*count=1.*write:.*count=0.*Cache.*", DOTALL));
+
+        verify(delegate).listDownstreamJobsByArtifact(Collections.emptyList());
+    }
+
     @Test
     public void shoudIncrementReadWhenGetListUpstreamJobs() {
         decorator.listUpstreamJobs("j", 42);
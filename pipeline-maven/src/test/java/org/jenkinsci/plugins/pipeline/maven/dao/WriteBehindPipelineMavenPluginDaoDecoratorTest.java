@@ -0,0 +1,214 @@
+package org.jenkinsci.plugins.pipeline.maven.dao;
+
+import static java.util.regex.Pattern.DOTALL;
+import static java.util.regex.Pattern.compile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+public class WriteBehindPipelineMavenPluginDaoDecoratorTest {
+
+    private PipelineMavenPluginDao delegate = mock(PipelineMavenPluginDao.class);
+
+    private WriteBehindPipelineMavenPluginDaoDecorator decorator =
+            new WriteBehindPipelineMavenPluginDaoDecorator(delegate, 2, 2, 10);
+
+    /** released to let the delegate apply the writes */
+    private final CountDownLatch writesAllowed = new CountDownLatch(1);
+
+    @AfterEach
+    public void close() throws Exception {
+        writesAllowed.countDown();
+        decorator.close();
+    }
+
+    @Test
+    public void shouldNotWaitForTheWrites() throws Exception {
+        blockWrites();
+
+        decorator.recordDependency("j", 42, "g", "a", "v", "t", "s", false, "c");
+        decorator.updateBuildOnCompletion("j", 42, 0, 1, 2);
+
+        assertThat(decorator.toPrettyString()).matches(compile(".*Write behind:.*count=0.*", DOTALL));
+
+        writesAllowed.countDown();
+        InOrder inOrder = inOrder(delegate);
+        inOrder.verify(delegate, timeout(5_000)).recordDependency("j", 42, "g", "a", "v", "t", "s", false, "c");
+        inOrder.verify(delegate, timeout(5_000)).updateBuildOnCompletion("j", 42, 0, 1, 2);
+    }
+
+    @Test
+    public void shouldApplyTheWritesOfTheBuildBeforeReadingIt() throws Exception {
+        blockWrites();
+        decorator.recordDependency("j", 42, "g", "a", "v", "t", "s", false, "c");
+
+        CompletableFuture<?> read = CompletableFuture.runAsync(() -> decorator.listDownstreamJobsByArtifact("j", 42));
+        Thread.sleep(100);
+        assertThat(read).isNotDone();
+
+        writesAllowed.countDown();
+        read.get(5, TimeUnit.SECONDS);
+        InOrder inOrder = inOrder(delegate);
+        inOrder.verify(delegate).recordDependency("j", 42, "g", "a", "v", "t", "s", false, "c");
+        inOrder.verify(delegate).listDownstreamJobsByArtifact("j", 42);
+    }
+
+    @Test
+    public void shouldNotWaitForTheWritesOfOtherBuilds() throws Exception {
+        blockWrites();
+        decorator.recordDependency("j", 42, "g", "a", "v", "t", "s", false, "c");
+
+        decorator.listDownstreamJobsByArtifact("j", 43);
+
+        verify(delegate).listDownstreamJobsByArtifact("j", 43);
+    }
+
+    @Test
+    public void shouldBlockTheWritersWhenTheQueueIsFull() throws Exception {
+        blockWrites();
+        // the first write is taken by the background thread, the next two fill the queue
+        decorator.updateBuildOnCompletion("j", 1, 0, 1, 2);
+        verify(delegate, timeout(5_000)).updateBuildOnCompletion("j", 1, 0, 1, 2);
+        decorator.updateBuildOnCompletion("j", 2, 0, 1, 2);
+        decorator.updateBuildOnCompletion("j", 3, 0, 1, 2);
+
+        CompletableFuture<?> write =
+                CompletableFuture.runAsync(() -> decorator.updateBuildOnCompletion("j", 4, 0, 1, 2));
+        Thread.sleep(100);
+        assertThat(write).isNotDone();
+
+        writesAllowed.countDown();
+        write.get(5, TimeUnit.SECONDS);
+        assertThat(decorator.toPrettyString()).matches(compile(".*blockedByFullQueue=1.*", DOTALL));
+    }
+
+    @Test
+    public void shouldApplyTheNextWritesWhenAWriteFails() throws Exception {
+        doThrow(new IllegalStateException("expected"))
+                .when(delegate)
+                .updateBuildOnCompletion(eq("j"), eq(1), anyInt(), anyLong(), anyLong());
+
+        decorator.updateBuildOnCompletion("j", 1, 0, 1, 2);
+        decorator.updateBuildOnCompletion("j", 2, 0, 1, 2);
+        decorator.flush();
+
+        verify(delegate, times(3)).updateBuildOnCompletion("j", 1, 0, 1, 2);
+        verify(delegate).updateBuildOnCompletion("j", 2, 0, 1, 2);
+        assertThat(decorator.toPrettyString()).matches(compile(".*count=1, failed=1, retried=2.*", DOTALL));
+    }
+
+    @Test
+    public void shouldThrowTheFailureOfTheWriteToTheNextReadOfTheBuild() throws Exception {
+        doThrow(new IllegalStateException("expected"))
+                .when(delegate)
+                .updateBuildOnCompletion(eq("j"), eq(1), anyInt(), anyLong(), anyLong());
+        decorator.updateBuildOnCompletion("j", 1, 0, 1, 2);
+
+        assertThatThrownBy(() -> decorator.listDownstreamJobsByArtifact("j", 1))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("j#1")
+                .hasRootCauseMessage("expected");
+        // thrown once
+        decorator.listDownstreamJobsByArtifact("j", 1);
+        verify(delegate).listDownstreamJobsByArtifact("j", 1);
+    }
+
+    @Test
+    public void shouldRetryAFailedWrite() throws Exception {
+        doThrow(new IllegalStateException("expected"))
+                .doNothing()
+                .when(delegate)
+                .updateBuildOnCompletion(eq("j"), eq(1), anyInt(), anyLong(), anyLong());
+
+        decorator.updateBuildOnCompletion("j", 1, 0, 1, 2);
+        decorator.listDownstreamJobsByArtifact("j", 1);
+
+        verify(delegate, times(2)).updateBuildOnCompletion("j", 1, 0, 1, 2);
+        assertThat(decorator.toPrettyString()).matches(compile(".*count=1, failed=0, retried=1.*", DOTALL));
+    }
+
+    @Test
+    public void shouldApplyTheWritesOfTheJobBeforeReadingItsLastBuildDuration() throws Exception {
+        blockWrites();
+        when(delegate.getLastBuildDurationInMillis("j")).thenReturn(2L);
+        decorator.updateBuildOnCompletion("j", 42, 0, 1, 2);
+
+        CompletableFuture<Long> read = CompletableFuture.supplyAsync(() -> decorator.getLastBuildDurationInMillis("j"));
+        Thread.sleep(100);
+        assertThat(read).isNotDone();
+
+        writesAllowed.countDown();
+        assertThat(read.get(5, TimeUnit.SECONDS)).isEqualTo(2L);
+        InOrder inOrder = inOrder(delegate);
+        inOrder.verify(delegate).updateBuildOnCompletion("j", 42, 0, 1, 2);
+        inOrder.verify(delegate).getLastBuildDurationInMillis("j");
+    }
+
+    @Test
+    public void shouldApplyAllTheWritesBeforeListingTheDownstreamJobsOfAnArtifact() throws Exception {
+        blockWrites();
+        decorator.recordDependency("j", 42, "g", "a", "v", "t", "s", false, "c");
+
+        CompletableFuture<?> read =
+                CompletableFuture.runAsync(() -> decorator.listDownstreamJobs("g", "a", "v", "v", "t"));
+        Thread.sleep(100);
+        assertThat(read).isNotDone();
+
+        writesAllowed.countDown();
+        read.get(5, TimeUnit.SECONDS);
+        InOrder inOrder = inOrder(delegate);
+        inOrder.verify(delegate).recordDependency("j", 42, "g", "a", "v", "t", "s", false, "c");
+        inOrder.verify(delegate).listDownstreamJobs("g", "a", "v", "v", "t", null);
+    }
+
+    @Test
+    public void shouldApplyThePendingWritesOnClose() throws Exception {
+        for (int buildNumber = 1; buildNumber <= 10; buildNumber++) {
+            decorator.updateBuildOnCompletion("j", buildNumber, 0, 1, 2);
+        }
+
+        decorator.close();
+
+        InOrder inOrder = inOrder(delegate);
+        for (int buildNumber = 1; buildNumber <= 10; buildNumber++) {
+            inOrder.verify(delegate).updateBuildOnCompletion("j", buildNumber, 0, 1, 2);
+        }
+        inOrder.verify(delegate).close();
+    }
+
+    private void blockWrites() {
+        doAnswer(invocation -> writesAllowed.await(5, TimeUnit.SECONDS))
+                .when(delegate)
+                .recordDependency(
+                        anyString(),
+                        anyInt(),
+                        anyString(),
+                        anyString(),
+                        anyString(),
+                        anyString(),
+                        anyString(),
+                        eq(false),
+                        anyString());
+        doAnswer(invocation -> writesAllowed.await(5, TimeUnit.SECONDS))
+                .when(delegate)
+                .updateBuildOnCompletion(anyString(), anyInt(), anyInt(), anyLong(), anyLong());
+    }
+}
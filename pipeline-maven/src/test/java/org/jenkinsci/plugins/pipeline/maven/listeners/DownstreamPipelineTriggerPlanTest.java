@@ -0,0 +1,100 @@
+package org.jenkinsci.plugins.pipeline.maven.listeners;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import hudson.model.Action;
+import hudson.model.CauseAction;
+import hudson.model.Computer;
+import hudson.model.Queue;
+import hudson.model.Queue.Item;
+import hudson.model.TaskListener;
+import hudson.model.queue.ScheduleResult;
+import java.io.PrintStream;
+import java.util.List;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.pipeline.maven.cause.MavenDependencyUpstreamCause;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+
+public class DownstreamPipelineTriggerPlanTest {
+
+    private Jenkins jenkins = mock(Jenkins.class);
+
+    private Queue queue = mock(Queue.class);
+
+    private TaskListener listener = mock(TaskListener.class);
+
+    @Test
+    public void shouldScheduleEachDownstreamPipelineOnceWithTheCausesOfAllUpstreamBuilds() {
+        try (MockedStatic<Jenkins> j = mockStatic(Jenkins.class)) {
+            j.when(Jenkins::get).thenReturn(jenkins);
+            when(jenkins.getQueue()).thenReturn(queue);
+            ScheduleResult scheduleResult = mock(ScheduleResult.class);
+            when(scheduleResult.getItem()).thenReturn(mock(Item.class));
+            when(queue.schedule2(any(), anyInt(), anyList())).thenReturn(scheduleResult);
+            PrintStream logger = mock(PrintStream.class);
+            when(listener.getLogger()).thenReturn(logger);
+            TaskListener secondListener = mock(TaskListener.class);
+            PrintStream secondLogger = mock(PrintStream.class);
+            when(secondListener.getLogger()).thenReturn(secondLogger);
+            WorkflowJob downstream = mock(WorkflowJob.class);
+            WorkflowJob other = mock(WorkflowJob.class);
+            when(downstream.isBuildable()).thenReturn(true);
+            when(other.isBuildable()).thenReturn(true);
+            MavenDependencyUpstreamCause firstCause = mock(MavenDependencyUpstreamCause.class);
+            MavenDependencyUpstreamCause secondCause = mock(MavenDependencyUpstreamCause.class);
+
+            DownstreamPipelineTriggerPlan plan = new DownstreamPipelineTriggerPlan();
+            plan.startUpstreamBuild(listener);
+            plan.add("downstream", downstream, firstCause);
+            plan.startUpstreamBuild(secondListener);
+            plan.add("downstream", downstream, secondCause);
+            plan.add("other", other, secondCause);
+            plan.schedule();
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<Action>> actions = ArgumentCaptor.forClass(List.class);
+            verify(queue).schedule2(eq(downstream), anyInt(), actions.capture());
+            assertThat(actions.getValue()).hasSize(1);
+            assertThat(((CauseAction) actions.getValue().get(0)).getCauses()).containsExactly(firstCause, secondCause);
+            verify(queue).schedule2(eq(other), anyInt(), anyList());
+            assertThat(plan.toString()).isEqualTo("plan of 2 downstream pipelines for 2 upstream builds");
+            // each upstream build console reports the downstream pipelines it triggers
+            verify(logger).println(any(String.class));
+            verify(secondLogger, times(2)).println(any(String.class));
+        }
+    }
+
+    @Test
+    public void shouldConsiderTheDownstreamPipelinesOfThePreviousUpstreamBuildsAsQueued() {
+        try (MockedStatic<Jenkins> j = mockStatic(Jenkins.class)) {
+            j.when(Jenkins::get).thenReturn(jenkins);
+            when(jenkins.getQueue()).thenReturn(queue);
+            when(queue.getItems()).thenReturn(new Item[0]);
+            when(jenkins.getComputers()).thenReturn(new Computer[0]);
+
+            DownstreamPipelineTriggerPlan plan = new DownstreamPipelineTriggerPlan();
+            plan.startUpstreamBuild(listener);
+            plan.add("downstream", mock(WorkflowJob.class), mock(MavenDependencyUpstreamCause.class));
+            assertThat(plan.isInQueue("downstream")).isFalse();
+
+            plan.startUpstreamBuild(listener);
+            assertThat(plan.isInQueue("downstream")).isTrue();
+            assertThat(plan.isBuilding("downstream")).isFalse();
+            verify(queue).getItems();
+            verifyNoMoreInteractions(queue);
+        }
+    }
+}
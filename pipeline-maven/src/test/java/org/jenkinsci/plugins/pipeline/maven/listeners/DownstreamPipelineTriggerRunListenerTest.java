@@ -1,5 +1,6 @@
 package org.jenkinsci.plugins.pipeline.maven.listeners;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
@@ -7,11 +8,15 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import hudson.model.Cause;
+import hudson.model.Computer;
+import hudson.model.Executor;
 import hudson.model.Job;
 import hudson.model.Queue;
 import hudson.model.Queue.Item;
@@ -19,6 +24,8 @@ import hudson.model.Queue.Task;
 import hudson.model.Result;
 import hudson.model.TaskListener;
 import hudson.model.queue.ScheduleResult;
+import hudson.model.queue.Tasks;
+import hudson.security.ACL;
 import java.io.PrintStream;
 import java.util.Arrays;
 import java.util.Collections;
@@ -32,7 +39,6 @@ import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
 import org.jenkinsci.plugins.pipeline.maven.WithMavenStep;
 import org.jenkinsci.plugins.pipeline.maven.cause.MavenDependencyUpstreamCause;
 import org.jenkinsci.plugins.pipeline.maven.dao.PipelineMavenPluginDao;
-import org.jenkinsci.plugins.pipeline.maven.dao.UpstreamMemory;
 import org.jenkinsci.plugins.pipeline.maven.service.PipelineTriggerService;
 import org.jenkinsci.plugins.pipeline.maven.trigger.WorkflowJobDependencyTrigger;
 import org.jenkinsci.plugins.workflow.flow.FlowExecution;
@@ -48,6 +54,9 @@ import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -288,7 +297,7 @@ public class DownstreamPipelineTriggerRunListenerTest {
             verify(dao).listDownstreamJobsByArtifact("pipeline", 42);
             verify(dao).getGeneratedArtifacts("downstream", 4242);
             verify(dao).listDownstreamJobsByArtifact("downstream", 4242);
-            verify(dao).listTransitiveUpstreamJobs(eq("downstream"), eq(4242), any(UpstreamMemory.class));
+            verify(dao).listTransitiveUpstreamJobs("downstream", 4242);
             verifyNoMoreInteractions(dao, service, trigger);
         }
     }
@@ -334,7 +343,7 @@ public class DownstreamPipelineTriggerRunListenerTest {
             verify(dao).listDownstreamJobsByArtifact("pipeline", 42);
             verify(dao).getGeneratedArtifacts("downstream", 4242);
             verify(dao).listDownstreamJobsByArtifact("downstream", 4242);
-            verify(dao).listTransitiveUpstreamJobs(eq("downstream"), eq(4242), any(UpstreamMemory.class));
+            verify(dao).listTransitiveUpstreamJobs("downstream", 4242);
             verify(service).getWorkflowJobDependencyTrigger(downstream);
             verify(service).isDownstreamVisibleByUpstreamBuildAuth(downstream);
             verify(service).isUpstreamBuildVisibleByDownstreamBuildAuth(job, downstream);
@@ -344,6 +353,91 @@ public class DownstreamPipelineTriggerRunListenerTest {
         }
     }
 
+    @Test
+    public void test_simulation_does_not_trigger_downstream() {
+        try (MockedStatic<Jenkins> j = mockStatic(Jenkins.class);
+                MockedStatic<Tasks> tasks = mockStatic(Tasks.class)) {
+            j.when(Jenkins::get).thenReturn(jenkins);
+            when(jenkins.getQueue()).thenReturn(queue);
+
+            WorkflowJob job = mock(WorkflowJob.class);
+            tasks.when(() -> Tasks.getAuthenticationOf2(job)).thenReturn(ACL.SYSTEM2);
+            when(job.getFullName()).thenReturn("pipeline");
+            WorkflowRun downstreamBuild = mock(WorkflowRun.class);
+            when(downstreamBuild.getNumber()).thenReturn(4242);
+            WorkflowJob downstream = mock(WorkflowJob.class);
+            when(downstream.getLastBuild()).thenReturn(downstreamBuild);
+            when(downstream.isBuildable()).thenReturn(true);
+            when(downstream.getFullDisplayName()).thenReturn("downstream");
+            when(build.getResult()).thenReturn(Result.SUCCESS);
+            when(build.getParent()).thenReturn(job);
+            when(build.getNumber()).thenReturn(42);
+            when(build.getFullDisplayName()).thenReturn("pipeline #42");
+            when(dao.listDownstreamJobsByArtifact("pipeline", 42))
+                    .thenReturn(Collections.singletonMap(
+                            new MavenArtifact("groupId:upstreamArtifactId:jar:version"),
+                            new TreeSet<>(Arrays.asList("downstream", "missing"))));
+            when(jenkins.getItemByFullName("downstream", Job.class)).thenReturn(downstream);
+            when(dao.getGeneratedArtifacts("downstream", 4242))
+                    .thenReturn(
+                            Collections.singletonList(new MavenArtifact("groupId:downstreamArtifactId:jar:version")));
+            when(dao.listDownstreamJobsByArtifact("downstream", 4242))
+                    .thenReturn(Collections.singletonMap(
+                            new MavenArtifact("groupId:downstreamArtifactId:jar:version"), new TreeSet<>()));
+            when(service.isDownstreamVisibleByUpstreamBuildAuth(downstream)).thenReturn(true);
+            when(service.isUpstreamBuildVisibleByDownstreamBuildAuth(job, downstream))
+                    .thenReturn(true);
+
+            DownstreamPipelineTriggerSimulation simulation = listener.simulate(build);
+
+            assertThat(simulation.getWouldTriggerPipelines()).containsOnlyKeys("downstream");
+            assertThat(simulation.getSkipReasons()).containsOnlyKeys("missing");
+            assertThat(simulation.toPrettyString())
+                    .contains("pipeline #42", "job lookup", "listDownstreamJobsByArtifact: count=2");
+            verify(queue, never()).schedule2(any(), anyInt(), anyList());
+        }
+    }
+
+    @Test
+    public void test_simulation_excludes_downstream_hidden_from_upstream_build() {
+        try (MockedStatic<Jenkins> j = mockStatic(Jenkins.class);
+                MockedStatic<Tasks> tasks = mockStatic(Tasks.class)) {
+            j.when(Jenkins::get).thenReturn(jenkins);
+            when(jenkins.getQueue()).thenReturn(queue);
+
+            WorkflowJob job = mock(WorkflowJob.class);
+            Authentication upstreamAuthentication =
+                    new UsernamePasswordAuthenticationToken("upstream-user", null, Collections.emptyList());
+            tasks.when(() -> Tasks.getAuthenticationOf2(job)).thenReturn(upstreamAuthentication);
+            when(job.getFullName()).thenReturn("pipeline");
+            when(build.getResult()).thenReturn(Result.SUCCESS);
+            when(build.getParent()).thenReturn(job);
+            when(build.getNumber()).thenReturn(42);
+            when(build.getFullDisplayName()).thenReturn("pipeline #42");
+            when(dao.listDownstreamJobsByArtifact("pipeline", 42))
+                    .thenReturn(Collections.singletonMap(
+                            new MavenArtifact("groupId:upstreamArtifactId:jar:version"),
+                            new TreeSet<>(Arrays.asList("downstream", "hidden"))));
+            WorkflowJob downstream = mockDownstream("downstream", 4242);
+            WorkflowJob hidden = mockDownstream("hidden", 4343);
+            // only visible to the system
+            when(jenkins.getItemByFullName("hidden", Job.class))
+                    .thenAnswer(invocation -> ACL.SYSTEM2.equals(
+                                    SecurityContextHolder.getContext().getAuthentication())
+                            ? hidden
+                            : null);
+            when(service.isDownstreamVisibleByUpstreamBuildAuth(any())).thenReturn(true);
+            when(service.isUpstreamBuildVisibleByDownstreamBuildAuth(eq(job), any()))
+                    .thenReturn(true);
+
+            DownstreamPipelineTriggerSimulation simulation = listener.simulate(build);
+
+            assertThat(simulation.getWouldTriggerPipelines()).containsOnlyKeys("downstream");
+            assertThat(simulation.getSkipReasons()).containsOnlyKeys("hidden");
+            verify(queue, never()).schedule2(any(), anyInt(), anyList());
+        }
+    }
+
     @Test
     public void test_wanted_result_with_multiple_downstreams() {
         try (MockedStatic<Jenkins> j = mockStatic(Jenkins.class)) {
@@ -389,7 +483,7 @@ public class DownstreamPipelineTriggerRunListenerTest {
             verify(dao).listDownstreamJobsByArtifact("pipeline", 42);
             verify(dao).getGeneratedArtifacts("downstream", 4242);
             verify(dao).listDownstreamJobsByArtifact("downstream", 4242);
-            verify(dao).listTransitiveUpstreamJobs(eq("downstream"), eq(4242), any(UpstreamMemory.class));
+            verify(dao).listTransitiveUpstreamJobs("downstream", 4242);
             verify(service).getWorkflowJobDependencyTrigger(downstream);
             verify(service).isDownstreamVisibleByUpstreamBuildAuth(downstream);
             verify(service).isUpstreamBuildVisibleByDownstreamBuildAuth(job, downstream);
@@ -398,4 +492,246 @@ public class DownstreamPipelineTriggerRunListenerTest {
             verifyNoMoreInteractions(dao, service, trigger, queue);
         }
     }
+
+    @Test
+    public void test_wanted_result_with_downstream_having_a_building_upstream() {
+        try (MockedStatic<Jenkins> j = mockStatic(Jenkins.class)) {
+            j.when(Jenkins::get).thenReturn(jenkins);
+            when(jenkins.getQueue()).thenReturn(queue);
+            when(queue.getItems()).thenReturn(new Item[0]);
+
+            WorkflowJob job = mock(WorkflowJob.class);
+            when(job.getFullName()).thenReturn("pipeline");
+            WorkflowRun downstreamBuild = mock(WorkflowRun.class);
+            when(downstreamBuild.getNumber()).thenReturn(4242);
+            WorkflowJob downstream = mock(WorkflowJob.class);
+            when(downstream.getLastBuild()).thenReturn(downstreamBuild);
+            when(downstream.isBuildable()).thenReturn(true);
+            WorkflowJob core = mock(WorkflowJob.class);
+            when(core.getFullName()).thenReturn("core");
+            when(core.getOwnerTask()).thenReturn(core);
+            WorkflowRun coreBuild = mock(WorkflowRun.class);
+            when(coreBuild.getParent()).thenReturn(core);
+            Executor executor = mock(Executor.class);
+            when(executor.getCurrentExecutable()).thenReturn(coreBuild);
+            Computer computer = mock(Computer.class);
+            when(computer.getAllExecutors()).thenReturn(Collections.singletonList(executor));
+            when(jenkins.getComputers()).thenReturn(new Computer[] {computer});
+            when(build.getResult()).thenReturn(Result.SUCCESS);
+            when(build.getParent()).thenReturn(job);
+            when(build.getNumber()).thenReturn(42);
+            when(dao.listDownstreamJobsByArtifact("pipeline", 42))
+                    .thenReturn(Collections.singletonMap(
+                            new MavenArtifact("groupId:upstreamArtifactId:jar:version"),
+                            new TreeSet<>(Collections.singleton("downstream"))));
+            when(jenkins.getItemByFullName("downstream", Job.class)).thenReturn(downstream);
+            when(jenkins.getItemByFullName("core", Job.class)).thenReturn(core);
+            when(dao.listTransitiveUpstreamJobs("downstream", 4242)).thenReturn(Collections.singletonMap("core", 1));
+
+            listener.onCompleted(build, taskListener);
+
+            verify(service).checkNoInfiniteLoopOfUpstreamCause(build);
+            verify(dao).listDownstreamJobsByArtifact("pipeline", 42);
+            verify(dao).getGeneratedArtifacts("downstream", 4242);
+            verify(dao).listDownstreamJobsByArtifact("downstream", 4242);
+            verify(dao).listTransitiveUpstreamJobs("downstream", 4242);
+            verify(queue).getItems();
+            verifyNoMoreInteractions(dao, service, trigger, queue);
+        }
+    }
+
+    @Test
+    public void test_wanted_result_with_downstreams_evaluated_concurrently() {
+        try (MockedStatic<Jenkins> j = mockStatic(Jenkins.class)) {
+            j.when(Jenkins::get).thenReturn(jenkins);
+            when(jenkins.getQueue()).thenReturn(queue);
+            when(queue.schedule2(any(), anyInt(), anyList())).thenReturn(queueResult);
+            when(queueResult.getItem()).thenReturn(queuedItem);
+
+            WorkflowJob job = mock(WorkflowJob.class);
+            when(job.getFullName()).thenReturn("pipeline");
+            when(build.getResult()).thenReturn(Result.SUCCESS);
+            when(build.getParent()).thenReturn(job);
+            when(build.getNumber()).thenReturn(42);
+            when(dao.listDownstreamJobsByArtifact("pipeline", 42))
+                    .thenReturn(Collections.singletonMap(
+                            new MavenArtifact("groupId:upstreamArtifactId:jar:version"),
+                            new TreeSet<>(Arrays.asList("downstream-a", "downstream-b", "looping"))));
+            WorkflowJob downstreamA = mockDownstream("downstream-a", 1);
+            WorkflowJob downstreamB = mockDownstream("downstream-b", 2);
+            mockDownstream("looping", 3);
+            when(dao.listDownstreamJobsByArtifact("looping", 3))
+                    .thenReturn(Collections.singletonMap(
+                            new MavenArtifact("groupId:loopingArtifactId:jar:version"),
+                            new TreeSet<>(Collections.singleton("pipeline"))));
+            when(service.isDownstreamVisibleByUpstreamBuildAuth(any())).thenReturn(true);
+            when(service.isUpstreamBuildVisibleByDownstreamBuildAuth(any(), any()))
+                    .thenReturn(true);
+
+            listener.onCompleted(build, taskListener);
+
+            verify(service).checkNoInfiniteLoopOfUpstreamCause(build);
+            verify(dao).listDownstreamJobsByArtifact("pipeline", 42);
+            for (Map.Entry<String, Integer> downstream :
+                    Map.of("downstream-a", 1, "downstream-b", 2, "looping", 3).entrySet()) {
+                verify(dao).getGeneratedArtifacts(downstream.getKey(), downstream.getValue());
+                verify(dao).listDownstreamJobsByArtifact(downstream.getKey(), downstream.getValue());
+            }
+            verify(dao).listTransitiveUpstreamJobs("downstream-a", 1);
+            verify(dao).listTransitiveUpstreamJobs("downstream-b", 2);
+            verify(queue).schedule2(eq(downstreamA), anyInt(), anyList());
+            verify(queue).schedule2(eq(downstreamB), anyInt(), anyList());
+            verifyNoMoreInteractions(dao);
+        }
+    }
+
+    @Test
+    public void test_wanted_result_with_diamond_triggered_in_topological_waves() {
+        try (MockedStatic<Jenkins> j = mockStatic(Jenkins.class)) {
+            j.when(Jenkins::get).thenReturn(jenkins);
+            when(jenkins.getQueue()).thenReturn(queue);
+            when(queue.schedule2(any(), anyInt(), anyList())).thenReturn(queueResult);
+            when(queueResult.getItem()).thenReturn(queuedItem);
+            when(config.isTriggerDownstreamInTopologicalWaves()).thenReturn(true);
+            when(service.isDownstreamVisibleByUpstreamBuildAuth(any())).thenReturn(true);
+            when(service.isUpstreamBuildVisibleByDownstreamBuildAuth(any(), any()))
+                    .thenReturn(true);
+
+            WorkflowJob job = mock(WorkflowJob.class);
+            when(job.getFullName()).thenReturn("pipeline");
+            when(job.getBuildByNumber(42)).thenReturn(build);
+            when(jenkins.getItemByFullName("pipeline", Job.class)).thenReturn(job);
+            when(build.getResult()).thenReturn(Result.SUCCESS);
+            when(build.getParent()).thenReturn(job);
+            when(build.getNumber()).thenReturn(42);
+            // pipeline -> left -> bottom, pipeline -> right -> bottom
+            when(dao.listDownstreamJobsByArtifact("pipeline", 42))
+                    .thenReturn(Collections.singletonMap(
+                            new MavenArtifact("groupId:upstreamArtifactId:jar:version"),
+                            new TreeSet<>(Arrays.asList("left", "right"))));
+            when(dao.listDownstreamJobsByArtifact("left", 1))
+                    .thenReturn(Collections.singletonMap(
+                            new MavenArtifact("groupId:leftArtifactId:jar:version"),
+                            new TreeSet<>(Collections.singleton("bottom"))));
+            when(dao.listDownstreamJobsByArtifact("right", 2))
+                    .thenReturn(Collections.singletonMap(
+                            new MavenArtifact("groupId:rightArtifactId:jar:version"),
+                            new TreeSet<>(Collections.singleton("bottom"))));
+            WorkflowJob left = mockDownstream("left", 1);
+            WorkflowJob right = mockDownstream("right", 2);
+            WorkflowJob bottom = mockDownstream("bottom", 3);
+
+            listener.onCompleted(build, taskListener);
+
+            verify(queue).schedule2(eq(left), anyInt(), anyList());
+            verify(queue).schedule2(eq(right), anyInt(), anyList());
+            verify(queue, never()).schedule2(eq(bottom), anyInt(), anyList());
+
+            listener.onCompleted(mockTriggeredBuild(left, "left", 4), taskListener);
+            verify(queue, never()).schedule2(eq(bottom), anyInt(), anyList());
+
+            listener.onCompleted(mockTriggeredBuild(right, "right", 5), taskListener);
+            verify(queue).schedule2(eq(bottom), anyInt(), anyList());
+            verify(service).checkNoInfiniteLoopOfUpstreamCause(build);
+        }
+    }
+
+    @Test
+    public void test_overlapping_topological_waves_completed_by_the_same_build() {
+        try (MockedStatic<Jenkins> j = mockStatic(Jenkins.class)) {
+            j.when(Jenkins::get).thenReturn(jenkins);
+            when(jenkins.getQueue()).thenReturn(queue);
+            when(queue.schedule2(any(), anyInt(), anyList())).thenReturn(queueResult);
+            when(queueResult.getItem()).thenReturn(queuedItem);
+            when(config.isTriggerDownstreamInTopologicalWaves()).thenReturn(true);
+            when(service.isDownstreamVisibleByUpstreamBuildAuth(any())).thenReturn(true);
+            when(service.isUpstreamBuildVisibleByDownstreamBuildAuth(any(), any()))
+                    .thenReturn(true);
+
+            WorkflowJob job = mock(WorkflowJob.class);
+            when(job.getFullName()).thenReturn("pipeline");
+            when(job.getBuildByNumber(42)).thenReturn(build);
+            when(jenkins.getItemByFullName("pipeline", Job.class)).thenReturn(job);
+            when(build.getResult()).thenReturn(Result.SUCCESS);
+            when(build.getParent()).thenReturn(job);
+            when(build.getNumber()).thenReturn(42);
+            WorkflowJob otherJob = mock(WorkflowJob.class);
+            when(otherJob.getFullName()).thenReturn("other");
+            when(jenkins.getItemByFullName("other", Job.class)).thenReturn(otherJob);
+            WorkflowRun otherBuild = mock(WorkflowRun.class);
+            when(otherJob.getBuildByNumber(7)).thenReturn(otherBuild);
+            when(otherBuild.getResult()).thenReturn(Result.SUCCESS);
+            when(otherBuild.getParent()).thenReturn(otherJob);
+            when(otherBuild.getNumber()).thenReturn(7);
+            when(otherBuild.asFlowExecutionOwner()).thenReturn(flowExecutionOwner);
+            // pipeline -> shared -> bottom, other -> shared -> bottom
+            when(dao.listDownstreamJobsByArtifact("pipeline", 42))
+                    .thenReturn(Collections.singletonMap(
+                            new MavenArtifact("groupId:upstreamArtifactId:jar:version"),
+                            new TreeSet<>(Collections.singleton("shared"))));
+            when(dao.listDownstreamJobsByArtifact("other", 7))
+                    .thenReturn(Collections.singletonMap(
+                            new MavenArtifact("groupId:otherArtifactId:jar:version"),
+                            new TreeSet<>(Collections.singleton("shared"))));
+            when(dao.listDownstreamJobsByArtifact("shared", 1))
+                    .thenReturn(Collections.singletonMap(
+                            new MavenArtifact("groupId:sharedArtifactId:jar:version"),
+                            new TreeSet<>(Collections.singleton("bottom"))));
+            WorkflowJob shared = mockDownstream("shared", 1);
+            WorkflowJob bottom = mockDownstream("bottom", 2);
+
+            listener.onCompleted(build, taskListener);
+            listener.onCompleted(otherBuild, taskListener);
+            verify(queue, times(2)).schedule2(eq(shared), anyInt(), anyList());
+
+            // the triggers of both waves are merged in a single build
+            when(shared.getFullName()).thenReturn("shared");
+            WorkflowRun sharedBuild = mock(WorkflowRun.class);
+            when(sharedBuild.getParent()).thenReturn(shared);
+            when(sharedBuild.getNumber()).thenReturn(3);
+            when(shared.getBuildByNumber(3)).thenReturn(sharedBuild);
+            when(sharedBuild.getResult()).thenReturn(Result.SUCCESS);
+            when(sharedBuild.getCauses())
+                    .thenReturn(Arrays.asList(
+                            new MavenDependencyUpstreamCause(
+                                    build,
+                                    Collections.singletonList(
+                                            new MavenArtifact("groupId:upstreamArtifactId:jar:version")),
+                                    Collections.emptyList()),
+                            new MavenDependencyUpstreamCause(
+                                    otherBuild,
+                                    Collections.singletonList(new MavenArtifact("groupId:otherArtifactId:jar:version")),
+                                    Collections.emptyList())));
+
+            // both waves trigger bottom, scheduled once with the causes of both waves
+            listener.onCompleted(sharedBuild, taskListener);
+            verify(queue).schedule2(eq(bottom), anyInt(), anyList());
+        }
+    }
+
+    private WorkflowRun mockTriggeredBuild(WorkflowJob downstream, String fullName, int number) {
+        when(downstream.getFullName()).thenReturn(fullName);
+        WorkflowRun downstreamBuild = mock(WorkflowRun.class);
+        when(downstreamBuild.getParent()).thenReturn(downstream);
+        when(downstreamBuild.getNumber()).thenReturn(number);
+        when(downstreamBuild.getResult()).thenReturn(Result.SUCCESS);
+        when(downstream.getBuildByNumber(number)).thenReturn(downstreamBuild);
+        when(downstreamBuild.getCauses())
+                .thenReturn(Collections.singletonList(new MavenDependencyUpstreamCause(
+                        build,
+                        Collections.singletonList(new MavenArtifact("groupId:upstreamArtifactId:jar:version")),
+                        Collections.emptyList())));
+        return downstreamBuild;
+    }
+
+    private WorkflowJob mockDownstream(String fullName, int lastBuildNumber) {
+        WorkflowRun lastBuild = mock(WorkflowRun.class);
+        when(lastBuild.getNumber()).thenReturn(lastBuildNumber);
+        WorkflowJob downstream = mock(WorkflowJob.class);
+        when(downstream.getLastBuild()).thenReturn(lastBuild);
+        when(downstream.isBuildable()).thenReturn(true);
+        when(downstream.getFullDisplayName()).thenReturn(fullName);
+        when(jenkins.getItemByFullName(fullName, Job.class)).thenReturn(downstream);
+        return downstream;
+    }
 }
@@ -0,0 +1,184 @@
+package org.jenkinsci.plugins.pipeline.maven.listeners;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import hudson.model.Action;
+import hudson.model.CauseAction;
+import hudson.model.Queue;
+import hudson.model.Queue.Item;
+import hudson.model.queue.ScheduleResult;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.pipeline.maven.cause.MavenDependencyUpstreamCause;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+public class DownstreamPipelineTriggerThrottleTest {
+
+    private Jenkins jenkins = mock(Jenkins.class);
+
+    private Queue queue = mock(Queue.class);
+
+    private ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+
+    private Map<String, Long> lastBuildDurations = new HashMap<>();
+
+    @Test
+    public void shouldDeferTheTriggersExceedingThePendingItemsAndDispatchTheLongestBuildFirst() {
+        try (MockedStatic<Jenkins> j = mockStatic(Jenkins.class)) {
+            j.when(Jenkins::get).thenReturn(jenkins);
+            when(jenkins.getQueue()).thenReturn(queue);
+            Item waitingItem = mock(Queue.WaitingItem.class);
+            Item triggeredItem = mock(Item.class);
+            when(triggeredItem.getId()).thenReturn(2L);
+            ScheduleResult scheduleResult = mock(ScheduleResult.class);
+            when(scheduleResult.getItem()).thenReturn(triggeredItem);
+            when(queue.schedule2(any(), anyInt(), anyList())).thenReturn(scheduleResult);
+            lastBuildDurations.put("short", 10L);
+            lastBuildDurations.put("long", 100L);
+            WorkflowJob first = mockDownstream();
+            WorkflowJob shortJob = mockDownstream();
+            WorkflowJob longJob = mockDownstream();
+            MavenDependencyUpstreamCause firstCause = mock(MavenDependencyUpstreamCause.class);
+            MavenDependencyUpstreamCause secondCause = mock(MavenDependencyUpstreamCause.class);
+
+            DownstreamPipelineTriggerThrottle throttle =
+                    new DownstreamPipelineTriggerThrottle(0, 1, lastBuildDurations::get, executor);
+            assertThat(throttle.defer("first", first, Collections.singletonList(firstCause)))
+                    .isFalse();
+            Item firstItem = mock(Item.class);
+            when(firstItem.getId()).thenReturn(1L);
+            throttle.onTriggered(firstItem);
+            when(queue.getItem(1L)).thenReturn(waitingItem);
+
+            assertThat(throttle.defer("short", shortJob, Collections.singletonList(firstCause)))
+                    .isTrue();
+            assertThat(throttle.defer("long", longJob, Collections.singletonList(firstCause)))
+                    .isTrue();
+            assertThat(throttle.defer("short", shortJob, Collections.singletonList(secondCause)))
+                    .isTrue();
+            assertThat(throttle.getDeferredTriggers()).isEqualTo(2);
+            verify(executor).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.NANOSECONDS));
+
+            // the first triggered build left the queue
+            when(queue.getItem(1L)).thenReturn(null);
+            when(queue.getItem(2L)).thenReturn(waitingItem);
+            throttle.dispatch();
+            verify(queue).schedule2(eq(longJob), anyInt(), anyList());
+            verify(queue, never()).schedule2(eq(shortJob), anyInt(), anyList());
+            assertThat(throttle.getDeferredTriggers()).isEqualTo(1);
+
+            when(queue.getItem(2L)).thenReturn(null);
+            throttle.dispatch();
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<Action>> actions = ArgumentCaptor.forClass(List.class);
+            verify(queue).schedule2(eq(shortJob), anyInt(), actions.capture());
+            assertThat(((CauseAction) actions.getValue().get(0)).getCauses()).containsExactly(firstCause, secondCause);
+            assertThat(throttle.getDeferredTriggers()).isZero();
+            assertThat(throttle.toPrettyString()).contains("deferred=2, dispatched=2, rejected=0");
+        }
+    }
+
+    @Test
+    public void shouldDeferTheTriggersExceedingTheRate() {
+        DownstreamPipelineTriggerThrottle throttle =
+                new DownstreamPipelineTriggerThrottle(1, 0, lastBuildDurations::get, executor);
+        MavenDependencyUpstreamCause cause = mock(MavenDependencyUpstreamCause.class);
+
+        assertThat(throttle.defer("first", mockDownstream(), Collections.singletonList(cause)))
+                .isFalse();
+        assertThat(throttle.defer("second", mockDownstream(), Collections.singletonList(cause)))
+                .isTrue();
+        verify(executor).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.NANOSECONDS));
+
+        // the next permit is one minute later
+        throttle.dispatch();
+        assertThat(throttle.getDeferredTriggers()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldLookUpTheLastBuildDurationWithoutHoldingTheMonitor() {
+        DownstreamPipelineTriggerThrottle[] throttle = new DownstreamPipelineTriggerThrottle[1];
+        throttle[0] = new DownstreamPipelineTriggerThrottle(
+                1,
+                0,
+                jobFullName -> {
+                    assertThat(Thread.holdsLock(throttle[0])).isFalse();
+                    return 10L;
+                },
+                executor);
+        MavenDependencyUpstreamCause cause = mock(MavenDependencyUpstreamCause.class);
+
+        assertThat(throttle[0].defer("first", mockDownstream(), Collections.singletonList(cause)))
+                .isFalse();
+        assertThat(throttle[0].defer("second", mockDownstream(), Collections.singletonList(cause)))
+                .isTrue();
+        assertThat(throttle[0].defer("second", mockDownstream(), Collections.singletonList(cause)))
+                .isTrue();
+        assertThat(throttle[0].getDeferredTriggers()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldDispatchTheDeferredTriggerWithTheAuthenticationOfTheCaller() {
+        try (MockedStatic<Jenkins> j = mockStatic(Jenkins.class)) {
+            j.when(Jenkins::get).thenReturn(jenkins);
+            j.when(Jenkins::getAuthentication2).thenCallRealMethod();
+            when(jenkins.getQueue()).thenReturn(queue);
+            Authentication[] scheduleAuthentication = new Authentication[1];
+            when(queue.schedule2(any(), anyInt(), anyList())).thenAnswer(invocation -> {
+                scheduleAuthentication[0] = Jenkins.getAuthentication2();
+                return mock(ScheduleResult.class);
+            });
+            DownstreamPipelineTriggerThrottle throttle =
+                    new DownstreamPipelineTriggerThrottle(0, 1, lastBuildDurations::get, executor);
+            MavenDependencyUpstreamCause cause = mock(MavenDependencyUpstreamCause.class);
+            Authentication upstreamAuthentication =
+                    new UsernamePasswordAuthenticationToken("upstream", "", Collections.emptyList());
+
+            assertThat(throttle.defer("first", mockDownstream(), Collections.singletonList(cause)))
+                    .isFalse();
+            Item firstItem = mock(Item.class);
+            when(firstItem.getId()).thenReturn(1L);
+            throttle.onTriggered(firstItem);
+            when(queue.getItem(1L)).thenReturn(mock(Queue.WaitingItem.class));
+            SecurityContextHolder.getContext().setAuthentication(upstreamAuthentication);
+            try {
+                assertThat(throttle.defer("second", mockDownstream(), Collections.singletonList(cause)))
+                        .isTrue();
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+
+            // the first triggered build left the queue, the dispatching thread has no authentication
+            when(queue.getItem(1L)).thenReturn(null);
+            throttle.dispatch();
+            assertThat(scheduleAuthentication[0]).isSameAs(upstreamAuthentication);
+        }
+    }
+
+    private WorkflowJob mockDownstream() {
+        WorkflowJob downstream = mock(WorkflowJob.class);
+        when(downstream.isBuildable()).thenReturn(true);
+        return downstream;
+    }
+}
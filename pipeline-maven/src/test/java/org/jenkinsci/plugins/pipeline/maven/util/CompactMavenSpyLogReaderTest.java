@@ -0,0 +1,142 @@
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+public class CompactMavenSpyLogReaderTest {
+
+    private static final long START_TIME = 1_700_000_000_000L;
+
+    DocumentBuilder documentBuilder;
+
+    @BeforeEach
+    public void before() throws Exception {
+        documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+    }
+
+    @Test
+    public void read_elements_and_comments() throws Exception {
+        Element mavenExecution = CompactMavenSpyLogReader.read(
+                new ByteArrayInputStream(compactMavenSpyLog(true)), documentBuilder);
+
+        assertThat(mavenExecution.getTagName()).isEqualTo("mavenExecution");
+        assertThat(mavenExecution.getAttribute("_time")).isEqualTo(new Timestamp(START_TIME).toString());
+
+        List<Element> events = XmlUtils.getExecutionEvents(mavenExecution, "ProjectSucceeded");
+        assertThat(events).hasSize(2);
+        for (Element event : events) {
+            Element project = XmlUtils.getUniqueChildElement(event, "project");
+            assertThat(project.getAttribute("artifactId")).isEqualTo("spring-petclinic");
+            assertThat(project.getTextContent()).isEqualTo("Spring PetClinic");
+        }
+        assertThat(events.get(0).getAttribute("_time")).isEqualTo(new Timestamp(START_TIME + 10).toString());
+        assertThat(events.get(1).getAttribute("_time")).isEqualTo(new Timestamp(START_TIME + 20).toString());
+
+        Node comment = mavenExecution.getLastChild();
+        assertThat(comment.getNodeType()).isEqualTo(Node.COMMENT_NODE);
+        assertThat(comment.getNodeValue()).isEqualTo(new Timestamp(START_TIME + 30) + " - Maven build completed");
+    }
+
+    @Test
+    public void read_truncated_logs() throws Exception {
+        byte[] compactMavenSpyLog = compactMavenSpyLog(false);
+        for (int length : new int[] {compactMavenSpyLog.length, compactMavenSpyLog.length - 3, 6}) {
+            InputStream in = new ByteArrayInputStream(Arrays.copyOf(compactMavenSpyLog, length));
+            Throwable throwable = catchThrowable(() -> CompactMavenSpyLogReader.read(in, documentBuilder));
+            assertThat(throwable).isInstanceOf(SAXException.class);
+        }
+    }
+
+    @Test
+    public void isCompactMavenSpyLog() throws Exception {
+        InputStream compact = new BufferedInputStream(new ByteArrayInputStream(compactMavenSpyLog(true)));
+        assertThat(CompactMavenSpyLogReader.isCompactMavenSpyLog(compact)).isTrue();
+        // the header is not consumed
+        assertThat(CompactMavenSpyLogReader.read(compact, documentBuilder).getTagName())
+                .isEqualTo("mavenExecution");
+
+        InputStream xml = new BufferedInputStream(
+                new ByteArrayInputStream("<mavenExecution/>".getBytes(StandardCharsets.UTF_8)));
+        assertThat(CompactMavenSpyLogReader.isCompactMavenSpyLog(xml)).isFalse();
+        assertThat(documentBuilder.parse(xml).getDocumentElement().getTagName()).isEqualTo("mavenExecution");
+    }
+
+    /**
+     * Encoded as by the {@code CompactFileMavenEventReporter} of the Maven spy
+     */
+    private static byte[] compactMavenSpyLog(boolean complete) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[] {'M', 'S', 'P', 'Y', 1});
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (START_TIME >>> shift));
+        }
+
+        // <ExecutionEvent type="ProjectSucceeded"><project artifactId="spring-petclinic">Spring PetClinic</project>
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        record.write(1);
+        record.write(10 << 1);
+        writeString(record, "ExecutionEvent");
+        record.write(1);
+        writeString(record, "type");
+        writeString(record, "ProjectSucceeded");
+        record.write(1 << 1);
+        writeString(record, "project");
+        record.write(1);
+        writeString(record, "artifactId");
+        writeString(record, "spring-petclinic");
+        record.write(1);
+        writeString(record, "Spring PetClinic");
+        writeRecord(out, record);
+
+        // same event, the strings are references to the string table
+        record.write(1);
+        record.write(20 << 1);
+        record.writeBytes(new byte[] {1, 1, 2, 3, 1 << 1, 4, 1, 5, 6, 1, 7});
+        writeRecord(out, record);
+
+        record.write(2);
+        record.write(30 << 1);
+        writeLiteral(record, "Maven build completed");
+        writeRecord(out, record);
+
+        if (complete) {
+            record.write(0);
+            record.write(40 << 1);
+            writeRecord(out, record);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeRecord(ByteArrayOutputStream out, ByteArrayOutputStream record) {
+        out.write(record.size());
+        out.writeBytes(record.toByteArray());
+        record.reset();
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        out.write(0);
+        writeLiteral(out, value);
+    }
+
+    private static void writeLiteral(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes.length);
+        out.writeBytes(bytes);
+    }
+}
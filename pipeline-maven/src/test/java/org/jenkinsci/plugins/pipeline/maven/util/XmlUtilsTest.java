@@ -82,6 +82,29 @@ public class XmlUtilsTest {
         assertThat(actualElements.size()).isEqualTo(1);
     }
 
+    @Test
+    public void test_getUniqueChildElement_resolves_project_reference() throws Exception {
+        String xml = "<mavenExecution>"
+                + "<ProjectDefinition id='1' groupId='com.example' artifactId='my-jar' baseDir='/path/to/my-jar'>"
+                + "<build directory='/path/to/my-jar/target'/>"
+                + "</ProjectDefinition>"
+                + "<ExecutionEvent type='MojoStarted'><project ref='1'/></ExecutionEvent>"
+                + "<ExecutionEvent type='MojoSucceeded'><project ref='1'/></ExecutionEvent>"
+                + "</mavenExecution>";
+        Element documentElement = toXml(xml);
+        for (Element executionEvent : XmlUtils.getExecutionEvents(documentElement, "MojoStarted", "MojoSucceeded")) {
+            Element buildElt = XmlUtils.getUniqueChildElementOrNull(executionEvent, "project", "build");
+            assertThat(buildElt.getAttribute("directory")).isEqualTo("/path/to/my-jar/target");
+
+            Element projectElt = XmlUtils.getUniqueChildElement(executionEvent, "project");
+            assertThat(projectElt.hasAttribute("ref")).isFalse();
+            assertThat(projectElt.hasAttribute("id")).isFalse();
+            assertThat(projectElt.getAttribute("artifactId")).isEqualTo("my-jar");
+            assertThat(XmlUtils.getProjectBuildDirectory(projectElt)).isEqualTo("/path/to/my-jar/target");
+            assertThat(XmlUtils.getChildrenElements(projectElt, "build")).hasSize(1);
+        }
+    }
+
     @Test
     public void test_getExecutionEvents_return_empty_searching_one_type() throws Exception {
         String xml = "<mavenExecution>" + "<ExecutionEvent type='ProjectSkipped' />" + "</mavenExecution>";